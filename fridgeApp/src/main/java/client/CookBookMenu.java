@@ -1,6 +1,7 @@
 package client;
 
 import java.util.Scanner;
+import models.CookBook;
 import services.CookBookManager;
 import services.RecipeManager;
 
@@ -37,8 +38,10 @@ public class CookBookMenu {
       System.out.println("Cookbook menu:");
       System.out.println("1. List all cookbooks.");
       System.out.println("2. List all cookbooks and their recipes.");
-      System.out.println("3. Manage cookbooks.");
-      System.out.println("4. Exit to main menu.");
+      System.out.println("3. List the cost of all recipes in a cookbook.");
+      System.out.println("4. Make a shopping list for a cookbook.");
+      System.out.println("5. Manage cookbooks.");
+      System.out.println("6. Exit to main menu.");
 
       int choice = scanner.nextInt();
       scanner.nextLine();
@@ -46,8 +49,27 @@ public class CookBookMenu {
       switch (choice) {
         case 1 -> System.out.println(cookBookManager.listAllCookBooks());
         case 2 -> System.out.println(cookBookManager.listAllCookBooksWithRecipes());
-        case 3 -> manageCookBooksMenu();
+        case 3 -> {
+          System.out.println(cookBookManager.listAllCookBooks());
+          System.out.println("Enter the name of the cookbook to list the costs of:");
+          String name = scanner.nextLine();
+          System.out.println(recipeManager.listRecipeCostsInCookBook(
+              cookBookManager.getCookBook(name)));
+        }
         case 4 -> {
+          System.out.println(cookBookManager.listAllCookBooks());
+          System.out.println("Enter the name of the cookbook to shop for:");
+          String name = scanner.nextLine();
+          CookBook cookBook = cookBookManager.getCookBook(name);
+          if (cookBook == null) {
+            System.out.println("CookBook not found!");
+          } else {
+            System.out.println(recipeManager.generateShoppingList(cookBook)
+                .getFormattedShoppingList());
+          }
+        }
+        case 5 -> manageCookBooksMenu();
+        case 6 -> {
           return;
         }
         default -> System.out.println("Invalid choice. Please try again.");
@@ -1,16 +1,51 @@
 package client;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import java.util.Scanner;
+import models.CookBook;
+import models.DiskFridge;
 import models.FoodList;
 import models.Fridge;
+import models.FridgeItem;
 import models.Ingredient;
+import models.Recipe;
 import models.RecipeList;
 import services.CookBookManager;
+import services.ExpiryScheduler;
 import services.FridgeManager;
 import services.RecipeManager;
+import utilities.BackupStore;
+import utilities.CompressionUtility;
 import utilities.CsvUtility;
+import utilities.DataFileReloader;
+import utilities.DataFileWatcher;
+import utilities.DataStore;
+import utilities.FridgeItemLoader;
+import utilities.ImportPlan;
+import utilities.JdbcDataStore;
+import utilities.JsonUtility;
+import utilities.MappedFridgeItemImporter;
+import utilities.MutationJournal;
+import utilities.PageFile;
+import utilities.PersistenceWriter;
+import utilities.SnapshotUtility;
 
 /**
  * Main menu class for the application.
@@ -24,11 +59,91 @@ public class MainMenu {
   private static final String FRIDGEITEMS_CSV = "fridgeApp/src/main/resources/data/fridgeitems.csv";
   private static final String RECIPES_CSV = "fridgeApp/src/main/resources/data/recipes.csv";
   private static final String COOKBOOKS_CSV = "fridgeApp/src/main/resources/data/cookbooks.csv";
+  private static final String SNAPSHOT = "fridgeApp/src/main/resources/data/snapshot.bin";
+  private static final String JOURNAL = "fridgeApp/src/main/resources/data/journal";
+  private static final String FRIDGE_PAGES = "fridgeApp/src/main/resources/data/fridge.pages";
+  private static final String DATABASE = "fridgeApp/src/main/resources/data/fridgeapp";
+  private static final String BACKUP_DIRECTORY = "fridgeApp/src/main/resources/data/backup";
+
+  /**
+   * System property choosing where data is stored: "csv" (default) uses the
+   * four CSV files, "snapshot" uses one binary snapshot and falls back to the
+   * CSV files if there is no snapshot yet, "journal" saves every change as it
+   * happens and starts from the CSV files if there is no journal yet, "json"
+   * stores the four data sets as JSON files and reads the CSV file of a data
+   * set that has no JSON file yet, "sql" stores them in an embedded database,
+   * see {@link JdbcDataStore}, and fills it from the CSV files the first time.
+   */
+  private static final String STORAGE_FORMAT_PROPERTY = "fridgeApp.storageFormat";
+
+  /**
+   * System property choosing how fridge items are imported: "stream" reads the
+   * file line by line, "mapped" parses it on all cores. If not set, files from
+   * {@link #MAPPED_IMPORT_THRESHOLD_BYTES} and up are imported mapped.
+   */
+  private static final String IMPORT_MODE_PROPERTY = "fridgeApp.importMode";
+  private static final long MAPPED_IMPORT_THRESHOLD_BYTES = 16L << 20;
+
+  /**
+   * System property choosing if the CSV files are compressed: "gzip" stores
+   * them as .csv.gz, anything else as plain .csv. Existing plain files are
+   * still read until they are saved compressed for the first time.
+   */
+  private static final String COMPRESSION_PROPERTY = "fridgeApp.compression";
+
+  /**
+   * System property setting the read and write buffer size in bytes, see
+   * {@link CompressionUtility#setBufferSize(int)}.
+   */
+  private static final String BUFFER_SIZE_PROPERTY = "fridgeApp.bufferSize";
+
+  /**
+   * System property choosing where the fridge items are kept: "disk" keeps them
+   * in a page file, see {@link DiskFridge}, anything else in memory. The page
+   * file is filled from the fridge items file the first time it is used, and
+   * from then on it is where the fridge items are saved.
+   */
+  private static final String FRIDGE_STORE_PROPERTY = "fridgeApp.fridgeStore";
+
+  /**
+   * System property turning on hot reload: if "true", changes made to the food
+   * list and recipes CSV files by other programs while the application runs
+   * are applied to the data in memory, see {@link DataFileReloader}. The files
+   * are read when they change, and the changes are applied between menu
+   * actions. Only used with the CSV storage format.
+   */
+  private static final String HOT_RELOAD_PROPERTY = "fridgeApp.hotReload";
+
+  /**
+   * System property setting how often the data files are backed up, in
+   * minutes, see {@link BackupStore}. If not set, no backups are taken. A last
+   * backup is taken when the application exits. The files backed up are the
+   * ones the storage format in use keeps the data in: the CSV or JSON files,
+   * the snapshot, the journal or the database, and the fridge page file.
+   */
+  private static final String BACKUP_INTERVAL_PROPERTY = "fridgeApp.backupIntervalMinutes";
+
+  /**
+   * System properties setting how many hours, days and weeks a backup is kept
+   * of. The defaults are 24 hours, 7 days and 4 weeks.
+   */
+  private static final String BACKUP_KEEP_HOURLY_PROPERTY = "fridgeApp.backupKeepHourly";
+  private static final String BACKUP_KEEP_DAILY_PROPERTY = "fridgeApp.backupKeepDaily";
+  private static final String BACKUP_KEEP_WEEKLY_PROPERTY = "fridgeApp.backupKeepWeekly";
+
+  /**
+   * System property naming a backup to restore before the data is imported, or
+   * "latest" for the newest backup.
+   */
+  private static final String RESTORE_BACKUP_PROPERTY = "fridgeApp.restoreBackup";
 
   private final String foodListPath;
   private final String fridgeItemsPath;
   private final String recipesPath;
   private final String cookBooksPath;
+  private final String snapshotPath;
+  private final String journalPath;
+  private final String databasePath;
 
   private static final Scanner scanner = new Scanner(System.in);
   private final FoodList foodList;
@@ -37,30 +152,105 @@ public class MainMenu {
   private final FridgeManager fridgeManager;
   private final RecipeManager recipeManager;
   private final CookBookManager cookBookManager;
+  private MutationJournal journal;
+  private DataStore dataStore;
+  private DataFileWatcher watcher;
+  private final BackupStore backupStore;
+  private ScheduledExecutorService backupScheduler;
+  private ExpiryScheduler expiryScheduler;
+  private ExecutorService dataStoreExecutor;
+  private final PersistenceWriter persistenceWriter = new PersistenceWriter();
+
+  /**
+   * The version of each data set when its CSV file was last read or written,
+   * by file path, so unchanged data sets are not written again.
+   */
+  private final Map<String, Long> savedVersions = new ConcurrentHashMap<>();
+
+  /**
+   * Work from background threads waiting to be run on the menu thread, which
+   * owns the data in memory: reloaded data files and the expiry move at
+   * midnight.
+   */
+  private final Queue<Runnable> pendingTasks = new ConcurrentLinkedQueue<>();
 
   /**
    * Constructs a new MainMenu instance and initializes the managers and lists.
    */
   public MainMenu() {
 
-    this.foodListPath = getFilePath(FOODLIST_CSV);
-    this.fridgeItemsPath = getFilePath(FRIDGEITEMS_CSV);
-    this.recipesPath = getFilePath(RECIPES_CSV);
-    this.cookBooksPath = getFilePath(COOKBOOKS_CSV);
-
+    this.foodListPath = getDataFilePath(FOODLIST_CSV);
+    this.fridgeItemsPath = getDataFilePath(FRIDGEITEMS_CSV);
+    this.recipesPath = getDataFilePath(RECIPES_CSV);
+    this.cookBooksPath = getDataFilePath(COOKBOOKS_CSV);
+    this.snapshotPath = getFilePath(SNAPSHOT);
+    this.journalPath = getFilePath(JOURNAL);
+    this.databasePath = getFilePath(DATABASE);
+    this.backupStore = new BackupStore(getFilePath(BACKUP_DIRECTORY));
+    restoreBackup();
 
     this.foodList = new FoodList();
-    this.fridge = new Fridge();
+    this.fridge = createFridge();
     this.recipeList = new RecipeList();
     this.fridgeManager = new FridgeManager(fridge, foodList);
     this.recipeManager = new RecipeManager(recipeList, fridgeManager);
     this.cookBookManager = new CookBookManager(recipeList);
+
+    Integer bufferSize = Integer.getInteger(BUFFER_SIZE_PROPERTY);
+    if (bufferSize != null) {
+      CompressionUtility.setBufferSize(bufferSize);
+    }
+  }
+
+  private Fridge createFridge() {
+    if (!System.getProperty(FRIDGE_STORE_PROPERTY, "").equalsIgnoreCase("disk")) {
+      return new Fridge();
+    }
+    String pagesPath = getFilePath(FRIDGE_PAGES);
+    try {
+      return new DiskFridge(pagesPath, foodList, PageFile.DEFAULT_POOL_PAGES);
+    } catch (IOException e) {
+      System.err.println("Error opening the fridge page file " + pagesPath + ": "
+          + e.getMessage() + ". Keeping the fridge in memory.");
+      return new Fridge();
+    }
   }
 
   private String getFilePath(String relativePath) {
     return new File(relativePath).getAbsolutePath();
   }
 
+  private String getDataFilePath(String relativePath) {
+    String filePath = getFilePath(relativePath);
+    if (useJson()) {
+      filePath = filePath.substring(0, filePath.lastIndexOf('.')) + JsonUtility.JSON_EXTENSION;
+    }
+    if (System.getProperty(COMPRESSION_PROPERTY, "").equalsIgnoreCase("gzip")) {
+      return filePath + CompressionUtility.GZIP_EXTENSION;
+    }
+    return filePath;
+  }
+
+  /**
+   * Gets the file to import from. A compressed file that does not exist yet is
+   * read from its plain version, and a JSON file that does not exist yet from
+   * its CSV version.
+   */
+  private String getReadablePath(String filePath) {
+    if (new File(filePath).exists()) {
+      return filePath;
+    }
+    if (CompressionUtility.isGzipPath(filePath)) {
+      return getReadablePath(filePath.substring(0, filePath.length()
+          - CompressionUtility.GZIP_EXTENSION.length()));
+    }
+    if (JsonUtility.isJsonPath(filePath)) {
+      return getReadablePath(filePath.substring(0, filePath.length()
+          - JsonUtility.JSON_EXTENSION.length()) + ".csv");
+    }
+    return filePath;
+  }
+
   /**
    * The main method to start the application.
    *
@@ -81,6 +271,9 @@ public class MainMenu {
       System.out.println("Initializing application...");
 
       importData();
+      startHotReload();
+      startBackups();
+      startExpiryScheduler();
       System.out.println("Initialization complete.");
     } catch (Exception e) {
       System.err.println("Error during initialization: " + e.getMessage());
@@ -103,6 +296,7 @@ public class MainMenu {
   private void mainMenuLoop() {
     boolean running = true;
     while (running) {
+      runPendingTasks();
       System.out.println("Main Menu:");
       System.out.println("1. Manage Fridge (View, ddd, remove items from the fridge).");
       System.out.println("2. Manage Food List (Add, remove, view ingredients registered).");
@@ -112,11 +306,24 @@ public class MainMenu {
       System.out.println("6. Quit");
 
       int choice = scanner.nextInt();
+      runPendingTasks();
       switch (choice) {
-        case 1 -> new FridgeMenu(fridgeManager, scanner, foodList).display();
-        case 2 -> new FoodListMenu(foodList, scanner).display();
-        case 3 -> new RecipeMenu(recipeManager, scanner, foodList).display();
-        case 4 -> new CookBookMenu(cookBookManager, recipeManager, scanner).display();
+        case 1 -> {
+          new FridgeMenu(fridgeManager, scanner, foodList).display();
+          saveInBackground();
+        }
+        case 2 -> {
+          new FoodListMenu(foodList, scanner).display();
+          saveInBackground();
+        }
+        case 3 -> {
+          new RecipeMenu(recipeManager, scanner, foodList).display();
+          saveInBackground();
+        }
+        case 4 -> {
+          new CookBookMenu(cookBookManager, recipeManager, scanner).display();
+          saveInBackground();
+        }
         case 5 -> new InfoMenu(scanner).display();
         case 6 -> {
           System.out.println("Exiting application.");
@@ -129,97 +336,697 @@ public class MainMenu {
   }
 
   /**
-   * Imports data from CSV files.
+   * Imports data from the journal, the snapshot, the database or the CSV files.
    */
   public void importData() {
+    if (useJournal()) {
+      importJournal();
+      return;
+    }
+    if (useSql()) {
+      importSql();
+      return;
+    }
+    if (useSnapshot() && new File(snapshotPath).exists()) {
+      importSnapshot();
+      return;
+    }
+    importCsv();
+  }
+
+  /**
+   * Imports the CSV files. The fridge items and recipes only need the food list,
+   * so they are imported at the same time once it is loaded, and the cookbooks
+   * follow the recipes.
+   */
+  private void importCsv() {
+    System.out.println("Starting data import...");
+    ExecutorService executor = Executors.newFixedThreadPool(2);
     try {
-      System.out.println("Starting data import...");
+      ImportPlan.Report report = new ImportPlan()
+          .addPhase("Food List", this::importFoodList)
+          .addPhase("Fridge Items", this::importFridgeItems, "Food List")
+          .addPhase("Recipes", this::importRecipes, "Food List")
+          .addPhase("CookBooks", this::importCookBooks, "Recipes")
+          .run(executor);
+      System.out.println(report.getFormattedReport());
+      markSavedIfExists(foodListPath, foodList.getVersion());
+      markSavedIfExists(fridgeItemsPath, fridge.getVersion());
+      markSavedIfExists(recipesPath, recipeList.getVersion());
+      markSavedIfExists(cookBooksPath, cookBookManager.getVersion());
+      System.out.println("Data import completed successfully.");
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  private void markSavedIfExists(String filePath, long version) {
+    if (new File(filePath).exists()) {
+      savedVersions.put(filePath, version);
+    }
+  }
+
+  private void importFoodList() {
+    String filePath = getReadablePath(foodListPath);
+    System.out.println("Importing Food List from: " + filePath);
+    Map<String, Ingredient> ingredients = JsonUtility.isJsonPath(filePath)
+        ? JsonUtility.readIngredientsFromJson(filePath)
+        : CsvUtility.readIngredientsFromCsv(filePath);
+    if (ingredients != null && !ingredients.isEmpty()) {
+      ingredients.values().forEach(foodList::addIngredient);
+      System.out.println("Food List imported successfully: "
+          + ingredients.size() + " ingredients loaded.");
+    } else {
+      System.err.println("No ingredients found in the Food List CSV.");
+    }
+  }
 
+  private void importFridgeItems() {
+    if (fridge instanceof DiskFridge diskFridge && diskFridge.size() > 0) {
+      System.out.println("Fridge items loaded from the page file: "
+          + diskFridge.size() + " items.");
+      return;
+    }
+    String filePath = getReadablePath(fridgeItemsPath);
+    System.out.println("Importing Fridge Items from: " + filePath);
 
-      System.out.println("Importing Food List from: " + foodListPath);
-      Map<String, Ingredient> ingredients = CsvUtility.readIngredientsFromCsv(foodListPath);
-      if (ingredients != null && !ingredients.isEmpty()) {
-        ingredients.values().forEach(foodList::addIngredient);
-        System.out.println("Food List imported successfully: "
-            + ingredients.size() + " ingredients loaded.");
+    try {
+      FridgeItemLoader.LoadResult result;
+      if (JsonUtility.isJsonPath(filePath)) {
+        result = JsonUtility.loadFridgeItemsFromJson(filePath, fridgeManager);
+      } else if (useMappedImport(filePath)) {
+        result = MappedFridgeItemImporter.importFridgeItems(filePath, fridgeManager);
       } else {
-        System.err.println("No ingredients found in the Food List CSV.");
+        result = FridgeItemLoader.loadFromCsv(filePath, fridgeManager);
       }
+      result.getErrors().forEach(System.err::println);
 
+      System.out.println("Import Summary:");
+      System.out.println("Items successfully added: " + result.getItemsAdded());
+      System.out.println("Items failed to import: " + result.getItemsFailed());
+    } catch (Exception e) {
+      System.err.println("Error during fridge items import: " + e.getMessage());
+    }
+  }
 
-      System.out.println("Importing Fridge Items from: " + fridgeItemsPath);
+  private void importRecipes() {
+    String filePath = getReadablePath(recipesPath);
+    System.out.println("Importing Recipes from: " + filePath);
+    int[] resultRecipeImport = JsonUtility.isJsonPath(filePath)
+        ? JsonUtility.readRecipesFromJson(filePath, recipeManager)
+        : CsvUtility.readRecipesFromCsv(filePath, recipeManager);
+    if (resultRecipeImport[0] > 0) {
+      System.out.println("Recipes imported successfully: "
+          + resultRecipeImport[0] + " recipes loaded.");
+    } else {
+      System.err.println("No recipes imported. Failed to add "
+          + resultRecipeImport[1] + " recipes.");
+    }
+  }
 
-      try {
-        int[] stats = CsvUtility.readFridgeItemsFromCsv(fridgeItemsPath, fridgeManager);
+  private void importCookBooks() {
+    String filePath = getReadablePath(cookBooksPath);
+    System.out.println("Importing CookBooks from: " + filePath);
+    int[] resultCookBooksImport = JsonUtility.isJsonPath(filePath)
+        ? JsonUtility.readCookBooksFromJson(filePath, cookBookManager)
+        : CsvUtility.readCookBooksFromCsv(filePath, cookBookManager);
+    if (resultCookBooksImport[0] > 0) {
+      System.out.println("CookBooks imported successfully: "
+          + resultCookBooksImport[0] + " cookbooks loaded.");
+    } else {
+      System.err.println("No CookBooks imported. Failed to add "
+          + resultCookBooksImport[1] + " recipes.");
+    }
+  }
 
-        System.out.println("Import Summary:");
-        System.out.println("Items successfully added: " + stats[0]);
-        System.out.println("Items failed to import: " + stats[1]);
-      } catch (Exception e) {
-        System.err.println("Error during fridge items import: " + e.getMessage());
-      }
+  /**
+   * Restores a backup if one is asked for. Runs before the page file, the
+   * journal or the database are opened, so none of them is replaced while it
+   * is in use.
+   */
+  private void restoreBackup() {
+    String snapshotId = System.getProperty(RESTORE_BACKUP_PROPERTY);
+    if (snapshotId == null || snapshotId.isBlank()) {
+      return;
+    }
+    try {
+      int restored = backupStore.restore(snapshotId.trim(),
+          new File(foodListPath).getParent());
+      System.out.println("Restored backup " + snapshotId + ": " + restored + " files written.");
+    } catch (IOException e) {
+      System.err.println("Error restoring backup " + snapshotId + ": " + e.getMessage());
+    }
+  }
 
+  /**
+   * Backs up the data files on a schedule if backups are turned on.
+   */
+  private void startBackups() {
+    long intervalMinutes = Long.getLong(BACKUP_INTERVAL_PROPERTY, 0L);
+    if (intervalMinutes <= 0) {
+      return;
+    }
+    backupScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "backup");
+      thread.setDaemon(true);
+      return thread;
+    });
+    backupScheduler.scheduleAtFixedRate(this::takeBackup, intervalMinutes, intervalMinutes,
+        TimeUnit.MINUTES);
+  }
 
-      System.out.println("Importing Recipes from: " + recipesPath);
-      int[] resultRecipeImport = CsvUtility.readRecipesFromCsv(recipesPath, recipeManager);
-      if (resultRecipeImport[0] > 0) {
-        System.out.println("Recipes imported successfully: "
-            + resultRecipeImport[0] + " recipes loaded.");
+  private void takeBackup() {
+    try {
+      List<String> files = new ArrayList<>();
+      List<BackupStore.Source> sources = new ArrayList<>();
+      if (journal != null) {
+        sources.add(journal);
+      } else if (dataStore != null) {
+        sources.add(dataStore);
+      } else if (useSnapshot()) {
+        files.add(snapshotPath);
       } else {
-        System.err.println("No recipes imported. Failed to add "
-            + resultRecipeImport[1] + " recipes.");
+        files.addAll(List.of(foodListPath, recipesPath, cookBooksPath));
+        if (!(fridge instanceof DiskFridge)) {
+          files.add(fridgeItemsPath);
+        }
       }
+      if (fridge instanceof DiskFridge diskFridge) {
+        sources.add(diskFridge);
+      }
+      backupStore.backup(new File(foodListPath).getParent(), files, sources);
+      backupStore.prune(Integer.getInteger(BACKUP_KEEP_HOURLY_PROPERTY, 24),
+          Integer.getInteger(BACKUP_KEEP_DAILY_PROPERTY, 7),
+          Integer.getInteger(BACKUP_KEEP_WEEKLY_PROPERTY, 4));
+    } catch (IOException e) {
+      System.err.println("Error while backing up data: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Keeps the expired items of an in-memory fridge up to date at every
+   * midnight. A fridge in a page file finds them with its expiry index instead.
+   */
+  private void startExpiryScheduler() {
+    if (fridge instanceof DiskFridge) {
+      return;
+    }
+    expiryScheduler = new ExpiryScheduler(fridgeManager);
+    expiryScheduler.start(pendingTasks::add);
+    expiryScheduler.addExpiryListener(item -> System.out.println("Expired: "
+        + item.getIngredient().getIngredientName() + ", Expiration: "
+        + item.getFormattedExpirationDate()));
+    fridgeManager.setExpiryScheduler(expiryScheduler);
+    System.out.println(expiryScheduler.getExpiredItems().size()
+        + " items in the fridge have expired.");
+  }
+
+  /**
+   * Starts watching the food list and recipes files if hot reload is on.
+   */
+  private void startHotReload() {
+    if (!Boolean.getBoolean(HOT_RELOAD_PROPERTY)
+        || !System.getProperty(STORAGE_FORMAT_PROPERTY, "csv").equalsIgnoreCase("csv")) {
+      return;
+    }
+    try {
+      watcher = new DataFileWatcher(new File(foodListPath).getParent(),
+          DataFileWatcher.DEFAULT_SETTLE_MILLIS);
+    } catch (IOException e) {
+      System.err.println("Error starting hot reload: " + e.getMessage());
+      return;
+    }
+    watcher.onChange(foodListPath, () -> {
+      Map<String, Ingredient> ingredients = DataFileReloader.readFoodList(foodListPath);
+      if (ingredients != null) {
+        pendingTasks.add(() -> printReloaded("ingredients", foodListPath,
+            DataFileReloader.applyFoodList(ingredients, foodList), foodList.getVersion()));
+      }
+    });
+    watcher.onChange(recipesPath, () -> {
+      DataFileReloader.RecipeRows rows = DataFileReloader.readRecipes(recipesPath);
+      if (rows != null) {
+        pendingTasks.add(() -> printReloaded("recipes", recipesPath,
+            DataFileReloader.applyRecipes(rows, recipeManager), recipeList.getVersion()));
+      }
+    });
+    watcher.start();
+    System.out.println("Watching " + foodListPath + " and " + recipesPath + " for changes.");
+  }
+
+  /**
+   * Runs the work handed to the menu thread since the last menu action, in the
+   * order it was handed over.
+   */
+  private void runPendingTasks() {
+    Runnable task;
+    while ((task = pendingTasks.poll()) != null) {
+      task.run();
+    }
+  }
+
+  /**
+   * Reports a reload, and marks the data set as saved since it now matches its
+   * file.
+   */
+  private void printReloaded(String dataSet, String filePath, int[] counts, long version) {
+    if (counts == null) {
+      return;
+    }
+    savedVersions.put(filePath, version);
+    System.out.println("Reloaded " + dataSet + " from " + filePath + ": " + counts[0]
+        + " added, " + counts[1] + " changed, " + counts[2] + " removed.");
+  }
+
+  private boolean useMappedImport(String filePath) {
+    String importMode = System.getProperty(IMPORT_MODE_PROPERTY, "");
+    if (importMode.equalsIgnoreCase("mapped")) {
+      return true;
+    }
+    if (importMode.equalsIgnoreCase("stream")) {
+      return false;
+    }
+    return new File(filePath).length() >= MAPPED_IMPORT_THRESHOLD_BYTES;
+  }
 
+  private void importSnapshot() {
+    try {
+      System.out.println("Importing snapshot from: " + snapshotPath);
+      int[] counts = SnapshotUtility.readSnapshot(snapshotPath, foodList, fridgeManager,
+          recipeManager, cookBookManager);
+      System.out.println("Snapshot imported successfully: " + counts[0] + " ingredients, "
+          + counts[1] + " fridge items, " + counts[2] + " recipes and "
+          + counts[3] + " cookbooks loaded.");
+    } catch (IOException e) {
+      System.err.println("Error during snapshot import: " + e.getMessage());
+    }
+  }
 
-      System.out.println("Importing CookBooks from: " + cookBooksPath);
-      int[] resultCookBooksImport = CsvUtility.readCookBooksFromCsv(cookBooksPath,
-          cookBookManager);
-      if (resultCookBooksImport[0] > 0) {
-        System.out.println("CookBooks imported successfully: "
-            + resultCookBooksImport[0] + " cookbooks loaded.");
+  private void importJournal() {
+    try {
+      journal = new MutationJournal(journalPath);
+      System.out.println("Recovering data from journal: " + journalPath);
+      if (journal.recover(foodList, fridgeManager, recipeManager, cookBookManager)) {
+        System.out.println("Journal recovered successfully: "
+            + foodList.getFoodList().size() + " ingredients, "
+            + fridge.getAllFridgeItems().size() + " fridge items, "
+            + recipeList.getAllRecipes().size() + " recipes and "
+            + cookBookManager.getAllCookBooks().size() + " cookbooks loaded.");
       } else {
-        System.err.println("No CookBooks imported. Failed to add "
-            + resultCookBooksImport[1] + " recipes.");
+        System.out.println("No journal found, starting from the CSV files.");
+        importCsv();
+        journal.checkpoint(foodList, fridge.getAllFridgeItems(),
+            recipeList.getAllRecipes().values(), cookBookManager.getAllCookBooks());
       }
+      journal.attach(foodList, fridgeManager, recipeManager, cookBookManager);
+    } catch (IOException e) {
+      journal = null;
+      System.err.println("Error during journal import: " + e.getMessage());
+    }
+  }
 
+  /**
+   * Opens the database and loads the data sets from it. If the database has
+   * no ingredients yet, the CSV files are imported and saved to it instead.
+   */
+  private void importSql() {
+    try {
+      dataStore = new JdbcDataStore(databasePath);
+    } catch (IOException e) {
+      System.err.println(e.getMessage() + " Using the CSV files instead.");
+      importCsv();
+      return;
+    }
+    Map<String, Ingredient> ingredients;
+    try {
+      ingredients = dataStore.ingredients().loadAll();
+    } catch (IOException e) {
+      System.err.println("Error during database import: " + e.getMessage()
+          + " Using the CSV files instead.");
+      try {
+        dataStore.close();
+      } catch (IOException closeError) {
+        System.err.println("Error while closing the database: " + closeError.getMessage());
+      }
+      dataStore = null;
+      importCsv();
+      return;
+    }
+    dataStoreExecutor = Executors.newSingleThreadExecutor();
+    if (ingredients.isEmpty()) {
+      System.out.println("No data in the database yet, starting from the CSV files.");
+      importCsv();
+      try {
+        saveSql().join();
+      } catch (CompletionException e) {
+        System.err.println("Error while filling the database: " + e.getCause().getMessage());
+      }
+      return;
+    }
+
+    System.out.println("Importing data from the database: " + databasePath);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      ImportPlan.Report report = new ImportPlan()
+          .addPhase("Food List", () -> ingredients.values().forEach(foodList::addIngredient))
+          .addPhase("Fridge Items", this::loadFridgeItemsFromStore, "Food List")
+          .addPhase("Recipes", () -> printLoaded("recipes",
+              loadFromStore(() -> dataStore.recipes().loadAll(recipeManager))), "Food List")
+          .addPhase("CookBooks", () -> printLoaded("cookbooks",
+              loadFromStore(() -> dataStore.cookBooks().loadAll(cookBookManager))), "Recipes")
+          .run(executor);
+      System.out.println(report.getFormattedReport());
+      savedVersions.put(databasePath + "#ingredients", foodList.getVersion());
+      savedVersions.put(databasePath + "#fridgeItems", fridge.getVersion());
+      savedVersions.put(databasePath + "#recipes", recipeList.getVersion());
+      savedVersions.put(databasePath + "#cookBooks", cookBookManager.getVersion());
       System.out.println("Data import completed successfully.");
+    } finally {
+      executor.shutdown();
+    }
+  }
 
-    } catch (Exception e) {
-      System.err.println("Error during data import: " + e.getMessage());
+  private void loadFridgeItemsFromStore() {
+    if (fridge instanceof DiskFridge diskFridge && diskFridge.size() > 0) {
+      System.out.println("Fridge items loaded from the page file: "
+          + diskFridge.size() + " items.");
+      return;
     }
+    printLoaded("fridge items",
+        loadFromStore(() -> dataStore.fridgeItems().loadAll(fridgeManager)));
+  }
+
+  private static void printLoaded(String dataSet, int[] counts) {
+    System.out.println("Loaded " + counts[0] + " " + dataSet + " from the database, "
+        + counts[1] + " failed.");
   }
 
   /**
-   * Exports data to CSV files.
+   * Loads a data set from the data store.
    */
-  public void exportData() {
+  @FunctionalInterface
+  private interface StoreLoad<T> {
+    T load() throws IOException;
+  }
+
+  /**
+   * Writes a copy of a data set to a file.
+   */
+  @FunctionalInterface
+  private interface FileSave<T> {
+    void write(Writer writer, T data) throws IOException;
+  }
+
+  /**
+   * Saves a copy of a data set to the data store.
+   */
+  @FunctionalInterface
+  private interface StoreSave<T> {
+    void save(T data) throws IOException;
+  }
+
+  private static <T> T loadFromStore(StoreLoad<T> load) {
     try {
-      System.out.println("Starting data export...");
+      return load.load();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e.getMessage(), e);
+    }
+  }
 
+  private boolean useSql() {
+    return System.getProperty(STORAGE_FORMAT_PROPERTY, "csv").equalsIgnoreCase("sql");
+  }
 
-      System.out.println("Exporting Food List to: " + foodListPath);
-      CsvUtility.writeIngredientsToCsv(foodListPath, foodList.getFoodList());
-      System.out.println("Food List exported successfully.");
+  private boolean useSnapshot() {
+    return System.getProperty(STORAGE_FORMAT_PROPERTY, "csv").equalsIgnoreCase("snapshot");
+  }
 
+  private boolean useJournal() {
+    return System.getProperty(STORAGE_FORMAT_PROPERTY, "csv").equalsIgnoreCase("journal");
+  }
 
-      System.out.println("Exporting Fridge Items to: " + fridgeItemsPath);
-      CsvUtility.writeFridgeItemsToCsv(fridgeItemsPath, fridge.getAllFridgeItems());
-      System.out.println("Fridge Items exported successfully.");
+  private boolean useJson() {
+    return System.getProperty(STORAGE_FORMAT_PROPERTY, "csv").equalsIgnoreCase("json");
+  }
 
+  /**
+   * Exports data to the journal, the snapshot, the database or the CSV files.
+   * In journal mode every change is already saved, so this only waits for the
+   * journal, and closes it after the last backup.
+   */
+  public void exportData() {
+    if (journal != null) {
+      try {
+        journal.flush().join();
+      } catch (CompletionException e) {
+        System.err.println("Error while writing the journal: " + e.getCause().getMessage());
+      }
+    } else if (useSnapshot()) {
+      exportSnapshot();
+    } else {
+      try {
+        System.out.println("Starting data export...");
+        saveCsv().join();
+        System.out.println("Data export completed successfully.");
+      } catch (CompletionException e) {
+        System.err.println("Error during data export: " + e.getCause().getMessage());
+      }
+    }
 
-      System.out.println("Exporting Recipes to: " + recipesPath);
-      CsvUtility.writeRecipesToCsv(recipesPath,
-          recipeList.getAllRecipes().values().stream().toList());
-      System.out.println("Recipes exported successfully.");
+    if (backupScheduler != null) {
+      backupScheduler.shutdown();
+      takeBackup();
+    }
 
+    if (journal != null) {
+      exportJournal();
+    }
 
-      System.out.println("Exporting CookBooks to: " + cookBooksPath);
-      CsvUtility.writeCookBooksToCsv(cookBooksPath, cookBookManager.getAllCookBooks());
-      System.out.println("CookBooks exported successfully.");
+    if (expiryScheduler != null) {
+      expiryScheduler.close();
+    }
 
-      System.out.println("Data export completed successfully.");
-    } catch (Exception e) {
-      System.err.println("Error during data export: " + e.getMessage());
+    if (watcher != null) {
+      try {
+        watcher.close();
+      } catch (IOException e) {
+        System.err.println("Error while stopping hot reload: " + e.getMessage());
+      }
+    }
+
+    if (dataStore != null) {
+      dataStoreExecutor.shutdown();
+      try {
+        dataStore.close();
+      } catch (IOException e) {
+        System.err.println("Error while closing the database: " + e.getMessage());
+      }
+    }
+
+    if (fridge instanceof DiskFridge diskFridge) {
+      try {
+        diskFridge.close();
+      } catch (IOException e) {
+        System.err.println("Error while closing the fridge page file: " + e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Saves the CSV files on a background thread after the user has made changes,
+   * so a crash loses at most the changes made in the current menu. Only used
+   * with the CSV storage format, the journal saves every change by itself.
+   */
+  private void saveInBackground() {
+    if (journal != null || useSnapshot()) {
+      return;
+    }
+    saveCsv().exceptionally(e -> {
+      Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+      System.err.println("Error while saving data: " + cause.getMessage());
+      return null;
+    });
+  }
+
+  /**
+   * Saves the CSV or JSON files, or the database tables, of the data sets that
+   * changed since they were last read or written.
+   */
+  private CompletableFuture<Void> saveCsv() {
+    if (dataStore != null) {
+      return saveSql();
+    }
+    if (useJson()) {
+      return saveJson();
+    }
+    List<CompletableFuture<Void>> saves = List.of(
+        saveIfChanged(foodListPath, foodList.getVersion(), this::copyIngredients,
+            CsvUtility::writeIngredientsToCsv),
+        saveFridgeItems(() -> saveIfChanged(fridgeItemsPath, fridge.getVersion(),
+            this::copyFridgeItems, CsvUtility::writeFridgeItemsToCsv)),
+        saveIfChanged(recipesPath, recipeList.getVersion(),
+            () -> List.copyOf(copyRecipes().values()), CsvUtility::writeRecipesToCsv),
+        saveIfChanged(cookBooksPath, cookBookManager.getVersion(), this::copyCookBooks,
+            CsvUtility::writeCookBooksToCsv));
+    return CompletableFuture.allOf(saves.toArray(new CompletableFuture<?>[0]));
+  }
+
+  private CompletableFuture<Void> saveJson() {
+    List<CompletableFuture<Void>> saves = List.of(
+        saveIfChanged(foodListPath, foodList.getVersion(), this::copyIngredients,
+            JsonUtility::writeIngredientsToJson),
+        saveFridgeItems(() -> saveIfChanged(fridgeItemsPath, fridge.getVersion(),
+            this::copyFridgeItems, JsonUtility::writeFridgeItemsToJson)),
+        saveIfChanged(recipesPath, recipeList.getVersion(),
+            () -> List.copyOf(copyRecipes().values()), JsonUtility::writeRecipesToJson),
+        saveIfChanged(cookBooksPath, cookBookManager.getVersion(), this::copyCookBooks,
+            JsonUtility::writeCookBooksToJson));
+    return CompletableFuture.allOf(saves.toArray(new CompletableFuture<?>[0]));
+  }
+
+  private CompletableFuture<Void> saveSql() {
+    List<CompletableFuture<Void>> saves = List.of(
+        saveToStoreIfChanged("ingredients", foodList.getVersion(), this::copyIngredients,
+            ingredients -> dataStore.ingredients().saveAll(ingredients)),
+        saveFridgeItems(() -> saveToStoreIfChanged("fridgeItems", fridge.getVersion(),
+            this::copyFridgeItems, items -> dataStore.fridgeItems().saveAll(items))),
+        saveToStoreIfChanged("recipes", recipeList.getVersion(), this::copyRecipes,
+            recipes -> dataStore.recipes().saveAll(recipes.values())),
+        saveToStoreIfChanged("cookBooks", cookBookManager.getVersion(), this::copyCookBooks,
+            cookBooks -> dataStore.cookBooks().saveAll(cookBooks)));
+    return CompletableFuture.allOf(saves.toArray(new CompletableFuture<?>[0]));
+  }
+
+  private Map<String, Ingredient> copyIngredients() {
+    Map<String, Ingredient> ingredients = new LinkedHashMap<>();
+    for (Ingredient ingredient : foodList.getFoodList().values()) {
+      ingredients.put(ingredient.getIngredientName(), new Ingredient(
+          ingredient.getIngredientName(), ingredient.getIngredientCategory(),
+          ingredient.getIngredientBaseWeight(), ingredient.getIngredientMeasuringUnit(),
+          ingredient.getIngredientCost()));
+    }
+    return ingredients;
+  }
+
+  private List<FridgeItem> copyFridgeItems() {
+    List<FridgeItem> items = new ArrayList<>();
+    for (FridgeItem item : fridge.getAllFridgeItems()) {
+      items.add(new FridgeItem(item.getId(), item.getIngredient(), item.getQuantity(),
+          item.getExpirationDate()));
+    }
+    return items;
+  }
+
+  /**
+   * Copies the recipes. Recipes whose text is loaded from a TextSource keep
+   * it, so the text is read on the saving thread.
+   */
+  private Map<String, Recipe> copyRecipes() {
+    Map<String, Recipe> recipes = new LinkedHashMap<>();
+    for (Recipe recipe : recipeList.getAllRecipes().values()) {
+      Recipe copy = recipe.getTextSource() != null
+          ? new Recipe(recipe.getRecipeName(), recipe.getRecipeType(), recipe.getTextSource())
+          : new Recipe(recipe.getRecipeName(), recipe.getRecipeDescription(),
+              recipe.getInstructions(), recipe.getRecipeType());
+      for (int i = 0; i < recipe.getIngredientCount(); i++) {
+        copy.addIngredientMicros(recipe.getIngredientName(i),
+            recipe.getIngredientQuantityMicros(i));
+      }
+      recipes.put(copy.getRecipeName(), copy);
+    }
+    return recipes;
+  }
+
+  private Map<String, CookBook> copyCookBooks() {
+    Map<String, CookBook> cookBooks = new LinkedHashMap<>();
+    for (Map.Entry<String, CookBook> entry : cookBookManager.getAllCookBooks().entrySet()) {
+      CookBook cookBook = entry.getValue();
+      CookBook copy = new CookBook(cookBook.getCookBookName(),
+          cookBook.getCookBookDescription(), cookBook.getCookBookType());
+      for (Recipe recipe : cookBook.getRecipesInCookBook().values()) {
+        copy.addRecipe(recipe);
+      }
+      cookBooks.put(entry.getKey(), copy);
+    }
+    return cookBooks;
+  }
+
+  /**
+   * Saves the fridge items, or flushes the page file if the fridge items are
+   * kept on disk.
+   */
+  private CompletableFuture<Void> saveFridgeItems(Supplier<CompletableFuture<Void>> save) {
+    if (fridge instanceof DiskFridge diskFridge) {
+      try {
+        diskFridge.flush();
+        return CompletableFuture.completedFuture(null);
+      } catch (IOException e) {
+        return CompletableFuture.failedFuture(e);
+      }
+    }
+    return save.get();
+  }
+
+  /**
+   * Saves a file on the persistence writer's thread. The data set is copied
+   * right away, and the copy is formatted on the writer's thread.
+   */
+  private <T> CompletableFuture<Void> saveIfChanged(String filePath, long version,
+      Supplier<T> copy, FileSave<T> save) {
+    Long savedVersion = savedVersions.get(filePath);
+    if (savedVersion != null && savedVersion == version) {
+      return CompletableFuture.completedFuture(null);
+    }
+    T data = copy.get();
+    return persistenceWriter.save(filePath, writer -> save.write(writer, data)).thenRun(() -> {
+      savedVersions.merge(filePath, version, Math::max);
+      if (watcher != null) {
+        watcher.markUnchanged(filePath);
+      }
+    });
+  }
+
+  /**
+   * Saves a data set to the database on its own thread, one save at a time, so
+   * an older version is never saved over a newer one. The data set is copied
+   * right away, so the saving thread does not read data the menu is changing.
+   */
+  private <T> CompletableFuture<Void> saveToStoreIfChanged(String dataSet, long version,
+      Supplier<T> copy, StoreSave<T> save) {
+    String key = databasePath + "#" + dataSet;
+    Long savedVersion = savedVersions.get(key);
+    if (savedVersion != null && savedVersion == version) {
+      return CompletableFuture.completedFuture(null);
+    }
+    T data = copy.get();
+    return CompletableFuture.runAsync(() -> {
+      try {
+        save.save(data);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e.getMessage(), e);
+      }
+    }, dataStoreExecutor).thenRun(() -> savedVersions.merge(key, version, Math::max));
+  }
+
+  private void exportSnapshot() {
+    try {
+      System.out.println("Exporting snapshot to: " + snapshotPath);
+      SnapshotUtility.writeSnapshot(snapshotPath, foodList, fridge.getAllFridgeItems(),
+          recipeList.getAllRecipes().values(), cookBookManager.getAllCookBooks());
+      System.out.println("Snapshot exported successfully.");
+    } catch (IOException e) {
+      System.err.println("Error during snapshot export: " + e.getMessage());
+    }
+  }
+
+  private void exportJournal() {
+    try {
+      System.out.println("Closing journal: " + journalPath);
+      journal.close();
+      journal = null;
+      System.out.println("Journal closed successfully.");
+    } catch (IOException e) {
+      System.err.println("Error while closing the journal: " + e.getMessage());
     }
   }
 }
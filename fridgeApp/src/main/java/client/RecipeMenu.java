@@ -2,10 +2,12 @@ package client;
 
 import java.util.HashMap;
 import java.util.InputMismatchException;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Scanner;
 import models.FoodList;
 import models.Recipe;
+import services.MealPlanner;
 import services.RecipeManager;
 
 /**
@@ -15,6 +17,8 @@ import services.RecipeManager;
  */
 public class RecipeMenu {
 
+  private static final long MEAL_PLAN_TIME_BUDGET_MILLIS = 500;
+
   private final RecipeManager recipeManager;
   private final Scanner scanner;
   private final FoodList foodList;
@@ -43,7 +47,9 @@ public class RecipeMenu {
       System.out.println("3. Availability menu.");
       System.out.println("4. Value menu.");
       System.out.println("5. Consume the ingredients in a recipe.");
-      System.out.println("6. Back to main menu.");
+      System.out.println("6. Consume the ingredients in several recipes at once.");
+      System.out.println("7. Plan meals for the next days.");
+      System.out.println("8. Back to main menu.");
 
       int choice = scanner.nextInt();
       scanner.nextLine();
@@ -71,7 +77,19 @@ public class RecipeMenu {
           String result = recipeManager.removeMultipleQuantitiesByRecipe(recipeName);
           System.out.println(result);
         }
-        case 6 -> {
+        case 6 -> batchCookingMenu();
+        case 7 -> {
+          System.out.println("Enter the number of days to plan for:");
+          int days = scanner.nextInt();
+          scanner.nextLine();
+
+          System.out.println("""
+              Planning meals that use the items closest to expiration first,
+              while buying as little as possible...""");
+          System.out.println(new MealPlanner(recipeManager)
+              .planMeals(days, MEAL_PLAN_TIME_BUDGET_MILLIS).getFormattedPlan());
+        }
+        case 8 -> {
           return;
         }
         default -> System.out.println("Invalid choice. Please try again.");
@@ -79,6 +97,33 @@ public class RecipeMenu {
     }
   }
 
+  private void batchCookingMenu() {
+    System.out.println("Generating a list of all recipes");
+
+    recipeManager.printAllRecipes();
+
+    Map<String, Double> servingsByRecipe = new LinkedHashMap<>();
+    while (true) {
+      System.out.println("Enter the name of a recipe to cook (empty to finish):");
+      String recipeName = scanner.nextLine();
+      if (recipeName.isBlank()) {
+        break;
+      }
+
+      System.out.println("Enter how many times to make the recipe:");
+      double servings = scanner.nextDouble();
+      scanner.nextLine();
+
+      servingsByRecipe.merge(recipeName, servings, Double::sum);
+    }
+
+    if (servingsByRecipe.isEmpty()) {
+      System.out.println("No recipes chosen.");
+      return;
+    }
+    System.out.println(recipeManager.removeQuantitiesByRecipes(servingsByRecipe));
+  }
+
   private void manageRecipesMenu() {
     while (true) {
       System.out.println("Manage recipes:");
@@ -16,6 +16,7 @@ public class CookBook {
   private final String cookBookDescription;
   private final String cookBookType;
   private final Map<String, Recipe> recipesInCookBook;
+  private int version;
 
   /**
    * Constructor for a new CookBook with a given name.
@@ -66,6 +67,7 @@ public class CookBook {
   public boolean addRecipe(Recipe recipe) {
     if (!recipesInCookBook.containsKey(recipe.getRecipeName())) {
       recipesInCookBook.put(recipe.getRecipeName(), recipe);
+      version++;
       return true;
     } else {
       return false;
@@ -79,7 +81,11 @@ public class CookBook {
    * @return true if the recipe was removed, false if it was not found.
    */
   public boolean removeRecipe(String recipeName) {
-    return recipesInCookBook.remove(recipeName) != null;
+    if (recipesInCookBook.remove(recipeName) != null) {
+      version++;
+      return true;
+    }
+    return false;
   }
 
   /**
@@ -111,6 +117,16 @@ public class CookBook {
     return recipesInCookBook;
   }
 
+  /**
+   * Gets the version of the recipes in the CookBook, which increases whenever a
+   * recipe is added or removed.
+   *
+   * @return an integer with the current version of the CookBook.
+   */
+  public int getVersion() {
+    return version;
+  }
+
   /**
    * Getter for the size of the CookBook (amount of recipes).
    *
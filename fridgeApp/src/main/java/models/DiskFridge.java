@@ -0,0 +1,512 @@
+package models;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import utilities.BPlusTree;
+import utilities.BackupStore;
+import utilities.DateValidation;
+import utilities.PageFile;
+import utilities.Quantity;
+
+/**
+ * A Fridge that keeps its FridgeItems in a page file on disk instead of in
+ * memory, for fridges with more items than fit in memory.
+ *
+ * <p>The items are stored in a B+tree on their ID, with two more B+trees as
+ * indexes: one on expiration date and one on ingredient, so expired items and
+ * the items of one ingredient are found without reading the others. Only the
+ * pages in the buffer pool of the {@link PageFile} are kept in memory, together
+ * with the total quantity and the name of each ingredient.
+ *
+ * <p>FridgeItems returned by a DiskFridge are copies of what is stored, so
+ * quantities must be changed through the Fridge methods, and an item must be
+ * looked up with {@link #containsFridgeItem(FridgeItem)} or by its ID rather
+ * than compared with the items of an earlier call. Items whose ingredient is
+ * no longer in the FoodList are returned with an ingredient that only has a
+ * name. Changes are on disk after {@link #flush()} or {@link #close()}.
+ *
+ * @author Dennis Moe
+ */
+public class DiskFridge extends Fridge implements Closeable, BackupStore.Source {
+
+  private static final int ITEMS_BY_ID_SLOT = 0;
+  private static final int ITEMS_BY_EXPIRY_SLOT = 2;
+  private static final int ITEMS_BY_INGREDIENT_SLOT = 4;
+  private static final int INGREDIENT_NAMES_SLOT = 6;
+  private static final int VERSION_SLOT = 7;
+  private static final int FORMAT_SLOT = 8;
+
+  /**
+   * The record format where the quantity is a long number of micro-units, see
+   * {@link Quantity}. Files without a format stored the quantity as a double.
+   */
+  private static final long QUANTITY_MICROS_FORMAT = 1;
+
+  /**
+   * Quantity in micro-units, expiration date, ingredient code and version of an
+   * item.
+   */
+  private static final int RECORD_SIZE = 24;
+  private static final byte[] NO_VALUE = new byte[0];
+
+  private static final int NAMES_NEXT_OFFSET = 0;
+  private static final int NAMES_USED_OFFSET = 8;
+  private static final int NAMES_HEADER_SIZE = 12;
+
+  private final String filePath;
+  private final PageFile pageFile;
+  private final BPlusTree itemsById;
+  private final BPlusTree itemsByExpiry;
+  private final BPlusTree itemsByIngredient;
+  private final FoodList foodList;
+
+  private final List<String> ingredientNames = new ArrayList<>();
+  private final Map<String, Integer> ingredientCodes = new HashMap<>();
+  private final Map<String, Long> quantities = new HashMap<>();
+  private final byte[] record = new byte[RECORD_SIZE];
+  private long lastNamesPage;
+  private long version;
+
+  /**
+   * Opens a DiskFridge, creating the page file if it does not exist.
+   *
+   * @param filePath  the path of the page file
+   * @param foodList  the FoodList the ingredients of the items are taken from
+   * @param poolPages the number of pages kept in memory
+   * @throws IOException if the file can not be opened or read
+   */
+  public DiskFridge(String filePath, FoodList foodList, int poolPages) throws IOException {
+    this.filePath = filePath;
+    this.pageFile = new PageFile(filePath, poolPages);
+    this.foodList = foodList;
+    try {
+      this.itemsById = new BPlusTree(pageFile, ITEMS_BY_ID_SLOT, RECORD_SIZE);
+      this.itemsByExpiry = new BPlusTree(pageFile, ITEMS_BY_EXPIRY_SLOT, 0);
+      this.itemsByIngredient = new BPlusTree(pageFile, ITEMS_BY_INGREDIENT_SLOT, 0);
+      this.version = pageFile.getSlot(VERSION_SLOT);
+      readIngredientNames();
+      upgradeQuantities();
+      itemsById.scan(Long.MIN_VALUE, Long.MAX_VALUE, (id, value) -> {
+        ByteBuffer buffer = ByteBuffer.wrap(value);
+        quantities.merge(ingredientNames.get(buffer.getInt(16)), buffer.getLong(0), Long::sum);
+        return true;
+      });
+    } catch (IOException | RuntimeException e) {
+      pageFile.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Gets the number of FridgeItems in the Fridge.
+   *
+   * @return the number of items
+   */
+  public synchronized long size() {
+    return itemsById.size();
+  }
+
+  public PageFile getPageFile() {
+    return pageFile;
+  }
+
+  @Override
+  public synchronized void addFridgeItem(FridgeItem fridgeItem) {
+    try {
+      store(fridgeItem);
+      version++;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    notifyFridgeItemAdded(fridgeItem);
+  }
+
+  @Override
+  public synchronized void addFridgeItems(Collection<FridgeItem> fridgeItems) {
+    try {
+      for (FridgeItem fridgeItem : fridgeItems) {
+        store(fridgeItem);
+      }
+      version++;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    for (FridgeItem fridgeItem : fridgeItems) {
+      notifyFridgeItemAdded(fridgeItem);
+    }
+  }
+
+  @Override
+  public synchronized boolean removeFridgeItemById(int id) {
+    try {
+      if (!itemsById.get(id, record)) {
+        return false;
+      }
+      FridgeItem removedItem = toFridgeItem(id, record);
+      ByteBuffer buffer = ByteBuffer.wrap(record);
+      long expirationDate = buffer.getLong(8);
+      int ingredientCode = buffer.getInt(16);
+      version += 1 + buffer.getInt(20);
+
+      itemsById.remove(id);
+      itemsByExpiry.remove(expiryKey(DateValidation.toSortableDate(expirationDate), id));
+      itemsByIngredient.remove(ingredientKey(ingredientCode, id));
+      refreshTotal(ingredientCode);
+      notifyFridgeItemRemoved(removedItem);
+      return true;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  public synchronized double calculateTotalQuantity(String ingredientName) {
+    long totalMicros = 0;
+    for (FridgeItem item : getAllIngredientInstancesByName(ingredientName)) {
+      totalMicros += item.getQuantityMicros();
+    }
+    return Quantity.toDouble(totalMicros);
+  }
+
+  @Override
+  public synchronized FridgeItem getFridgeItemById(int id) {
+    try {
+      return itemsById.get(id, record) ? toFridgeItem(id, record) : null;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  public synchronized boolean updateFridgeItemQuantityById(int id, double quantityChange) {
+    FridgeItem item = getFridgeItemById(id);
+    if (item == null) {
+      return false;
+    }
+    storeQuantity(id, item.getQuantityMicros() + Quantity.toMicros(quantityChange));
+    return true;
+  }
+
+  @Override
+  public synchronized boolean setFridgeItemQuantityById(int id, double quantity) {
+    if (getFridgeItemById(id) == null) {
+      return false;
+    }
+    storeQuantity(id, Quantity.toMicros(quantity));
+    return true;
+  }
+
+  @Override
+  public synchronized boolean restoreFridgeItemQuantity(FridgeItem fridgeItem, double quantity) {
+    if (!containsFridgeItem(fridgeItem)) {
+      return false;
+    }
+    if (quantity <= 0) {
+      removeFridgeItemById(fridgeItem.getId());
+    } else {
+      storeQuantity(fridgeItem.getId(), Quantity.toMicros(quantity));
+    }
+    return true;
+  }
+
+  @Override
+  public synchronized boolean containsFridgeItem(FridgeItem fridgeItem) {
+    try {
+      return itemsById.get(fridgeItem.getId(), record);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  public synchronized boolean withdrawMicrosFromFridgeItem(FridgeItem fridgeItem, long micros) {
+    FridgeItem storedItem = getFridgeItemById(fridgeItem.getId());
+    if (storedItem == null) {
+      return false;
+    }
+    long remainingMicros = storedItem.getQuantityMicros() - micros;
+    if (remainingMicros <= 0) {
+      removeFridgeItemById(storedItem.getId());
+    } else {
+      storeQuantity(storedItem.getId(), remainingMicros);
+    }
+    return true;
+  }
+
+  @Override
+  public synchronized List<FridgeItem> getAllIngredientInstancesByName(String ingredientName) {
+    List<FridgeItem> items = new ArrayList<>();
+    Integer code = ingredientCodes.get(ingredientName);
+    if (code == null) {
+      return items;
+    }
+    try {
+      for (int id : idsOfIngredient(code)) {
+        items.add(getFridgeItemById(id));
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return items;
+  }
+
+  @Override
+  public synchronized List<FridgeItem> getFridgeItemsExpiringBefore(long date) {
+    List<Integer> ids = new ArrayList<>();
+    List<FridgeItem> items = new ArrayList<>();
+    try {
+      itemsByExpiry.scan(Long.MIN_VALUE, expiryKey(DateValidation.toSortableDate(date), 0), (key, value) -> {
+        ids.add((int) key);
+        return true;
+      });
+      for (int id : ids) {
+        items.add(getFridgeItemById(id));
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return items;
+  }
+
+  @Override
+  public synchronized long getTotalQuantityMicros(String ingredientName) {
+    return quantities.getOrDefault(ingredientName, 0L);
+  }
+
+  @Override
+  public synchronized long getVersion() {
+    return version;
+  }
+
+  @Override
+  public synchronized List<FridgeItem> getAllFridgeItems() {
+    List<FridgeItem> items = new ArrayList<>();
+    try {
+      itemsById.scan(Long.MIN_VALUE, Long.MAX_VALUE, (id, value) -> {
+        items.add(toFridgeItem((int) id, value));
+        return true;
+      });
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return items;
+  }
+
+  /**
+   * Writes every change to the page file and syncs it to disk.
+   *
+   * @throws IOException if writing fails
+   */
+  public synchronized void flush() throws IOException {
+    pageFile.setSlot(VERSION_SLOT, version);
+    pageFile.flush();
+  }
+
+  /**
+   * Flushes the page file and backs it up. No item can be changed until the
+   * backup is taken.
+   *
+   * @param backup takes the backup of the page file
+   * @return the ID of the backup
+   * @throws IOException if writing or the backup fails
+   */
+  @Override
+  public synchronized String backupFiles(BackupStore.FileBackup backup) throws IOException {
+    flush();
+    return backup.backup(List.of(filePath));
+  }
+
+  /**
+   * Flushes the page file and closes it.
+   *
+   * @throws IOException if writing fails
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    pageFile.setSlot(VERSION_SLOT, version);
+    pageFile.close();
+  }
+
+  private void store(FridgeItem fridgeItem) throws IOException {
+    int id = fridgeItem.getId();
+    if (itemsById.get(id, record)) {
+      removeFridgeItemById(id);
+    }
+    int ingredientCode = codeOf(fridgeItem.getIngredient().getIngredientName());
+    ByteBuffer.wrap(record)
+        .putLong(0, fridgeItem.getQuantityMicros())
+        .putLong(8, fridgeItem.getExpirationDate())
+        .putInt(16, ingredientCode)
+        .putInt(20, fridgeItem.getVersion());
+    itemsById.put(id, record);
+    itemsByExpiry.put(expiryKey(fridgeItem.getExpirationDay(), id), NO_VALUE);
+    itemsByIngredient.put(ingredientKey(ingredientCode, id), NO_VALUE);
+    quantities.merge(fridgeItem.getIngredient().getIngredientName(),
+        fridgeItem.getQuantityMicros(), Long::sum);
+  }
+
+  private void storeQuantity(int id, long quantityMicros) {
+    try {
+      if (!itemsById.get(id, record)) {
+        return;
+      }
+      ByteBuffer buffer = ByteBuffer.wrap(record);
+      buffer.putLong(0, quantityMicros);
+      buffer.putInt(20, buffer.getInt(20) + 1);
+      itemsById.put(id, record);
+      version++;
+      refreshTotal(buffer.getInt(16));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Recalculates the total quantity of an ingredient from its items.
+   */
+  private void refreshTotal(int ingredientCode) throws IOException {
+    String ingredientName = ingredientNames.get(ingredientCode);
+    List<Integer> ids = idsOfIngredient(ingredientCode);
+    if (ids.isEmpty()) {
+      quantities.remove(ingredientName);
+      return;
+    }
+    long totalMicros = 0;
+    for (int id : ids) {
+      itemsById.get(id, record);
+      totalMicros += ByteBuffer.wrap(record).getLong(0);
+    }
+    quantities.put(ingredientName, totalMicros);
+  }
+
+  /**
+   * Rewrites the quantities of a file from before micro-units were stored, so
+   * every record holds a long number of micro-units.
+   */
+  private void upgradeQuantities() throws IOException {
+    if (pageFile.getSlot(FORMAT_SLOT) == QUANTITY_MICROS_FORMAT) {
+      return;
+    }
+    List<Integer> ids = new ArrayList<>();
+    itemsById.scan(Long.MIN_VALUE, Long.MAX_VALUE, (id, value) -> {
+      ids.add((int) id);
+      return true;
+    });
+    for (int id : ids) {
+      itemsById.get(id, record);
+      ByteBuffer buffer = ByteBuffer.wrap(record);
+      buffer.putLong(0, Quantity.toMicros(buffer.getDouble(0)));
+      itemsById.put(id, record);
+    }
+    pageFile.setSlot(FORMAT_SLOT, QUANTITY_MICROS_FORMAT);
+  }
+
+  private List<Integer> idsOfIngredient(int ingredientCode) throws IOException {
+    List<Integer> ids = new ArrayList<>();
+    itemsByIngredient.scan(ingredientKey(ingredientCode, 0),
+        ingredientKey(ingredientCode + 1, 0), (key, value) -> {
+          ids.add((int) key);
+          return true;
+        });
+    return ids;
+  }
+
+  private FridgeItem toFridgeItem(int id, byte[] value) {
+    ByteBuffer buffer = ByteBuffer.wrap(value);
+    String ingredientName = ingredientNames.get(buffer.getInt(16));
+    Ingredient ingredient = foodList.getIngredientFromFoodList(ingredientName);
+    if (ingredient == null) {
+      ingredient = new Ingredient(ingredientName, "", 0.0, "", 0.0);
+    }
+    return new FridgeItem(id, ingredient, Quantity.toDouble(buffer.getLong(0)),
+        buffer.getLong(8));
+  }
+
+  /**
+   * Sorts the items by expiration date, in the format yyyyMMdd, and by ID.
+   */
+  private static long expiryKey(int expirationDay, int id) {
+    return (long) expirationDay << 32 | (id & 0xffffffffL);
+  }
+
+  private static long ingredientKey(int ingredientCode, int id) {
+    return (long) ingredientCode << 32 | (id & 0xffffffffL);
+  }
+
+  /**
+   * Gets the code of an ingredient name, giving it the next code and saving
+   * the name if it is new.
+   */
+  private int codeOf(String ingredientName) throws IOException {
+    Integer code = ingredientCodes.get(ingredientName);
+    if (code != null) {
+      return code;
+    }
+    byte[] name = ingredientName.getBytes(StandardCharsets.UTF_8);
+    if (name.length > PageFile.PAGE_SIZE - NAMES_HEADER_SIZE - Short.BYTES) {
+      throw new IllegalArgumentException("Ingredient name is too long: " + ingredientName);
+    }
+
+    PageFile.Page page = lastNamesPage == 0 ? null : pageFile.pin(lastNamesPage);
+    if (page == null || page.getBuffer().getInt(NAMES_USED_OFFSET) + Short.BYTES + name.length
+        > PageFile.PAGE_SIZE - NAMES_HEADER_SIZE) {
+      PageFile.Page newPage = pageFile.allocate();
+      if (page == null) {
+        pageFile.setSlot(INGREDIENT_NAMES_SLOT, newPage.getPageNumber());
+      } else {
+        page.getBuffer().putLong(NAMES_NEXT_OFFSET, newPage.getPageNumber());
+        page.markDirty();
+        pageFile.unpin(page);
+      }
+      page = newPage;
+      lastNamesPage = newPage.getPageNumber();
+    }
+    try {
+      ByteBuffer buffer = page.getBuffer();
+      int used = buffer.getInt(NAMES_USED_OFFSET);
+      buffer.putShort(NAMES_HEADER_SIZE + used, (short) name.length);
+      buffer.put(NAMES_HEADER_SIZE + used + Short.BYTES, name);
+      buffer.putInt(NAMES_USED_OFFSET, used + Short.BYTES + name.length);
+      page.markDirty();
+    } finally {
+      pageFile.unpin(page);
+    }
+
+    code = ingredientNames.size();
+    ingredientNames.add(ingredientName);
+    ingredientCodes.put(ingredientName, code);
+    return code;
+  }
+
+  private void readIngredientNames() throws IOException {
+    long pageNumber = pageFile.getSlot(INGREDIENT_NAMES_SLOT);
+    while (pageNumber != 0) {
+      PageFile.Page page = pageFile.pin(pageNumber);
+      try {
+        ByteBuffer buffer = page.getBuffer();
+        int used = buffer.getInt(NAMES_USED_OFFSET);
+        int position = NAMES_HEADER_SIZE;
+        while (position < NAMES_HEADER_SIZE + used) {
+          int length = buffer.getShort(position) & 0xffff;
+          String name = new String(buffer.array(), position + Short.BYTES, length,
+              StandardCharsets.UTF_8);
+          ingredientCodes.put(name, ingredientNames.size());
+          ingredientNames.add(name);
+          position += Short.BYTES + length;
+        }
+        lastNamesPage = pageNumber;
+        pageNumber = buffer.getLong(NAMES_NEXT_OFFSET);
+      } finally {
+        pageFile.unpin(page);
+      }
+    }
+  }
+}
@@ -1,6 +1,10 @@
 package models;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
 
 /**
  * This class represents a registry of all Ingredient, but not the instances in
@@ -16,21 +20,76 @@ import java.util.HashMap;
 public class FoodList {
 
   private final HashMap<String, Ingredient> foodList;
+  private final List<Consumer<String>> changeListeners;
+  private long version;
 
   /**
    * Constructs a new FoodList.
    */
   public FoodList() {
     foodList = new HashMap<>();
+    changeListeners = new ArrayList<>();
+  }
+
+  /**
+   * Registers a listener that is told the name of an Ingredient whenever it is
+   * added, removed, or replaced with different values.
+   *
+   * @param listener the listener to notify with the ingredient name
+   */
+  public void addIngredientChangeListener(Consumer<String> listener) {
+    changeListeners.add(listener);
   }
 
   /**
    * Adds an Ingredient to the FoodList.
+   * Replaces any existing Ingredient with the same name.
    *
    * @param ingredient the Ingredient to add
    */
   public void addIngredient(Ingredient ingredient) {
-    foodList.put(ingredient.getIngredientName(), ingredient);
+    Ingredient previous = foodList.put(ingredient.getIngredientName(), ingredient);
+    if (previous == null || !sameValues(previous, ingredient)) {
+      notifyIngredientChanged(ingredient.getIngredientName());
+    }
+  }
+
+  /**
+   * Updates the Ingredient with the same name to the values of another
+   * Ingredient, keeping the object that is already in the FoodList, so the
+   * FridgeItems holding it see the new values. The Ingredient is added if there
+   * is none with its name.
+   *
+   * @param ingredient the Ingredient with the new values
+   * @return true if an Ingredient was added or changed, false if it already
+   *         had the same values
+   */
+  public boolean updateIngredient(Ingredient ingredient) {
+    Ingredient current = foodList.get(ingredient.getIngredientName());
+    if (current == null) {
+      addIngredient(ingredient);
+      return true;
+    }
+    if (sameValues(current, ingredient)) {
+      return false;
+    }
+    current.setValues(ingredient);
+    notifyIngredientChanged(ingredient.getIngredientName());
+    return true;
+  }
+
+  private static boolean sameValues(Ingredient a, Ingredient b) {
+    return a.getIngredientCost() == b.getIngredientCost()
+        && a.getIngredientBaseWeight() == b.getIngredientBaseWeight()
+        && Objects.equals(a.getIngredientCategory(), b.getIngredientCategory())
+        && Objects.equals(a.getIngredientMeasuringUnit(), b.getIngredientMeasuringUnit());
+  }
+
+  private void notifyIngredientChanged(String ingredientName) {
+    version++;
+    for (Consumer<String> listener : changeListeners) {
+      listener.accept(ingredientName);
+    }
   }
 
   /**
@@ -74,6 +133,7 @@ public class FoodList {
     Ingredient ingredient = new Ingredient(ingredientName, ingredientCategory, ingredientBaseWeight,
         ingredientMeasuringUnit, ingredientCost);
     foodList.put(ingredientName, ingredient);
+    notifyIngredientChanged(ingredientName);
     return "Ingredient '" + ingredientName + "' added successfully.";
   }
 
@@ -93,9 +153,20 @@ public class FoodList {
     }
 
     foodList.remove(ingredientName);
+    notifyIngredientChanged(ingredientName);
     return "Ingredient '" + ingredientName + "' removed successfully.";
   }
 
+  /**
+   * Gets the version of the FoodList, which increases whenever an Ingredient is
+   * added, removed, or replaced with different values.
+   *
+   * @return the current version of the FoodList
+   */
+  public long getVersion() {
+    return version;
+  }
+
   /**
    * Gets the Ingredient from the FoodList.
    *
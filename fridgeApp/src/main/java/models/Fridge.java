@@ -1,9 +1,15 @@
 package models;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import utilities.DateValidation;
+import utilities.Quantity;
 
 /**
  * Class representing the Fridge. All Ingredients are stored here as FridgeItem
@@ -16,7 +22,17 @@ public class Fridge {
   
   private final Map<String, List<FridgeItem>> fridgeContents;
   
-  private final Map<String, Double> fridgeQuantities;
+  private final Map<String, Long> fridgeQuantities;
+
+  private final List<Consumer<FridgeItem>> addListeners = new ArrayList<>();
+
+  private final List<Consumer<FridgeItem>> removalListeners = new ArrayList<>();
+
+  /**
+   * Counts added and removed items, plus the versions the removed items had, so
+   * that {@link #getVersion()} never goes back to an earlier value.
+   */
+  private long structureVersion;
 
   /**
    * Constructs a new Fridge instance.
@@ -26,6 +42,47 @@ public class Fridge {
     fridgeQuantities = new HashMap<>();
   }
 
+  /**
+   * Adds a listener that is called with every FridgeItem added to the Fridge.
+   *
+   * @param listener the listener to call with each added item
+   */
+  public void addFridgeItemListener(Consumer<FridgeItem> listener) {
+    addListeners.add(listener);
+  }
+
+  /**
+   * Calls the listeners with a FridgeItem that was added to the Fridge.
+   *
+   * @param fridgeItem the added item
+   */
+  protected void notifyFridgeItemAdded(FridgeItem fridgeItem) {
+    for (Consumer<FridgeItem> listener : addListeners) {
+      listener.accept(fridgeItem);
+    }
+  }
+
+  /**
+   * Adds a listener that is called with every FridgeItem removed from the
+   * Fridge, including items removed because nothing is left of them.
+   *
+   * @param listener the listener to call with each removed item
+   */
+  public void addFridgeItemRemovalListener(Consumer<FridgeItem> listener) {
+    removalListeners.add(listener);
+  }
+
+  /**
+   * Calls the listeners with a FridgeItem that was removed from the Fridge.
+   *
+   * @param fridgeItem the removed item
+   */
+  protected void notifyFridgeItemRemoved(FridgeItem fridgeItem) {
+    for (Consumer<FridgeItem> listener : removalListeners) {
+      listener.accept(fridgeItem);
+    }
+  }
+
   /**
    * Adds a new instance of an Ingredient (FridgeItem) to the Fridge.
    *
@@ -36,9 +93,35 @@ public class Fridge {
 
     
     fridgeContents.computeIfAbsent(ingredientName, k -> new ArrayList<>()).add(fridgeItem);
+    structureVersion++;
 
     
-    fridgeQuantities.put(ingredientName, calculateTotalQuantity(ingredientName));
+    fridgeQuantities.put(ingredientName, calculateTotalMicros(ingredientName));
+    notifyFridgeItemAdded(fridgeItem);
+  }
+
+  /**
+   * Adds many FridgeItems to the Fridge at once.
+   * The total quantity of each ingredient is only recalculated once, after all
+   * its items are added.
+   *
+   * @param fridgeItems the FridgeItems to add to the Fridge.
+   */
+  public void addFridgeItems(Collection<FridgeItem> fridgeItems) {
+    Set<String> changedIngredients = new HashSet<>();
+    for (FridgeItem fridgeItem : fridgeItems) {
+      String ingredientName = fridgeItem.getIngredient().getIngredientName();
+      fridgeContents.computeIfAbsent(ingredientName, k -> new ArrayList<>()).add(fridgeItem);
+      changedIngredients.add(ingredientName);
+    }
+    structureVersion++;
+
+    for (String ingredientName : changedIngredients) {
+      fridgeQuantities.put(ingredientName, calculateTotalMicros(ingredientName));
+    }
+    for (FridgeItem fridgeItem : fridgeItems) {
+      notifyFridgeItemAdded(fridgeItem);
+    }
   }
 
   /**
@@ -55,8 +138,9 @@ public class Fridge {
       for (FridgeItem item : items) {
         if (item.getId() == id) {
           items.remove(item);
+          retire(item);
 
-          fridgeQuantities.put(entry.getKey(), calculateTotalQuantity(entry.getKey()));
+          fridgeQuantities.put(entry.getKey(), calculateTotalMicros(entry.getKey()));
 
           if (items.isEmpty()) {
             fridgeContents.remove(entry.getKey());
@@ -77,8 +161,19 @@ public class Fridge {
    * @return the total quantity of the specified ingredient.
    */
   public double calculateTotalQuantity(String ingredientName) {
-    List<FridgeItem> items = fridgeContents.getOrDefault(ingredientName, new ArrayList<>());
-    return items.stream().mapToDouble(FridgeItem::getQuantity).sum();
+    return Quantity.toDouble(calculateTotalMicros(ingredientName));
+  }
+
+  private long calculateTotalMicros(String ingredientName) {
+    List<FridgeItem> items = fridgeContents.get(ingredientName);
+    if (items == null) {
+      return 0;
+    }
+    long totalMicros = 0;
+    for (FridgeItem item : items) {
+      totalMicros += item.getQuantityMicros();
+    }
+    return totalMicros;
   }
 
   /**
@@ -110,11 +205,12 @@ public class Fridge {
     for (List<FridgeItem> items : fridgeContents.values()) {
       for (FridgeItem item : items) {
         if (item.getId() == id) {
-          item.setQuantity(item.getQuantity() + quantityChange);
+          item.setQuantity(Quantity.toDouble(
+              item.getQuantityMicros() + Quantity.toMicros(quantityChange)));
 
           
           String ingredientName = item.getIngredient().getIngredientName();
-          fridgeQuantities.put(ingredientName, calculateTotalQuantity(ingredientName));
+          fridgeQuantities.put(ingredientName, calculateTotalMicros(ingredientName));
           return true;
         }
       }
@@ -122,6 +218,114 @@ public class Fridge {
     return false;
   }
 
+  /**
+   * Sets the quantity of a specific FridgeItem by its ID and recalculates the
+   * total quantity.
+   *
+   * @param id       the ID of the FridgeItem to update.
+   * @param quantity the new quantity.
+   * @return true if the item was found and updated, false otherwise.
+   */
+  public boolean setFridgeItemQuantityById(int id, double quantity) {
+    FridgeItem item = getFridgeItemById(id);
+    if (item == null) {
+      return false;
+    }
+    item.setQuantity(quantity);
+    String ingredientName = item.getIngredient().getIngredientName();
+    fridgeQuantities.put(ingredientName, calculateTotalMicros(ingredientName));
+    return true;
+  }
+
+  /**
+   * Sets the quantity of a specific FridgeItem without logging, and removes the
+   * item if nothing is left of it. Used when restoring saved changes.
+   * Only touches the items of the same ingredient.
+   *
+   * @param fridgeItem the FridgeItem to update.
+   * @param quantity   the new quantity.
+   * @return true if the item was in the Fridge, false otherwise.
+   */
+  public boolean restoreFridgeItemQuantity(FridgeItem fridgeItem, double quantity) {
+    String ingredientName = fridgeItem.getIngredient().getIngredientName();
+    List<FridgeItem> items = fridgeContents.get(ingredientName);
+    if (items == null || !items.contains(fridgeItem)) {
+      return false;
+    }
+
+    if (quantity <= 0) {
+      items.remove(fridgeItem);
+      retire(fridgeItem);
+    } else {
+      fridgeItem.restoreQuantity(quantity);
+    }
+
+    if (items.isEmpty()) {
+      fridgeContents.remove(ingredientName);
+      fridgeQuantities.remove(ingredientName);
+    } else {
+      fridgeQuantities.put(ingredientName, calculateTotalMicros(ingredientName));
+    }
+    return true;
+  }
+
+  /**
+   * Checks if a specific FridgeItem is in the Fridge.
+   * Only looks at the items of the same ingredient.
+   *
+   * @param fridgeItem the FridgeItem to look for.
+   * @return true if the item is in the Fridge, false otherwise.
+   */
+  public boolean containsFridgeItem(FridgeItem fridgeItem) {
+    List<FridgeItem> items = fridgeContents.get(fridgeItem.getIngredient().getIngredientName());
+    return items != null && items.contains(fridgeItem);
+  }
+
+  /**
+   * Takes a quantity from a specific FridgeItem, and removes the item if
+   * nothing is left of it.
+   * Only touches the items of the same ingredient.
+   *
+   * @param fridgeItem the FridgeItem to take from.
+   * @param quantity   the quantity to take.
+   * @return true if the item was in the Fridge, false otherwise.
+   */
+  public boolean withdrawFromFridgeItem(FridgeItem fridgeItem, double quantity) {
+    return withdrawMicrosFromFridgeItem(fridgeItem, Quantity.toMicros(quantity));
+  }
+
+  /**
+   * Takes a quantity in micro-units from a specific FridgeItem, and removes the
+   * item if nothing is left of it, see {@link #withdrawFromFridgeItem}.
+   *
+   * @param fridgeItem the FridgeItem to take from.
+   * @param micros     the quantity to take, in micro-units.
+   * @return true if the item was in the Fridge, false otherwise.
+   */
+  public boolean withdrawMicrosFromFridgeItem(FridgeItem fridgeItem, long micros) {
+    String ingredientName = fridgeItem.getIngredient().getIngredientName();
+    List<FridgeItem> items = fridgeContents.get(ingredientName);
+    if (items == null || !items.contains(fridgeItem)) {
+      return false;
+    }
+
+    long remainingMicros = fridgeItem.getQuantityMicros() - micros;
+    if (remainingMicros <= 0) {
+      items.remove(fridgeItem);
+      retire(fridgeItem);
+    } else {
+      fridgeItem.setQuantity(Quantity.toDouble(remainingMicros));
+    }
+
+    if (items.isEmpty()) {
+      fridgeContents.remove(ingredientName);
+      fridgeQuantities.remove(ingredientName);
+    } else {
+      fridgeQuantities.put(ingredientName, calculateTotalMicros(ingredientName));
+    }
+    return true;
+  }
+
   /**
    * Retrieves all instances of a specific ingredient by its name.
    *
@@ -132,6 +336,25 @@ public class Fridge {
     return fridgeContents.getOrDefault(ingredientName, new ArrayList<>());
   }
 
+  /**
+   * Retrieves all FridgeItems that expire before a date.
+   *
+   * @param date the date in the format ddMMyyyy.
+   * @return a list of the FridgeItems with an earlier expiration date.
+   */
+  public List<FridgeItem> getFridgeItemsExpiringBefore(long date) {
+    int day = DateValidation.toSortableDate(date);
+    List<FridgeItem> expiringItems = new ArrayList<>();
+    for (List<FridgeItem> items : fridgeContents.values()) {
+      for (FridgeItem item : items) {
+        if (item.getExpirationDay() < day) {
+          expiringItems.add(item);
+        }
+      }
+    }
+    return expiringItems;
+  }
+
   /**
    * Gets total quantity of a specific ingredient in the Fridge by name.
    *
@@ -139,7 +362,39 @@ public class Fridge {
    * @return the total quantity of the ingredient in the Fridge.
    */
   public double getTotalQuantityOfIngredient(String ingredientName) {
-    return fridgeQuantities.getOrDefault(ingredientName, 0.0);
+    return Quantity.toDouble(getTotalQuantityMicros(ingredientName));
+  }
+
+  /**
+   * Gets total quantity of a specific ingredient in the Fridge in micro-units,
+   * see {@link Quantity}.
+   *
+   * @param ingredientName the name of the ingredient.
+   * @return the total quantity of the ingredient in micro-units.
+   */
+  public long getTotalQuantityMicros(String ingredientName) {
+    return fridgeQuantities.getOrDefault(ingredientName, 0L);
+  }
+
+  /**
+   * Gets the version of the Fridge contents, which increases whenever an item is
+   * added, removed, or changes quantity.
+   *
+   * @return the current version of the Fridge
+   */
+  public long getVersion() {
+    long version = structureVersion;
+    for (List<FridgeItem> items : fridgeContents.values()) {
+      for (FridgeItem item : items) {
+        version += item.getVersion();
+      }
+    }
+    return version;
+  }
+
+  private void retire(FridgeItem fridgeItem) {
+    structureVersion += 1 + fridgeItem.getVersion();
+    notifyFridgeItemRemoved(fridgeItem);
   }
 
   /**
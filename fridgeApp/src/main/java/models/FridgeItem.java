@@ -1,6 +1,8 @@
 package models;
 
+import java.util.concurrent.atomic.AtomicInteger;
 import utilities.DateValidation;
+import utilities.Quantity;
 
 /**
  * Represents an instance of an Ingredient in the Fridge.
@@ -10,11 +12,13 @@ import utilities.DateValidation;
  * @author Dennis Moe
  */
 public class FridgeItem {
-  private static int idCounter = 1; 
+  private static final AtomicInteger idCounter = new AtomicInteger(1);
   private final int id; 
   private final Ingredient ingredient;
-  private double quantity;
+  private long quantityMicros;
   private final long expirationDate;
+  private final int expirationDay;
+  private int version;
 
   /**
    * Constructs a new FridgeItem with a unique ID.
@@ -22,14 +26,33 @@ public class FridgeItem {
    * @param ingredient     the ingredient to be added to the Fridge/make a new
    *                       instance.
    * @param quantity       the quantity of the ingredient that will be added to
-   *                       the Fridge, same as the base weight of the ingredient.
+   *                       the Fridge, usually the base weight of the ingredient.
    * @param expirationDate the expiration date of the ingredient.
    */
   public FridgeItem(Ingredient ingredient, double quantity, long expirationDate) {
-    this.id = idCounter++;
+    this.id = idCounter.getAndIncrement();
     this.ingredient = ingredient;
-    this.quantity = ingredient.getIngredientBaseWeight();
+    this.quantityMicros = Quantity.toMicros(quantity);
     this.expirationDate = expirationDate;
+    this.expirationDay = DateValidation.toSortableDate(expirationDate);
+  }
+
+  /**
+   * Constructs a FridgeItem with a known ID, when restoring a saved fridge.
+   * New FridgeItems will get higher IDs than the restored one.
+   *
+   * @param id             the ID the FridgeItem had when it was saved.
+   * @param ingredient     the ingredient of the FridgeItem.
+   * @param quantity       the quantity left of the FridgeItem.
+   * @param expirationDate the expiration date of the ingredient.
+   */
+  public FridgeItem(int id, Ingredient ingredient, double quantity, long expirationDate) {
+    this.id = id;
+    this.ingredient = ingredient;
+    this.quantityMicros = Quantity.toMicros(quantity);
+    this.expirationDate = expirationDate;
+    this.expirationDay = DateValidation.toSortableDate(expirationDate);
+    idCounter.accumulateAndGet(id + 1, Math::max);
   }
 
   
@@ -42,17 +65,45 @@ public class FridgeItem {
   }
 
   public double getQuantity() {
-    return quantity;
+    return Quantity.toDouble(quantityMicros);
+  }
+
+  /**
+   * Gets the quantity as a whole number of micro-units, see {@link Quantity}.
+   *
+   * @return the quantity in micro-units
+   */
+  public long getQuantityMicros() {
+    return quantityMicros;
   }
 
   public long getExpirationDate() {
     return expirationDate;
   }
 
+  /**
+   * Gets the expiration date in the format yyyyMMdd, so expiration dates can be
+   * compared as numbers.
+   *
+   * @return the expiration date as a sortable int
+   */
+  public int getExpirationDay() {
+    return expirationDay;
+  }
+
   public String getFormattedExpirationDate() {
     return DateValidation.formatDate(expirationDate);
   }
 
+  /**
+   * Gets the version of the quantity, which increases on every change.
+   *
+   * @return the current quantity version
+   */
+  public int getVersion() {
+    return version;
+  }
+
   
   /**
    * Sets the quantity of the ingredient and prints a logging statement.
@@ -62,8 +113,19 @@ public class FridgeItem {
   public void setQuantity(double quantity) {
     System.out
         .println("Updating quantity for " + ingredient.getIngredientName()
-            + ": " + this.quantity + " -> " + quantity);
-    this.quantity = quantity;
+            + ": " + getQuantity() + " -> " + quantity);
+    this.quantityMicros = Quantity.toMicros(quantity);
+    version++;
+  }
+
+  /**
+   * Sets the quantity without logging, when restoring a saved quantity.
+   *
+   * @param quantity the saved quantity of the ingredient.
+   */
+  void restoreQuantity(double quantity) {
+    this.quantityMicros = Quantity.toMicros(quantity);
+    version++;
   }
 
   /**
@@ -72,7 +134,8 @@ public class FridgeItem {
    * @param amount the amount to add to the current quantity.
    */
   public void addQuantity(double amount) {
-    this.quantity += amount;
+    this.quantityMicros += Quantity.toMicros(amount);
+    version++;
   }
 
   /**
@@ -82,13 +145,24 @@ public class FridgeItem {
    * @param amount the amount to deduct from the current quantity.
    */
   public void deductQuantity(double amount) {
-    this.quantity = Math.max(0, this.quantity - amount);
+    deductQuantityMicros(Quantity.toMicros(amount));
+  }
+
+  /**
+   * Deducts a number of micro-units from the current quantity.
+   * Ensures that the quantity does not go below zero.
+   *
+   * @param micros the amount to deduct, in micro-units.
+   */
+  public void deductQuantityMicros(long micros) {
+    this.quantityMicros = Math.max(0, this.quantityMicros - micros);
+    version++;
   }
 
   @Override
   public String toString() {
     return "ID: " + id + ", Ingredient: " + ingredient.getIngredientName() + ", Quantity: "
-        + quantity + " " + ingredient.getIngredientMeasuringUnit() + ", Expiration Date: "
+        + getQuantity() + " " + ingredient.getIngredientMeasuringUnit() + ", Expiration Date: "
         + getFormattedExpirationDate();
   }
 }
@@ -7,10 +7,10 @@ package models;
  */
 public class Ingredient {
   private final String ingredientName;
-  private final String ingredientCategory;
-  private final double ingredientBaseWeight;
-  private final String ingredientMeasuringUnit;
-  private final double ingredientCost; 
+  private String ingredientCategory;
+  private double ingredientBaseWeight;
+  private String ingredientMeasuringUnit;
+  private double ingredientCost; 
 
   /**
    * Constructs a new Ingredient.
@@ -54,4 +54,19 @@ public class Ingredient {
     return ingredientCost;
   }
 
+  /**
+   * Copies the category, base weight, measuring unit and cost of another
+   * Ingredient, so everything holding this Ingredient sees the new values.
+   * Only the FoodList changes an Ingredient, see
+   * {@link FoodList#updateIngredient(Ingredient)}.
+   *
+   * @param other the Ingredient to copy the values of
+   */
+  void setValues(Ingredient other) {
+    this.ingredientCategory = other.ingredientCategory;
+    this.ingredientBaseWeight = other.ingredientBaseWeight;
+    this.ingredientMeasuringUnit = other.ingredientMeasuringUnit;
+    this.ingredientCost = other.ingredientCost;
+  }
+
 }
\ No newline at end of file
@@ -0,0 +1,147 @@
+package models;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Represents a plan of which recipe to cook on each of the coming days.
+ * Holds how much of the stock in the fridge each meal uses and what has to be
+ * bought to make it.
+ *
+ * @author Dennis Moe
+ */
+public class MealPlan {
+
+  private final List<PlannedMeal> meals;
+  private boolean completedWithinBudget;
+
+  /**
+   * A single recipe planned for a given day.
+   */
+  public static class PlannedMeal {
+    private final int day;
+    private final Recipe recipe;
+    private final double stockValueUsed;
+    private final double expiringValueUsed;
+    private final double purchaseCost;
+
+    /**
+     * Constructs a new PlannedMeal.
+     *
+     * @param day               the day of the meal, 0 being today
+     * @param recipe            the recipe to cook
+     * @param stockValueUsed    the value of the fridge stock the recipe uses
+     * @param expiringValueUsed the part of that value that would expire within
+     *                          the plan
+     * @param purchaseCost      the cost of the quantities that must be bought
+     */
+    public PlannedMeal(int day, Recipe recipe, double stockValueUsed,
+        double expiringValueUsed, double purchaseCost) {
+      this.day = day;
+      this.recipe = recipe;
+      this.stockValueUsed = stockValueUsed;
+      this.expiringValueUsed = expiringValueUsed;
+      this.purchaseCost = purchaseCost;
+    }
+
+    public int getDay() {
+      return day;
+    }
+
+    public Recipe getRecipe() {
+      return recipe;
+    }
+
+    public double getStockValueUsed() {
+      return stockValueUsed;
+    }
+
+    public double getExpiringValueUsed() {
+      return expiringValueUsed;
+    }
+
+    public double getPurchaseCost() {
+      return purchaseCost;
+    }
+  }
+
+  /**
+   * Constructs a new, empty MealPlan.
+   */
+  public MealPlan() {
+    this.meals = new ArrayList<>();
+    this.completedWithinBudget = true;
+  }
+
+  /**
+   * Adds a meal to the end of the plan.
+   *
+   * @param meal the meal to add
+   */
+  public void addMeal(PlannedMeal meal) {
+    meals.add(meal);
+  }
+
+  public List<PlannedMeal> getMeals() {
+    return Collections.unmodifiableList(meals);
+  }
+
+  public boolean isCompletedWithinBudget() {
+    return completedWithinBudget;
+  }
+
+  /**
+   * Marks whether the planner finished its search before the time budget ran
+   * out.
+   *
+   * @param completedWithinBudget false if the planner had to cut the search short
+   */
+  public void setCompletedWithinBudget(boolean completedWithinBudget) {
+    this.completedWithinBudget = completedWithinBudget;
+  }
+
+  /**
+   * Gets the total value of the expiring stock used by all meals in the plan.
+   *
+   * @return the total expiring value used
+   */
+  public double getTotalExpiringValueUsed() {
+    return meals.stream().mapToDouble(PlannedMeal::getExpiringValueUsed).sum();
+  }
+
+  /**
+   * Gets the total cost of everything that has to be bought for the plan.
+   *
+   * @return the total purchase cost
+   */
+  public double getTotalPurchaseCost() {
+    return meals.stream().mapToDouble(PlannedMeal::getPurchaseCost).sum();
+  }
+
+  /**
+   * Builds a formatted String with one line per planned day and the totals.
+   *
+   * @return the formatted plan
+   */
+  public String getFormattedPlan() {
+    if (meals.isEmpty()) {
+      return "No meals could be planned.";
+    }
+    StringBuilder sb = new StringBuilder("Meal plan:\n");
+    for (PlannedMeal meal : meals) {
+      sb.append("Day ").append(meal.getDay() + 1).append(": ")
+          .append(meal.getRecipe().getRecipeName())
+          .append(String.format(" (uses %.2f NOK of stock, %.2f NOK close to expiring,"
+              + " buy for %.2f NOK)", meal.getStockValueUsed(), meal.getExpiringValueUsed(),
+              meal.getPurchaseCost()))
+          .append("\n");
+    }
+    sb.append(String.format("Expiring stock used: %.2f NOK. To buy: %.2f NOK.",
+        getTotalExpiringValueUsed(), getTotalPurchaseCost()));
+    if (!completedWithinBudget) {
+      sb.append("\nThe planner ran out of time, the plan may not be the best possible.");
+    }
+    return sb.toString();
+  }
+}
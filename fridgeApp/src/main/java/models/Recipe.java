@@ -1,7 +1,13 @@
 package models;
 
-import java.util.HashMap;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import utilities.Quantity;
 
 /**
  * Represents a recipe containing ingredients, quantities, instructions, and a
@@ -11,10 +17,37 @@ import java.util.Map;
  */
 public class Recipe {
   private final String recipeName;
-  private final String recipeDescription;
-  private final String instructions;
-  private final String recipeType;
-  private final Map<String, Double> ingredients;
+  private String recipeDescription;
+  private String instructions;
+  private String recipeType;
+  private String[] ingredientNames = new String[4];
+  private long[] ingredientMicros = new long[4];
+  private int ingredientCount;
+  private final Map<String, Double> ingredientsView = new IngredientsView();
+  private TextSource textSource;
+  private int version;
+
+  /**
+   * Loads the description and instructions of recipes that do not keep them in
+   * memory.
+   */
+  public interface TextSource {
+    /**
+     * Gets the description of a recipe.
+     *
+     * @param recipeName the name of the recipe
+     * @return the description of the recipe
+     */
+    String getDescription(String recipeName);
+
+    /**
+     * Gets the instructions of a recipe.
+     *
+     * @param recipeName the name of the recipe
+     * @return the instructions of the recipe
+     */
+    String getInstructions(String recipeName);
+  }
 
   /**
    * Constructs a new Recipe.
@@ -30,7 +63,23 @@ public class Recipe {
     this.recipeDescription = recipeDescription;
     this.instructions = instructions;
     this.recipeType = recipeType;
-    this.ingredients = new HashMap<>();
+    this.textSource = null;
+  }
+
+  /**
+   * Constructs a new Recipe whose description and instructions are loaded from
+   * a TextSource each time they are asked for, instead of kept in memory.
+   *
+   * @param recipeName the name of the recipe
+   * @param recipeType the type/category of the recipe, defined by the user
+   * @param textSource loads the description and instructions of the recipe
+   */
+  public Recipe(String recipeName, String recipeType, TextSource textSource) {
+    this.recipeName = recipeName;
+    this.recipeDescription = null;
+    this.instructions = null;
+    this.recipeType = recipeType;
+    this.textSource = textSource;
   }
 
   
@@ -39,19 +88,113 @@ public class Recipe {
   }
 
   public String getRecipeDescription() {
-    return recipeDescription;
+    return textSource == null ? recipeDescription : textSource.getDescription(recipeName);
   }
 
   public String getInstructions() {
-    return instructions;
+    return textSource == null ? instructions : textSource.getInstructions(recipeName);
   }
 
   public String getRecipeType() {
     return recipeType;
   }
 
+  /**
+   * Gets the TextSource the description and instructions are loaded from.
+   *
+   * @return the TextSource, or null if the text is kept in memory
+   */
+  public TextSource getTextSource() {
+    return textSource;
+  }
+
+  /**
+   * Changes the TextSource the description and instructions are loaded from,
+   * for example when their file has been indexed again. The new source must
+   * give the same text, so the version of the recipe is not changed. Recipes
+   * that keep their text in memory are not changed.
+   *
+   * @param textSource loads the description and instructions of the recipe
+   */
+  public void setTextSource(TextSource textSource) {
+    if (this.textSource != null) {
+      this.textSource = textSource;
+    }
+  }
+
+  /**
+   * Gets a read-only view of the ingredients and their quantities, in the
+   * order they were added.
+   * Use {@link #addIngredient} and {@link #removeIngredient} to change them.
+   *
+   * @return the ingredient names mapped to their required quantities
+   */
   public Map<String, Double> getIngredients() {
-    return ingredients;
+    return ingredientsView;
+  }
+
+  public int getIngredientCount() {
+    return ingredientCount;
+  }
+
+  /**
+   * Gets the name of an ingredient by its position in the recipe, so the
+   * ingredients can be looked through without boxing their quantities.
+   *
+   * @param index the position of the ingredient, from 0
+   * @return the name of the ingredient
+   */
+  public String getIngredientName(int index) {
+    return ingredientNames[index];
+  }
+
+  /**
+   * Gets the required quantity of an ingredient by its position in the recipe,
+   * in micro-units, see {@link Quantity}.
+   *
+   * @param index the position of the ingredient, from 0
+   * @return the required quantity in micro-units
+   */
+  public long getIngredientQuantityMicros(int index) {
+    return ingredientMicros[index];
+  }
+
+  /**
+   * Gets the required quantity of an ingredient in micro-units.
+   *
+   * @param ingredientName the name of the ingredient
+   * @return the required quantity in micro-units, or -1 if the recipe does not
+   *         use the ingredient
+   */
+  public long getIngredientQuantityMicros(String ingredientName) {
+    int index = indexOf(ingredientName);
+    return index < 0 ? -1 : ingredientMicros[index];
+  }
+
+  /**
+   * Gets the version of the recipe, which increases on every change to its
+   * ingredients or details.
+   *
+   * @return the current recipe version
+   */
+  public int getVersion() {
+    return version;
+  }
+
+  /**
+   * Replaces the description, instructions and type of the recipe. The new
+   * text is kept in memory, even if the old text was loaded from a TextSource.
+   *
+   * @param recipeDescription the new description
+   * @param instructions      the new instructions
+   * @param recipeType        the new type
+   */
+  public void updateDetails(String recipeDescription, String instructions, String recipeType) {
+    this.recipeDescription = recipeDescription;
+    this.instructions = instructions;
+    this.recipeType = recipeType;
+    this.textSource = null;
+    version++;
   }
 
   /**
@@ -61,7 +204,28 @@ public class Recipe {
    * @param quantity       the required quantity of the ingredient
    */
   public void addIngredient(String ingredientName, double quantity) {
-    ingredients.put(ingredientName, quantity);
+    addIngredientMicros(ingredientName, Quantity.toMicros(quantity));
+  }
+
+  /**
+   * Adds an ingredient with its required quantity in micro-units to the
+   * recipe, or changes the quantity if the recipe already uses it.
+   *
+   * @param ingredientName the name of the ingredient
+   * @param micros         the required quantity in micro-units
+   */
+  public void addIngredientMicros(String ingredientName, long micros) {
+    int index = indexOf(ingredientName);
+    if (index < 0) {
+      if (ingredientCount == ingredientNames.length) {
+        ingredientNames = Arrays.copyOf(ingredientNames, ingredientCount * 2);
+        ingredientMicros = Arrays.copyOf(ingredientMicros, ingredientCount * 2);
+      }
+      index = ingredientCount++;
+      ingredientNames[index] = ingredientName;
+    }
+    ingredientMicros[index] = micros;
+    version++;
   }
 
   /**
@@ -70,6 +234,78 @@ public class Recipe {
    * @param ingredientName the name of the ingredient to remove
    */
   public void removeIngredient(String ingredientName) {
-    ingredients.remove(ingredientName);
+    int index = indexOf(ingredientName);
+    if (index < 0) {
+      return;
+    }
+    int moved = ingredientCount - index - 1;
+    System.arraycopy(ingredientNames, index + 1, ingredientNames, index, moved);
+    System.arraycopy(ingredientMicros, index + 1, ingredientMicros, index, moved);
+    ingredientNames[--ingredientCount] = null;
+    version++;
+  }
+
+  private int indexOf(Object ingredientName) {
+    for (int i = 0; i < ingredientCount; i++) {
+      if (ingredientNames[i].equals(ingredientName)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * The ingredients as a read-only map. The quantities are only boxed when
+   * they are read through it.
+   */
+  private final class IngredientsView extends AbstractMap<String, Double> {
+
+    @Override
+    public int size() {
+      return ingredientCount;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+      return indexOf(key) >= 0;
+    }
+
+    @Override
+    public Double get(Object key) {
+      int index = indexOf(key);
+      return index < 0 ? null : Quantity.toDouble(ingredientMicros[index]);
+    }
+
+    @Override
+    public Set<Map.Entry<String, Double>> entrySet() {
+      return new AbstractSet<>() {
+        @Override
+        public int size() {
+          return ingredientCount;
+        }
+
+        @Override
+        public Iterator<Map.Entry<String, Double>> iterator() {
+          return new Iterator<>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+              return next < ingredientCount;
+            }
+
+            @Override
+            public Map.Entry<String, Double> next() {
+              if (next >= ingredientCount) {
+                throw new NoSuchElementException();
+              }
+              int index = next++;
+              return new AbstractMap.SimpleImmutableEntry<>(ingredientNames[index],
+                  Quantity.toDouble(ingredientMicros[index]));
+            }
+          };
+        }
+      };
+    }
   }
 }
\ No newline at end of file
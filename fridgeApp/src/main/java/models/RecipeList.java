@@ -11,6 +11,12 @@ import java.util.Map;
 public class RecipeList {
   private final Map<String, Recipe> recipes; // Maps recipe names to Recipe objects
 
+  /**
+   * Counts added and removed recipes, plus the versions the removed recipes had,
+   * so that {@link #getVersion()} never goes back to an earlier value.
+   */
+  private long structureVersion;
+
   /**
    * Constructs a new RecipeList.
    */
@@ -24,7 +30,11 @@ public class RecipeList {
    * @param recipe the recipe to add
    */
   public void addRecipe(Recipe recipe) {
-    recipes.put(recipe.getRecipeName().trim().toLowerCase(), recipe);
+    Recipe previous = recipes.put(recipe.getRecipeName().trim().toLowerCase(), recipe);
+    structureVersion++;
+    if (previous != null) {
+      structureVersion += previous.getVersion();
+    }
   }
 
   /**
@@ -34,7 +44,10 @@ public class RecipeList {
    */
   public void removeRecipe(String recipeName) {
     if (recipeName != null) {
-      recipes.remove(recipeName.trim().toLowerCase());
+      Recipe removed = recipes.remove(recipeName.trim().toLowerCase());
+      if (removed != null) {
+        structureVersion += 1 + removed.getVersion();
+      }
     }
   }
 
@@ -48,6 +61,20 @@ public class RecipeList {
     return recipes.get(recipeName.trim().toLowerCase());
   }
 
+  /**
+   * Gets the version of the RecipeList, which increases whenever a recipe is
+   * added, removed, or has its ingredients changed.
+   *
+   * @return the current version of the RecipeList
+   */
+  public long getVersion() {
+    long version = structureVersion;
+    for (Recipe recipe : recipes.values()) {
+      version += recipe.getVersion();
+    }
+    return version;
+  }
+
   /**
    * Retrieves all recipes in the list.
    *
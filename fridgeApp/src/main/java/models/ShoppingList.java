@@ -0,0 +1,140 @@
+package models;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Represents what has to be bought to make a set of recipes, given what is
+ * already in the fridge.
+ * Each entry is rounded up to whole packs of the size registered in the
+ * FoodList.
+ *
+ * @author Dennis Moe
+ */
+public class ShoppingList {
+
+  private final List<Entry> entries;
+
+  /**
+   * A single ingredient to buy.
+   */
+  public static class Entry {
+    private final String ingredientName;
+    private final String measuringUnit;
+    private final double requiredQuantity;
+    private final double quantityInStock;
+    private final double packSize;
+    private final int packsToBuy;
+    private final double cost;
+
+    /**
+     * Constructs a new Entry.
+     *
+     * @param ingredientName   the name of the ingredient
+     * @param measuringUnit    the unit of all quantities in the entry
+     * @param requiredQuantity the total quantity needed by the recipes
+     * @param quantityInStock  the usable quantity already in the fridge
+     * @param packSize         the base weight of one pack in the FoodList
+     * @param packsToBuy       the number of whole packs to buy
+     * @param cost             the cost of the packs to buy
+     */
+    public Entry(String ingredientName, String measuringUnit, double requiredQuantity,
+        double quantityInStock, double packSize, int packsToBuy, double cost) {
+      this.ingredientName = ingredientName;
+      this.measuringUnit = measuringUnit;
+      this.requiredQuantity = requiredQuantity;
+      this.quantityInStock = quantityInStock;
+      this.packSize = packSize;
+      this.packsToBuy = packsToBuy;
+      this.cost = cost;
+    }
+
+    public String getIngredientName() {
+      return ingredientName;
+    }
+
+    public String getMeasuringUnit() {
+      return measuringUnit;
+    }
+
+    public double getRequiredQuantity() {
+      return requiredQuantity;
+    }
+
+    public double getQuantityInStock() {
+      return quantityInStock;
+    }
+
+    public double getMissingQuantity() {
+      return requiredQuantity - quantityInStock;
+    }
+
+    public double getPackSize() {
+      return packSize;
+    }
+
+    public int getPacksToBuy() {
+      return packsToBuy;
+    }
+
+    public double getCost() {
+      return cost;
+    }
+  }
+
+  /**
+   * Constructs a new, empty ShoppingList.
+   */
+  public ShoppingList() {
+    this.entries = new ArrayList<>();
+  }
+
+  /**
+   * Adds an ingredient to buy to the list.
+   *
+   * @param entry the entry to add
+   */
+  public void addEntry(Entry entry) {
+    entries.add(entry);
+  }
+
+  public List<Entry> getEntries() {
+    return Collections.unmodifiableList(entries);
+  }
+
+  /**
+   * Gets the total cost of everything on the list.
+   *
+   * @return the total cost
+   */
+  public double getTotalCost() {
+    return entries.stream().mapToDouble(Entry::getCost).sum();
+  }
+
+  /**
+   * Builds a formatted String with one line per ingredient and the total cost.
+   *
+   * @return the formatted shopping list
+   */
+  public String getFormattedShoppingList() {
+    if (entries.isEmpty()) {
+      return "Nothing to buy, everything is in the fridge.";
+    }
+    StringBuilder sb = new StringBuilder("Shopping list:\n");
+    for (Entry entry : entries) {
+      sb.append("- ").append(entry.getIngredientName()).append(": missing ")
+          .append(String.format("%.2f", entry.getMissingQuantity())).append(" ")
+          .append(entry.getMeasuringUnit());
+      if (entry.getPacksToBuy() > 0) {
+        sb.append(String.format(", buy %d x %.2f %s for %.2f NOK", entry.getPacksToBuy(),
+            entry.getPackSize(), entry.getMeasuringUnit(), entry.getCost()));
+      } else {
+        sb.append(", not in the food list");
+      }
+      sb.append("\n");
+    }
+    sb.append(String.format("Total: %.2f NOK.", getTotalCost()));
+    return sb.toString();
+  }
+}
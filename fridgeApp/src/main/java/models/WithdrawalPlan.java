@@ -0,0 +1,139 @@
+package models;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import utilities.Quantity;
+
+/**
+ * Represents an exact plan of how much to take from each FridgeItem (lot) to
+ * cover a demand of ingredients.
+ * A plan is built without changing the Fridge, and is then either committed
+ * as a whole or not at all. All quantities are kept in micro-units, see
+ * {@link Quantity}.
+ *
+ * @author Dennis Moe
+ */
+public class WithdrawalPlan {
+
+  private final Map<String, Long> demandMicros;
+  private final List<Withdrawal> withdrawals;
+  private final Map<String, Long> shortfallMicros;
+
+  /**
+   * A quantity to take from a single lot.
+   */
+  public static class Withdrawal {
+    private final FridgeItem fridgeItem;
+    private final long micros;
+
+    /**
+     * Constructs a new Withdrawal.
+     *
+     * @param fridgeItem the lot to take from
+     * @param micros     the quantity to take, in micro-units of the ingredient
+     */
+    public Withdrawal(FridgeItem fridgeItem, long micros) {
+      this.fridgeItem = fridgeItem;
+      this.micros = micros;
+    }
+
+    public FridgeItem getFridgeItem() {
+      return fridgeItem;
+    }
+
+    public long getQuantityMicros() {
+      return micros;
+    }
+
+    public double getQuantity() {
+      return Quantity.toDouble(micros);
+    }
+  }
+
+  /**
+   * Constructs a new, empty WithdrawalPlan for a demand of ingredients.
+   *
+   * @param demandMicros the ingredient names mapped to the total quantity
+   *                     needed, in micro-units
+   */
+  public WithdrawalPlan(Map<String, Long> demandMicros) {
+    this.demandMicros = new LinkedHashMap<>(demandMicros);
+    this.withdrawals = new ArrayList<>();
+    this.shortfallMicros = new LinkedHashMap<>();
+  }
+
+  /**
+   * Adds a withdrawal from a lot to the plan.
+   *
+   * @param fridgeItem the lot to take from
+   * @param micros     the quantity to take, in micro-units
+   */
+  public void addWithdrawal(FridgeItem fridgeItem, long micros) {
+    withdrawals.add(new Withdrawal(fridgeItem, micros));
+  }
+
+  /**
+   * Records that an ingredient could not be fully covered by the fridge.
+   *
+   * @param ingredientName the name of the ingredient
+   * @param missingMicros  the quantity that is missing, in micro-units
+   */
+  public void addShortfall(String ingredientName, long missingMicros) {
+    shortfallMicros.put(ingredientName, missingMicros);
+  }
+
+  /**
+   * Gets the ingredients of the demand, mapped to the quantity needed.
+   *
+   * @return the demand per ingredient, in micro-units
+   */
+  public Map<String, Long> getDemandMicros() {
+    return Collections.unmodifiableMap(demandMicros);
+  }
+
+  public List<Withdrawal> getWithdrawals() {
+    return Collections.unmodifiableList(withdrawals);
+  }
+
+  /**
+   * Gets the ingredients that are missing, mapped to the missing quantity.
+   *
+   * @return the shortfall per ingredient in micro-units, empty if the plan is
+   *         fulfilled
+   */
+  public Map<String, Long> getShortfallMicros() {
+    return Collections.unmodifiableMap(shortfallMicros);
+  }
+
+  /**
+   * Checks if the fridge can cover the whole demand.
+   *
+   * @return true if nothing is missing, false otherwise
+   */
+  public boolean isFulfilled() {
+    return shortfallMicros.isEmpty();
+  }
+
+  /**
+   * Builds a message describing every ingredient that is missing.
+   *
+   * @return one line per missing ingredient with the needed and available
+   *         quantities
+   */
+  public String getShortfallMessage() {
+    StringBuilder sb = new StringBuilder();
+    for (Map.Entry<String, Long> entry : shortfallMicros.entrySet()) {
+      long neededMicros = demandMicros.get(entry.getKey());
+      sb.append("Insufficient ").append(entry.getKey()).append(" in the fridge. Needed: ")
+          .append(Quantity.toDouble(neededMicros)).append(", Available: ")
+          .append(Quantity.toDouble(neededMicros - entry.getValue())).append("\n");
+    }
+    if (!sb.isEmpty()) {
+      sb.setLength(sb.length() - 1);
+    }
+    return sb.toString();
+  }
+}
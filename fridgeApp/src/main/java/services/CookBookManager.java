@@ -5,6 +5,7 @@ import java.util.Map;
 import models.CookBook;
 import models.Recipe;
 import models.RecipeList;
+import utilities.MutationJournal;
 
 /**
  * Stores all CookBooks and manages everything related to CookBooks.
@@ -14,6 +15,13 @@ import models.RecipeList;
 public class CookBookManager {
   private final RecipeList recipeList;
   private final Map<String, CookBook> cookBooks;
+  private MutationJournal journal;
+
+  /**
+   * Counts created and deleted CookBooks, plus the versions the deleted ones
+   * had, so that {@link #getVersion()} never goes back to an earlier value.
+   */
+  private long structureVersion;
 
   /**
    * Constructor for a new CookBookManager.
@@ -23,6 +31,15 @@ public class CookBookManager {
     this.cookBooks = new HashMap<>();
   }
 
+  /**
+   * Sets the journal that every change to the CookBooks is recorded in.
+   *
+   * @param journal the journal to record changes in, or null to stop recording
+   */
+  public void setJournal(MutationJournal journal) {
+    this.journal = journal;
+  }
+
   /**
    * Adds a CookBook to the CookBookManager through String name (Key).
    * CookBook object is stored as the value.
@@ -35,7 +52,12 @@ public class CookBookManager {
     if (cookBooks.containsKey(cookBookName)) {
       return "CookBook already exists! Delete it or use another name.";
     } else {
-      cookBooks.put(cookBookName, new CookBook(cookBookName, cookBookDescription, cookBookType));
+      CookBook cookBook = new CookBook(cookBookName, cookBookDescription, cookBookType);
+      cookBooks.put(cookBookName, cookBook);
+      structureVersion++;
+      if (journal != null) {
+        journal.recordCookBook(cookBook);
+      }
       return "CookBook created successfully!";
     }
   }
@@ -47,7 +69,12 @@ public class CookBookManager {
    * @return a message indicating success or failure.
    */
   public String deleteCookBook(String cookBookName) {
-    if (cookBooks.remove(cookBookName) != null) {
+    CookBook removed = cookBooks.remove(cookBookName);
+    if (removed != null) {
+      structureVersion += 1 + removed.getVersion();
+      if (journal != null) {
+        journal.recordCookBookRemoved(cookBookName);
+      }
       return "CookBook deleted successfully!";
     } else {
       return "CookBook not found!";
@@ -73,6 +100,9 @@ public class CookBookManager {
     }
 
     if (cookBook.addRecipe(recipe)) {
+      if (journal != null) {
+        journal.recordCookBook(cookBook);
+      }
       return "Recipe added to CookBook!";
     } else {
       return "Recipe already exists in CookBook!";
@@ -93,6 +123,9 @@ public class CookBookManager {
     }
 
     if (cookBook.removeRecipe(recipeName)) {
+      if (journal != null) {
+        journal.recordCookBook(cookBook);
+      }
       return "Recipe removed from CookBook!";
     } else {
       return "Recipe not found in CookBook!";
@@ -165,6 +198,30 @@ public class CookBookManager {
     return allCookBooks;
   }
 
+  /**
+   * Gets a CookBook by name.
+   *
+   * @param cookBookName the name of the CookBook to get.
+   * @return the CookBook, or null if it does not exist.
+   */
+  public CookBook getCookBook(String cookBookName) {
+    return cookBooks.get(cookBookName);
+  }
+
+  /**
+   * Gets the version of the CookBooks, which increases whenever a CookBook is
+   * created or deleted, or has a recipe added or removed.
+   *
+   * @return the current version of the CookBooks.
+   */
+  public long getVersion() {
+    long version = structureVersion;
+    for (CookBook cookBook : cookBooks.values()) {
+      version += cookBook.getVersion();
+    }
+    return version;
+  }
+
   public Map<String, CookBook> getAllCookBooks() {
     return cookBooks;
   }
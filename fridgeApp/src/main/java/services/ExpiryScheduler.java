@@ -0,0 +1,255 @@
+package services;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import models.Fridge;
+import models.FridgeItem;
+
+/**
+ * Keeps the set of expired FridgeItems up to date, so expired items are read
+ * from the set instead of being found by looking through the whole Fridge.
+ *
+ * <p>Items that have not expired are kept by expiration day. When the day
+ * changes, only the items of the days that have passed are moved to the expired
+ * set, the listeners are told about each of them and the value of the expired
+ * items is updated. If several days have passed, for example because the
+ * application was not running, the items of all of them are moved at once.
+ *
+ * <p>The day is checked on every read, so the set is correct even before the
+ * scheduled move at midnight has run. The scheduler listens for items added to
+ * and removed from the Fridge, so the set and its value are kept up to date
+ * without looking through the Fridge again. Ingredients are changed in place,
+ * so when the FoodList reports a change the value is summed again from the
+ * expired set the next time it is read.
+ *
+ * <p>The scheduler never reads the Fridge after it is constructed. The move at
+ * midnight can be handed to the thread that owns the Fridge, so the expiry
+ * listeners are called on that thread, see {@link #start(Executor)}.
+ *
+ * @author Dennis Moe
+ */
+public class ExpiryScheduler implements Closeable {
+
+  /**
+   * Extra time to wait after midnight, so the clock has passed it when the
+   * move runs.
+   */
+  private static final long MIDNIGHT_MARGIN_MILLIS = 50;
+
+  private final FridgeManager fridgeManager;
+  private final NavigableMap<Integer, Map<Integer, FridgeItem>> pendingByDay = new TreeMap<>();
+  private final Map<Integer, FridgeItem> expiredById = new LinkedHashMap<>();
+  private final List<Consumer<FridgeItem>> expiryListeners = new ArrayList<>();
+  private double expiredValue;
+  private boolean expiredValueStale;
+  private int currentDay = Integer.MIN_VALUE;
+  private ScheduledExecutorService executor;
+  private Executor owner;
+
+  /**
+   * Constructs an ExpiryScheduler for the items in the Fridge of a
+   * FridgeManager, including the items added later. The day is taken from the
+   * clock of the FridgeManager.
+   *
+   * @param fridgeManager the FridgeManager whose items to follow
+   */
+  public ExpiryScheduler(FridgeManager fridgeManager) {
+    this.fridgeManager = fridgeManager;
+    Fridge fridge = fridgeManager.getFridge();
+    for (FridgeItem item : fridge.getAllFridgeItems()) {
+      addPending(item);
+    }
+    fridge.addFridgeItemListener(this::itemAdded);
+    fridge.addFridgeItemRemovalListener(this::itemRemoved);
+    fridgeManager.getFoodList().addIngredientChangeListener(this::ingredientChanged);
+  }
+
+  /**
+   * Adds a listener that is called with every item when it expires.
+   *
+   * @param listener the listener to call with each expired item
+   */
+  public synchronized void addExpiryListener(Consumer<FridgeItem> listener) {
+    expiryListeners.add(listener);
+  }
+
+  /**
+   * Moves the items that expired since the last move, and then moves them again
+   * right after every midnight, on a background thread.
+   */
+  public void start() {
+    start(Runnable::run);
+  }
+
+  /**
+   * Moves the items that expired since the last move, and then moves them again
+   * right after every midnight. A background thread waits for midnight and
+   * hands the move to the owner, for example a queue the menu thread runs
+   * between menu actions.
+   *
+   * @param owner runs the move on the thread that owns the Fridge
+   */
+  public synchronized void start(Executor owner) {
+    if (executor != null) {
+      return;
+    }
+    this.owner = owner;
+    executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "expiry");
+      thread.setDaemon(true);
+      return thread;
+    });
+    advanceToToday();
+    scheduleNextMidnight();
+  }
+
+  private void scheduleNextMidnight() {
+    long delay = fridgeManager.getDayClock().getMillisUntilTomorrow() + MIDNIGHT_MARGIN_MILLIS;
+    executor.schedule(() -> {
+      synchronized (this) {
+        if (executor.isShutdown()) {
+          return;
+        }
+        owner.execute(this::advanceToToday);
+        scheduleNextMidnight();
+      }
+    }, delay, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Moves the items whose expiration day has passed to the expired set.
+   * If the clock was set back, the items that have not expired on the new day
+   * are moved back.
+   *
+   * @return the number of items that expired
+   */
+  public synchronized int advanceToToday() {
+    int today = fridgeManager.getDayClock().today();
+    if (today == currentDay) {
+      return 0;
+    }
+    if (today < currentDay) {
+      unexpireFrom(today);
+    }
+    currentDay = today;
+
+    List<FridgeItem> expiredNow = new ArrayList<>();
+    Map<Integer, Map<Integer, FridgeItem>> passedDays = pendingByDay.headMap(today, false);
+    for (Map<Integer, FridgeItem> items : passedDays.values()) {
+      for (FridgeItem item : items.values()) {
+        expire(item);
+        expiredNow.add(item);
+      }
+    }
+    passedDays.clear();
+
+    for (FridgeItem item : expiredNow) {
+      notifyExpired(item);
+    }
+    return expiredNow.size();
+  }
+
+  /**
+   * Gets the items in the Fridge that have expired, in the order they expired.
+   *
+   * @return a list of the expired items
+   */
+  public synchronized List<FridgeItem> getExpiredItems() {
+    advanceToToday();
+    return new ArrayList<>(expiredById.values());
+  }
+
+  /**
+   * Gets the total cost of the expired items in the Fridge.
+   *
+   * @return the value of the expired items
+   */
+  public synchronized double getExpiredValue() {
+    advanceToToday();
+    if (expiredValueStale) {
+      expiredValue = 0.0;
+      for (FridgeItem item : expiredById.values()) {
+        expiredValue += item.getIngredient().getIngredientCost();
+      }
+      expiredValueStale = false;
+    }
+    return expiredValue;
+  }
+
+  /**
+   * Stops the scheduled moves. The set is still updated when it is read.
+   */
+  @Override
+  public synchronized void close() {
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+  }
+
+  private synchronized void itemAdded(FridgeItem item) {
+    if (item.getExpirationDay() < currentDay) {
+      expire(item);
+      notifyExpired(item);
+    } else {
+      addPending(item);
+    }
+  }
+
+  private synchronized void itemRemoved(FridgeItem item) {
+    FridgeItem expiredItem = expiredById.remove(item.getId());
+    if (expiredItem != null) {
+      expiredValue = expiredById.isEmpty()
+          ? 0.0
+          : expiredValue - expiredItem.getIngredient().getIngredientCost();
+      return;
+    }
+    Map<Integer, FridgeItem> items = pendingByDay.get(item.getExpirationDay());
+    if (items != null && items.remove(item.getId()) != null && items.isEmpty()) {
+      pendingByDay.remove(item.getExpirationDay());
+    }
+  }
+
+  private synchronized void ingredientChanged(String ingredientName) {
+    expiredValueStale = true;
+  }
+
+  private void addPending(FridgeItem item) {
+    pendingByDay.computeIfAbsent(item.getExpirationDay(), k -> new LinkedHashMap<>())
+        .put(item.getId(), item);
+  }
+
+  private void expire(FridgeItem item) {
+    if (expiredById.put(item.getId(), item) == null) {
+      expiredValue += item.getIngredient().getIngredientCost();
+    }
+  }
+
+  private void unexpireFrom(int day) {
+    Iterator<FridgeItem> iterator = expiredById.values().iterator();
+    while (iterator.hasNext()) {
+      FridgeItem item = iterator.next();
+      if (item.getExpirationDay() >= day) {
+        iterator.remove();
+        expiredValue -= item.getIngredient().getIngredientCost();
+        addPending(item);
+      }
+    }
+  }
+
+  private void notifyExpired(FridgeItem item) {
+    for (Consumer<FridgeItem> listener : expiryListeners) {
+      listener.accept(item);
+    }
+  }
+}
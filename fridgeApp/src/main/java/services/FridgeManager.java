@@ -1,14 +1,20 @@
 package services;
 
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 import models.FoodList;
 import models.Fridge;
 import models.FridgeItem;
 import models.Ingredient;
+import models.WithdrawalPlan;
 import utilities.DateValidation;
-import utilities.UnitUtility;
+import utilities.DayClock;
+import utilities.MutationJournal;
+import utilities.Quantity;
 
 /**
  * FridgeManager provides operations to add, remove, and update items in the
@@ -20,6 +26,9 @@ import utilities.UnitUtility;
 public class FridgeManager {
   private final Fridge fridge;
   private final FoodList foodList;
+  private MutationJournal journal;
+  private DayClock dayClock = DayClock.system();
+  private ExpiryScheduler expiryScheduler;
 
   /**
    * Constructs a FridgeManager with the specified Fridge and FoodList.
@@ -32,6 +41,40 @@ public class FridgeManager {
     this.foodList = foodList;
   }
 
+  /**
+   * Sets the journal that every change to the fridge is recorded in.
+   *
+   * @param journal the journal to record changes in, or null to stop recording
+   */
+  public void setJournal(MutationJournal journal) {
+    this.journal = journal;
+  }
+
+  /**
+   * Sets the clock that decides which items have expired. The system clock is
+   * used until another clock is set.
+   *
+   * @param dayClock the clock to get today's date from
+   */
+  public void setDayClock(DayClock dayClock) {
+    this.dayClock = dayClock;
+  }
+
+  public DayClock getDayClock() {
+    return dayClock;
+  }
+
+  /**
+   * Sets the ExpiryScheduler that keeps the expired items of this
+   * FridgeManager, so they are read from it instead of found in the fridge.
+   *
+   * @param expiryScheduler the scheduler to read expired items from, or null to
+   *                        look through the fridge
+   */
+  public void setExpiryScheduler(ExpiryScheduler expiryScheduler) {
+    this.expiryScheduler = expiryScheduler;
+  }
+
   /**
    * Adds a new FridgeItem to the fridge for an existing ingredient in the
    * FoodList.
@@ -45,16 +88,35 @@ public class FridgeManager {
     if (ingredient == null) {
       return "Ingredient not found in FoodList.";
     }
-    int length = String.valueOf(expirationDate).length();
-    if (length != 8 && length != 7) {
+    if (!DateValidation.hasValidDateLength(expirationDate)) {
       return "Invalid expiration date, the date is too short.";
     }
     FridgeItem newItem = new FridgeItem(ingredient,
         ingredient.getIngredientBaseWeight(), expirationDate);
     fridge.addFridgeItem(newItem);
+    if (journal != null) {
+      journal.recordFridgeItemAdded(newItem);
+    }
     return "Ingredient added to fridge successfully.";
   }
 
+  /**
+   * Adds many FridgeItems to the fridge at once.
+   * Used by bulk imports, where the items are already validated.
+   *
+   * @param fridgeItems the FridgeItems to add
+   */
+  public void addFridgeItems(List<FridgeItem> fridgeItems) {
+    fridge.addFridgeItems(fridgeItems);
+    if (journal != null) {
+      fridgeItems.forEach(journal::recordFridgeItemAdded);
+    }
+  }
+
+  public Fridge getFridge() {
+    return fridge;
+  }
+
   public FoodList getFoodList() {
     return foodList;
   }
@@ -104,6 +166,9 @@ public class FridgeManager {
     System.out.println("Adding ingredient to fridge: " + ingredient.getIngredientName());
     FridgeItem newItem = new FridgeItem(ingredient, baseWeight, expirationDate);
     fridge.addFridgeItem(newItem);
+    if (journal != null) {
+      journal.recordFridgeItemAdded(newItem);
+    }
     return "Ingredient created and added to fridge successfully.";
   }
 
@@ -115,6 +180,9 @@ public class FridgeManager {
    */
   public String removeFromFridgeById(int id) {
     boolean removed = fridge.removeFridgeItemById(id);
+    if (removed && journal != null) {
+      journal.recordFridgeItemRemoved(id);
+    }
     return removed ? "Fridge item removed successfully." : "Fridge item not found.";
   }
 
@@ -124,7 +192,9 @@ public class FridgeManager {
    * @param id the unique ID of the FridgeItem to remove
    */
   public void removeByIdWithoutString(int id) {
-    fridge.removeFridgeItemById(id);
+    if (fridge.removeFridgeItemById(id) && journal != null) {
+      journal.recordFridgeItemRemoved(id);
+    }
   }
 
   /**
@@ -157,9 +227,11 @@ public class FridgeManager {
     double newQuantity = item.getQuantity() + quantityChange;
     if (newQuantity <= 0) {
       fridge.removeFridgeItemById(id);
+      recordFridgeItem(item);
       return "Fridge item removed due to zero or negative quantity.";
     } else {
-      item.setQuantity(newQuantity);
+      fridge.setFridgeItemQuantityById(id, newQuantity);
+      recordFridgeItem(fridge.getFridgeItemById(id));
       return "Fridge item quantity updated successfully.";
     }
   }
@@ -176,35 +248,146 @@ public class FridgeManager {
   public String removeIngredient(String ingredientName,
       double requiredQuantity, String requiredUnit) {
     List<FridgeItem> sortedItems = fridge.getAllIngredientInstancesByName(ingredientName).stream()
-        .sorted(Comparator.comparing(FridgeItem::getExpirationDate))
+        .sorted(Comparator.comparingInt(FridgeItem::getExpirationDay))
         .toList();
 
-    double remainingQuantity = requiredQuantity;
+    long remainingMicros = Quantity.toMicros(requiredQuantity);
 
     for (FridgeItem item : sortedItems) {
       String itemUnit = item.getIngredient().getIngredientMeasuringUnit();
-      double availableQuantity = UnitUtility.convertUnit(item.getQuantity(),
-          itemUnit, requiredUnit);
-
-      if (availableQuantity >= remainingQuantity) {
-        double quantityToRemove = UnitUtility.convertUnit(remainingQuantity,
-            requiredUnit, itemUnit);
-        fridge.updateFridgeItemQuantityById(item.getId(), -quantityToRemove);
-        remainingQuantity = 0;
+      long availableMicros = Quantity.convert(item.getQuantityMicros(), itemUnit, requiredUnit);
+      if (availableMicros < 0) {
+        continue;
+      }
+
+      if (availableMicros >= remainingMicros) {
+        long microsToRemove = Math.min(item.getQuantityMicros(),
+            Quantity.convert(remainingMicros, requiredUnit, itemUnit));
+        fridge.updateFridgeItemQuantityById(item.getId(), -Quantity.toDouble(microsToRemove));
+        recordFridgeItem(item);
+        remainingMicros = 0;
         break;
       } else {
-        double quantityToRemove = UnitUtility.convertUnit(availableQuantity,
-            requiredUnit, itemUnit);
-        fridge.updateFridgeItemQuantityById(item.getId(), -quantityToRemove);
-        remainingQuantity -= availableQuantity;
+        fridge.updateFridgeItemQuantityById(item.getId(),
+            -Quantity.toDouble(item.getQuantityMicros()));
+        recordFridgeItem(item);
+        remainingMicros -= availableMicros;
       }
     }
 
-    return remainingQuantity == 0
+    return remainingMicros == 0
         ? "Ingredient removed successfully."
         : "Insufficient quantity to fulfill request.";
   }
 
+  /**
+   * Plans exactly how much to take from each lot to cover a demand of
+   * ingredients, using the lots closest to expiration first.
+   * Expired lots are never used, and only the lots of the demanded ingredients
+   * are looked at. The fridge is not changed.
+   *
+   * @param demand the ingredient names mapped to the quantity needed, in the
+   *               unit of each ingredient
+   * @return the plan, with the shortfall of any ingredient that cannot be covered
+   */
+  public WithdrawalPlan planWithdrawal(Map<String, Double> demand) {
+    Map<String, Long> demandMicros = new LinkedHashMap<>();
+    for (Map.Entry<String, Double> entry : demand.entrySet()) {
+      demandMicros.put(entry.getKey(), Quantity.toMicros(entry.getValue()));
+    }
+    return planWithdrawalMicros(demandMicros);
+  }
+
+  /**
+   * Plans exactly how much to take from each lot to cover a demand of
+   * ingredients in micro-units, see {@link #planWithdrawal}.
+   *
+   * @param demandMicros the ingredient names mapped to the quantity needed, in
+   *                     micro-units of each ingredient
+   * @return the plan, with the shortfall of any ingredient that cannot be covered
+   */
+  public WithdrawalPlan planWithdrawalMicros(Map<String, Long> demandMicros) {
+    int today = dayClock.today();
+    WithdrawalPlan plan = new WithdrawalPlan(demandMicros);
+
+    for (Map.Entry<String, Long> entry : demandMicros.entrySet()) {
+      String ingredientName = entry.getKey();
+      long remainingMicros = entry.getValue();
+
+      List<FridgeItem> usableItems = new ArrayList<>();
+      for (FridgeItem item : fridge.getAllIngredientInstancesByName(ingredientName)) {
+        if (item.getQuantityMicros() > 0 && item.getExpirationDay() >= today) {
+          usableItems.add(item);
+        }
+      }
+      usableItems.sort(Comparator.comparingInt(FridgeItem::getExpirationDay));
+
+      for (FridgeItem item : usableItems) {
+        if (remainingMicros <= 0) {
+          break;
+        }
+        long microsToTake = Math.min(remainingMicros, item.getQuantityMicros());
+        plan.addWithdrawal(item, microsToTake);
+        remainingMicros -= microsToTake;
+      }
+
+      if (remainingMicros > 0) {
+        plan.addShortfall(ingredientName, remainingMicros);
+      }
+    }
+    return plan;
+  }
+
+  /**
+   * Commits a WithdrawalPlan to the fridge, either fully or not at all.
+   * Nothing is changed if the plan has a shortfall, or if any of its lots has
+   * been removed or reduced since the plan was made. The lots are checked
+   * against what the fridge has stored, so this also works with a fridge that
+   * hands out copies of its items.
+   *
+   * @param plan the plan to commit
+   * @return true if the plan was committed, false if nothing was changed
+   */
+  public boolean commitWithdrawal(WithdrawalPlan plan) {
+    if (!plan.isFulfilled()) {
+      return false;
+    }
+
+    for (WithdrawalPlan.Withdrawal withdrawal : plan.getWithdrawals()) {
+      FridgeItem item = withdrawal.getFridgeItem();
+      if (!fridge.containsFridgeItem(item)) {
+        return false;
+      }
+      FridgeItem storedItem = fridge.getFridgeItemById(item.getId());
+      if (storedItem.getQuantityMicros() < withdrawal.getQuantityMicros()) {
+        return false;
+      }
+    }
+
+    for (WithdrawalPlan.Withdrawal withdrawal : plan.getWithdrawals()) {
+      fridge.withdrawMicrosFromFridgeItem(withdrawal.getFridgeItem(),
+          withdrawal.getQuantityMicros());
+      recordFridgeItem(withdrawal.getFridgeItem());
+    }
+    return true;
+  }
+
+  /**
+   * Records the current state of a FridgeItem in the journal: its quantity if it
+   * is still in the fridge, or that it was removed.
+   */
+  private void recordFridgeItem(FridgeItem item) {
+    if (journal == null) {
+      return;
+    }
+    FridgeItem storedItem = fridge.getFridgeItemById(item.getId());
+    if (storedItem != null) {
+      journal.recordFridgeItemQuantity(storedItem);
+    } else {
+      journal.recordFridgeItemRemoved(item.getId());
+    }
+  }
+
   /**
    * Checks if an ingredient with the specified ID exists in the fridge.
    *
@@ -225,11 +408,13 @@ public class FridgeManager {
   public String setFridgeItemQuantityById(int id, double quantity) {
     FridgeItem item = fridge.getFridgeItemById(id);
     if (item != null) {
-      item.setQuantity(quantity);
+      fridge.setFridgeItemQuantityById(id, quantity);
       if (quantity == 0) {
         fridge.removeFridgeItemById(id);
+        recordFridgeItem(item);
         return "Fridge item removed.";
       }
+      recordFridgeItem(fridge.getFridgeItemById(id));
       return "Fridge item quantity set successfully.";
     }
     return "Fridge item not found.";
@@ -246,7 +431,7 @@ public class FridgeManager {
 
     allItems.sort(Comparator.comparing(FridgeItem::getQuantity));
 
-    allItems.sort(Comparator.comparing(FridgeItem::getExpirationDate));
+    allItems.sort(Comparator.comparingInt(FridgeItem::getExpirationDay));
 
     allItems.sort(Comparator.comparing(item -> item.getIngredient().getIngredientName()));
 
@@ -277,7 +462,7 @@ public class FridgeManager {
    */
   public List<FridgeItem> getAllInstancesOfIngredient(String ingredientName) {
     return fridge.getAllIngredientInstancesByName(ingredientName).stream()
-        .sorted(Comparator.comparing(FridgeItem::getExpirationDate))
+        .sorted(Comparator.comparingInt(FridgeItem::getExpirationDay))
         .collect(Collectors.toList());
   }
 
@@ -287,11 +472,9 @@ public class FridgeManager {
    * @return a list of expired FridgeItems
    */
   public List<FridgeItem> getAllExpiredItems() {
-    long todayAsLong = DateValidation.getTodayAsLong();
-
-    List<FridgeItem> expiredItems = fridge.getAllFridgeItems().stream()
-        .filter(item -> DateValidation.compareDates(item.getExpirationDate(), todayAsLong) < 0)
-        .collect(Collectors.toList());
+    List<FridgeItem> expiredItems = expiryScheduler != null
+        ? expiryScheduler.getExpiredItems()
+        : fridge.getFridgeItemsExpiringBefore(dayClock.todayAsLong());
 
     for (FridgeItem expiredItem : expiredItems) {
       System.out.println("Item: " + expiredItem.getIngredient().getIngredientName()
@@ -315,6 +498,9 @@ public class FridgeManager {
    * @return a message with the total value of expired items
    */
   public String getExpiredItemsValue() {
+    if (expiryScheduler != null) {
+      return "Total value of expired items: " + expiryScheduler.getExpiredValue();
+    }
     double value = getAllExpiredItems().stream()
         .mapToDouble(item -> item.getIngredient().getIngredientCost())
         .sum();
@@ -343,12 +529,69 @@ public class FridgeManager {
    * @return the total quantity of the ingredient in the specified unit
    */
   public double getTotalQuantityOfIngredient(String ingredientName, String targetUnit) {
-    return fridge.getAllIngredientInstancesByName(ingredientName).stream()
-        .mapToDouble(item -> {
-          String itemUnit = item.getIngredient().getIngredientMeasuringUnit();
-          return UnitUtility.convertUnit(item.getQuantity(), itemUnit, targetUnit);
-        })
-        .sum();
+    return Quantity.toDouble(getTotalQuantityMicros(ingredientName, targetUnit));
+  }
+
+  /**
+   * Retrieves the total quantity of a specific ingredient in the fridge in
+   * micro-units, converting units to the target unit if necessary.
+   *
+   * @param ingredientName the name of the ingredient
+   * @param targetUnit     the desired unit for the quantity
+   * @return the total quantity of the ingredient in micro-units of the unit
+   */
+  public long getTotalQuantityMicros(String ingredientName, String targetUnit) {
+    long totalMicros = 0;
+    for (FridgeItem item : fridge.getAllIngredientInstancesByName(ingredientName)) {
+      String itemUnit = item.getIngredient().getIngredientMeasuringUnit();
+      long micros = Quantity.convert(item.getQuantityMicros(), itemUnit, targetUnit);
+      if (micros > 0) {
+        totalMicros += micros;
+      }
+    }
+    return totalMicros;
+  }
+
+  /**
+   * Retrieves the total quantity of an ingredient in the fridge that has not
+   * expired, in the unit of the ingredient.
+   * Only the items of that ingredient are looked at.
+   *
+   * @param ingredientName the name of the ingredient
+   * @return the usable quantity of the ingredient
+   */
+  public double getUsableQuantityOfIngredient(String ingredientName) {
+    return getUsableQuantityOfIngredient(ingredientName, dayClock.today());
+  }
+
+  /**
+   * Retrieves the total quantity of an ingredient in the fridge that has not
+   * expired on a given day, in the unit of the ingredient.
+   *
+   * @param ingredientName the name of the ingredient
+   * @param today          the day in the format yyyyMMdd
+   * @return the usable quantity of the ingredient
+   */
+  public double getUsableQuantityOfIngredient(String ingredientName, int today) {
+    return Quantity.toDouble(getUsableQuantityMicros(ingredientName, today));
+  }
+
+  /**
+   * Retrieves the total quantity of an ingredient in the fridge that has not
+   * expired on a given day, in micro-units of the ingredient.
+   *
+   * @param ingredientName the name of the ingredient
+   * @param today          the day in the format yyyyMMdd
+   * @return the usable quantity of the ingredient in micro-units
+   */
+  public long getUsableQuantityMicros(String ingredientName, int today) {
+    long usableMicros = 0;
+    for (FridgeItem item : fridge.getAllIngredientInstancesByName(ingredientName)) {
+      if (item.getExpirationDay() >= today) {
+        usableMicros += item.getQuantityMicros();
+      }
+    }
+    return usableMicros;
   }
 
   /**
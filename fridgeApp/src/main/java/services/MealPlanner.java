@@ -0,0 +1,263 @@
+package services;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import models.FoodList;
+import models.FridgeItem;
+import models.Ingredient;
+import models.MealPlan;
+import models.Recipe;
+import utilities.DateValidation;
+import utilities.Quantity;
+
+/**
+ * Plans which recipes to cook over the coming days, so that the items in the
+ * fridge closest to expiring are used first and as little as possible has to
+ * be bought.
+ * The plan is built greedily one day at a time. Since a recipe can only score
+ * worse as stock is used up and days pass, each day only re-evaluates the
+ * recipes at the top of a priority queue instead of the whole catalog.
+ *
+ * @author Dennis Moe
+ */
+public class MealPlanner {
+
+  /**
+   * The weight of stock that will not expire before the plan ends. Using it
+   * still saves a purchase, but rescuing expiring stock is always preferred.
+   */
+  private static final double SAFE_STOCK_WEIGHT = 0.1;
+
+  private final RecipeManager recipeManager;
+  private final FridgeManager fridgeManager;
+  private final FoodList foodList;
+
+  /**
+   * A simulated copy of the usable lots of one ingredient, in expiry order.
+   * The remaining quantities are in micro-units, see {@link Quantity}.
+   */
+  private static final class StockLots {
+    private final double unitValue;
+    private final long[] remaining;
+    private final long[] expiryDay;
+    private final double[] weight;
+
+    private StockLots(double unitValue, int size) {
+      this.unitValue = unitValue;
+      this.remaining = new long[size];
+      this.expiryDay = new long[size];
+      this.weight = new double[size];
+    }
+  }
+
+  /**
+   * A recipe in the queue with the score it had when last evaluated.
+   */
+  private static final class Candidate {
+    private final Recipe recipe;
+    private double score;
+    private int evaluatedAt;
+
+    private Candidate(Recipe recipe) {
+      this.recipe = recipe;
+    }
+  }
+
+  /**
+   * Constructs a new MealPlanner.
+   *
+   * @param recipeManager the RecipeManager holding the recipes to plan from
+   */
+  public MealPlanner(RecipeManager recipeManager) {
+    this.recipeManager = recipeManager;
+    this.fridgeManager = recipeManager.getFridgeManager();
+    this.foodList = fridgeManager.getFoodList();
+  }
+
+  /**
+   * Plans one recipe per day for the given number of days, starting today.
+   * If the time budget runs out, the remaining days are filled from the best
+   * scores found so far and the plan is marked as not completed within budget.
+   *
+   * @param days             the number of days to plan for
+   * @param timeBudgetMillis the maximum time to spend searching, in milliseconds
+   * @return the planned meals
+   */
+  public MealPlan planMeals(int days, long timeBudgetMillis) {
+    return planMeals(recipeManager.getAllRecipeObjects(), days, timeBudgetMillis);
+  }
+
+  /**
+   * Plans one recipe per day for the given number of days from a set of
+   * recipes, starting today. Every recipe is used at most once.
+   *
+   * @param recipes          the recipes to choose from
+   * @param days             the number of days to plan for
+   * @param timeBudgetMillis the maximum time to spend searching, in milliseconds
+   * @return the planned meals
+   */
+  public MealPlan planMeals(Collection<Recipe> recipes, int days, long timeBudgetMillis) {
+    long deadline = System.nanoTime() + timeBudgetMillis * 1_000_000L;
+    MealPlan plan = new MealPlan();
+    if (days <= 0 || recipes.isEmpty()) {
+      return plan;
+    }
+
+    long today = fridgeManager.getDayClock().todayAsEpochDay();
+    Map<String, StockLots> stock = buildStock(today, days);
+
+    PriorityQueue<Candidate> queue = new PriorityQueue<>(
+        (a, b) -> Double.compare(b.score, a.score));
+    for (Recipe recipe : recipes) {
+      Candidate candidate = new Candidate(recipe);
+      candidate.score = System.nanoTime() < deadline
+          ? evaluate(recipe, stock, today, false)
+          : Double.NEGATIVE_INFINITY;
+      queue.add(candidate);
+    }
+
+    int round = 0;
+    for (int day = 0; day < days && !queue.isEmpty(); day++) {
+      long cookingDay = today + day;
+      Candidate chosen = null;
+
+      while (chosen == null) {
+        Candidate top = queue.poll();
+        if (top.evaluatedAt == round || System.nanoTime() >= deadline) {
+          chosen = top;
+        } else {
+          top.score = evaluate(top.recipe, stock, cookingDay, false);
+          top.evaluatedAt = round;
+          queue.add(top);
+        }
+      }
+
+      if (System.nanoTime() >= deadline) {
+        plan.setCompletedWithinBudget(false);
+      }
+      plan.addMeal(consume(day, chosen.recipe, stock, cookingDay));
+      round++;
+    }
+    return plan;
+  }
+
+  private Map<String, StockLots> buildStock(long today, int days) {
+    Map<String, List<FridgeItem>> lotsByName = new HashMap<>();
+    for (FridgeItem item : fridgeManager.getAllFridgeItems()) {
+      long expiryDay = toEpochDay(item.getExpirationDay());
+      if (expiryDay >= today && item.getQuantityMicros() > 0) {
+        lotsByName.computeIfAbsent(item.getIngredient().getIngredientName(),
+            k -> new ArrayList<>()).add(item);
+      }
+    }
+
+    Map<String, StockLots> stock = new HashMap<>();
+    for (Map.Entry<String, List<FridgeItem>> entry : lotsByName.entrySet()) {
+      List<FridgeItem> lots = entry.getValue();
+      lots.sort(Comparator.comparingInt(FridgeItem::getExpirationDay));
+
+      StockLots stockLots = new StockLots(unitValue(entry.getKey()), lots.size());
+      for (int i = 0; i < lots.size(); i++) {
+        FridgeItem lot = lots.get(i);
+        long expiryDay = toEpochDay(lot.getExpirationDay());
+        long daysLeft = expiryDay - today;
+        stockLots.remaining[i] = lot.getQuantityMicros();
+        stockLots.expiryDay[i] = expiryDay;
+        stockLots.weight[i] = daysLeft <= days
+            ? 1.0 + (double) (days + 1 - daysLeft) / (days + 1)
+            : SAFE_STOCK_WEIGHT;
+      }
+      stock.put(entry.getKey(), stockLots);
+    }
+    return stock;
+  }
+
+  /**
+   * Scores a recipe against the simulated stock, or consumes the stock it needs.
+   * The score rewards using stock, most of all stock close to expiring, and
+   * subtracts the cost of what has to be bought.
+   */
+  private double evaluate(Recipe recipe, Map<String, StockLots> stock, long cookingDay,
+      boolean consume) {
+    double score = 0.0;
+    for (int index = 0; index < recipe.getIngredientCount(); index++) {
+      String ingredientName = recipe.getIngredientName(index);
+      long needed = recipe.getIngredientQuantityMicros(index);
+      StockLots lots = stock.get(ingredientName);
+      if (lots == null) {
+        score -= Quantity.toDouble(needed) * unitValue(ingredientName);
+        continue;
+      }
+      for (int i = 0; i < lots.remaining.length && needed > 0; i++) {
+        if (lots.remaining[i] <= 0 || lots.expiryDay[i] < cookingDay) {
+          continue;
+        }
+        long taken = Math.min(needed, lots.remaining[i]);
+        score += Quantity.toDouble(taken) * lots.unitValue * lots.weight[i];
+        needed -= taken;
+        if (consume) {
+          lots.remaining[i] -= taken;
+        }
+      }
+      score -= Quantity.toDouble(needed) * lots.unitValue;
+    }
+    return score;
+  }
+
+  private MealPlan.PlannedMeal consume(int day, Recipe recipe, Map<String, StockLots> stock,
+      long cookingDay) {
+    double stockValueUsed = 0.0;
+    double expiringValueUsed = 0.0;
+    double purchaseCost = 0.0;
+
+    for (int index = 0; index < recipe.getIngredientCount(); index++) {
+      String ingredientName = recipe.getIngredientName(index);
+      long needed = recipe.getIngredientQuantityMicros(index);
+      StockLots lots = stock.get(ingredientName);
+      if (lots != null) {
+        for (int i = 0; i < lots.remaining.length && needed > 0; i++) {
+          if (lots.remaining[i] <= 0 || lots.expiryDay[i] < cookingDay) {
+            continue;
+          }
+          long taken = Math.min(needed, lots.remaining[i]);
+          stockValueUsed += Quantity.toDouble(taken) * lots.unitValue;
+          if (lots.weight[i] > SAFE_STOCK_WEIGHT) {
+            expiringValueUsed += Quantity.toDouble(taken) * lots.unitValue;
+          }
+          needed -= taken;
+        }
+      }
+      purchaseCost += Quantity.toDouble(needed) * unitValue(ingredientName);
+    }
+    evaluate(recipe, stock, cookingDay, true);
+    return new MealPlan.PlannedMeal(day, recipe, stockValueUsed, expiringValueUsed,
+        purchaseCost);
+  }
+
+  private double unitValue(String ingredientName) {
+    Ingredient ingredient = foodList.getIngredientFromFoodList(ingredientName);
+    if (ingredient == null || ingredient.getIngredientBaseWeight() <= 0) {
+      return 0.0;
+    }
+    return ingredient.getIngredientCost() / ingredient.getIngredientBaseWeight();
+  }
+
+  /**
+   * Converts a yyyyMMdd date to a day count, treating invalid dates as never
+   * expiring.
+   */
+  private static long toEpochDay(int expirationDay) {
+    int day = expirationDay % 100;
+    int month = expirationDay / 100 % 100;
+    int year = expirationDay / 10_000;
+    if (!DateValidation.isValidDate(day, month, year)) {
+      return Long.MAX_VALUE;
+    }
+    return DateValidation.toEpochDay(expirationDay);
+  }
+}
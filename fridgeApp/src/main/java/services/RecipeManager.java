@@ -1,14 +1,22 @@
 package services;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import models.CookBook;
 import models.FoodList;
-import models.FridgeItem;
 import models.Ingredient;
 import models.Recipe;
 import models.RecipeList;
-import utilities.DateValidation;
+import models.ShoppingList;
+import models.WithdrawalPlan;
+import utilities.MutationJournal;
+import utilities.Quantity;
 
 /**
  * Manages recipes and operations on the RecipeList.
@@ -19,6 +27,28 @@ public class RecipeManager {
   private final RecipeList recipeList;
   private final FridgeManager fridgeManager;
   private final FoodList foodList;
+  private final Map<Recipe, CachedRecipeCost> recipeCostCache;
+  private final Map<String, Set<Recipe>> recipesByIngredient;
+  private MutationJournal journal;
+
+  /**
+   * Both costs of a recipe, valid for as long as the recipe version matches
+   * and none of its ingredients change in the FoodList.
+   */
+  private static final class CachedRecipeCost {
+    private final int recipeVersion;
+    private final String[] ingredientNames;
+    private final double fullCost;
+    private final double quantityCost;
+
+    private CachedRecipeCost(int recipeVersion, String[] ingredientNames,
+        double fullCost, double quantityCost) {
+      this.recipeVersion = recipeVersion;
+      this.ingredientNames = ingredientNames;
+      this.fullCost = fullCost;
+      this.quantityCost = quantityCost;
+    }
+  }
 
   /**
    * Constructs a new RecipeManager.
@@ -30,6 +60,18 @@ public class RecipeManager {
     this.recipeList = recipeList;
     this.fridgeManager = fridgeManager;
     this.foodList = fridgeManager.getFoodList();
+    this.recipeCostCache = new HashMap<>();
+    this.recipesByIngredient = new HashMap<>();
+    this.foodList.addIngredientChangeListener(this::invalidateRecipeCostsUsing);
+  }
+
+  /**
+   * Sets the journal that every change to the recipes is recorded in.
+   *
+   * @param journal the journal to record changes in, or null to stop recording
+   */
+  public void setJournal(MutationJournal journal) {
+    this.journal = journal;
   }
 
   /**
@@ -49,7 +91,31 @@ public class RecipeManager {
       return "A recipe already exists with that name. Delete it or use another name.";
     }
 
-    Recipe recipe = new Recipe(recipeName, recipeDescription, instructions, recipeType);
+    return addNewRecipe(new Recipe(recipeName, recipeDescription, instructions, recipeType),
+        ingredients);
+  }
+
+  /**
+   * Creates a new recipe with the specified ingredients, whose description and
+   * instructions are loaded from a TextSource when they are needed.
+   *
+   * @param recipeName  the name of the recipe
+   * @param recipeType  the type of the recipe
+   * @param textSource  loads the description and instructions of the recipe
+   * @param ingredients the ingredients for the recipe with their quantities
+   * @return a message indicating the outcome of the operation
+   */
+  public String createNewRecipeWithTextSource(String recipeName, String recipeType,
+      Recipe.TextSource textSource, Map<String, Double> ingredients) {
+
+    if (recipeList.getRecipe(recipeName) != null) {
+      return "A recipe already exists with that name. Delete it or use another name.";
+    }
+
+    return addNewRecipe(new Recipe(recipeName, recipeType, textSource), ingredients);
+  }
+
+  private String addNewRecipe(Recipe recipe, Map<String, Double> ingredients) {
     for (Map.Entry<String, Double> entry : ingredients.entrySet()) {
       String ingredientName = entry.getKey();
       double quantity = entry.getValue();
@@ -61,6 +127,9 @@ public class RecipeManager {
       recipe.addIngredient(ingredientName, quantity);
     }
     recipeList.addRecipe(recipe);
+    if (journal != null) {
+      journal.recordRecipe(recipe);
+    }
     return "Successfully created the recipe.";
   }
 
@@ -75,6 +144,9 @@ public class RecipeManager {
       return "A recipe already exists with that name. Delete it or use another name.";
     }
     recipeList.addRecipe(recipe);
+    if (journal != null) {
+      journal.recordRecipe(recipe);
+    }
     return "Recipe successfully created.";
   }
 
@@ -88,7 +160,11 @@ public class RecipeManager {
     if (recipeList.getRecipe(recipeName) == null) {
       return "No recipe found with that name.";
     }
+    evictRecipeCost(recipeList.getRecipe(recipeName));
     recipeList.removeRecipe(recipeName);
+    if (journal != null) {
+      journal.recordRecipeRemoved(recipeName);
+    }
     return "Recipe successfully removed.";
   }
 
@@ -108,6 +184,9 @@ public class RecipeManager {
       return "Ingredient " + ingredientName + " already exists in the recipe.";
     }
     recipe.addIngredient(ingredientName, quantity);
+    if (journal != null) {
+      journal.recordRecipe(recipe);
+    }
     return "Ingredient " + ingredientName + " added to recipe.";
   }
 
@@ -127,6 +206,9 @@ public class RecipeManager {
       return "Ingredient " + ingredientName + " not found in the recipe.";
     }
     recipe.removeIngredient(ingredientName);
+    if (journal != null) {
+      journal.recordRecipe(recipe);
+    }
     return ingredientName + " removed from recipe.";
   }
 
@@ -158,9 +240,9 @@ public class RecipeManager {
       return "Error: Recipe is null.";
     }
 
-    for (Map.Entry<String, Double> entry : recipe.getIngredients().entrySet()) {
-      String ingredientName = entry.getKey();
-      double requiredQuantity = entry.getValue();
+    for (int index = 0; index < recipe.getIngredientCount(); index++) {
+      String ingredientName = recipe.getIngredientName(index);
+      double requiredQuantity = Quantity.toDouble(recipe.getIngredientQuantityMicros(index));
 
       String ingredientUnit = foodList.getIngredientFromFoodList(ingredientName)
           .getIngredientMeasuringUnit();
@@ -178,24 +260,18 @@ public class RecipeManager {
   /**
    * Calculates the total cost of a recipe based on the cost of each ingredient
    * from the FoodList.
+   * The result is cached until the recipe or one of its ingredients changes.
    *
    * @param recipe the recipe to calculate the cost for
    * @return the total cost of the recipe
    */
   public double calculateRecipeCost(Recipe recipe) {
-    double totalCost = 0.0;
-    for (Map.Entry<String, Double> entry : recipe.getIngredients().entrySet()) {
-      String ingredientName = entry.getKey();
-      Ingredient ingredient = foodList.getIngredientFromFoodList(ingredientName);
-      if (ingredient != null) {
-        totalCost += ingredient.getIngredientCost();
-      }
-    }
-    return totalCost;
+    return getCachedRecipeCost(recipe).fullCost;
   }
 
   /**
    * Calculates the total cost of the quantities of ingredients in a recipe.
+   * The result is cached until the recipe or one of its ingredients changes.
    *
    * @param recipeName The name of the recipe to calculate the cost for.
    * @return The total cost of the recipe's ingredients.
@@ -205,14 +281,65 @@ public class RecipeManager {
     if (recipe == null) {
       throw new IllegalArgumentException("Recipe not found: " + recipeName);
     }
+    return getCachedRecipeCost(recipe).quantityCost;
+  }
 
-    double totalCost = 0.0;
+  /**
+   * Builds a list of the cost of every recipe in a CookBook.
+   * Each line holds the cost of the used quantities and the full cost.
+   *
+   * @param cookBook the CookBook to list the recipe costs of
+   * @return a StringBuilder with one line per recipe
+   */
+  public StringBuilder listRecipeCostsInCookBook(CookBook cookBook) {
+    StringBuilder costs = new StringBuilder();
+    if (cookBook == null) {
+      return costs.append("CookBook not found!");
+    }
+    for (Map.Entry<String, Recipe> entry : cookBook.getRecipesInCookBook().entrySet()) {
+      CachedRecipeCost cost = getCachedRecipeCost(entry.getValue());
+      costs.append(entry.getKey()).append(": ")
+          .append(String.format("%.2f", cost.quantityCost)).append(" NOK used, ")
+          .append(String.format("%.2f", cost.fullCost)).append(" NOK in total.\n");
+    }
+    if (costs.isEmpty()) {
+      costs.append("No recipes in this CookBook.\n");
+    }
+    return costs;
+  }
 
-    for (Map.Entry<String, Double> entry : recipe.getIngredients().entrySet()) {
-      String ingredientName = entry.getKey();
-      double requiredQuantity = entry.getValue();
+  /**
+   * Gets the cost of every recipe in a CookBook, keyed by recipe name.
+   *
+   * @param cookBook the CookBook to get the recipe costs of
+   * @return the recipe names mapped to the cost of the quantities they use
+   */
+  public Map<String, Double> getRecipeCostsInCookBook(CookBook cookBook) {
+    Map<String, Double> costs = new LinkedHashMap<>();
+    for (Map.Entry<String, Recipe> entry : cookBook.getRecipesInCookBook().entrySet()) {
+      costs.put(entry.getKey(), getCachedRecipeCost(entry.getValue()).quantityCost);
+    }
+    return costs;
+  }
 
-      Ingredient ingredient = fridgeManager.getFoodList().getIngredientFromFoodList(ingredientName);
+  private CachedRecipeCost getCachedRecipeCost(Recipe recipe) {
+    CachedRecipeCost cached = recipeCostCache.get(recipe);
+    if (cached != null && cached.recipeVersion == recipe.getVersion()) {
+      return cached;
+    }
+    evictRecipeCost(recipe);
+
+    double fullCost = 0.0;
+    double quantityCost = 0.0;
+    String[] ingredientNames = new String[recipe.getIngredientCount()];
+
+    for (int index = 0; index < ingredientNames.length; index++) {
+      String ingredientName = recipe.getIngredientName(index);
+      double requiredQuantity = Quantity.toDouble(recipe.getIngredientQuantityMicros(index));
+      ingredientNames[index] = ingredientName;
+      recipesByIngredient.computeIfAbsent(ingredientName, k -> new HashSet<>()).add(recipe);
+
+      Ingredient ingredient = foodList.getIngredientFromFoodList(ingredientName);
       if (ingredient == null) {
         System.out.println("Ingredient not found: " + ingredientName);
         continue;
@@ -221,12 +348,40 @@ public class RecipeManager {
       double ingredientCost = ingredient.getIngredientCost();
       double baseWeight = ingredient.getIngredientBaseWeight();
 
+      fullCost += ingredientCost;
+      quantityCost += (requiredQuantity / baseWeight) * ingredientCost;
+    }
+
+    CachedRecipeCost computed = new CachedRecipeCost(recipe.getVersion(), ingredientNames,
+        fullCost, quantityCost);
+    recipeCostCache.put(recipe, computed);
+    return computed;
+  }
 
-      double costForIngredient = (requiredQuantity / baseWeight) * ingredientCost;
-      totalCost += costForIngredient;
+  private void evictRecipeCost(Recipe recipe) {
+    CachedRecipeCost cached = recipeCostCache.remove(recipe);
+    if (cached == null) {
+      return;
     }
+    for (String ingredientName : cached.ingredientNames) {
+      Set<Recipe> recipes = recipesByIngredient.get(ingredientName);
+      if (recipes != null) {
+        recipes.remove(recipe);
+        if (recipes.isEmpty()) {
+          recipesByIngredient.remove(ingredientName);
+        }
+      }
+    }
+  }
 
-    return totalCost;
+  private void invalidateRecipeCostsUsing(String ingredientName) {
+    Set<Recipe> recipes = recipesByIngredient.get(ingredientName);
+    if (recipes == null) {
+      return;
+    }
+    for (Recipe recipe : List.copyOf(recipes)) {
+      evictRecipeCost(recipe);
+    }
   }
 
   /**
@@ -246,9 +401,34 @@ public class RecipeManager {
       return "Ingredient " + ingredientName + " not found in the recipe.";
     }
     recipe.addIngredient(ingredientName, quantity);
+    if (journal != null) {
+      journal.recordRecipe(recipe);
+    }
     return "Ingredient quantity updated successfully.";
   }
 
+  /**
+   * Updates the description, instructions and type of a recipe.
+   *
+   * @param recipeName        the name of the recipe to update
+   * @param recipeDescription the new description
+   * @param instructions      the new instructions
+   * @param recipeType        the new type
+   * @return a message indicating the outcome of the operation
+   */
+  public String updateRecipeDetails(String recipeName, String recipeDescription,
+      String instructions, String recipeType) {
+    Recipe recipe = recipeList.getRecipe(recipeName);
+    if (recipe == null) {
+      return "Recipe not found.";
+    }
+    recipe.updateDetails(recipeDescription, instructions, recipeType);
+    if (journal != null) {
+      journal.recordRecipe(recipe);
+    }
+    return "Recipe details updated successfully.";
+  }
+
   /**
    * Retrieves a recipe with info by its name from the RecipeList.
    *
@@ -313,6 +493,19 @@ public class RecipeManager {
     return recipeList.getRecipe(recipeName);
   }
 
+  /**
+   * Retrieves all Recipe objects in the RecipeList.
+   *
+   * @return a collection of all recipes
+   */
+  public Collection<Recipe> getAllRecipeObjects() {
+    return recipeList.getAllRecipes().values();
+  }
+
+  public FridgeManager getFridgeManager() {
+    return fridgeManager;
+  }
+
   /**
    * Retrieves all recipes in the RecipeList.
    *
@@ -344,19 +537,19 @@ public class RecipeManager {
       int matchingIngredients = 0;
       List<String> missingIngredients = new ArrayList<>();
 
-      for (Map.Entry<String, Double> ingredientEntry : recipe.getIngredients().entrySet()) {
-        String ingredientName = ingredientEntry.getKey();
-        double requiredQuantity = ingredientEntry.getValue();
+      for (int index = 0; index < recipe.getIngredientCount(); index++) {
+        String ingredientName = recipe.getIngredientName(index);
+        long requiredMicros = recipe.getIngredientQuantityMicros(index);
         String requiredUnit = foodList.getIngredientFromFoodList(ingredientName)
             .getIngredientMeasuringUnit();
 
 
-        double availableQuantityInRequiredUnit = fridgeManager
-            .getTotalQuantityOfIngredient(ingredientName,
+        long availableMicrosInRequiredUnit = fridgeManager
+            .getTotalQuantityMicros(ingredientName,
                 requiredUnit);
 
 
-        if (availableQuantityInRequiredUnit >= requiredQuantity) {
+        if (availableMicrosInRequiredUnit >= requiredMicros) {
           matchingIngredients++;
         } else {
 
@@ -364,7 +557,7 @@ public class RecipeManager {
         }
       }
 
-      int totalIngredients = recipe.getIngredients().size();
+      int totalIngredients = recipe.getIngredientCount();
       if (matchingIngredients > 0 && matchingIngredients < totalIngredients) {
         suggestions.append("---------------------------------------------------\n")
             .append("You can partially make ")
@@ -401,18 +594,18 @@ public class RecipeManager {
     for (Recipe recipe : recipeList.getAllRecipes().values()) {
       boolean isFullMatch = true;
 
-      for (Map.Entry<String, Double> ingredientEntry : recipe.getIngredients().entrySet()) {
-        String ingredientName = ingredientEntry.getKey();
-        double requiredQuantity = ingredientEntry.getValue();
+      for (int index = 0; index < recipe.getIngredientCount(); index++) {
+        String ingredientName = recipe.getIngredientName(index);
+        long requiredMicros = recipe.getIngredientQuantityMicros(index);
 
 
         String requiredUnit = foodList.getIngredientFromFoodList(ingredientName)
             .getIngredientMeasuringUnit();
-        double availableQuantity = fridgeManager
-            .getTotalQuantityOfIngredient(ingredientName, requiredUnit);
+        long availableMicros = fridgeManager
+            .getTotalQuantityMicros(ingredientName, requiredUnit);
 
 
-        if (availableQuantity < requiredQuantity) {
+        if (availableMicros < requiredMicros) {
           isFullMatch = false;
           break;
         }
@@ -437,6 +630,9 @@ public class RecipeManager {
 
   /**
    * Removes the quantities of ingredients required for a recipe from the fridge.
+   * All quantities are planned per lot first, prioritizing the lots closest to
+   * expiration, and the fridge is only changed if the whole recipe can be
+   * covered by lots that have not expired.
    *
    * @param recipeName the name of the recipe whose ingredients are to be removed
    * @return a message indicating the outcome of the operation
@@ -444,70 +640,138 @@ public class RecipeManager {
   public String removeMultipleQuantitiesByRecipe(String recipeName) {
     Recipe recipe = recipeList.getRecipe(recipeName);
 
-
     if (recipe == null) {
       return "Recipe not found.";
     }
 
-    long todayAsLong = DateValidation.getTodayAsLong();
-
-
-    for (Map.Entry<String, Double> entry : recipe.getIngredients().entrySet()) {
-      String ingredientName = entry.getKey();
-      double requiredQuantity = entry.getValue();
+    Map<String, Long> demandMicros = new LinkedHashMap<>();
+    for (int index = 0; index < recipe.getIngredientCount(); index++) {
+      demandMicros.put(recipe.getIngredientName(index), recipe.getIngredientQuantityMicros(index));
+    }
+    WithdrawalPlan plan = fridgeManager.planWithdrawalMicros(demandMicros);
+    if (!plan.isFulfilled()) {
+      return plan.getShortfallMessage();
+    }
 
-      double totalAvailableQuantity = fridgeManager.getAllFridgeItems().stream()
-          .filter(item -> item.getIngredient().getIngredientName().equals(ingredientName))
-          .mapToDouble(FridgeItem::getQuantity)
-          .sum();
+    if (!fridgeManager.commitWithdrawal(plan)) {
+      return "The fridge changed while planning, nothing was removed.";
+    }
+    return "Recipe ingredients removed from fridge, prioritizing items with earliest expiration.";
+  }
 
-      if (totalAvailableQuantity < requiredQuantity) {
-        return "Insufficient " + ingredientName + " in the fridge. Needed: "
-            + requiredQuantity + ", Available: " + totalAvailableQuantity;
+  /**
+   * Plans the removal of the ingredients for several recipes at once.
+   * The quantities of all recipes are summed per ingredient first, and each
+   * ingredient is then planned once, prioritizing the lots closest to
+   * expiration. The fridge is not changed.
+   *
+   * @param multipliersByRecipeName the recipe names mapped to how many times to
+   *                                make each recipe
+   * @return the plan, with the shortfall of any ingredient that cannot be covered
+   * @throws IllegalArgumentException if a recipe does not exist
+   */
+  public WithdrawalPlan planBatchCooking(Map<String, Double> multipliersByRecipeName) {
+    Map<String, Long> demandMicros = new LinkedHashMap<>();
+    for (Map.Entry<String, Double> batch : multipliersByRecipeName.entrySet()) {
+      Recipe recipe = recipeList.getRecipe(batch.getKey());
+      if (recipe == null) {
+        throw new IllegalArgumentException("Recipe not found: " + batch.getKey());
+      }
+      double multiplier = batch.getValue();
+      for (int index = 0; index < recipe.getIngredientCount(); index++) {
+        demandMicros.merge(recipe.getIngredientName(index),
+            Math.round(recipe.getIngredientQuantityMicros(index) * multiplier), Long::sum);
       }
     }
+    return fridgeManager.planWithdrawalMicros(demandMicros);
+  }
 
+  /**
+   * Removes the ingredients for several recipes at once from the fridge.
+   * Every missing ingredient is reported before anything is removed, and the
+   * fridge is only changed if all the recipes can be made.
+   *
+   * @param multipliersByRecipeName the recipe names mapped to how many times to
+   *                                make each recipe
+   * @return a message indicating the outcome of the operation
+   */
+  public String removeQuantitiesByRecipes(Map<String, Double> multipliersByRecipeName) {
+    for (Map.Entry<String, Double> batch : multipliersByRecipeName.entrySet()) {
+      if (recipeList.getRecipe(batch.getKey()) == null) {
+        return "Recipe not found: " + batch.getKey();
+      }
+      if (batch.getValue() <= 0) {
+        return "The number of servings must be greater than zero.";
+      }
+    }
 
-    for (Map.Entry<String, Double> entry : recipe.getIngredients().entrySet()) {
-      String ingredientName = entry.getKey();
-      double requiredQuantity = entry.getValue();
-
-      List<FridgeItem> fridgeItems = fridgeManager.getAllFridgeItems().stream()
-          .filter(item -> item.getIngredient().getIngredientName().equals(ingredientName))
-          .filter(item -> DateValidation.compareDates(item.getExpirationDate(), todayAsLong) >= 0)
-          .sorted((item1, item2) -> DateValidation.compareDates(
-              item1.getExpirationDate(), item2.getExpirationDate()))
-          .toList();
-
-      for (FridgeItem fridgeItem : fridgeItems) {
-        double availableQuantity = fridgeItem.getQuantity();
-
-        if (availableQuantity >= requiredQuantity) {
+    WithdrawalPlan plan = planBatchCooking(multipliersByRecipeName);
+    if (!plan.isFulfilled()) {
+      return plan.getShortfallMessage();
+    }
 
-          fridgeManager.updateFridgeItemQuantityById(fridgeItem.getId(), -requiredQuantity);
-          requiredQuantity = 0;
+    if (!fridgeManager.commitWithdrawal(plan)) {
+      return "The fridge changed while planning, nothing was removed.";
+    }
+    return "Ingredients for " + multipliersByRecipeName.size()
+        + " recipes removed from fridge, prioritizing items with earliest expiration.";
+  }
 
-          if (fridgeItem.getQuantity() - requiredQuantity <= 0) {
-            fridgeManager.removeByIdWithoutString(fridgeItem.getId());
-          }
-          break;
-        } else {
+  /**
+   * Generates a shopping list for all the recipes in a CookBook.
+   *
+   * @param cookBook the CookBook to shop for
+   * @return the ingredients to buy
+   */
+  public ShoppingList generateShoppingList(CookBook cookBook) {
+    return generateShoppingList(cookBook.getRecipesInCookBook().values());
+  }
 
-          fridgeManager.updateFridgeItemQuantityById(fridgeItem.getId(), -availableQuantity);
-          requiredQuantity -= availableQuantity;
+  /**
+   * Generates a shopping list for a set of recipes.
+   * The quantities of all recipes are summed per ingredient in the unit of the
+   * ingredient, the usable stock in the fridge is subtracted once, and whatever
+   * is missing is rounded up to whole packs from the FoodList.
+   *
+   * @param recipes the recipes to shop for
+   * @return the ingredients to buy
+   */
+  public ShoppingList generateShoppingList(Collection<Recipe> recipes) {
+    Map<String, Long> demandMicros = new LinkedHashMap<>();
+    for (Recipe recipe : recipes) {
+      for (int index = 0; index < recipe.getIngredientCount(); index++) {
+        demandMicros.merge(recipe.getIngredientName(index),
+            recipe.getIngredientQuantityMicros(index), Long::sum);
+      }
+    }
 
-          if (availableQuantity == 0) {
-            fridgeManager.removeByIdWithoutString(fridgeItem.getId());
-          }
-        }
+    int today = fridgeManager.getDayClock().today();
+    ShoppingList shoppingList = new ShoppingList();
+    for (Map.Entry<String, Long> entry : demandMicros.entrySet()) {
+      String ingredientName = entry.getKey();
+      long requiredMicros = entry.getValue();
+      long microsInStock = fridgeManager.getUsableQuantityMicros(ingredientName, today);
+      if (microsInStock >= requiredMicros) {
+        continue;
       }
+      double requiredQuantity = Quantity.toDouble(requiredMicros);
+      double quantityInStock = Quantity.toDouble(microsInStock);
 
-      if (requiredQuantity > 0) {
-        System.out.println("Error: Could not remove full quantity for " + ingredientName);
+      Ingredient ingredient = foodList.getIngredientFromFoodList(ingredientName);
+      if (ingredient == null || ingredient.getIngredientBaseWeight() <= 0) {
+        shoppingList.addEntry(new ShoppingList.Entry(ingredientName, "", requiredQuantity,
+            quantityInStock, 0, 0, 0));
+        continue;
       }
-    }
 
-    return "Recipe ingredients removed from fridge, prioritizing items with earliest expiration.";
+      double packSize = ingredient.getIngredientBaseWeight();
+      int packsToBuy = (int) Math.ceil(
+          Quantity.toDouble(requiredMicros - microsInStock) / packSize);
+      shoppingList.addEntry(new ShoppingList.Entry(ingredientName,
+          ingredient.getIngredientMeasuringUnit(), requiredQuantity, quantityInStock,
+          packSize, packsToBuy, packsToBuy * ingredient.getIngredientCost()));
+    }
+    return shoppingList;
   }
 
   /**
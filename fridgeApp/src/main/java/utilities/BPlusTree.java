@@ -0,0 +1,415 @@
+package utilities;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A B+tree from long keys to values of a fixed size, stored in the pages of a
+ * {@link PageFile}.
+ *
+ * <p>Inner pages only hold keys and child pages, all values are in the leaf
+ * pages, and the leaf pages are linked in key order so ranges of keys can be
+ * read without going back up the tree. Only the pages on the path to a key are
+ * pinned at a time, so the tree can be much larger than the buffer pool.
+ *
+ * <p>The tree keeps its root page and its number of entries in two header slots
+ * of the file, {@code rootSlot} and {@code rootSlot + 1}. Pages are not merged
+ * when entries are removed; a leaf left empty stays in the tree and is reused
+ * by later inserts into its key range.
+ *
+ * @author Dennis Moe
+ */
+public class BPlusTree {
+
+  private static final byte LEAF = 1;
+  private static final byte INNER = 2;
+  private static final int TYPE_OFFSET = 0;
+  private static final int COUNT_OFFSET = 4;
+  private static final int NEXT_OFFSET = 8;
+  private static final int HEADER_SIZE = 16;
+
+  private final PageFile file;
+  private final int rootSlot;
+  private final int valueSize;
+  private final int leafCapacity;
+  private final int innerCapacity;
+
+  /**
+   * Receives the entries of a range of keys, in key order.
+   */
+  @FunctionalInterface
+  public interface EntryVisitor {
+    /**
+     * Handles an entry. The tree must not be changed while it is being read.
+     *
+     * @param key   the key of the entry
+     * @param value the value of the entry, only valid until this method returns
+     * @return true to continue with the next entry, false to stop
+     */
+    boolean visit(long key, byte[] value);
+  }
+
+  /**
+   * A page that was split in two, to be added to its parent.
+   */
+  private static final class Split {
+    private final long separator;
+    private final long rightPage;
+
+    private Split(long separator, long rightPage) {
+      this.separator = separator;
+      this.rightPage = rightPage;
+    }
+  }
+
+  /**
+   * Opens the tree kept in the given header slots, creating it if it is empty.
+   *
+   * @param file      the file the tree is stored in
+   * @param rootSlot  the header slot of the root page; the next slot holds the
+   *                  number of entries
+   * @param valueSize the size of every value, in bytes
+   * @throws IOException if the root page can not be created
+   */
+  public BPlusTree(PageFile file, int rootSlot, int valueSize) throws IOException {
+    if (valueSize < 0 || valueSize > PageFile.PAGE_SIZE / 4) {
+      throw new IllegalArgumentException("Invalid value size: " + valueSize);
+    }
+    this.file = file;
+    this.rootSlot = rootSlot;
+    this.valueSize = valueSize;
+    this.leafCapacity = (PageFile.PAGE_SIZE - HEADER_SIZE) / (Long.BYTES + valueSize);
+    this.innerCapacity = (PageFile.PAGE_SIZE - HEADER_SIZE - Long.BYTES) / (2 * Long.BYTES);
+
+    if (file.getSlot(rootSlot) == 0) {
+      PageFile.Page root = file.allocate();
+      root.getBuffer().put(TYPE_OFFSET, LEAF);
+      file.unpin(root);
+      file.setSlot(rootSlot, root.getPageNumber());
+      file.setSlot(rootSlot + 1, 0);
+    }
+  }
+
+  /**
+   * Gets the number of entries in the tree.
+   *
+   * @return the number of entries
+   */
+  public long size() {
+    return file.getSlot(rootSlot + 1);
+  }
+
+  /**
+   * Looks up the value of a key.
+   *
+   * @param key   the key to look up
+   * @param value receives the value if the key is found
+   * @return true if the key is in the tree
+   * @throws IOException if a page can not be read
+   */
+  public boolean get(long key, byte[] value) throws IOException {
+    PageFile.Page leaf = findLeaf(key);
+    try {
+      ByteBuffer buffer = leaf.getBuffer();
+      int index = search(buffer, count(buffer), key);
+      if (index < 0) {
+        return false;
+      }
+      buffer.get(valueOffset(index), value, 0, valueSize);
+      return true;
+    } finally {
+      file.unpin(leaf);
+    }
+  }
+
+  /**
+   * Adds a key with its value, or replaces the value if the key is already in
+   * the tree.
+   *
+   * @param key   the key
+   * @param value the value, {@code valueSize} bytes long
+   * @return true if the key was added, false if its value was replaced
+   * @throws IOException if a page can not be read or written
+   */
+  public boolean put(long key, byte[] value) throws IOException {
+    long rootPage = file.getSlot(rootSlot);
+    boolean[] added = new boolean[1];
+    Split split = insert(rootPage, key, value, added);
+    if (split != null) {
+      PageFile.Page root = file.allocate();
+      ByteBuffer buffer = root.getBuffer();
+      buffer.put(TYPE_OFFSET, INNER);
+      buffer.putInt(COUNT_OFFSET, 1);
+      buffer.putLong(keyOffset(0), split.separator);
+      buffer.putLong(childOffset(0), rootPage);
+      buffer.putLong(childOffset(1), split.rightPage);
+      file.unpin(root);
+      file.setSlot(rootSlot, root.getPageNumber());
+    }
+    if (added[0]) {
+      file.setSlot(rootSlot + 1, size() + 1);
+    }
+    return added[0];
+  }
+
+  /**
+   * Removes a key and its value.
+   *
+   * @param key the key to remove
+   * @return true if the key was in the tree
+   * @throws IOException if a page can not be read or written
+   */
+  public boolean remove(long key) throws IOException {
+    PageFile.Page leaf = findLeaf(key);
+    try {
+      ByteBuffer buffer = leaf.getBuffer();
+      int count = count(buffer);
+      int index = search(buffer, count, key);
+      if (index < 0) {
+        return false;
+      }
+      byte[] page = buffer.array();
+      System.arraycopy(page, keyOffset(index + 1), page, keyOffset(index),
+          (count - index - 1) * Long.BYTES);
+      System.arraycopy(page, valueOffset(index + 1), page, valueOffset(index),
+          (count - index - 1) * valueSize);
+      buffer.putInt(COUNT_OFFSET, count - 1);
+      leaf.markDirty();
+      file.setSlot(rootSlot + 1, size() - 1);
+      return true;
+    } finally {
+      file.unpin(leaf);
+    }
+  }
+
+  /**
+   * Reads the entries with keys from {@code fromKey} up to, but not including,
+   * {@code toKey}, in key order.
+   *
+   * @param fromKey the first key of the range
+   * @param toKey   the key after the range
+   * @param visitor receives the entries
+   * @throws IOException if a page can not be read
+   */
+  public void scan(long fromKey, long toKey, EntryVisitor visitor) throws IOException {
+    byte[] value = new byte[valueSize];
+    PageFile.Page leaf = findLeaf(fromKey);
+    try {
+      while (true) {
+        ByteBuffer buffer = leaf.getBuffer();
+        int count = count(buffer);
+        int index = search(buffer, count, fromKey);
+        for (int i = index < 0 ? -index - 1 : index; i < count; i++) {
+          long key = buffer.getLong(keyOffset(i));
+          if (key >= toKey) {
+            return;
+          }
+          buffer.get(valueOffset(i), value, 0, valueSize);
+          if (!visitor.visit(key, value)) {
+            return;
+          }
+        }
+        long next = buffer.getLong(NEXT_OFFSET);
+        file.unpin(leaf);
+        leaf = null;
+        if (next == 0) {
+          return;
+        }
+        leaf = file.pin(next);
+      }
+    } finally {
+      if (leaf != null) {
+        file.unpin(leaf);
+      }
+    }
+  }
+
+  /**
+   * Pins the leaf page the key belongs in.
+   */
+  private PageFile.Page findLeaf(long key) throws IOException {
+    PageFile.Page page = file.pin(file.getSlot(rootSlot));
+    while (page.getBuffer().get(TYPE_OFFSET) == INNER) {
+      ByteBuffer buffer = page.getBuffer();
+      long child = buffer.getLong(childOffset(childIndex(buffer, key)));
+      file.unpin(page);
+      page = file.pin(child);
+    }
+    return page;
+  }
+
+  private Split insert(long pageNumber, long key, byte[] value, boolean[] added)
+      throws IOException {
+    PageFile.Page page = file.pin(pageNumber);
+    try {
+      ByteBuffer buffer = page.getBuffer();
+      if (buffer.get(TYPE_OFFSET) == LEAF) {
+        return insertIntoLeaf(page, key, value, added);
+      }
+      int index = childIndex(buffer, key);
+      Split split = insert(buffer.getLong(childOffset(index)), key, value, added);
+      return split == null ? null : insertIntoInner(page, index, split);
+    } finally {
+      file.unpin(page);
+    }
+  }
+
+  private Split insertIntoLeaf(PageFile.Page page, long key, byte[] value, boolean[] added)
+      throws IOException {
+    ByteBuffer buffer = page.getBuffer();
+    byte[] bytes = buffer.array();
+    int count = count(buffer);
+    int index = search(buffer, count, key);
+    page.markDirty();
+    if (index >= 0) {
+      System.arraycopy(value, 0, bytes, valueOffset(index), valueSize);
+      return null;
+    }
+    added[0] = true;
+    index = -index - 1;
+
+    if (count < leafCapacity) {
+      System.arraycopy(bytes, keyOffset(index), bytes, keyOffset(index + 1),
+          (count - index) * Long.BYTES);
+      System.arraycopy(bytes, valueOffset(index), bytes, valueOffset(index + 1),
+          (count - index) * valueSize);
+      buffer.putLong(keyOffset(index), key);
+      System.arraycopy(value, 0, bytes, valueOffset(index), valueSize);
+      buffer.putInt(COUNT_OFFSET, count + 1);
+      return null;
+    }
+
+    long[] keys = new long[count + 1];
+    byte[] values = new byte[(count + 1) * valueSize];
+    for (int i = 0, j = 0; i <= count; i++) {
+      if (i == index) {
+        keys[i] = key;
+        System.arraycopy(value, 0, values, i * valueSize, valueSize);
+      } else {
+        keys[i] = buffer.getLong(keyOffset(j));
+        System.arraycopy(bytes, valueOffset(j), values, i * valueSize, valueSize);
+        j++;
+      }
+    }
+
+    int leftCount = (count + 1) / 2;
+    PageFile.Page right = file.allocate();
+    try {
+      ByteBuffer rightBuffer = right.getBuffer();
+      rightBuffer.put(TYPE_OFFSET, LEAF);
+      rightBuffer.putLong(NEXT_OFFSET, buffer.getLong(NEXT_OFFSET));
+      buffer.putLong(NEXT_OFFSET, right.getPageNumber());
+      writeLeafEntries(buffer, keys, values, 0, leftCount);
+      writeLeafEntries(rightBuffer, keys, values, leftCount, count + 1);
+      return new Split(keys[leftCount], right.getPageNumber());
+    } finally {
+      file.unpin(right);
+    }
+  }
+
+  private void writeLeafEntries(ByteBuffer buffer, long[] keys, byte[] values, int from, int to) {
+    for (int i = from; i < to; i++) {
+      buffer.putLong(keyOffset(i - from), keys[i]);
+    }
+    System.arraycopy(values, from * valueSize, buffer.array(), valueOffset(0),
+        (to - from) * valueSize);
+    buffer.putInt(COUNT_OFFSET, to - from);
+  }
+
+  private Split insertIntoInner(PageFile.Page page, int index, Split split) throws IOException {
+    ByteBuffer buffer = page.getBuffer();
+    byte[] bytes = buffer.array();
+    int count = count(buffer);
+    page.markDirty();
+
+    if (count < innerCapacity) {
+      System.arraycopy(bytes, keyOffset(index), bytes, keyOffset(index + 1),
+          (count - index) * Long.BYTES);
+      System.arraycopy(bytes, childOffset(index + 1), bytes, childOffset(index + 2),
+          (count - index) * Long.BYTES);
+      buffer.putLong(keyOffset(index), split.separator);
+      buffer.putLong(childOffset(index + 1), split.rightPage);
+      buffer.putInt(COUNT_OFFSET, count + 1);
+      return null;
+    }
+
+    long[] keys = new long[count + 1];
+    long[] children = new long[count + 2];
+    for (int i = 0, j = 0; i <= count; i++) {
+      keys[i] = i == index ? split.separator : buffer.getLong(keyOffset(j++));
+    }
+    for (int i = 0, j = 0; i <= count + 1; i++) {
+      children[i] = i == index + 1 ? split.rightPage : buffer.getLong(childOffset(j++));
+    }
+
+    int middle = (count + 1) / 2;
+    PageFile.Page right = file.allocate();
+    try {
+      ByteBuffer rightBuffer = right.getBuffer();
+      rightBuffer.put(TYPE_OFFSET, INNER);
+      writeInnerEntries(buffer, keys, children, 0, middle);
+      writeInnerEntries(rightBuffer, keys, children, middle + 1, count + 1);
+      return new Split(keys[middle], right.getPageNumber());
+    } finally {
+      file.unpin(right);
+    }
+  }
+
+  private void writeInnerEntries(ByteBuffer buffer, long[] keys, long[] children,
+      int from, int to) {
+    for (int i = from; i < to; i++) {
+      buffer.putLong(keyOffset(i - from), keys[i]);
+    }
+    for (int i = from; i <= to; i++) {
+      buffer.putLong(childOffset(i - from), children[i]);
+    }
+    buffer.putInt(COUNT_OFFSET, to - from);
+  }
+
+  private static int count(ByteBuffer buffer) {
+    return buffer.getInt(COUNT_OFFSET);
+  }
+
+  /**
+   * Binary search for a key among the keys of a page.
+   *
+   * @return the index of the key, or (-(insertion point) - 1) if it is not there
+   */
+  private static int search(ByteBuffer buffer, int count, long key) {
+    int low = 0;
+    int high = count - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      long middleKey = buffer.getLong(keyOffset(middle));
+      if (middleKey < key) {
+        low = middle + 1;
+      } else if (middleKey > key) {
+        high = middle - 1;
+      } else {
+        return middle;
+      }
+    }
+    return -(low + 1);
+  }
+
+  /**
+   * Finds the child of an inner page that the key belongs in: the child after
+   * the last separator that is not greater than the key.
+   */
+  private static int childIndex(ByteBuffer buffer, long key) {
+    int index = search(buffer, count(buffer), key);
+    return index >= 0 ? index + 1 : -index - 1;
+  }
+
+  private static int keyOffset(int index) {
+    return HEADER_SIZE + index * Long.BYTES;
+  }
+
+  private int valueOffset(int index) {
+    return HEADER_SIZE + leafCapacity * Long.BYTES + index * valueSize;
+  }
+
+  private int childOffset(int index) {
+    return HEADER_SIZE + innerCapacity * Long.BYTES + index * Long.BYTES;
+  }
+}
@@ -0,0 +1,544 @@
+package utilities;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Takes point-in-time backups of the data files, and restores them.
+ *
+ * <p>The content of every file is stored once, under its SHA-256 hash, in the
+ * objects directory. A backup is a small manifest in the snapshots directory
+ * that lists the hash, size and modification time of each file. A file with
+ * the same size and modification time as in the previous backup is not read
+ * again, and content that is already stored is not written again, so backing
+ * up files that did not change costs almost nothing.
+ *
+ * <p>Each file is listed under its path relative to a root directory, by
+ * default the deepest directory that holds all the files of the backup, so
+ * files with the same name in different directories are kept apart. They are
+ * restored under the same paths.
+ *
+ * <p>Data that is written while the application runs, like a journal, a page
+ * file or a database, is backed up through a {@link Source}, which brings its
+ * files up to date and keeps them from changing while they are copied.
+ *
+ * <p>Old backups are removed by {@link #prune(int, int, int)}, which keeps the
+ * newest backup of a number of hours, days and weeks, and then deletes the
+ * content no backup uses anymore.
+ *
+ * @author Dennis Moe
+ */
+public class BackupStore {
+
+  private static final String MANIFEST_HEADER = "FRIDGEAPP-BACKUP 1";
+  private static final String MANIFEST_EXTENSION = ".txt";
+  private static final DateTimeFormatter SNAPSHOT_FORMAT =
+      DateTimeFormatter.ofPattern("yyyyMMdd-HHmmssSSS");
+  private static final int TIMESTAMP_LENGTH = 18;
+
+  private final Path objectsDirectory;
+  private final Path snapshotsDirectory;
+  private final Clock clock;
+  private long bytesRead;
+  private long bytesStored;
+
+  /**
+   * Data kept in files that may change while they are backed up.
+   */
+  public interface Source {
+
+    /**
+     * Brings the files of the source up to date on disk, and backs them up
+     * while keeping them from being changed or removed.
+     *
+     * @param backup takes the backup of the given files
+     * @return the ID of the backup
+     * @throws IOException if the files can not be brought up to date or backed
+     *                     up
+     */
+    String backupFiles(FileBackup backup) throws IOException;
+  }
+
+  /**
+   * Takes a backup of a list of files, see {@link Source}.
+   */
+  @FunctionalInterface
+  public interface FileBackup {
+
+    /**
+     * Takes a backup of the given files, together with the files of the
+     * sources not asked yet.
+     *
+     * @param filePaths the paths of the files to back up
+     * @return the ID of the backup
+     * @throws IOException if the backup can not be taken
+     */
+    String backup(List<String> filePaths) throws IOException;
+  }
+
+  /**
+   * A file in a backup.
+   */
+  private static final class Entry {
+    private final String hash;
+    private final long size;
+    private final long modified;
+    private final String path;
+
+    private Entry(String hash, long size, long modified, String path) {
+      this.hash = hash;
+      this.size = size;
+      this.modified = modified;
+      this.path = path;
+    }
+  }
+
+  /**
+   * Constructs a new BackupStore using the system clock.
+   *
+   * @param backupDirectory the directory to keep the backups in
+   */
+  public BackupStore(String backupDirectory) {
+    this(backupDirectory, Clock.systemDefaultZone());
+  }
+
+  /**
+   * Constructs a new BackupStore.
+   *
+   * @param backupDirectory the directory to keep the backups in
+   * @param clock           the clock giving the time of each backup
+   */
+  public BackupStore(String backupDirectory, Clock clock) {
+    Path directory = Path.of(backupDirectory);
+    this.objectsDirectory = directory.resolve("objects");
+    this.snapshotsDirectory = directory.resolve("snapshots");
+    this.clock = clock;
+  }
+
+  /**
+   * Takes a backup of files. Files that do not exist are left out.
+   *
+   * @param filePaths the paths of the files to back up
+   * @return the ID of the new backup
+   * @throws IOException if a file can not be read or the backup can not be
+   *                     written
+   */
+  public synchronized String backup(List<String> filePaths) throws IOException {
+    return backup((Path) null, filePaths);
+  }
+
+  /**
+   * Takes a backup of files and of the files of sources, with the paths of the
+   * files relative to a root directory. The sources are asked in order, and the
+   * backup is taken while all of them keep their files from changing.
+   *
+   * @param rootDirectory the directory every file must be in
+   * @param filePaths     the paths of the files to back up
+   * @param sources       the sources whose files to back up
+   * @return the ID of the new backup
+   * @throws IOException if a file is outside the root directory, can not be
+   *                     read, or the backup can not be written
+   */
+  public synchronized String backup(String rootDirectory, List<String> filePaths,
+      List<? extends Source> sources) throws IOException {
+    return backupSources(Path.of(rootDirectory).toAbsolutePath().normalize(), filePaths,
+        sources, 0);
+  }
+
+  private String backupSources(Path root, List<String> filePaths, List<? extends Source> sources,
+      int next) throws IOException {
+    if (next == sources.size()) {
+      return backup(root, filePaths);
+    }
+    return sources.get(next).backupFiles(sourceFiles -> {
+      List<String> all = new ArrayList<>(filePaths);
+      all.addAll(sourceFiles);
+      return backupSources(root, all, sources, next + 1);
+    });
+  }
+
+  private String backup(Path root, List<String> filePaths) throws IOException {
+    Files.createDirectories(snapshotsDirectory);
+    Map<String, Entry> previous = new HashMap<>();
+    List<String> snapshots = listSnapshots();
+    if (!snapshots.isEmpty()) {
+      for (Entry entry : readManifest(snapshots.get(snapshots.size() - 1))) {
+        previous.put(entry.path, entry);
+      }
+    }
+
+    List<Path> files = new ArrayList<>();
+    for (String filePath : filePaths) {
+      Path file = Path.of(filePath).toAbsolutePath().normalize();
+      if (Files.isRegularFile(file) && !files.contains(file)) {
+        files.add(file);
+      }
+    }
+    if (root == null) {
+      root = commonDirectory(files);
+    }
+
+    List<Entry> entries = new ArrayList<>();
+    for (Path file : files) {
+      if (!file.startsWith(root) || file.equals(root)) {
+        throw new IOException(file + " is not in " + root + ".");
+      }
+      String path = root.relativize(file).toString().replace(File.separatorChar, '/');
+      long size = Files.size(file);
+      long modified = Files.getLastModifiedTime(file).toMillis();
+
+      Entry last = previous.get(path);
+      if (last != null && last.size == size && last.modified == modified
+          && Files.exists(objectPath(last.hash))) {
+        entries.add(new Entry(last.hash, size, modified, path));
+      } else {
+        entries.add(new Entry(store(file), size, modified, path));
+      }
+    }
+
+    String snapshotId = newSnapshotId();
+    Path temp = Files.createTempFile(snapshotsDirectory, snapshotId, ".tmp");
+    try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+      writer.write(MANIFEST_HEADER);
+      writer.newLine();
+      for (Entry entry : entries) {
+        writer.write(entry.hash + " " + entry.size + " " + entry.modified + " " + entry.path);
+        writer.newLine();
+      }
+    }
+    Files.move(temp, manifestPath(snapshotId), StandardCopyOption.ATOMIC_MOVE);
+    return snapshotId;
+  }
+
+  /**
+   * Lists the IDs of the backups, oldest first.
+   *
+   * @return the backup IDs
+   * @throws IOException if the backups can not be listed
+   */
+  public synchronized List<String> listSnapshots() throws IOException {
+    List<String> snapshots = new ArrayList<>();
+    if (!Files.isDirectory(snapshotsDirectory)) {
+      return snapshots;
+    }
+    try (Stream<Path> files = Files.list(snapshotsDirectory)) {
+      files.map(file -> file.getFileName().toString())
+          .filter(name -> name.endsWith(MANIFEST_EXTENSION))
+          .map(name -> name.substring(0, name.length() - MANIFEST_EXTENSION.length()))
+          .forEach(snapshots::add);
+    }
+    Collections.sort(snapshots);
+    return snapshots;
+  }
+
+  /**
+   * Restores the files of a backup into a directory, under the paths they
+   * were backed up with. Files that already have the content of the backup are
+   * not written. The directories below the target directory that hold files of
+   * the backup, like the journal, are restored as they were, so the files added
+   * to them after the backup are removed.
+   *
+   * @param snapshotId      the ID of the backup, or "latest" for the newest one
+   * @param targetDirectory the directory to restore the files into
+   * @return the number of files written
+   * @throws IOException if the backup does not exist or a file can not be
+   *                     restored
+   */
+  public synchronized int restore(String snapshotId, String targetDirectory) throws IOException {
+    if (snapshotId.equals("latest")) {
+      List<String> snapshots = listSnapshots();
+      if (snapshots.isEmpty()) {
+        throw new IOException("There are no backups to restore.");
+      }
+      snapshotId = snapshots.get(snapshots.size() - 1);
+    }
+    Path target = Path.of(targetDirectory).toAbsolutePath().normalize();
+    Files.createDirectories(target);
+
+    int restored = 0;
+    Set<Path> files = new HashSet<>();
+    for (Entry entry : readManifest(snapshotId)) {
+      Path file = target.resolve(entry.path).normalize();
+      if (!file.startsWith(target) || file.equals(target)) {
+        throw new IOException("The backup " + snapshotId + " is not valid.");
+      }
+      files.add(file);
+      if (Files.isRegularFile(file) && Files.size(file) == entry.size
+          && hash(file).equals(entry.hash)) {
+        continue;
+      }
+      Files.createDirectories(file.getParent());
+      Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+      try {
+        Files.copy(objectPath(entry.hash), temp, StandardCopyOption.REPLACE_EXISTING);
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE,
+            StandardCopyOption.REPLACE_EXISTING);
+      } finally {
+        Files.deleteIfExists(temp);
+      }
+      restored++;
+    }
+
+    Set<Path> directories = new HashSet<>();
+    for (Path file : files) {
+      if (!file.getParent().equals(target)) {
+        directories.add(file.getParent());
+      }
+    }
+    for (Path directory : directories) {
+      try (Stream<Path> added = Files.list(directory)) {
+        for (Path file : added.filter(Files::isRegularFile).toList()) {
+          if (!files.contains(file)) {
+            Files.delete(file);
+          }
+        }
+      }
+    }
+    return restored;
+  }
+
+  /**
+   * Removes old backups. The newest backup is always kept, and so is the
+   * newest backup of each of the last hours, days and weeks that have one,
+   * up to the given numbers. Content no remaining backup uses is deleted.
+   *
+   * @param keepHourly the number of hours to keep a backup of
+   * @param keepDaily  the number of days to keep a backup of
+   * @param keepWeekly the number of weeks to keep a backup of
+   * @return the number of backups removed
+   * @throws IOException if the backups can not be read or removed
+   */
+  public synchronized int prune(int keepHourly, int keepDaily, int keepWeekly)
+      throws IOException {
+    List<String> snapshots = listSnapshots();
+    if (snapshots.isEmpty()) {
+      return 0;
+    }
+    Collections.reverse(snapshots);
+
+    Set<String> keep = new HashSet<>();
+    keep.add(snapshots.get(0));
+    keepNewestPerPeriod(snapshots, keepHourly, time -> time.truncatedTo(ChronoUnit.HOURS), keep);
+    keepNewestPerPeriod(snapshots, keepDaily, time -> time.truncatedTo(ChronoUnit.DAYS), keep);
+    keepNewestPerPeriod(snapshots, keepWeekly, time -> time.truncatedTo(ChronoUnit.DAYS)
+        .with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)), keep);
+
+    int removed = 0;
+    for (String snapshotId : snapshots) {
+      if (!keep.contains(snapshotId)) {
+        Files.delete(manifestPath(snapshotId));
+        removed++;
+      }
+    }
+    if (removed > 0) {
+      deleteUnusedObjects(keep);
+    }
+    return removed;
+  }
+
+  /**
+   * Gets the number of bytes read from the data files to back them up.
+   *
+   * @return the number of bytes read
+   */
+  public synchronized long getBytesRead() {
+    return bytesRead;
+  }
+
+  /**
+   * Gets the number of bytes of new content written to the backup directory.
+   *
+   * @return the number of bytes stored
+   */
+  public synchronized long getBytesStored() {
+    return bytesStored;
+  }
+
+  /**
+   * Finds the deepest directory that holds all the files.
+   */
+  private static Path commonDirectory(List<Path> files) throws IOException {
+    if (files.isEmpty()) {
+      return Path.of("").toAbsolutePath();
+    }
+    Path root = files.get(0).getParent();
+    for (Path file : files) {
+      while (root != null && !file.startsWith(root)) {
+        root = root.getParent();
+      }
+      if (root == null) {
+        throw new IOException("The files to back up must be on the same drive.");
+      }
+    }
+    return root;
+  }
+
+  private static void keepNewestPerPeriod(List<String> newestFirst, int periods,
+      Function<LocalDateTime, LocalDateTime> periodOf, Set<String> keep) {
+    Set<LocalDateTime> seen = new LinkedHashSet<>();
+    for (String snapshotId : newestFirst) {
+      if (seen.size() >= periods) {
+        return;
+      }
+      if (seen.add(periodOf.apply(timeOf(snapshotId)))) {
+        keep.add(snapshotId);
+      }
+    }
+  }
+
+  private void deleteUnusedObjects(Set<String> snapshots) throws IOException {
+    Set<String> used = new HashSet<>();
+    for (String snapshotId : snapshots) {
+      for (Entry entry : readManifest(snapshotId)) {
+        used.add(entry.hash);
+      }
+    }
+    if (!Files.isDirectory(objectsDirectory)) {
+      return;
+    }
+    try (Stream<Path> files = Files.walk(objectsDirectory)) {
+      for (Path file : files.filter(Files::isRegularFile).toList()) {
+        if (!used.contains(file.getFileName().toString())) {
+          Files.delete(file);
+        }
+      }
+    }
+  }
+
+  /**
+   * Copies a file into the objects directory under its hash, reading it only
+   * once, unless content with that hash is already stored.
+   */
+  private String store(Path file) throws IOException {
+    Files.createDirectories(objectsDirectory);
+    Path temp = Files.createTempFile(objectsDirectory, "object", ".tmp");
+    try {
+      MessageDigest digest = newDigest();
+      long size = 0;
+      try (InputStream in = Files.newInputStream(file);
+          OutputStream out = Files.newOutputStream(temp)) {
+        byte[] buffer = new byte[CompressionUtility.getBufferSize()];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+          digest.update(buffer, 0, read);
+          out.write(buffer, 0, read);
+          size += read;
+        }
+      }
+      bytesRead += size;
+
+      String hash = toHex(digest.digest());
+      Path object = objectPath(hash);
+      if (!Files.exists(object)) {
+        Files.createDirectories(object.getParent());
+        Files.move(temp, object, StandardCopyOption.ATOMIC_MOVE);
+        bytesStored += size;
+      }
+      return hash;
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  private String hash(Path file) throws IOException {
+    MessageDigest digest = newDigest();
+    try (InputStream in = Files.newInputStream(file)) {
+      byte[] buffer = new byte[CompressionUtility.getBufferSize()];
+      int read;
+      while ((read = in.read(buffer)) != -1) {
+        digest.update(buffer, 0, read);
+      }
+    }
+    return toHex(digest.digest());
+  }
+
+  private List<Entry> readManifest(String snapshotId) throws IOException {
+    Path manifest = manifestPath(snapshotId);
+    if (!Files.exists(manifest)) {
+      throw new IOException("There is no backup " + snapshotId + ".");
+    }
+    List<Entry> entries = new ArrayList<>();
+    try (BufferedReader reader = Files.newBufferedReader(manifest, StandardCharsets.UTF_8)) {
+      if (!MANIFEST_HEADER.equals(reader.readLine())) {
+        throw new IOException("The backup " + snapshotId + " is not valid.");
+      }
+      String line;
+      while ((line = reader.readLine()) != null) {
+        String[] parts = line.split(" ", 4);
+        if (parts.length != 4) {
+          throw new IOException("The backup " + snapshotId + " is not valid.");
+        }
+        try {
+          entries.add(new Entry(parts[0], Long.parseLong(parts[1]), Long.parseLong(parts[2]),
+              parts[3]));
+        } catch (NumberFormatException e) {
+          throw new IOException("The backup " + snapshotId + " is not valid.", e);
+        }
+      }
+    }
+    return entries;
+  }
+
+  private String newSnapshotId() {
+    String snapshotId = LocalDateTime.now(clock).format(SNAPSHOT_FORMAT);
+    String unique = snapshotId;
+    for (int i = 1; Files.exists(manifestPath(unique)); i++) {
+      unique = snapshotId + "-" + i;
+    }
+    return unique;
+  }
+
+  private static LocalDateTime timeOf(String snapshotId) {
+    return LocalDateTime.parse(snapshotId.substring(0, TIMESTAMP_LENGTH), SNAPSHOT_FORMAT);
+  }
+
+  private Path manifestPath(String snapshotId) {
+    return snapshotsDirectory.resolve(snapshotId + MANIFEST_EXTENSION);
+  }
+
+  private Path objectPath(String hash) {
+    return objectsDirectory.resolve(hash.substring(0, 2)).resolve(hash);
+  }
+
+  private static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available.", e);
+    }
+  }
+
+  private static String toHex(byte[] bytes) {
+    StringBuilder hex = new StringBuilder(bytes.length * 2);
+    for (byte b : bytes) {
+      hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+    }
+    return hex.toString();
+  }
+}
@@ -0,0 +1,136 @@
+package utilities;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Opens data files as text streams, with transparent gzip compression.
+ *
+ * <p>Files are read as gzip if they start with the gzip magic bytes, whatever
+ * their name, and are written as gzip if their name ends with
+ * {@value #GZIP_EXTENSION}. Compressed files are always decompressed while they
+ * are read, never into memory first.
+ *
+ * @author Dennis Moe
+ */
+public final class CompressionUtility {
+
+  /**
+   * The default size of the read and write buffers, in bytes.
+   */
+  public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+  /**
+   * Files ending with this are written compressed.
+   */
+  public static final String GZIP_EXTENSION = ".gz";
+
+  private static final int GZIP_MAGIC_FIRST = 0x1f;
+  private static final int GZIP_MAGIC_SECOND = 0x8b;
+
+  private static volatile int bufferSize = DEFAULT_BUFFER_SIZE;
+
+  private CompressionUtility() {
+  }
+
+  /**
+   * Gets the size of the buffers used for reading and writing data files.
+   *
+   * @return the buffer size in bytes
+   */
+  public static int getBufferSize() {
+    return bufferSize;
+  }
+
+  /**
+   * Sets the size of the buffers used for reading and writing data files.
+   * Larger buffers mean fewer reads and writes, which helps on slow network
+   * storage.
+   *
+   * @param size the buffer size in bytes
+   */
+  public static void setBufferSize(int size) {
+    if (size <= 0) {
+      throw new IllegalArgumentException("Buffer size must be greater than zero.");
+    }
+    bufferSize = size;
+  }
+
+  /**
+   * Checks if a file is written compressed, by its name.
+   *
+   * @param filePath the path of the file
+   * @return true if the name ends with {@value #GZIP_EXTENSION}
+   */
+  public static boolean isGzipPath(String filePath) {
+    return filePath.endsWith(GZIP_EXTENSION);
+  }
+
+  /**
+   * Checks if a file is gzip compressed, by its first bytes.
+   *
+   * @param filePath the path of the file
+   * @return true if the file starts with the gzip magic bytes
+   * @throws IOException if the file can not be read
+   */
+  public static boolean isGzipFile(String filePath) throws IOException {
+    try (InputStream in = Files.newInputStream(Path.of(filePath))) {
+      return in.read() == GZIP_MAGIC_FIRST && in.read() == GZIP_MAGIC_SECOND;
+    }
+  }
+
+  /**
+   * Opens a UTF-8 text file for reading, decompressing it on the fly if it is
+   * gzip compressed.
+   *
+   * @param filePath the path of the file to read
+   * @return a Reader over the text of the file
+   * @throws IOException if the file can not be opened
+   */
+  public static Reader openReader(String filePath) throws IOException {
+    int size = bufferSize;
+    InputStream in = new BufferedInputStream(Files.newInputStream(Path.of(filePath)), size);
+    try {
+      in.mark(2);
+      boolean compressed = in.read() == GZIP_MAGIC_FIRST && in.read() == GZIP_MAGIC_SECOND;
+      in.reset();
+      if (compressed) {
+        in = new GZIPInputStream(in, size);
+      }
+      return new InputStreamReader(in, StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      in.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Wraps a stream in a buffered UTF-8 Writer, compressing the text if asked to.
+   * Closing the Writer finishes the compressed data and closes the stream.
+   *
+   * @param out      the stream to write to
+   * @param compress true to write gzip compressed text
+   * @return a Writer for the text
+   * @throws IOException if the gzip header can not be written
+   */
+  public static Writer openWriter(OutputStream out, boolean compress) throws IOException {
+    int size = bufferSize;
+    OutputStream stream = compress
+        ? new GZIPOutputStream(out, size)
+        : new BufferedOutputStream(out, size);
+    return new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), size);
+  }
+}
@@ -0,0 +1,212 @@
+package utilities;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+import models.CookBook;
+import models.FoodList;
+import models.FridgeItem;
+import models.Ingredient;
+import models.Recipe;
+import services.CookBookManager;
+import services.FridgeManager;
+import services.RecipeManager;
+
+/**
+ * A DataStore over the four CSV files, read and written by {@link CsvUtility}.
+ *
+ * <p>The CSV files have no index, so the queries read the whole file. They
+ * only keep the rows that match, so the file does not have to fit in memory.
+ *
+ * @author Dennis Moe
+ */
+public class CsvDataStore implements DataStore {
+
+  private final String foodListPath;
+  private final String fridgeItemsPath;
+  private final String recipesPath;
+  private final String cookBooksPath;
+
+  private final IngredientRepository ingredients = new CsvIngredients();
+  private final FridgeItemRepository fridgeItems = new CsvFridgeItems();
+  private final RecipeRepository recipes = new CsvRecipes();
+  private final CookBookRepository cookBooks = new CsvCookBooks();
+
+  /**
+   * Constructs a new CsvDataStore. The files may be gzip compressed, see
+   * {@link CompressionUtility}.
+   *
+   * @param foodListPath    the path of the ingredients file
+   * @param fridgeItemsPath the path of the fridge items file
+   * @param recipesPath     the path of the recipes file
+   * @param cookBooksPath   the path of the cookbooks file
+   */
+  public CsvDataStore(String foodListPath, String fridgeItemsPath, String recipesPath,
+      String cookBooksPath) {
+    this.foodListPath = foodListPath;
+    this.fridgeItemsPath = fridgeItemsPath;
+    this.recipesPath = recipesPath;
+    this.cookBooksPath = cookBooksPath;
+  }
+
+  @Override
+  public IngredientRepository ingredients() {
+    return ingredients;
+  }
+
+  @Override
+  public FridgeItemRepository fridgeItems() {
+    return fridgeItems;
+  }
+
+  @Override
+  public RecipeRepository recipes() {
+    return recipes;
+  }
+
+  @Override
+  public CookBookRepository cookBooks() {
+    return cookBooks;
+  }
+
+  /**
+   * The files are replaced whole when they are saved, so they are backed up as
+   * they are.
+   */
+  @Override
+  public String backupFiles(BackupStore.FileBackup backup) throws IOException {
+    return backup.backup(List.of(foodListPath, fridgeItemsPath, recipesPath, cookBooksPath));
+  }
+
+  /**
+   * Nothing is kept open between calls, so there is nothing to close.
+   */
+  @Override
+  public void close() {
+  }
+
+  private final class CsvIngredients implements IngredientRepository {
+
+    @Override
+    public Map<String, Ingredient> loadAll() {
+      return CsvUtility.readIngredientsFromCsv(foodListPath);
+    }
+
+    @Override
+    public void saveAll(Map<String, Ingredient> ingredients) throws IOException {
+      PersistenceWriter.writeAtomically(foodListPath,
+          writer -> CsvUtility.writeIngredientsToCsv(writer, ingredients));
+    }
+  }
+
+  private final class CsvFridgeItems implements FridgeItemRepository {
+
+    @Override
+    public int[] loadAll(FridgeManager fridgeManager) {
+      return CsvUtility.readFridgeItemsFromCsv(fridgeItemsPath, fridgeManager);
+    }
+
+    @Override
+    public void saveAll(List<FridgeItem> fridgeItems) throws IOException {
+      PersistenceWriter.writeAtomically(fridgeItemsPath,
+          writer -> CsvUtility.writeFridgeItemsToCsv(writer, fridgeItems));
+    }
+
+    @Override
+    public List<FridgeItem> findExpiringBefore(long date, FoodList foodList) throws IOException {
+      int day = DateValidation.toSortableDate(date);
+      return find(foodList,
+          parsed -> DateValidation.toSortableDate(parsed.expirationDate) < day);
+    }
+
+    @Override
+    public List<FridgeItem> findByIngredient(String ingredientName, FoodList foodList)
+        throws IOException {
+      return find(foodList,
+          parsed -> parsed.ingredient.getIngredientName().equals(ingredientName));
+    }
+
+    private List<FridgeItem> find(FoodList foodList,
+        Predicate<FridgeItemLoader.ParsedRow> filter) throws IOException {
+      List<FridgeItem> found = new ArrayList<>();
+      if (!new File(fridgeItemsPath).exists()) {
+        return found;
+      }
+      FridgeItemLoader.ParsedRow parsed = new FridgeItemLoader.ParsedRow();
+      try (CsvTokenizer tokenizer = new CsvTokenizer(
+          CompressionUtility.openReader(fridgeItemsPath), CompressionUtility.getBufferSize())) {
+        if (!tokenizer.nextRow()) {
+          return found;
+        }
+        tokenizer.forEachRow(row -> {
+          if (FridgeItemLoader.parseRow(row, foodList, parsed) == null && filter.test(parsed)) {
+            found.add(new FridgeItem(parsed.ingredient, parsed.quantity, parsed.expirationDate));
+          }
+        });
+      }
+      return found;
+    }
+  }
+
+  private final class CsvRecipes implements RecipeRepository {
+
+    @Override
+    public int[] loadAll(RecipeManager recipeManager) {
+      return CsvUtility.readRecipesFromCsv(recipesPath, recipeManager);
+    }
+
+    @Override
+    public void saveAll(Collection<Recipe> recipes) throws IOException {
+      List<Recipe> recipeList = new ArrayList<>(recipes);
+      PersistenceWriter.writeAtomically(recipesPath,
+          writer -> CsvUtility.writeRecipesToCsv(writer, recipeList));
+    }
+
+    @Override
+    public List<String> findRecipeNamesUsing(String ingredientName) throws IOException {
+      TreeSet<String> recipeNames = new TreeSet<>();
+      if (!new File(recipesPath).exists()) {
+        return new ArrayList<>(recipeNames);
+      }
+      try (CsvTokenizer tokenizer = new CsvTokenizer(
+          CompressionUtility.openReader(recipesPath), CompressionUtility.getBufferSize())) {
+        if (!tokenizer.nextRow()) {
+          return new ArrayList<>(recipeNames);
+        }
+        tokenizer.forEachRow(row -> {
+          if (row.getFieldCount() < 5) {
+            return;
+          }
+          try {
+            if (CsvUtility.parseRecipeIngredients(row.getString(4).trim())
+                .containsKey(ingredientName)) {
+              recipeNames.add(row.getString(0).trim());
+            }
+          } catch (NumberFormatException e) {
+            // The row would not load either, so it uses no ingredients.
+          }
+        });
+      }
+      return new ArrayList<>(recipeNames);
+    }
+  }
+
+  private final class CsvCookBooks implements CookBookRepository {
+
+    @Override
+    public int[] loadAll(CookBookManager cookBookManager) {
+      return CsvUtility.readCookBooksFromCsv(cookBooksPath, cookBookManager);
+    }
+
+    @Override
+    public void saveAll(Map<String, CookBook> cookBooks) throws IOException {
+      PersistenceWriter.writeAtomically(cookBooksPath,
+          writer -> CsvUtility.writeCookBooksToCsv(writer, cookBooks));
+    }
+  }
+}
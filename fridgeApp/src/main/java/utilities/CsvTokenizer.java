@@ -0,0 +1,384 @@
+package utilities;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Streaming tokenizer for CSV data as described in RFC 4180.
+ * Fields may be quoted, and quoted fields may contain commas, line breaks and
+ * escaped quotes ({@code ""}). Both LF and CRLF line endings are accepted, and
+ * blank lines are skipped.
+ *
+ * <p>The input is read through a large buffer, and the fields of the current row
+ * are kept in a buffer that is reused for every row. Nothing is allocated per
+ * character or per row; a String is only created when a field is asked for as
+ * one, and numbers are parsed straight from the buffer.
+ *
+ * @author Dennis Moe
+ */
+public final class CsvTokenizer implements Closeable {
+
+  /**
+   * The default size of the input buffer, in chars.
+   */
+  public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+  private static final double[] POWERS_OF_TEN = {
+      1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+      1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+  };
+
+  /**
+   * The largest number of digits that is always exact in a double.
+   */
+  private static final int MAX_EXACT_DOUBLE_DIGITS = 15;
+
+  /**
+   * The largest number of digits that can never overflow a long.
+   */
+  private static final int MAX_SAFE_LONG_DIGITS = 18;
+
+  private final Reader reader;
+  private final char[] buffer;
+  private int position;
+  private int limit;
+  private boolean firstRead = true;
+
+  private char[] rowChars = new char[256];
+  private int rowLength;
+  private int[] fieldEnds = new int[16];
+  private int fieldCount;
+  private long rowNumber;
+
+  /**
+   * Receives the rows of a CSV file one at a time.
+   * The tokenizer passed to the handler is only valid until the handler returns.
+   */
+  @FunctionalInterface
+  public interface RowHandler {
+    /**
+     * Handles the current row.
+     *
+     * @param row the tokenizer positioned on the row
+     */
+    void handleRow(CsvTokenizer row);
+  }
+
+  /**
+   * Constructs a new CsvTokenizer with the default buffer size.
+   *
+   * @param reader the Reader to tokenize
+   */
+  public CsvTokenizer(Reader reader) {
+    this(reader, DEFAULT_BUFFER_SIZE);
+  }
+
+  /**
+   * Constructs a new CsvTokenizer.
+   *
+   * @param reader     the Reader to tokenize
+   * @param bufferSize the size of the input buffer, in chars
+   */
+  public CsvTokenizer(Reader reader, int bufferSize) {
+    if (bufferSize <= 0) {
+      throw new IllegalArgumentException("Buffer size must be greater than zero.");
+    }
+    this.reader = reader;
+    this.buffer = new char[bufferSize];
+  }
+
+  /**
+   * Reads every remaining row and passes it to the handler.
+   *
+   * @param handler the handler to receive the rows
+   * @throws IOException if the underlying Reader fails
+   */
+  public void forEachRow(RowHandler handler) throws IOException {
+    while (nextRow()) {
+      handler.handleRow(this);
+    }
+  }
+
+  /**
+   * Moves to the next row.
+   *
+   * @return true if a row was read, false at the end of the input
+   * @throws IOException if the underlying Reader fails
+   */
+  public boolean nextRow() throws IOException {
+    rowLength = 0;
+    fieldCount = 0;
+    boolean rowStarted = false;
+    boolean inQuotes = false;
+
+    while (true) {
+      if (position >= limit && !fill()) {
+        if (!rowStarted) {
+          return false;
+        }
+        endField();
+        rowNumber++;
+        return true;
+      }
+      char c = buffer[position++];
+
+      if (inQuotes) {
+        if (c != '"') {
+          append(c);
+        } else if ((position < limit || fill()) && buffer[position] == '"') {
+          append('"');
+          position++;
+        } else {
+          inQuotes = false;
+        }
+      } else if (c == '"') {
+        inQuotes = true;
+        rowStarted = true;
+      } else if (c == ',') {
+        endField();
+        rowStarted = true;
+      } else if (c == '\n' || c == '\r') {
+        if (c == '\r' && (position < limit || fill()) && buffer[position] == '\n') {
+          position++;
+        }
+        if (rowStarted) {
+          endField();
+          rowNumber++;
+          return true;
+        }
+      } else {
+        append(c);
+        rowStarted = true;
+      }
+    }
+  }
+
+  /**
+   * Gets the number of rows read so far, counting the current row.
+   *
+   * @return the number of the current row, starting at 1
+   */
+  public long getRowNumber() {
+    return rowNumber;
+  }
+
+  /**
+   * Gets the number of fields in the current row.
+   *
+   * @return the number of fields
+   */
+  public int getFieldCount() {
+    return fieldCount;
+  }
+
+  /**
+   * Gets a field of the current row as it appears in the file, with quotes
+   * removed and escaped quotes resolved.
+   *
+   * @param index the index of the field
+   * @return the field
+   */
+  public String getString(int index) {
+    int start = fieldStart(index);
+    return new String(rowChars, start, fieldEnds[index] - start);
+  }
+
+  /**
+   * Checks if a field of the current row is empty or only whitespace.
+   *
+   * @param index the index of the field
+   * @return true if the field is blank, false otherwise
+   */
+  public boolean isBlank(int index) {
+    int end = fieldEnds[index];
+    for (int i = fieldStart(index); i < end; i++) {
+      if (!Character.isWhitespace(rowChars[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Parses a field of the current row as a double, ignoring surrounding
+   * whitespace. Plain decimals are parsed straight from the buffer; anything
+   * else, like exponents, falls back to {@link Double#parseDouble(String)}.
+   *
+   * @param index the index of the field
+   * @return the parsed value
+   * @throws NumberFormatException if the field is not a number
+   */
+  public double getDouble(int index) {
+    int start = trimStart(index);
+    int end = trimEnd(index, start);
+
+    int i = start;
+    boolean negative = false;
+    if (i < end && (rowChars[i] == '-' || rowChars[i] == '+')) {
+      negative = rowChars[i] == '-';
+      i++;
+    }
+
+    long mantissa = 0;
+    int digits = 0;
+    int fractionDigits = 0;
+    boolean seenPoint = false;
+    for (; i < end; i++) {
+      char c = rowChars[i];
+      if (c >= '0' && c <= '9') {
+        mantissa = mantissa * 10 + (c - '0');
+        digits++;
+        if (seenPoint) {
+          fractionDigits++;
+        }
+      } else if (c == '.' && !seenPoint) {
+        seenPoint = true;
+      } else {
+        break;
+      }
+    }
+
+    if (i < end || digits == 0 || digits > MAX_EXACT_DOUBLE_DIGITS) {
+      return Double.parseDouble(new String(rowChars, start, end - start));
+    }
+    double value = mantissa / POWERS_OF_TEN[fractionDigits];
+    return negative ? -value : value;
+  }
+
+  /**
+   * Parses a field of the current row as a long, ignoring surrounding
+   * whitespace.
+   *
+   * @param index the index of the field
+   * @return the parsed value
+   * @throws NumberFormatException if the field is not a whole number
+   */
+  public long getLong(int index) {
+    int start = trimStart(index);
+    int end = trimEnd(index, start);
+
+    int i = start;
+    boolean negative = false;
+    if (i < end && (rowChars[i] == '-' || rowChars[i] == '+')) {
+      negative = rowChars[i] == '-';
+      i++;
+    }
+    if (i == end || end - i > MAX_SAFE_LONG_DIGITS) {
+      return Long.parseLong(new String(rowChars, start, end - start));
+    }
+
+    long value = 0;
+    for (; i < end; i++) {
+      char c = rowChars[i];
+      if (c < '0' || c > '9') {
+        throw new NumberFormatException("For input string: \""
+            + new String(rowChars, start, end - start) + "\"");
+      }
+      value = value * 10 + (c - '0');
+    }
+    return negative ? -value : value;
+  }
+
+  /**
+   * Builds the current row as a comma separated String, for error messages.
+   *
+   * @return the fields of the current row joined by commas
+   */
+  public String rowToString() {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < fieldCount; i++) {
+      if (i > 0) {
+        sb.append(',');
+      }
+      sb.append(rowChars, fieldStart(i), fieldEnds[i] - fieldStart(i));
+    }
+    return sb.toString();
+  }
+
+  @Override
+  public void close() throws IOException {
+    reader.close();
+  }
+
+  /**
+   * Starts a new, empty row, for a scanner that splits the input into fields
+   * itself and fills the row with {@link #appendToField} and
+   * {@link #endRowField}.
+   */
+  void startRow() {
+    rowLength = 0;
+    fieldCount = 0;
+    rowNumber++;
+  }
+
+  /**
+   * Appends a char to the field being filled, see {@link #startRow}.
+   */
+  void appendToField(char c) {
+    append(c);
+  }
+
+  /**
+   * Ends the field being filled, see {@link #startRow}.
+   */
+  void endRowField() {
+    endField();
+  }
+
+  private boolean fill() throws IOException {
+    int read;
+    do {
+      read = reader.read(buffer, 0, buffer.length);
+    } while (read == 0);
+    position = 0;
+    limit = Math.max(read, 0);
+    if (firstRead && limit > 0) {
+      firstRead = false;
+      if (buffer[0] == '\uFEFF') {
+        position = 1;
+      }
+    }
+    return position < limit;
+  }
+
+  private void append(char c) {
+    if (rowLength == rowChars.length) {
+      rowChars = Arrays.copyOf(rowChars, rowLength * 2);
+    }
+    rowChars[rowLength++] = c;
+  }
+
+  private void endField() {
+    if (fieldCount == fieldEnds.length) {
+      fieldEnds = Arrays.copyOf(fieldEnds, fieldCount * 2);
+    }
+    fieldEnds[fieldCount++] = rowLength;
+  }
+
+  private int fieldStart(int index) {
+    if (index < 0 || index >= fieldCount) {
+      throw new IndexOutOfBoundsException("Field " + index + " does not exist in row "
+          + rowNumber + " with " + fieldCount + " fields.");
+    }
+    return index == 0 ? 0 : fieldEnds[index - 1];
+  }
+
+  private int trimStart(int index) {
+    int start = fieldStart(index);
+    int end = fieldEnds[index];
+    while (start < end && Character.isWhitespace(rowChars[start])) {
+      start++;
+    }
+    return start;
+  }
+
+  private int trimEnd(int index, int start) {
+    int end = fieldEnds[index];
+    while (end > start && Character.isWhitespace(rowChars[end - 1])) {
+      end--;
+    }
+    return end;
+  }
+}
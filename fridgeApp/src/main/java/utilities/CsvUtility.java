@@ -1,14 +1,10 @@
 package utilities;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
-import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -26,6 +22,9 @@ import services.RecipeManager;
  * These files will be used to store and retrieve data that
  * the user inputs, changes, or deletes.
  * Will be used in FridgeManager, FoodList, RecipeManager, and CookBookManager.
+ * Files are written through {@link PersistenceWriter#writeAtomically}, so a
+ * failed write never leaves a half-written file behind.
+ * Files may be gzip compressed, see {@link CompressionUtility}.
  *
  * @author Dennis Moe
  */
@@ -39,25 +38,47 @@ public class CsvUtility {
    * @param data     The data to write, String[] represents a row.
    */
   public static void writeToCsv(String filePath, List<String[]> data) {
-    try (BufferedWriter writer = new BufferedWriter(new FileWriter(filePath))) {
-      for (String[] row : data) {
-        StringBuilder sb = new StringBuilder();
-        for (String field : row) {
-          if (field.contains(",") || field.contains("\"")) {
-            sb.append("\"").append(field.replace("\"", "\"\"")).append("\"");
-          } else {
-            sb.append(field);
-          }
-          sb.append(",");
-        }
-        writer.write(sb.substring(0, sb.length() - 1));
-        writer.newLine();
-      }
+    try {
+      PersistenceWriter.writeAtomically(filePath, writer -> writeToCsv(writer, data));
     } catch (IOException e) {
       System.err.println("Error writing to CSV file: " + e.getMessage());
     }
   }
 
+  /**
+   * Writes data as CSV.
+   *
+   * @param writer the Writer to write to
+   * @param data   The data to write, String[] represents a row.
+   * @throws IOException if writing fails
+   */
+  public static void writeToCsv(Writer writer, List<String[]> data) throws IOException {
+    for (String[] row : data) {
+      StringBuilder sb = new StringBuilder();
+      for (String field : row) {
+        sb.append(quoteField(field)).append(",");
+      }
+      writer.write(sb.substring(0, sb.length() - 1));
+      writer.write(System.lineSeparator());
+    }
+  }
+
+  /**
+   * Quotes a field if it holds a comma, a quote or a line break, so it is read
+   * back as one field. Quotes in the field are doubled.
+   * Every writer in this class writes its fields through this method.
+   *
+   * @param field the field to quote
+   * @return the field as it is written to the file
+   */
+  static String quoteField(String field) {
+    if (field.contains(",") || field.contains("\"")
+        || field.contains("\n") || field.contains("\r")) {
+      return "\"" + field.replace("\"", "\"\"") + "\"";
+    }
+    return field;
+  }
+
   /**
    * Reads data from a CSV file.
    *
@@ -66,32 +87,18 @@ public class CsvUtility {
    */
   public static List<String[]> readFromCsv(String filePath) {
     List<String[]> data = new ArrayList<>();
-    try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-      String line;
-      boolean isFirstLine = true;
-      while ((line = reader.readLine()) != null) {
-        if (isFirstLine) {
-          isFirstLine = false;
-          continue;
-        }
-
-        List<String> fields = new ArrayList<>();
-        StringBuilder currentField = new StringBuilder();
-        boolean inQuotes = false;
-
-        for (char c : line.toCharArray()) {
-          if (c == '\"') {
-            inQuotes = !inQuotes;
-          } else if (c == ',' && !inQuotes) {
-            fields.add(currentField.toString().trim());
-            currentField.setLength(0);
-          } else {
-            currentField.append(c);
-          }
-        }
-        fields.add(currentField.toString().trim());
-        data.add(fields.toArray(new String[0]));
+    try (CsvTokenizer tokenizer = new CsvTokenizer(
+        CompressionUtility.openReader(filePath), CompressionUtility.getBufferSize())) {
+      if (!tokenizer.nextRow()) {
+        return data;
       }
+      tokenizer.forEachRow(row -> {
+        String[] fields = new String[row.getFieldCount()];
+        for (int i = 0; i < fields.length; i++) {
+          fields[i] = row.getString(i).trim();
+        }
+        data.add(fields);
+      });
     } catch (IOException e) {
       System.err.println("Error reading CSV file: " + e.getMessage());
     }
@@ -105,22 +112,34 @@ public class CsvUtility {
    * @param foodList the hashmap of ingredients to write
    */
   public static void writeIngredientsToCsv(String filePath, HashMap<String, Ingredient> foodList) {
-    try (PrintWriter writer = new PrintWriter(new File(filePath))) {
-
-      writer.println("IngredientName,Category,BaseWeight,MeasuringUnit,Cost");
-      for (Ingredient ingredient : foodList.values()) {
-        writer.printf(Locale.US, "%s,%s,%.2f,%s,%.2f%n",
-            ingredient.getIngredientName(),
-            ingredient.getIngredientCategory(),
-            ingredient.getIngredientBaseWeight(),
-            ingredient.getIngredientMeasuringUnit(),
-            ingredient.getIngredientCost());
-      }
+    try {
+      PersistenceWriter.writeAtomically(filePath,
+          writer -> writeIngredientsToCsv(writer, foodList));
     } catch (IOException e) {
       System.err.println("Error writing ingredients to CSV file: " + e.getMessage());
     }
   }
 
+  /**
+   * Writes a list of ingredients as CSV.
+   *
+   * @param writer   the Writer to write to
+   * @param foodList the map of ingredients to write
+   * @throws IOException if writing fails
+   */
+  public static void writeIngredientsToCsv(Writer writer, Map<String, Ingredient> foodList)
+      throws IOException {
+    writer.write("IngredientName,Category,BaseWeight,MeasuringUnit,Cost" + System.lineSeparator());
+    for (Ingredient ingredient : foodList.values()) {
+      writer.write(String.format(Locale.US, "%s,%s,%.2f,%s,%.2f%n",
+          quoteField(ingredient.getIngredientName()),
+          quoteField(ingredient.getIngredientCategory()),
+          ingredient.getIngredientBaseWeight(),
+          quoteField(ingredient.getIngredientMeasuringUnit()),
+          ingredient.getIngredientCost()));
+    }
+  }
+
   /**
    * Reads ingredients data from a CSV file.
    *
@@ -129,22 +148,23 @@ public class CsvUtility {
    */
   public static Map<String, Ingredient> readIngredientsFromCsv(String filePath) {
     Map<String, Ingredient> foodList = new HashMap<>();
-    try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-      String line;
-      boolean isFirstLine = true;
-      while ((line = reader.readLine()) != null) {
-        if (isFirstLine) {
-          isFirstLine = false;
-          continue;
-        }
-        String[] parts = line.split(",");
-        if (parts.length == 5) {
-          Ingredient ingredient = new Ingredient(
-              parts[0], parts[1], Double.parseDouble(parts[2]),
-              parts[3], Double.parseDouble(parts[4]));
-          foodList.put(ingredient.getIngredientName(), ingredient);
-        }
+    try (CsvTokenizer tokenizer = new CsvTokenizer(
+        CompressionUtility.openReader(filePath), CompressionUtility.getBufferSize())) {
+      if (!tokenizer.nextRow()) {
+        return foodList;
       }
+      tokenizer.forEachRow(row -> {
+        if (row.getFieldCount() == 5) {
+          try {
+            Ingredient ingredient = new Ingredient(
+                row.getString(0).trim(), row.getString(1).trim(), row.getDouble(2),
+                row.getString(3).trim(), row.getDouble(4));
+            foodList.put(ingredient.getIngredientName(), ingredient);
+          } catch (NumberFormatException e) {
+            System.err.println("Invalid number in line: " + row.rowToString());
+          }
+        }
+      });
     } catch (IOException e) {
       System.err.println("Error reading FoodList from CSV: " + e.getMessage());
     }
@@ -152,7 +172,6 @@ public class CsvUtility {
   }
 
 
-
   /**
    * Writes a list of fridge items to a CSV file.
    *
@@ -160,70 +179,45 @@ public class CsvUtility {
    * @param fridgeItems the list of fridge items to write
    */
   public static void writeFridgeItemsToCsv(String filePath, List<FridgeItem> fridgeItems) {
-    try (PrintWriter writer = new PrintWriter(new File(filePath))) {
-
-      writer.println("IngredientName,Quantity,ExpirationDate");
-      for (FridgeItem item : fridgeItems) {
-        writer.printf(Locale.US, "%s,%.2f,%d%n",
-            item.getIngredient().getIngredientName(),
-            item.getQuantity(),
-            item.getExpirationDate());
-      }
+    try {
+      PersistenceWriter.writeAtomically(filePath,
+          writer -> writeFridgeItemsToCsv(writer, fridgeItems));
     } catch (IOException e) {
       System.err.println("Error writing fridge items to CSV: " + e.getMessage());
     }
   }
 
+  /**
+   * Writes a list of fridge items as CSV.
+   *
+   * @param writer      the Writer to write to
+   * @param fridgeItems the list of fridge items to write
+   * @throws IOException if writing fails
+   */
+  public static void writeFridgeItemsToCsv(Writer writer, List<FridgeItem> fridgeItems)
+      throws IOException {
+    writer.write("IngredientName,Quantity,ExpirationDate" + System.lineSeparator());
+    for (FridgeItem item : fridgeItems) {
+      writer.write(quoteField(item.getIngredient().getIngredientName()) + ","
+          + Quantity.format(item.getQuantityMicros(), 2) + ","
+          + item.getExpirationDate() + System.lineSeparator());
+    }
+  }
+
   /**
    * Reads fridge items data from a CSV file.
+   * Every item gets the quantity that was saved, see {@link FridgeItemLoader}.
    *
    * @param filePath      path of the CSV file to read from.
    * @param fridgeManager uses fridgeManager to add ingredients from foodlsit.
+   * @return an array where the first element is the number of items added, and
+   *         the second is the number of items failed
    */
   public static int[] readFridgeItemsFromCsv(String filePath,
       FridgeManager fridgeManager) {
-
-    int itemsAdded = 0;
-    int itemsFailed = 0;
-
-    try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-      String line;
-      boolean isFirstLine = true;
-      while ((line = reader.readLine()) != null) {
-        if (isFirstLine) {
-          isFirstLine = false;
-          continue;
-        }
-
-        String[] parts = line.split(",");
-
-        if (parts.length == 3) {
-          String ingredientName = parts[0].trim();
-          long expirationDate;
-          try {
-            expirationDate = Long.parseLong(parts[2].trim());
-          } catch (NumberFormatException e) {
-            System.err.println("Invalid expiration date in line: " + e.getMessage());
-            itemsFailed++;
-            continue;
-          }
-
-          String result = fridgeManager.addToFridge(ingredientName, expirationDate);
-          if (result.trim().equalsIgnoreCase("Ingredient added to fridge successfully.")) {
-            itemsAdded++;
-          } else {
-            System.err.println("Error adding ingredient to fridge: " + result);
-            itemsFailed++;
-          }
-        } else {
-          System.err.println("Invalid line in CSV file: " + line);
-          itemsFailed++;
-        }
-      }
-    } catch (IOException e) {
-      System.err.println("Error reading fridge items from CSV: " + e.getMessage());
-    }
-    return new int[] { itemsAdded, itemsFailed };
+    FridgeItemLoader.LoadResult result = FridgeItemLoader.loadFromCsv(filePath, fridgeManager);
+    result.getErrors().forEach(System.err::println);
+    return result.toCounts();
   }
 
   /**
@@ -233,33 +227,50 @@ public class CsvUtility {
    * @param recipes  the list of recipes to write
    */
   public static void writeRecipesToCsv(String filePath, List<Recipe> recipes) {
-    try (BufferedWriter writer = new BufferedWriter(new FileWriter(filePath))) {
-
-      writer.write("RecipeName,Description,Instructions,Type,Ingredients");
-      writer.newLine();
+    try {
+      PersistenceWriter.writeAtomically(filePath, writer -> writeRecipesToCsv(writer, recipes));
+    } catch (IOException e) {
+      System.err.println("Error writing recipes to CSV: " + e.getMessage());
+    }
+  }
 
-      for (Recipe recipe : recipes) {
+  /**
+   * Writes a list of recipes as CSV.
+   *
+   * @param writer  the Writer to write to
+   * @param recipes the list of recipes to write
+   * @throws IOException if writing fails
+   */
+  public static void writeRecipesToCsv(Writer writer, List<Recipe> recipes) throws IOException {
+    writer.write("RecipeName,Description,Instructions,Type,Ingredients");
+    writer.write(System.lineSeparator());
 
-        String ingredients = recipe.getIngredients().entrySet().stream()
-            .map(entry -> entry.getKey() + "=" + entry.getValue())
-            .reduce((a, b) -> a + ", " + b)
-            .map(result -> "{" + result + "}")
-            .orElse("{}");
+    for (Recipe recipe : recipes) {
 
-        writer.write(String.format("\"%s\",\"%s\",\"%s\",\"%s\",\"%s\"%n",
-            recipe.getRecipeName().replace("\"", "\"\""),
-            recipe.getRecipeDescription().replace("\"", "\"\""),
-            recipe.getInstructions().replace("\"", "\"\""),
-            recipe.getRecipeType().replace("\"", "\"\""),
-            ingredients));
+      StringBuilder ingredients = new StringBuilder("{");
+      for (int i = 0; i < recipe.getIngredientCount(); i++) {
+        if (i > 0) {
+          ingredients.append(", ");
+        }
+        ingredients.append(recipe.getIngredientName(i)).append('=')
+            .append(Quantity.format(recipe.getIngredientQuantityMicros(i), 1));
       }
-    } catch (IOException e) {
-      System.err.println("Error writing recipes to CSV: " + e.getMessage());
+      ingredients.append('}');
+
+      writer.write(String.format("%s,%s,%s,%s,%s%n",
+          quoteField(recipe.getRecipeName()),
+          quoteField(recipe.getRecipeDescription()),
+          quoteField(recipe.getInstructions()),
+          quoteField(recipe.getRecipeType()),
+          quoteField(ingredients.toString())));
     }
   }
 
   /**
    * Reads recipes data from a CSV file and adds them using the RecipeManager.
+   * The description and instructions of the recipes in a plain file are not
+   * kept in memory, but read from the file when needed, see
+   * {@link RecipeTextIndex}.
    *
    * @param filePath      path of the CSV file to read from.
    * @param recipeManager the RecipeManager to manage the recipes.
@@ -267,6 +278,17 @@ public class CsvUtility {
    *         the second is the number of items failed.
    */
   public static int[] readRecipesFromCsv(String filePath, RecipeManager recipeManager) {
+    boolean compressed;
+    try {
+      compressed = CompressionUtility.isGzipFile(filePath);
+    } catch (IOException e) {
+      // The file can not be read, the reader below reports why.
+      compressed = true;
+    }
+    if (!compressed) {
+      return readRecipesFromCsv(filePath, recipeManager, RecipeTextIndex.DEFAULT_CACHE_SIZE);
+    }
+
     int itemsAdded = 0;
     int itemsFailed = 0;
 
@@ -278,21 +300,7 @@ public class CsvUtility {
           String recipeDescription = row[1];
           String instructions = row[2];
           String recipeType = row[3];
-
-
-          String ingredientsData = row[4].replaceAll("[\\{\\}]", "");
-          String[] ingredientsArray = ingredientsData.split(", ");
-
-          Map<String, Double> ingredients = new HashMap<>();
-          for (String ingredientPair : ingredientsArray) {
-            String[] ingredientParts = ingredientPair.split("=");
-            if (ingredientParts.length == 2) {
-              String ingredientName = ingredientParts[0].trim();
-              double ingredientAmount = Double.parseDouble(ingredientParts[1].trim());
-              ingredients.put(ingredientName, ingredientAmount);
-            }
-          }
-
+          Map<String, Double> ingredients = parseRecipeIngredients(row[4]);
 
           String result = recipeManager.createNewRecipeWithIngredients(
               recipeName, recipeDescription, instructions, recipeType, ingredients);
@@ -315,6 +323,70 @@ public class CsvUtility {
     return new int[] { itemsAdded, itemsFailed };
   }
 
+  /**
+   * Reads recipes data from a plain CSV file and adds them using the
+   * RecipeManager, leaving the description and instructions in the file until
+   * they are needed.
+   *
+   * @param filePath      path of the CSV file to read from.
+   * @param recipeManager the RecipeManager to manage the recipes.
+   * @param cacheSize     the number of recipes whose text is kept in memory
+   * @return an array where the first element is the number of items added, and
+   *         the second is the number of items failed.
+   */
+  public static int[] readRecipesFromCsv(String filePath, RecipeManager recipeManager,
+      int cacheSize) {
+    int[] counts = new int[2];
+
+    try {
+      RecipeTextIndex index = new RecipeTextIndex(filePath, cacheSize);
+      index.scan(row -> {
+        if (row.getFieldCount() < 5) {
+          System.err.println("Invalid line in CSV file: " + row.rowToString());
+          counts[1]++;
+          return;
+        }
+        String recipeName = row.getString(0).trim();
+        String result;
+        try {
+          result = recipeManager.createNewRecipeWithTextSource(recipeName,
+              row.getString(3).trim(), index, parseRecipeIngredients(row.getString(4).trim()));
+        } catch (NumberFormatException e) {
+          result = "Invalid ingredient quantity: " + e.getMessage();
+        }
+
+        if (result.equals("Successfully created the recipe.")) {
+          counts[0]++;
+        } else {
+          System.err.println("Error adding recipe '" + recipeName + "': " + result);
+          counts[1]++;
+        }
+      });
+    } catch (IOException e) {
+      System.err.println("Error reading recipes from CSV: " + e.getMessage());
+    }
+
+    return counts;
+  }
+
+  /**
+   * Parses the ingredients of a recipe row, written as {name=quantity, ...}.
+   */
+  static Map<String, Double> parseRecipeIngredients(String ingredientsData) {
+    String[] ingredientsArray = ingredientsData.replaceAll("[\\{\\}]", "").split(", ");
+
+    Map<String, Double> ingredients = new LinkedHashMap<>();
+    for (String ingredientPair : ingredientsArray) {
+      String[] ingredientParts = ingredientPair.split("=");
+      if (ingredientParts.length == 2) {
+        String ingredientName = ingredientParts[0].trim();
+        double ingredientAmount = Double.parseDouble(ingredientParts[1].trim());
+        ingredients.put(ingredientName, ingredientAmount);
+      }
+    }
+    return ingredients;
+  }
+
   /**
    * Writes a map of cookbooks to a CSV file.
    *
@@ -322,29 +394,39 @@ public class CsvUtility {
    * @param cookBooks the map of cookbooks to write
    */
   public static void writeCookBooksToCsv(String filePath, Map<String, CookBook> cookBooks) {
-    try (BufferedWriter writer = new BufferedWriter(new FileWriter(filePath))) {
+    try {
+      PersistenceWriter.writeAtomically(filePath,
+          writer -> writeCookBooksToCsv(writer, cookBooks));
+    } catch (IOException e) {
+      System.err.println("Error writing cookbooks to CSV: " + e.getMessage());
+    }
+  }
 
-      writer.write("CookBookName,Recipes");
-      writer.newLine();
+  /**
+   * Writes a map of cookbooks as CSV.
+   *
+   * @param writer    the Writer to write to
+   * @param cookBooks the map of cookbooks to write
+   * @throws IOException if writing fails
+   */
+  public static void writeCookBooksToCsv(Writer writer, Map<String, CookBook> cookBooks)
+      throws IOException {
+    writer.write("CookBookName,Recipes");
+    writer.write(System.lineSeparator());
 
-      for (Map.Entry<String, CookBook> entry : cookBooks.entrySet()) {
-        String cookBookName = entry.getKey();
-        CookBook cookBook = entry.getValue();
+    for (Map.Entry<String, CookBook> entry : cookBooks.entrySet()) {
+      String cookBookName = entry.getKey();
+      CookBook cookBook = entry.getValue();
 
 
-        String recipes = cookBook.getRecipesInCookBook().keySet().stream()
-            .map(recipeName -> recipeName.replace("\"",
-                "\"\""))
-            .reduce((a, b) -> a + ", " + b)
-            .map(recipeList -> "{" + recipeList + "}")
-            .orElse("{}");
+      String recipes = cookBook.getRecipesInCookBook().keySet().stream()
+          .reduce((a, b) -> a + ", " + b)
+          .map(recipeList -> "{" + recipeList + "}")
+          .orElse("{}");
 
-        writer.write(String.format("\"%s\",\"%s\"%n",
-            cookBookName.replace("\"", "\"\""),
-            recipes));
-      }
-    } catch (IOException e) {
-      System.err.println("Error writing cookbooks to CSV: " + e.getMessage());
+      writer.write(String.format("%s,%s%n",
+          quoteField(cookBookName),
+          quoteField(recipes)));
     }
   }
 
@@ -0,0 +1,326 @@
+package utilities;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import models.FoodList;
+import models.Ingredient;
+import models.Recipe;
+import services.RecipeManager;
+
+/**
+ * Reloads a data file that was changed outside the application, and applies
+ * only the differences to the data in memory.
+ *
+ * <p>Reloading is done in two steps. The file is read first, which only
+ * touches the file and can be done on any thread. The changes are then applied
+ * on the thread that owns the data, since the FoodList, the recipes and the
+ * cached recipe costs are not safe to change from two threads at once.
+ *
+ * <p>Ingredients and recipes that did not change are left as they are, and
+ * changed ingredients are updated in place, so the fridge items keep their
+ * ingredients and see the new values. Changed recipes are updated in place, so
+ * the cookbooks holding them see the changes. Every change goes through the
+ * FoodList and RecipeManager, so it is recorded in the journal if one is used.
+ *
+ * <p>The recipes of a plain file are indexed again on every reload, and the
+ * recipes that load their text from the old index are moved to the new one,
+ * since the file may have been changed in place. Their text is compared by its
+ * hash in the index, so it is not read from the file.
+ *
+ * <p>A file that can not be read or has no rows is ignored, since it is most
+ * likely in the middle of being written.
+ *
+ * @author Dennis Moe
+ */
+public class DataFileReloader {
+
+  private static final int DESCRIPTION_FIELD = 1;
+  private static final int INSTRUCTIONS_FIELD = 2;
+
+  /**
+   * The rows of a recipes file that has been read but not applied yet.
+   * If the file is plain, the description and instructions are left in the
+   * file and the rows hold null in their place, see {@link RecipeTextIndex}.
+   */
+  public static final class RecipeRows {
+    private final Map<String, String[]> rows;
+    private final RecipeTextIndex index;
+
+    private RecipeRows(Map<String, String[]> rows, RecipeTextIndex index) {
+      this.rows = rows;
+      this.index = index;
+    }
+
+    private int getTextHash(String[] row) {
+      return index != null
+          ? index.getTextHash(row[0])
+          : RecipeTextIndex.textHash(row[DESCRIPTION_FIELD], row[INSTRUCTIONS_FIELD]);
+    }
+
+    private String getDescription(String[] row) {
+      return index != null ? index.getDescription(row[0]) : row[DESCRIPTION_FIELD];
+    }
+
+    private String getInstructions(String[] row) {
+      return index != null ? index.getInstructions(row[0]) : row[INSTRUCTIONS_FIELD];
+    }
+  }
+
+  /**
+   * Reloads the ingredients file and applies the changes to the FoodList.
+   *
+   * @param filePath the path of the ingredients file, CSV or JSON
+   * @param foodList the FoodList to update
+   * @return an array with the number of added, changed and removed ingredients,
+   *         or null if the file was ignored
+   */
+  public static int[] reloadFoodList(String filePath, FoodList foodList) {
+    return applyFoodList(readFoodList(filePath), foodList);
+  }
+
+  /**
+   * Reads the ingredients file, without changing anything.
+   *
+   * @param filePath the path of the ingredients file, CSV or JSON
+   * @return the ingredients by name, or null if the file is to be ignored
+   */
+  public static Map<String, Ingredient> readFoodList(String filePath) {
+    Map<String, Ingredient> ingredients = JsonUtility.isJsonPath(filePath)
+        ? JsonUtility.readIngredientsFromJson(filePath)
+        : CsvUtility.readIngredientsFromCsv(filePath);
+    return ingredients == null || ingredients.isEmpty() ? null : ingredients;
+  }
+
+  /**
+   * Applies the ingredients read from the ingredients file to the FoodList.
+   *
+   * @param ingredients the ingredients read by {@link #readFoodList(String)}
+   * @param foodList    the FoodList to update
+   * @return an array with the number of added, changed and removed ingredients,
+   *         or null if there are no ingredients
+   */
+  public static int[] applyFoodList(Map<String, Ingredient> ingredients, FoodList foodList) {
+    if (ingredients == null) {
+      return null;
+    }
+
+    int[] counts = new int[3];
+    for (Ingredient ingredient : ingredients.values()) {
+      boolean isNew = foodList.getIngredientFromFoodList(ingredient.getIngredientName()) == null;
+      if (foodList.updateIngredient(ingredient)) {
+        counts[isNew ? 0 : 1]++;
+      }
+    }
+    for (String ingredientName : new ArrayList<>(foodList.getFoodList().keySet())) {
+      if (!ingredients.containsKey(ingredientName)) {
+        foodList.removeIngredient(ingredientName);
+        counts[2]++;
+      }
+    }
+    return counts;
+  }
+
+  /**
+   * Reloads the recipes file and applies the changes to the recipes of the
+   * RecipeManager. If a recipe name is used more than once, the first row with
+   * it is used.
+   *
+   * @param filePath      the path of the recipes CSV file
+   * @param recipeManager the RecipeManager whose recipes to update
+   * @return an array with the number of added, changed and removed recipes, or
+   *         null if the file was ignored
+   */
+  public static int[] reloadRecipes(String filePath, RecipeManager recipeManager) {
+    return applyRecipes(readRecipes(filePath), recipeManager);
+  }
+
+  /**
+   * Reads the recipes file, without changing anything. A plain file is indexed,
+   * so the text of its recipes stays in the file.
+   *
+   * @param filePath the path of the recipes CSV file
+   * @return the rows of the file, or null if the file is to be ignored
+   */
+  public static RecipeRows readRecipes(String filePath) {
+    Map<String, String[]> rows = new LinkedHashMap<>();
+    RecipeTextIndex index = null;
+    try {
+      if (!CompressionUtility.isGzipFile(filePath)) {
+        index = new RecipeTextIndex(filePath, RecipeTextIndex.DEFAULT_CACHE_SIZE);
+        index.scan(row -> {
+          if (row.getFieldCount() >= 5) {
+            String recipeName = row.getString(0).trim();
+            rows.putIfAbsent(recipeName.toLowerCase(), new String[] {
+                recipeName, null, null, row.getString(3).trim(), row.getString(4).trim()
+            });
+          } else {
+            System.err.println("Invalid line in CSV file: " + row.rowToString());
+          }
+        });
+      } else {
+        for (String[] row : CsvUtility.readFromCsv(filePath)) {
+          if (row.length >= 5) {
+            rows.putIfAbsent(row[0].toLowerCase(), row);
+          } else {
+            System.err.println("Invalid line in CSV file: " + String.join(",", row));
+          }
+        }
+      }
+    } catch (IOException e) {
+      System.err.println("Error reading recipes from CSV: " + e.getMessage());
+      rows.clear();
+    }
+
+    if (rows.isEmpty()) {
+      closeIndex(index);
+      return null;
+    }
+    return new RecipeRows(rows, index);
+  }
+
+  /**
+   * Applies the rows read from the recipes file to the recipes of the
+   * RecipeManager. The recipes that loaded their text from an earlier index
+   * are moved to the new one, and the earlier index is closed.
+   *
+   * @param recipeRows    the rows read by {@link #readRecipes(String)}
+   * @param recipeManager the RecipeManager whose recipes to update
+   * @return an array with the number of added, changed and removed recipes, or
+   *         null if there are no rows
+   */
+  public static int[] applyRecipes(RecipeRows recipeRows, RecipeManager recipeManager) {
+    if (recipeRows == null) {
+      return null;
+    }
+
+    int[] counts = new int[3];
+    Set<RecipeTextIndex> oldIndexes = new HashSet<>();
+    for (String[] row : recipeRows.rows.values()) {
+      String recipeName = row[0];
+      Map<String, Double> ingredients;
+      try {
+        ingredients = CsvUtility.parseRecipeIngredients(row[4]);
+      } catch (NumberFormatException e) {
+        System.err.println("Invalid ingredient quantity in recipe '" + recipeName + "': "
+            + e.getMessage());
+        continue;
+      }
+
+      Recipe current = recipeManager.getRecipeObject(recipeName);
+      if (current == null) {
+        String result = recipeRows.index != null
+            ? recipeManager.createNewRecipeWithTextSource(recipeName, row[3], recipeRows.index,
+                ingredients)
+            : recipeManager.createNewRecipeWithIngredients(recipeName, row[1], row[2], row[3],
+                ingredients);
+        if (result.equals("Successfully created the recipe.")) {
+          counts[0]++;
+        } else {
+          System.err.println("Error adding recipe '" + recipeName + "': " + result);
+        }
+        continue;
+      }
+
+      if (current.getTextSource() instanceof RecipeTextIndex oldIndex
+          && oldIndex != recipeRows.index) {
+        oldIndexes.add(oldIndex);
+      }
+      if (updateRecipe(recipeManager, current, recipeRows, row, ingredients)) {
+        counts[1]++;
+      }
+    }
+
+    Set<String> removed = new HashSet<>();
+    for (Recipe recipe : recipeManager.getAllRecipeObjects()) {
+      if (!recipeRows.rows.containsKey(recipe.getRecipeName().toLowerCase())) {
+        removed.add(recipe.getRecipeName());
+      }
+    }
+    for (String recipeName : removed) {
+      recipeManager.removeRecipe(recipeName);
+      counts[2]++;
+    }
+
+    boolean indexUsed = false;
+    for (Recipe recipe : recipeManager.getAllRecipeObjects()) {
+      indexUsed |= recipe.getTextSource() == recipeRows.index;
+    }
+    if (!indexUsed) {
+      closeIndex(recipeRows.index);
+    }
+    for (RecipeTextIndex oldIndex : oldIndexes) {
+      closeIndex(oldIndex);
+    }
+    return counts;
+  }
+
+  /**
+   * Applies the differences between a recipe and its row.
+   *
+   * @return true if the recipe was changed
+   */
+  private static boolean updateRecipe(RecipeManager recipeManager, Recipe recipe,
+      RecipeRows recipeRows, String[] row, Map<String, Double> ingredients) {
+    String recipeName = recipe.getRecipeName();
+    boolean changed = false;
+    if (textHashOf(recipe) != recipeRows.getTextHash(row)
+        || !Objects.equals(recipe.getRecipeType(), row[3])) {
+      recipeManager.updateRecipeDetails(recipeName, recipeRows.getDescription(row),
+          recipeRows.getInstructions(row), row[3]);
+      changed = true;
+    } else if (recipeRows.index != null) {
+      recipe.setTextSource(recipeRows.index);
+    }
+
+    List<String> removedIngredients = new ArrayList<>();
+    for (String ingredientName : recipe.getIngredients().keySet()) {
+      if (!ingredients.containsKey(ingredientName)) {
+        removedIngredients.add(ingredientName);
+      }
+    }
+    for (String ingredientName : removedIngredients) {
+      recipeManager.removeIngredientFromRecipe(recipeName, ingredientName);
+      changed = true;
+    }
+
+    for (Map.Entry<String, Double> entry : ingredients.entrySet()) {
+      Double quantity = recipe.getIngredients().get(entry.getKey());
+      if (quantity == null) {
+        recipeManager.addIngredientToRecipe(recipeName, entry.getKey(), entry.getValue());
+        changed = true;
+      } else if (!quantity.equals(entry.getValue())) {
+        recipeManager.updateRecipeIngredient(recipeName, entry.getKey(), entry.getValue());
+        changed = true;
+      }
+    }
+    return changed;
+  }
+
+  /**
+   * Gets the hash of the text of a recipe, from its index if it has one, so
+   * the text is not read from the file.
+   */
+  private static int textHashOf(Recipe recipe) {
+    if (recipe.getTextSource() instanceof RecipeTextIndex index) {
+      return index.getTextHash(recipe.getRecipeName());
+    }
+    return RecipeTextIndex.textHash(recipe.getRecipeDescription(), recipe.getInstructions());
+  }
+
+  private static void closeIndex(RecipeTextIndex index) {
+    if (index == null) {
+      return;
+    }
+    try {
+      index.close();
+    } catch (IOException e) {
+      System.err.println("Error closing the recipe index: " + e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,182 @@
+package utilities;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches a data directory and tells a handler when one of its files changes.
+ *
+ * <p>Editors and tools often write a file in several steps, so the events are
+ * collected until the directory has been quiet for a short while, and each
+ * changed file is then handled once. A change is skipped if the file has the
+ * same size and modification time as when it was last handled or marked as
+ * unchanged, so files the application writes itself can be marked with
+ * {@link #markUnchanged(String)} and are not handled again.
+ *
+ * <p>The handlers run on the thread of the watcher, one at a time.
+ *
+ * @author Dennis Moe
+ */
+public class DataFileWatcher implements Closeable {
+
+  /**
+   * The default time the directory must be quiet before changes are handled,
+   * in milliseconds.
+   */
+  public static final long DEFAULT_SETTLE_MILLIS = 20;
+
+  private final Path directory;
+  private final WatchService watchService;
+  private final long settleMillis;
+  private final Map<Path, Runnable> handlers = new ConcurrentHashMap<>();
+  private final Map<Path, String> handledStamps = new ConcurrentHashMap<>();
+  private Thread thread;
+
+  /**
+   * Constructs a new DataFileWatcher for a directory. Nothing is watched until
+   * {@link #start()} is called.
+   *
+   * @param directoryPath the path of the directory to watch
+   * @param settleMillis  the time the directory must be quiet before changes are
+   *                      handled, in milliseconds
+   * @throws IOException if the directory can not be watched
+   */
+  public DataFileWatcher(String directoryPath, long settleMillis) throws IOException {
+    if (settleMillis < 0) {
+      throw new IllegalArgumentException("Settle time can not be negative.");
+    }
+    this.directory = Path.of(directoryPath).toAbsolutePath();
+    this.settleMillis = settleMillis;
+    this.watchService = FileSystems.getDefault().newWatchService();
+    try {
+      directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+          StandardWatchEventKinds.ENTRY_MODIFY);
+    } catch (IOException e) {
+      watchService.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Sets the handler that is run when a file in the directory changes. The
+   * file is marked as unchanged, so only later changes are handled.
+   *
+   * @param filePath the path of the file
+   * @param handler  the handler to run
+   */
+  public void onChange(String filePath, Runnable handler) {
+    Path file = resolve(filePath);
+    handlers.put(file, handler);
+    handledStamps.put(file, stampOf(file));
+  }
+
+  /**
+   * Marks the current version of a file as already handled, for example after
+   * the application has written it.
+   *
+   * @param filePath the path of the file
+   */
+  public void markUnchanged(String filePath) {
+    Path file = resolve(filePath);
+    if (handlers.containsKey(file)) {
+      handledStamps.put(file, stampOf(file));
+    }
+  }
+
+  /**
+   * Starts watching the directory on a daemon thread.
+   */
+  public synchronized void start() {
+    if (thread != null) {
+      return;
+    }
+    thread = new Thread(this::watch, "data-file-watcher");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Stops watching the directory.
+   *
+   * @throws IOException if the watch service can not be closed
+   */
+  @Override
+  public void close() throws IOException {
+    watchService.close();
+  }
+
+  private void watch() {
+    try {
+      while (true) {
+        Set<Path> changed = new LinkedHashSet<>();
+        collect(watchService.take(), changed);
+        WatchKey more;
+        while ((more = watchService.poll(settleMillis, TimeUnit.MILLISECONDS)) != null) {
+          collect(more, changed);
+        }
+        for (Path file : changed) {
+          handle(file);
+        }
+      }
+    } catch (ClosedWatchServiceException e) {
+      // The watcher was closed.
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void collect(WatchKey key, Set<Path> changed) {
+    for (WatchEvent<?> event : key.pollEvents()) {
+      if (event.context() instanceof Path name) {
+        Path file = directory.resolve(name);
+        if (handlers.containsKey(file)) {
+          changed.add(file);
+        }
+      }
+    }
+    key.reset();
+  }
+
+  private void handle(Path file) {
+    String stamp = stampOf(file);
+    if (stamp.isEmpty() || stamp.equals(handledStamps.get(file))) {
+      return;
+    }
+    handledStamps.put(file, stamp);
+    try {
+      handlers.get(file).run();
+    } catch (RuntimeException e) {
+      System.err.println("Error while reloading " + file + ": " + e.getMessage());
+    }
+  }
+
+  private Path resolve(String filePath) {
+    return directory.resolve(Path.of(filePath).toAbsolutePath().getFileName());
+  }
+
+  /**
+   * Gets the size and modification time of a file, or an empty String if it
+   * does not exist.
+   */
+  private static String stampOf(Path file) {
+    try {
+      return Files.size(file) + "@"
+          + Files.getLastModifiedTime(file).to(TimeUnit.MICROSECONDS);
+    } catch (IOException e) {
+      return "";
+    }
+  }
+}
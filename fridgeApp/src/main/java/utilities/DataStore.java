@@ -0,0 +1,169 @@
+package utilities;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import models.CookBook;
+import models.FoodList;
+import models.FridgeItem;
+import models.Ingredient;
+import models.Recipe;
+import services.CookBookManager;
+import services.FridgeManager;
+import services.RecipeManager;
+
+/**
+ * Where the data of the application is stored, split into one repository for
+ * each data set.
+ *
+ * <p>The repositories load a data set into its manager and save all of it
+ * again. The fridge items and recipes can also be queried without loading
+ * them, so a store that keeps them indexed can answer from the index instead
+ * of going through every saved item.
+ *
+ * <p>A store is backed up through {@link BackupStore.Source}, so the files it
+ * backs up are the ones it really keeps its data in.
+ *
+ * @author Dennis Moe
+ */
+public interface DataStore extends Closeable, BackupStore.Source {
+
+  /**
+   * Stores the ingredients of the food list.
+   */
+  interface IngredientRepository {
+
+    /**
+     * Loads every saved ingredient.
+     *
+     * @return the ingredients by name
+     * @throws IOException if the ingredients can not be read
+     */
+    Map<String, Ingredient> loadAll() throws IOException;
+
+    /**
+     * Replaces the saved ingredients.
+     *
+     * @param ingredients the ingredients by name
+     * @throws IOException if the ingredients can not be written
+     */
+    void saveAll(Map<String, Ingredient> ingredients) throws IOException;
+  }
+
+  /**
+   * Stores the fridge items, each one lot of an ingredient with its own
+   * quantity and expiration date.
+   */
+  interface FridgeItemRepository {
+
+    /**
+     * Loads every saved fridge item into the fridge, see {@link FridgeItemLoader}.
+     * The ingredients must already be in the food list of the FridgeManager.
+     *
+     * @param fridgeManager the FridgeManager to add the items to
+     * @return an array where the first element is the number of items added,
+     *         and the second is the number of items failed
+     * @throws IOException if the items can not be read
+     */
+    int[] loadAll(FridgeManager fridgeManager) throws IOException;
+
+    /**
+     * Replaces the saved fridge items.
+     *
+     * @param fridgeItems the fridge items to save
+     * @throws IOException if the items can not be written
+     */
+    void saveAll(List<FridgeItem> fridgeItems) throws IOException;
+
+    /**
+     * Finds the saved fridge items that expire before a date. Items whose
+     * ingredient is not in the food list are left out.
+     *
+     * @param date     the date in the format ddMMyyyy
+     * @param foodList the FoodList to look the ingredients up in
+     * @return the matching fridge items, as new FridgeItem instances
+     * @throws IOException if the items can not be read
+     */
+    List<FridgeItem> findExpiringBefore(long date, FoodList foodList) throws IOException;
+
+    /**
+     * Finds the saved fridge items of an ingredient.
+     *
+     * @param ingredientName the name of the ingredient
+     * @param foodList       the FoodList to look the ingredient up in
+     * @return the matching fridge items, as new FridgeItem instances
+     * @throws IOException if the items can not be read
+     */
+    List<FridgeItem> findByIngredient(String ingredientName, FoodList foodList)
+        throws IOException;
+  }
+
+  /**
+   * Stores the recipes and their ingredients.
+   */
+  interface RecipeRepository {
+
+    /**
+     * Loads every saved recipe into the RecipeManager.
+     *
+     * @param recipeManager the RecipeManager to add the recipes to
+     * @return an array where the first element is the number of recipes added,
+     *         and the second is the number of recipes failed
+     * @throws IOException if the recipes can not be read
+     */
+    int[] loadAll(RecipeManager recipeManager) throws IOException;
+
+    /**
+     * Replaces the saved recipes.
+     *
+     * @param recipes the recipes to save
+     * @throws IOException if the recipes can not be written
+     */
+    void saveAll(Collection<Recipe> recipes) throws IOException;
+
+    /**
+     * Finds the names of the saved recipes that use an ingredient.
+     *
+     * @param ingredientName the name of the ingredient
+     * @return the names of the recipes, sorted
+     * @throws IOException if the recipes can not be read
+     */
+    List<String> findRecipeNamesUsing(String ingredientName) throws IOException;
+  }
+
+  /**
+   * Stores the cookbooks and which recipes they hold.
+   */
+  interface CookBookRepository {
+
+    /**
+     * Loads every saved cookbook into the CookBookManager. The recipes must
+     * already be loaded.
+     *
+     * @param cookBookManager the CookBookManager to add the cookbooks to
+     * @return an array where index 0 is the count of added cookbooks, index 1
+     *         the count of failed cookbooks, index 2 the count of added recipes
+     *         and index 3 the count of failed recipes
+     * @throws IOException if the cookbooks can not be read
+     */
+    int[] loadAll(CookBookManager cookBookManager) throws IOException;
+
+    /**
+     * Replaces the saved cookbooks.
+     *
+     * @param cookBooks the cookbooks by name
+     * @throws IOException if the cookbooks can not be written
+     */
+    void saveAll(Map<String, CookBook> cookBooks) throws IOException;
+  }
+
+  IngredientRepository ingredients();
+
+  FridgeItemRepository fridgeItems();
+
+  RecipeRepository recipes();
+
+  CookBookRepository cookBooks();
+}
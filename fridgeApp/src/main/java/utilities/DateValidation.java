@@ -1,8 +1,5 @@
 package utilities;
 
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-
 /**
  * Utility class for date validation.
  * User input will be Year, Month, then Day.
@@ -89,6 +86,17 @@ public class DateValidation {
         && isValidDay(expirationDay, expirationMonth, expirationYear);
   }
 
+  /**
+   * Checks if a ddMMyyyy date has 7 or 8 digits, i.e. a day with or without a
+   * leading zero.
+   *
+   * @param expirationDate the date to check
+   * @return true if the date has a valid number of digits, false otherwise
+   */
+  public static boolean hasValidDateLength(long expirationDate) {
+    return expirationDate >= 1_000_000L && expirationDate <= 99_999_999L;
+  }
+
   /**
    * Formats the expiration date.
    * Converts long '25062024' to String "25/06/2024".
@@ -107,16 +115,74 @@ public class DateValidation {
    * @return today's date as a long
    */
   public static long getTodayAsLong() {
-    LocalDate today = LocalDate.now();
-    DateTimeFormatter formatter = DateTimeFormatter.ofPattern("ddMMyyyy");
-    return Long.parseLong(today.format(formatter));
+    return DayClock.system().todayAsLong();
+  }
+
+  /**
+   * Gets today's date in the sortable format yyyyMMdd.
+   *
+   * @return today's date as a sortable int
+   */
+  public static int getTodayAsSortableDate() {
+    return DayClock.system().today();
+  }
+
+  /**
+   * Converts a ddMMyyyy date to the format yyyyMMdd, where the natural order of
+   * the numbers is the order of the dates.
+   * Converts long '25062024' to int 20240625, using only arithmetic.
+   * A number with more than 8 digits, or a negative number, is not a ddMMyyyy
+   * date and is sorted after every date.
+   *
+   * @param date the date in the format ddMMyyyy
+   * @return the date in the format yyyyMMdd
+   */
+  public static int toSortableDate(long date) {
+    if (date < 0 || date > 99_999_999L) {
+      return Integer.MAX_VALUE;
+    }
+    int legacy = (int) date;
+    int day = legacy / 1_000_000;
+    int month = legacy / 10_000 % 100;
+    int year = legacy % 10_000;
+    return year * 10_000 + month * 100 + day;
+  }
+
+  /**
+   * Converts a yyyyMMdd date back to the format ddMMyyyy, which is used in the
+   * data files and shown to the user.
+   *
+   * @param sortableDate the date in the format yyyyMMdd
+   * @return the date in the format ddMMyyyy
+   */
+  public static long fromSortableDate(int sortableDate) {
+    int day = sortableDate % 100;
+    int month = sortableDate / 100 % 100;
+    int year = sortableDate / 10_000;
+    return day * 1_000_000L + month * 10_000L + year;
+  }
+
+  /**
+   * Converts a yyyyMMdd date to the number of days since 01/01/1970, using only
+   * arithmetic. The date is not validated.
+   *
+   * @param sortableDate the date in the format yyyyMMdd
+   * @return the epoch day of the date
+   */
+  public static long toEpochDay(int sortableDate) {
+    int day = sortableDate % 100;
+    int month = sortableDate / 100 % 100;
+    int year = sortableDate / 10_000 - (month <= 2 ? 1 : 0);
+    int era = (year >= 0 ? year : year - 399) / 400;
+    int yearOfEra = year - era * 400;
+    int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+    int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+    return era * 146_097L + dayOfEra - 719_468L;
   }
 
   /**
    * Compares two dates by year, month and date.
-   * Checks if the values are the same for year, month and day, if not they are
-   * compared
-   * and the result is returned as an int for easy comparison.
+   * Both dates are converted to yyyyMMdd, so they can be compared as numbers.
    *
    * @param date1 First date to compare with.
    * @param date2 Second date to compare with.
@@ -124,32 +190,6 @@ public class DateValidation {
    *         is after date2.
    */
   public static int compareDates(long date1, long date2) {
-
-    String d1 = String.format("%08d", date1);
-    String d2 = String.format("%08d", date2);
-
-
-
-    int year1 = Integer.parseInt(d1.substring(4, 8));
-    int month1 = Integer.parseInt(d1.substring(2, 4));
-    int day1 = Integer.parseInt(d1.substring(0, 2));
-
-    int year2 = Integer.parseInt(d2.substring(4, 8));
-    int month2 = Integer.parseInt(d2.substring(2, 4));
-    int day2 = Integer.parseInt(d2.substring(0, 2));
-
-
-
-
-
-    if (year1 != year2) {
-      return Integer.compare(year1, year2);
-    }
-
-    if (month1 != month2) {
-      return Integer.compare(month1, month2);
-    }
-
-    return Integer.compare(day1, day2);
+    return Integer.compare(toSortableDate(date1), toSortableDate(date2));
   }
 }
@@ -0,0 +1,123 @@
+package utilities;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+/**
+ * Tells what day it is today, in the formats used by the application.
+ *
+ * <p>The day is worked out once and cached together with the time it starts
+ * and ends, so asking for today only reads the clock and compares two numbers.
+ * It is worked out again when the clock passes midnight, or is set back to an
+ * earlier day.
+ *
+ * <p>The clock can be given to the FridgeManager, so tests and simulations can
+ * move time forward without touching the system clock.
+ *
+ * @author Dennis Moe
+ */
+public class DayClock {
+
+  private static final DayClock SYSTEM = new DayClock(Clock.systemDefaultZone());
+
+  private final Clock clock;
+  private volatile Day day;
+
+  /**
+   * A day and the times it starts and ends, in epoch milliseconds.
+   */
+  private static final class Day {
+    private final long startMillis;
+    private final long endMillis;
+    private final int sortableDate;
+    private final long dateAsLong;
+    private final long epochDay;
+
+    private Day(long startMillis, long endMillis, int sortableDate, long dateAsLong,
+        long epochDay) {
+      this.startMillis = startMillis;
+      this.endMillis = endMillis;
+      this.sortableDate = sortableDate;
+      this.dateAsLong = dateAsLong;
+      this.epochDay = epochDay;
+    }
+  }
+
+  /**
+   * Constructs a DayClock that reads the time from a clock.
+   *
+   * @param clock the clock to read the time and time zone from
+   */
+  public DayClock(Clock clock) {
+    this.clock = clock;
+    this.day = dayAt(clock.millis());
+  }
+
+  /**
+   * Gets the DayClock that follows the system clock in the default time zone.
+   *
+   * @return the system DayClock
+   */
+  public static DayClock system() {
+    return SYSTEM;
+  }
+
+  /**
+   * Gets today's date in the format yyyyMMdd.
+   *
+   * @return today's date as a sortable int
+   */
+  public int today() {
+    return currentDay().sortableDate;
+  }
+
+  /**
+   * Gets today's date in the format ddMMyyyy.
+   *
+   * @return today's date as a long
+   */
+  public long todayAsLong() {
+    return currentDay().dateAsLong;
+  }
+
+  /**
+   * Gets today's date as the number of days since 01/01/1970.
+   *
+   * @return today's epoch day
+   */
+  public long todayAsEpochDay() {
+    return currentDay().epochDay;
+  }
+
+  /**
+   * Gets the time left until the next midnight.
+   *
+   * @return the number of milliseconds until tomorrow starts
+   */
+  public long getMillisUntilTomorrow() {
+    return currentDay().endMillis - clock.millis();
+  }
+
+  private Day currentDay() {
+    Day current = day;
+    long now = clock.millis();
+    if (now >= current.startMillis && now < current.endMillis) {
+      return current;
+    }
+    current = dayAt(now);
+    day = current;
+    return current;
+  }
+
+  private Day dayAt(long millis) {
+    ZoneId zone = clock.getZone();
+    LocalDate date = LocalDate.ofInstant(Instant.ofEpochMilli(millis), zone);
+    int sortableDate = date.getYear() * 10_000 + date.getMonthValue() * 100
+        + date.getDayOfMonth();
+    return new Day(date.atStartOfDay(zone).toInstant().toEpochMilli(),
+        date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli(), sortableDate,
+        DateValidation.fromSortableDate(sortableDate), date.toEpochDay());
+  }
+}
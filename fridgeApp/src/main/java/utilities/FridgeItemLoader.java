@@ -0,0 +1,293 @@
+package utilities;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import models.FoodList;
+import models.FridgeItem;
+import models.Ingredient;
+import services.FridgeManager;
+
+/**
+ * Loads saved fridge items into a FridgeManager in batches.
+ *
+ * <p>Each row of a fridge item file is checked once, the FridgeItem is created
+ * with the quantity that was saved, and the items are added to the fridge a
+ * batch at a time instead of one by one. The outcome is returned as a
+ * {@link LoadResult} instead of a message per row.
+ *
+ * @author Dennis Moe
+ */
+public class FridgeItemLoader {
+
+  /**
+   * The number of items added to the fridge at a time.
+   */
+  public static final int DEFAULT_BATCH_SIZE = 4096;
+
+  private static final String INGREDIENT_NOT_FOUND =
+      "Error adding ingredient to fridge: Ingredient not found in FoodList.";
+  private static final String DATE_TOO_SHORT =
+      "Error adding ingredient to fridge: Invalid expiration date, the date is too short.";
+
+  private final FridgeManager fridgeManager;
+  private final FoodList foodList;
+  private final int batchSize;
+  private final List<FridgeItem> batch;
+  private final List<String> errors = new ArrayList<>();
+  private final ParsedRow parsedRow = new ParsedRow();
+  private int itemsAdded;
+
+  /**
+   * The outcome of loading fridge items.
+   */
+  public static final class LoadResult {
+    private final int itemsAdded;
+    private final List<String> errors;
+
+    private LoadResult(int itemsAdded, List<String> errors) {
+      this.itemsAdded = itemsAdded;
+      this.errors = Collections.unmodifiableList(errors);
+    }
+
+    public int getItemsAdded() {
+      return itemsAdded;
+    }
+
+    public int getItemsFailed() {
+      return errors.size();
+    }
+
+    /**
+     * Gets why each failed row was rejected, in file order.
+     *
+     * @return the error message of every failed row
+     */
+    public List<String> getErrors() {
+      return errors;
+    }
+
+    /**
+     * Gets the result in the form the CSV import methods return it.
+     *
+     * @return an array where the first element is the number of items added,
+     *         and the second is the number of items failed
+     */
+    public int[] toCounts() {
+      return new int[] { itemsAdded, errors.size() };
+    }
+  }
+
+  /**
+   * The values of a row that passed validation.
+   */
+  static final class ParsedRow {
+    Ingredient ingredient;
+    double quantity;
+    long expirationDate;
+  }
+
+  /**
+   * Constructs a new FridgeItemLoader with the default batch size.
+   *
+   * @param fridgeManager the FridgeManager to add the items to
+   */
+  public FridgeItemLoader(FridgeManager fridgeManager) {
+    this(fridgeManager, DEFAULT_BATCH_SIZE);
+  }
+
+  /**
+   * Constructs a new FridgeItemLoader.
+   *
+   * @param fridgeManager the FridgeManager to add the items to
+   * @param batchSize     the number of items added to the fridge at a time
+   */
+  public FridgeItemLoader(FridgeManager fridgeManager, int batchSize) {
+    if (batchSize <= 0) {
+      throw new IllegalArgumentException("Batch size must be greater than zero.");
+    }
+    this.fridgeManager = fridgeManager;
+    this.foodList = fridgeManager.getFoodList();
+    this.batchSize = batchSize;
+    this.batch = new ArrayList<>(batchSize);
+  }
+
+  /**
+   * Loads all fridge items from a CSV file with the columns IngredientName,
+   * Quantity and ExpirationDate.
+   *
+   * @param filePath      path of the CSV file to read from
+   * @param fridgeManager the FridgeManager to add the items to
+   * @return the outcome of the load
+   */
+  public static LoadResult loadFromCsv(String filePath, FridgeManager fridgeManager) {
+    FridgeItemLoader loader = new FridgeItemLoader(fridgeManager);
+    try (CsvTokenizer tokenizer = new CsvTokenizer(
+        CompressionUtility.openReader(filePath), CompressionUtility.getBufferSize())) {
+      if (tokenizer.nextRow()) {
+        tokenizer.forEachRow(loader::loadRow);
+      }
+    } catch (IOException e) {
+      System.err.println("Error reading fridge items from CSV: " + e.getMessage());
+    }
+    return loader.finish();
+  }
+
+  /**
+   * Checks a row and queues its FridgeItem, or records why it was rejected.
+   *
+   * @param row the tokenizer positioned on the row
+   * @return true if the row was valid, false otherwise
+   */
+  public boolean loadRow(CsvTokenizer row) {
+    String error = parseRow(row, foodList, parsedRow);
+    if (error != null) {
+      reject(error);
+      return false;
+    }
+    add(parsedRow.ingredient, parsedRow.quantity, parsedRow.expirationDate);
+    return true;
+  }
+
+  /**
+   * Checks the values of an item read from another format than CSV and queues
+   * its FridgeItem, or records why it was rejected.
+   *
+   * @param ingredientName the name of the ingredient of the item
+   * @param quantity       the saved quantity, or null for the base weight
+   * @param expirationDate the expiration date of the item
+   * @return true if the item was valid, false otherwise
+   */
+  public boolean loadItem(String ingredientName, Double quantity, long expirationDate) {
+    return loadItem(null, ingredientName, quantity, expirationDate);
+  }
+
+  /**
+   * Checks the values of a saved item and queues its FridgeItem with the ID it
+   * was saved with, or records why it was rejected.
+   *
+   * @param id             the ID the item was saved with
+   * @param ingredientName the name of the ingredient of the item
+   * @param quantity       the saved quantity, or null for the base weight
+   * @param expirationDate the expiration date of the item
+   * @return true if the item was valid, false otherwise
+   */
+  public boolean loadItem(int id, String ingredientName, Double quantity, long expirationDate) {
+    return loadItem(Integer.valueOf(id), ingredientName, quantity, expirationDate);
+  }
+
+  private boolean loadItem(Integer id, String ingredientName, Double quantity,
+      long expirationDate) {
+    Ingredient ingredient = foodList.getIngredientFromFoodList(ingredientName.trim());
+    if (ingredient == null) {
+      reject(INGREDIENT_NOT_FOUND);
+      return false;
+    }
+    if (!DateValidation.hasValidDateLength(expirationDate)) {
+      reject(DATE_TOO_SHORT);
+      return false;
+    }
+    double itemQuantity = quantity == null ? ingredient.getIngredientBaseWeight() : quantity;
+    if (!(itemQuantity >= 0) || Double.isInfinite(itemQuantity)) {
+      reject("Invalid quantity for " + ingredientName + ": " + quantity);
+      return false;
+    }
+    queue(id == null
+        ? new FridgeItem(ingredient, itemQuantity, expirationDate)
+        : new FridgeItem(id, ingredient, itemQuantity, expirationDate));
+    return true;
+  }
+
+  /**
+   * Queues a FridgeItem that has already been checked.
+   *
+   * @param ingredient     the ingredient of the item
+   * @param quantity       the saved quantity of the item
+   * @param expirationDate the expiration date of the item
+   */
+  public void add(Ingredient ingredient, double quantity, long expirationDate) {
+    queue(new FridgeItem(ingredient, quantity, expirationDate));
+  }
+
+  private void queue(FridgeItem item) {
+    batch.add(item);
+    if (batch.size() == batchSize) {
+      flush();
+    }
+  }
+
+  /**
+   * Records a row that could not be loaded.
+   *
+   * @param error why the row was rejected
+   */
+  public void reject(String error) {
+    errors.add(error);
+  }
+
+  /**
+   * Adds the remaining queued items to the fridge.
+   *
+   * @return the outcome of the load
+   */
+  public LoadResult finish() {
+    flush();
+    return new LoadResult(itemsAdded, new ArrayList<>(errors));
+  }
+
+  private void flush() {
+    if (batch.isEmpty()) {
+      return;
+    }
+    fridgeManager.addFridgeItems(new ArrayList<>(batch));
+    itemsAdded += batch.size();
+    batch.clear();
+  }
+
+  /**
+   * Checks a fridge item row and reads its values.
+   * A blank quantity falls back to the base weight of the ingredient, as for a
+   * newly added item.
+   *
+   * @param row      the tokenizer positioned on the row
+   * @param foodList the FoodList to look the ingredient up in
+   * @param parsed   receives the values of a valid row
+   * @return null if the row is valid, otherwise why it was rejected
+   */
+  static String parseRow(CsvTokenizer row, FoodList foodList, ParsedRow parsed) {
+    if (row.getFieldCount() != 3) {
+      return "Invalid line in CSV file: " + row.rowToString();
+    }
+
+    long expirationDate;
+    try {
+      expirationDate = row.getLong(2);
+    } catch (NumberFormatException e) {
+      return "Invalid expiration date in line: " + e.getMessage();
+    }
+
+    Ingredient ingredient = foodList.getIngredientFromFoodList(row.getString(0).trim());
+    if (ingredient == null) {
+      return INGREDIENT_NOT_FOUND;
+    }
+    if (!DateValidation.hasValidDateLength(expirationDate)) {
+      return DATE_TOO_SHORT;
+    }
+
+    double quantity;
+    try {
+      quantity = row.isBlank(1) ? ingredient.getIngredientBaseWeight() : row.getDouble(1);
+    } catch (NumberFormatException e) {
+      return "Invalid quantity in line: " + e.getMessage();
+    }
+    if (!(quantity >= 0) || Double.isInfinite(quantity)) {
+      return "Invalid quantity in line: " + row.rowToString();
+    }
+
+    parsed.ingredient = ingredient;
+    parsed.quantity = quantity;
+    parsed.expirationDate = expirationDate;
+    return null;
+  }
+}
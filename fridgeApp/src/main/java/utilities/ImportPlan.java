@@ -0,0 +1,239 @@
+package utilities;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A set of import phases and the phases each of them depends on.
+ * When the plan is run, every phase starts as soon as the phases it depends on
+ * are done, so independent phases run at the same time and the whole import
+ * takes about as long as its longest chain of dependent phases.
+ *
+ * <p>A phase can only depend on phases added before it, so the plan can never
+ * contain a cycle.
+ *
+ * @author Dennis Moe
+ */
+public class ImportPlan {
+
+  private final Map<String, Phase> phases = new LinkedHashMap<>();
+
+  /**
+   * A named task and the names of the phases it waits for.
+   */
+  private static final class Phase {
+    private final String name;
+    private final Runnable task;
+    private final List<String> dependencies;
+
+    private Phase(String name, Runnable task, List<String> dependencies) {
+      this.name = name;
+      this.task = task;
+      this.dependencies = dependencies;
+    }
+  }
+
+  /**
+   * How one phase went when the plan was run.
+   */
+  public static final class PhaseTiming {
+    private final String phaseName;
+    private final long startMillis;
+    private final long durationMillis;
+    private final String failure;
+
+    private PhaseTiming(String phaseName, long startMillis, long durationMillis,
+        String failure) {
+      this.phaseName = phaseName;
+      this.startMillis = startMillis;
+      this.durationMillis = durationMillis;
+      this.failure = failure;
+    }
+
+    public String getPhaseName() {
+      return phaseName;
+    }
+
+    /**
+     * Gets when the phase started, counted from the start of the plan.
+     *
+     * @return the start of the phase in milliseconds
+     */
+    public long getStartMillis() {
+      return startMillis;
+    }
+
+    public long getDurationMillis() {
+      return durationMillis;
+    }
+
+    /**
+     * Gets why the phase did not finish.
+     *
+     * @return the reason the phase failed or was skipped, or null if it
+     *         finished
+     */
+    public String getFailure() {
+      return failure;
+    }
+  }
+
+  /**
+   * The timings of every phase of a run, in the order the phases were added.
+   */
+  public static final class Report {
+    private final List<PhaseTiming> timings;
+    private final long totalMillis;
+    private final long longestChainMillis;
+
+    private Report(List<PhaseTiming> timings, long totalMillis, long longestChainMillis) {
+      this.timings = timings;
+      this.totalMillis = totalMillis;
+      this.longestChainMillis = longestChainMillis;
+    }
+
+    public List<PhaseTiming> getTimings() {
+      return timings;
+    }
+
+    /**
+     * Gets how long the whole plan took to run.
+     *
+     * @return the total time in milliseconds
+     */
+    public long getTotalMillis() {
+      return totalMillis;
+    }
+
+    /**
+     * Gets the time of the longest chain of dependent phases, which is the
+     * shortest time the plan could have taken.
+     *
+     * @return the time of the longest chain in milliseconds
+     */
+    public long getLongestChainMillis() {
+      return longestChainMillis;
+    }
+
+    /**
+     * Gets the time the phases would have taken one after another.
+     *
+     * @return the sum of all phase times in milliseconds
+     */
+    public long getSumOfPhasesMillis() {
+      return timings.stream().mapToLong(PhaseTiming::getDurationMillis).sum();
+    }
+
+    /**
+     * Formats the timings of every phase for printing.
+     *
+     * @return the formatted report
+     */
+    public String getFormattedReport() {
+      StringBuilder sb = new StringBuilder("Import timings:\n");
+      for (PhaseTiming timing : timings) {
+        sb.append("  ").append(timing.getPhaseName()).append(": ");
+        if (timing.getFailure() != null) {
+          sb.append(timing.getFailure());
+        } else {
+          sb.append(timing.getDurationMillis()).append(" ms (started after ")
+              .append(timing.getStartMillis()).append(" ms)");
+        }
+        sb.append("\n");
+      }
+      sb.append("Total: ").append(totalMillis).append(" ms, longest chain: ")
+          .append(longestChainMillis).append(" ms, all phases in sequence: ")
+          .append(getSumOfPhasesMillis()).append(" ms");
+      return sb.toString();
+    }
+  }
+
+  /**
+   * Adds a phase to the plan.
+   *
+   * @param name         the name of the phase
+   * @param task         the work of the phase
+   * @param dependencies the names of the phases that must be done first
+   * @return this plan, to add more phases
+   * @throws IllegalArgumentException if the name is taken or a dependency has
+   *                                  not been added yet
+   */
+  public ImportPlan addPhase(String name, Runnable task, String... dependencies) {
+    if (phases.containsKey(name)) {
+      throw new IllegalArgumentException("A phase named " + name + " already exists.");
+    }
+    for (String dependency : dependencies) {
+      if (!phases.containsKey(dependency)) {
+        throw new IllegalArgumentException("Phase " + name + " depends on " + dependency
+            + ", which has not been added.");
+      }
+    }
+    phases.put(name, new Phase(name, task, List.of(dependencies)));
+    return this;
+  }
+
+  /**
+   * Runs every phase on the executor as soon as its dependencies are done, and
+   * waits for all of them. If a phase fails, the phases depending on it are
+   * skipped, while the others still run.
+   *
+   * @param executor the executor to run the phases on
+   * @return the timings of the run
+   */
+  public Report run(Executor executor) {
+    long start = System.nanoTime();
+    Map<String, PhaseTiming> timings = new ConcurrentHashMap<>();
+    Map<String, CompletableFuture<Void>> futures = new HashMap<>();
+
+    for (Phase phase : phases.values()) {
+      CompletableFuture<?>[] dependencies = phase.dependencies.stream()
+          .map(futures::get)
+          .toArray(CompletableFuture[]::new);
+      futures.put(phase.name, CompletableFuture.allOf(dependencies).thenRunAsync(() -> {
+        long phaseStart = System.nanoTime();
+        String failure = null;
+        try {
+          phase.task.run();
+        } catch (RuntimeException e) {
+          failure = "failed: " + e.getMessage();
+          throw e;
+        } finally {
+          timings.put(phase.name, new PhaseTiming(phase.name, toMillis(phaseStart - start),
+              toMillis(System.nanoTime() - phaseStart), failure));
+        }
+      }, executor));
+    }
+    CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0]))
+        .exceptionally(e -> null)
+        .join();
+    long totalMillis = toMillis(System.nanoTime() - start);
+
+    List<PhaseTiming> orderedTimings = new ArrayList<>();
+    Map<String, Long> chainMillis = new HashMap<>();
+    long longestChainMillis = 0;
+    for (Phase phase : phases.values()) {
+      PhaseTiming timing = timings.getOrDefault(phase.name, new PhaseTiming(phase.name, 0, 0,
+          "skipped, a phase it depends on failed"));
+      orderedTimings.add(timing);
+
+      long chain = timing.getDurationMillis();
+      for (String dependency : phase.dependencies) {
+        chain = Math.max(chain, chainMillis.get(dependency) + timing.getDurationMillis());
+      }
+      chainMillis.put(phase.name, chain);
+      longestChainMillis = Math.max(longestChainMillis, chain);
+    }
+    return new Report(orderedTimings, totalMillis, longestChainMillis);
+  }
+
+  private static long toMillis(long nanos) {
+    return TimeUnit.NANOSECONDS.toMillis(nanos);
+  }
+}
@@ -0,0 +1,604 @@
+package utilities;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import models.CookBook;
+import models.FoodList;
+import models.FridgeItem;
+import models.Ingredient;
+import models.Recipe;
+import services.CookBookManager;
+import services.FridgeManager;
+import services.RecipeManager;
+
+/**
+ * A DataStore in an embedded H2 database, kept in a single file.
+ *
+ * <p>The fridge items are indexed by ingredient name and by expiration date,
+ * and the recipe ingredients by ingredient name, so the queries only read the
+ * matching rows. The expiration date is also stored as yyyyMMdd, which sorts
+ * in date order, so the database can compare it directly.
+ *
+ * <p>Saving a data set only writes the rows that were added, changed or
+ * removed since the last save, in one transaction, so a failed save leaves the
+ * previous version in place. The store remembers the rows it saved, and reads
+ * a table only before its first save, or again after a save of it failed. The
+ * fridge items are saved with their IDs, and keep them when they are loaded,
+ * so an item that did not change is not written again in the next session.
+ *
+ * <p>The store may be used from more than one thread, but only one call uses
+ * the connection at a time.
+ *
+ * @author Dennis Moe
+ */
+public class JdbcDataStore implements DataStore {
+
+  private static final int BATCH_SIZE = 1000;
+
+  /**
+   * The extension H2 adds to the name of the database file.
+   */
+  private static final String DATABASE_EXTENSION = ".mv.db";
+
+  private static final String[] SCHEMA = {
+      "CREATE TABLE IF NOT EXISTS ingredient ("
+          + "ingredient_name VARCHAR PRIMARY KEY, category VARCHAR, base_weight DOUBLE, "
+          + "measuring_unit VARCHAR, cost DOUBLE)",
+      "CREATE TABLE IF NOT EXISTS fridge_item ("
+          + "item_id INT PRIMARY KEY, ingredient_name VARCHAR NOT NULL, quantity DOUBLE, "
+          + "expiration_date BIGINT, expiration_day INT)",
+      "ALTER TABLE fridge_item ALTER COLUMN IF EXISTS item_order RENAME TO item_id",
+      "CREATE INDEX IF NOT EXISTS fridge_item_ingredient ON fridge_item (ingredient_name)",
+      "CREATE INDEX IF NOT EXISTS fridge_item_expiration ON fridge_item (expiration_day)",
+      "CREATE TABLE IF NOT EXISTS recipe ("
+          + "recipe_name VARCHAR PRIMARY KEY, description VARCHAR, instructions VARCHAR, "
+          + "recipe_type VARCHAR)",
+      "CREATE TABLE IF NOT EXISTS recipe_ingredient ("
+          + "recipe_name VARCHAR, ingredient_name VARCHAR, quantity DOUBLE, "
+          + "PRIMARY KEY (recipe_name, ingredient_name))",
+      "CREATE INDEX IF NOT EXISTS recipe_ingredient_ingredient "
+          + "ON recipe_ingredient (ingredient_name)",
+      "CREATE TABLE IF NOT EXISTS cook_book ("
+          + "cook_book_name VARCHAR PRIMARY KEY, description VARCHAR, cook_book_type VARCHAR)",
+      "CREATE TABLE IF NOT EXISTS cook_book_recipe ("
+          + "cook_book_name VARCHAR, recipe_order INT, recipe_name VARCHAR, "
+          + "PRIMARY KEY (cook_book_name, recipe_order))"
+  };
+
+  private static final Table INGREDIENTS = new Table("ingredient",
+      new String[] { "ingredient_name" },
+      new String[] { "category", "base_weight", "measuring_unit", "cost" });
+  private static final Table FRIDGE_ITEMS = new Table("fridge_item",
+      new String[] { "item_id" },
+      new String[] { "ingredient_name", "quantity", "expiration_date", "expiration_day" });
+  private static final Table RECIPES = new Table("recipe",
+      new String[] { "recipe_name" },
+      new String[] { "description", "instructions", "recipe_type" });
+  private static final Table RECIPE_INGREDIENTS = new Table("recipe_ingredient",
+      new String[] { "recipe_name", "ingredient_name" },
+      new String[] { "quantity" });
+  private static final Table COOK_BOOKS = new Table("cook_book",
+      new String[] { "cook_book_name" },
+      new String[] { "description", "cook_book_type" });
+  private static final Table COOK_BOOK_RECIPES = new Table("cook_book_recipe",
+      new String[] { "cook_book_name", "recipe_order" },
+      new String[] { "recipe_name" });
+
+  private final String databasePath;
+  private final Connection connection;
+
+  /**
+   * The rows of each table as they were last saved, by table name. Each row
+   * maps the values of its key columns to the values of its other columns.
+   */
+  private final Map<String, Map<List<Object>, List<Object>>> savedRows = new HashMap<>();
+
+  private final IngredientRepository ingredients = new JdbcIngredients();
+  private final FridgeItemRepository fridgeItems = new JdbcFridgeItems();
+  private final RecipeRepository recipes = new JdbcRecipes();
+  private final CookBookRepository cookBooks = new JdbcCookBooks();
+
+  /**
+   * Work done with the connection.
+   *
+   * @param <T> the type of the result
+   */
+  @FunctionalInterface
+  private interface SqlWork<T> {
+    T run(Connection connection) throws SQLException;
+  }
+
+  /**
+   * A table, split into the columns that identify a row and the other columns.
+   */
+  private static final class Table {
+    private final String name;
+    private final String[] keyColumns;
+    private final String selectSql;
+    private final String deleteSql;
+    private final String mergeSql;
+
+    private Table(String name, String[] keyColumns, String[] valueColumns) {
+      this.name = name;
+      this.keyColumns = keyColumns;
+      String columns = String.join(", ", keyColumns) + ", " + String.join(", ", valueColumns);
+      this.selectSql = "SELECT " + columns + " FROM " + name;
+      this.deleteSql = "DELETE FROM " + name + " WHERE "
+          + String.join(" = ? AND ", keyColumns) + " = ?";
+      this.mergeSql = "MERGE INTO " + name + " (" + columns + ") KEY ("
+          + String.join(", ", keyColumns) + ") VALUES ("
+          + "?, ".repeat(keyColumns.length + valueColumns.length - 1) + "?)";
+    }
+  }
+
+  /**
+   * Sets the parameters of a query.
+   */
+  @FunctionalInterface
+  private interface SqlParameters {
+    void set(PreparedStatement statement) throws SQLException;
+  }
+
+  /**
+   * Opens the database, creating it and its tables if they do not exist.
+   *
+   * @param databasePath the path of the database, without the .mv.db extension
+   *                     H2 adds to the file name
+   * @throws IOException if the database can not be opened
+   */
+  public JdbcDataStore(String databasePath) throws IOException {
+    this.databasePath = databasePath;
+    try {
+      this.connection = DriverManager.getConnection(
+          "jdbc:h2:file:" + Path.of(databasePath).toAbsolutePath(), "sa", "");
+    } catch (SQLException e) {
+      throw new IOException("Error opening the database: " + e.getMessage(), e);
+    }
+    try {
+      inTransaction(c -> {
+        try (Statement statement = c.createStatement()) {
+          for (String sql : SCHEMA) {
+            statement.execute(sql);
+          }
+        }
+        return null;
+      });
+    } catch (IOException e) {
+      try {
+        close();
+      } catch (IOException closeError) {
+        e.addSuppressed(closeError);
+      }
+      throw e;
+    }
+  }
+
+  @Override
+  public IngredientRepository ingredients() {
+    return ingredients;
+  }
+
+  @Override
+  public FridgeItemRepository fridgeItems() {
+    return fridgeItems;
+  }
+
+  @Override
+  public RecipeRepository recipes() {
+    return recipes;
+  }
+
+  @Override
+  public CookBookRepository cookBooks() {
+    return cookBooks;
+  }
+
+  /**
+   * Writes every change to the database file and backs it up. Nothing is
+   * written to the database until the backup is taken.
+   *
+   * @param backup takes the backup of the database file
+   * @return the ID of the backup
+   * @throws IOException if the database can not be written or backed up
+   */
+  @Override
+  public synchronized String backupFiles(BackupStore.FileBackup backup) throws IOException {
+    query(c -> {
+      try (Statement statement = c.createStatement()) {
+        statement.execute("CHECKPOINT SYNC");
+      }
+      return null;
+    });
+    return backup.backup(List.of(databasePath + DATABASE_EXTENSION));
+  }
+
+  /**
+   * Closes the connection, which also closes the database file.
+   *
+   * @throws IOException if the database can not be closed
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    try {
+      connection.close();
+    } catch (SQLException e) {
+      throw new IOException("Error closing the database: " + e.getMessage(), e);
+    }
+  }
+
+  private synchronized <T> T query(SqlWork<T> work) throws IOException {
+    try {
+      return work.run(connection);
+    } catch (SQLException e) {
+      throw new IOException("Error reading from the database: " + e.getMessage(), e);
+    }
+  }
+
+  private synchronized <T> T inTransaction(SqlWork<T> work) throws IOException {
+    try {
+      connection.setAutoCommit(false);
+      try {
+        T result = work.run(connection);
+        connection.commit();
+        return result;
+      } catch (SQLException | RuntimeException e) {
+        connection.rollback();
+        throw e;
+      } finally {
+        connection.setAutoCommit(true);
+      }
+    } catch (SQLException e) {
+      throw new IOException("Error writing to the database: " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Saves the rows of a table, writing only the rows that differ from the
+   * ones saved before. The saved rows are read from the table if they are not
+   * known.
+   *
+   * @param table the table to save
+   * @param rows  every row the table should hold, from its key to its values
+   */
+  private synchronized void saveRows(Connection c, Table table,
+      Map<List<Object>, List<Object>> rows) throws SQLException {
+    Map<List<Object>, List<Object>> saved = savedRows.remove(table.name);
+    if (saved == null) {
+      saved = readRows(c, table);
+    }
+    try (PreparedStatement delete = c.prepareStatement(table.deleteSql);
+        PreparedStatement merge = c.prepareStatement(table.mergeSql)) {
+      int deletes = 0;
+      for (List<Object> key : saved.keySet()) {
+        if (!rows.containsKey(key)) {
+          setParameters(delete, 1, key);
+          addToBatch(delete, ++deletes);
+        }
+      }
+      delete.executeBatch();
+
+      int merges = 0;
+      for (Map.Entry<List<Object>, List<Object>> row : rows.entrySet()) {
+        if (!row.getValue().equals(saved.get(row.getKey()))) {
+          setParameters(merge, 1, row.getKey());
+          setParameters(merge, 1 + row.getKey().size(), row.getValue());
+          addToBatch(merge, ++merges);
+        }
+      }
+      merge.executeBatch();
+    }
+  }
+
+  /**
+   * Saves data sets of one or more tables in one transaction, and remembers
+   * the rows once the transaction is committed.
+   */
+  private synchronized void saveTables(Map<Table, Map<List<Object>, List<Object>>> tables)
+      throws IOException {
+    inTransaction(c -> {
+      for (Map.Entry<Table, Map<List<Object>, List<Object>>> table : tables.entrySet()) {
+        saveRows(c, table.getKey(), table.getValue());
+      }
+      return null;
+    });
+    for (Map.Entry<Table, Map<List<Object>, List<Object>>> table : tables.entrySet()) {
+      savedRows.put(table.getKey().name, table.getValue());
+    }
+  }
+
+  private static Map<List<Object>, List<Object>> readRows(Connection c, Table table)
+      throws SQLException {
+    Map<List<Object>, List<Object>> rows = new HashMap<>();
+    try (Statement statement = c.createStatement();
+        ResultSet result = statement.executeQuery(table.selectSql)) {
+      int columns = result.getMetaData().getColumnCount();
+      while (result.next()) {
+        Object[] key = new Object[table.keyColumns.length];
+        Object[] values = new Object[columns - key.length];
+        for (int i = 0; i < columns; i++) {
+          if (i < key.length) {
+            key[i] = result.getObject(i + 1);
+          } else {
+            values[i - key.length] = result.getObject(i + 1);
+          }
+        }
+        rows.put(Arrays.asList(key), Arrays.asList(values));
+      }
+    }
+    return rows;
+  }
+
+  private static void setParameters(PreparedStatement statement, int first, List<Object> values)
+      throws SQLException {
+    for (int i = 0; i < values.size(); i++) {
+      statement.setObject(first + i, values.get(i));
+    }
+  }
+
+  private static void addToBatch(PreparedStatement statement, int rows) throws SQLException {
+    statement.addBatch();
+    if (rows % BATCH_SIZE == 0) {
+      statement.executeBatch();
+    }
+  }
+
+  private final class JdbcIngredients implements IngredientRepository {
+
+    @Override
+    public Map<String, Ingredient> loadAll() throws IOException {
+      return query(c -> {
+        Map<String, Ingredient> foodList = new HashMap<>();
+        try (Statement statement = c.createStatement();
+            ResultSet rows = statement.executeQuery("SELECT ingredient_name, category, "
+                + "base_weight, measuring_unit, cost FROM ingredient")) {
+          while (rows.next()) {
+            Ingredient ingredient = new Ingredient(rows.getString(1), rows.getString(2),
+                rows.getDouble(3), rows.getString(4), rows.getDouble(5));
+            foodList.put(ingredient.getIngredientName(), ingredient);
+          }
+        }
+        return foodList;
+      });
+    }
+
+    @Override
+    public void saveAll(Map<String, Ingredient> ingredients) throws IOException {
+      Map<List<Object>, List<Object>> rows = new HashMap<>();
+      for (Ingredient ingredient : ingredients.values()) {
+        rows.put(Arrays.asList(ingredient.getIngredientName()), Arrays.asList(
+            ingredient.getIngredientCategory(), ingredient.getIngredientBaseWeight(),
+            ingredient.getIngredientMeasuringUnit(), ingredient.getIngredientCost()));
+      }
+      saveTables(Map.of(INGREDIENTS, rows));
+    }
+  }
+
+  private final class JdbcFridgeItems implements FridgeItemRepository {
+
+    private static final String SELECT_ITEMS =
+        "SELECT item_id, ingredient_name, quantity, expiration_date FROM fridge_item ";
+
+    @Override
+    public int[] loadAll(FridgeManager fridgeManager) throws IOException {
+      FridgeItemLoader loader = new FridgeItemLoader(fridgeManager);
+      query(c -> {
+        try (Statement statement = c.createStatement();
+            ResultSet rows = statement.executeQuery(SELECT_ITEMS + "ORDER BY item_id")) {
+          while (rows.next()) {
+            loader.loadItem(rows.getInt(1), rows.getString(2), rows.getDouble(3),
+                rows.getLong(4));
+          }
+        }
+        return null;
+      });
+      FridgeItemLoader.LoadResult result = loader.finish();
+      result.getErrors().forEach(System.err::println);
+      return result.toCounts();
+    }
+
+    @Override
+    public void saveAll(List<FridgeItem> fridgeItems) throws IOException {
+      Map<List<Object>, List<Object>> rows = new HashMap<>();
+      for (FridgeItem item : fridgeItems) {
+        rows.put(Arrays.asList(item.getId()), Arrays.asList(
+            item.getIngredient().getIngredientName(), item.getQuantity(),
+            item.getExpirationDate(), item.getExpirationDay()));
+      }
+      saveTables(Map.of(FRIDGE_ITEMS, rows));
+    }
+
+    @Override
+    public List<FridgeItem> findExpiringBefore(long date, FoodList foodList) throws IOException {
+      return find(SELECT_ITEMS + "WHERE expiration_day < ? ORDER BY item_id",
+          statement -> statement.setInt(1, DateValidation.toSortableDate(date)), foodList);
+    }
+
+    @Override
+    public List<FridgeItem> findByIngredient(String ingredientName, FoodList foodList)
+        throws IOException {
+      return find(SELECT_ITEMS + "WHERE ingredient_name = ? ORDER BY item_id",
+          statement -> statement.setString(1, ingredientName), foodList);
+    }
+
+    private List<FridgeItem> find(String sql, SqlParameters parameters, FoodList foodList)
+        throws IOException {
+      return query(c -> {
+        List<FridgeItem> found = new ArrayList<>();
+        try (PreparedStatement statement = c.prepareStatement(sql)) {
+          parameters.set(statement);
+          try (ResultSet rows = statement.executeQuery()) {
+            while (rows.next()) {
+              Ingredient ingredient = foodList.getIngredientFromFoodList(rows.getString(2));
+              if (ingredient != null) {
+                found.add(new FridgeItem(rows.getInt(1), ingredient, rows.getDouble(3),
+                    rows.getLong(4)));
+              }
+            }
+          }
+        }
+        return found;
+      });
+    }
+  }
+
+  private final class JdbcRecipes implements RecipeRepository {
+
+    @Override
+    public int[] loadAll(RecipeManager recipeManager) throws IOException {
+      Map<String, String[]> texts = new LinkedHashMap<>();
+      Map<String, Map<String, Double>> recipeIngredients = new HashMap<>();
+      query(c -> {
+        try (Statement statement = c.createStatement()) {
+          try (ResultSet rows = statement.executeQuery("SELECT recipe_name, description, "
+              + "instructions, recipe_type FROM recipe ORDER BY recipe_name")) {
+            while (rows.next()) {
+              texts.put(rows.getString(1), new String[] {
+                  rows.getString(2), rows.getString(3), rows.getString(4) });
+            }
+          }
+          try (ResultSet rows = statement.executeQuery(
+              "SELECT recipe_name, ingredient_name, quantity FROM recipe_ingredient")) {
+            while (rows.next()) {
+              recipeIngredients.computeIfAbsent(rows.getString(1), k -> new HashMap<>())
+                  .put(rows.getString(2), rows.getDouble(3));
+            }
+          }
+        }
+        return null;
+      });
+
+      int itemsAdded = 0;
+      int itemsFailed = 0;
+      for (Map.Entry<String, String[]> entry : texts.entrySet()) {
+        String recipeName = entry.getKey();
+        String[] text = entry.getValue();
+        String result = recipeManager.createNewRecipeWithIngredients(recipeName, text[0],
+            text[1], text[2], recipeIngredients.getOrDefault(recipeName, new HashMap<>()));
+        if (result.equals("Successfully created the recipe.")) {
+          itemsAdded++;
+        } else {
+          System.err.println("Error adding recipe '" + recipeName + "': " + result);
+          itemsFailed++;
+        }
+      }
+      return new int[] { itemsAdded, itemsFailed };
+    }
+
+    @Override
+    public void saveAll(Collection<Recipe> recipes) throws IOException {
+      Map<List<Object>, List<Object>> recipeRows = new HashMap<>();
+      Map<List<Object>, List<Object>> ingredientRows = new HashMap<>();
+      for (Recipe recipe : recipes) {
+        recipeRows.put(Arrays.asList(recipe.getRecipeName()), Arrays.asList(
+            recipe.getRecipeDescription(), recipe.getInstructions(), recipe.getRecipeType()));
+        for (Map.Entry<String, Double> ingredient : recipe.getIngredients().entrySet()) {
+          ingredientRows.put(Arrays.asList(recipe.getRecipeName(), ingredient.getKey()),
+              Arrays.asList(ingredient.getValue()));
+        }
+      }
+      saveTables(Map.of(RECIPES, recipeRows, RECIPE_INGREDIENTS, ingredientRows));
+    }
+
+    @Override
+    public List<String> findRecipeNamesUsing(String ingredientName) throws IOException {
+      return query(c -> {
+        List<String> recipeNames = new ArrayList<>();
+        try (PreparedStatement statement = c.prepareStatement("SELECT recipe_name "
+            + "FROM recipe_ingredient WHERE ingredient_name = ? ORDER BY recipe_name")) {
+          statement.setString(1, ingredientName);
+          try (ResultSet rows = statement.executeQuery()) {
+            while (rows.next()) {
+              recipeNames.add(rows.getString(1));
+            }
+          }
+        }
+        return recipeNames;
+      });
+    }
+  }
+
+  private final class JdbcCookBooks implements CookBookRepository {
+
+    @Override
+    public int[] loadAll(CookBookManager cookBookManager) throws IOException {
+      Map<String, String[]> details = new LinkedHashMap<>();
+      Map<String, List<String>> recipeNames = new HashMap<>();
+      query(c -> {
+        try (Statement statement = c.createStatement()) {
+          try (ResultSet rows = statement.executeQuery("SELECT cook_book_name, description, "
+              + "cook_book_type FROM cook_book ORDER BY cook_book_name")) {
+            while (rows.next()) {
+              details.put(rows.getString(1), new String[] { rows.getString(2), rows.getString(3) });
+            }
+          }
+          try (ResultSet rows = statement.executeQuery("SELECT cook_book_name, recipe_name "
+              + "FROM cook_book_recipe ORDER BY cook_book_name, recipe_order")) {
+            while (rows.next()) {
+              recipeNames.computeIfAbsent(rows.getString(1), k -> new ArrayList<>())
+                  .add(rows.getString(2));
+            }
+          }
+        }
+        return null;
+      });
+
+      int cookBooksAdded = 0;
+      int cookBooksFailed = 0;
+      int recipesAdded = 0;
+      int recipesFailed = 0;
+      for (Map.Entry<String, String[]> entry : details.entrySet()) {
+        String cookBookName = entry.getKey();
+        String creationResult = cookBookManager.createCookBook(cookBookName,
+            entry.getValue()[0], entry.getValue()[1]);
+        if (!creationResult.contains("CookBook created successfully!")) {
+          System.out.println("Failed to create cookbook: "
+              + cookBookName + " -> " + creationResult);
+          cookBooksFailed++;
+          continue;
+        }
+        cookBooksAdded++;
+        for (String recipeName : recipeNames.getOrDefault(cookBookName, List.of())) {
+          String result = cookBookManager.addRecipeToCookBook(cookBookName, recipeName);
+          if (result.contains("Recipe added to CookBook!")) {
+            recipesAdded++;
+          } else {
+            System.out.println("Failed to add recipe to cookbook: "
+                + recipeName + " -> " + result);
+            recipesFailed++;
+          }
+        }
+      }
+      return new int[] { cookBooksAdded, cookBooksFailed, recipesAdded, recipesFailed };
+    }
+
+    @Override
+    public void saveAll(Map<String, CookBook> cookBooks) throws IOException {
+      Map<List<Object>, List<Object>> cookBookRows = new HashMap<>();
+      Map<List<Object>, List<Object>> recipeRows = new HashMap<>();
+      for (Map.Entry<String, CookBook> entry : cookBooks.entrySet()) {
+        CookBook cookBook = entry.getValue();
+        cookBookRows.put(Arrays.asList(entry.getKey()), Arrays.asList(
+            cookBook.getCookBookDescription(), cookBook.getCookBookType()));
+        int recipeOrder = 0;
+        for (String recipeName : cookBook.getRecipesInCookBook().keySet()) {
+          recipeRows.put(Arrays.asList(entry.getKey(), recipeOrder++),
+              Arrays.asList(recipeName));
+        }
+      }
+      saveTables(Map.of(COOK_BOOKS, cookBookRows, COOK_BOOK_RECIPES, recipeRows));
+    }
+  }
+}
@@ -0,0 +1,498 @@
+package utilities;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import models.CookBook;
+import models.FridgeItem;
+import models.Ingredient;
+import models.Recipe;
+import services.CookBookManager;
+import services.FridgeManager;
+import services.RecipeManager;
+
+/**
+ * Utility class for reading and writing the data files as JSON.
+ * Works like {@link CsvUtility}, but the ingredients of a recipe and the
+ * recipes of a cookbook are stored as real JSON arrays instead of text that has
+ * to be split up again.
+ *
+ * <p>Every file is a JSON array with one object per record. Files are read and
+ * written with Gson's streaming {@link JsonReader} and {@link JsonWriter}, one
+ * record at a time, so reading a file takes the same memory no matter how many
+ * records it has. Unknown fields are skipped, and a record with missing or
+ * invalid fields is counted as failed without stopping the import.
+ * Files may be gzip compressed, see {@link CompressionUtility}.
+ *
+ * @author Dennis Moe
+ */
+public class JsonUtility {
+
+  /**
+   * Files ending with this, optionally followed by
+   * {@value CompressionUtility#GZIP_EXTENSION}, are JSON files.
+   */
+  public static final String JSON_EXTENSION = ".json";
+
+  private static final String INDENT = "  ";
+
+  /**
+   * Checks if a file is a JSON file, by its name.
+   *
+   * @param filePath the path of the file
+   * @return true if the name ends with {@value #JSON_EXTENSION}, compressed or not
+   */
+  public static boolean isJsonPath(String filePath) {
+    return filePath.endsWith(JSON_EXTENSION)
+        || filePath.endsWith(JSON_EXTENSION + CompressionUtility.GZIP_EXTENSION);
+  }
+
+  /**
+   * Writes a list of ingredients to a JSON file.
+   *
+   * @param filePath the path of the JSON file to write to
+   * @param foodList the hashmap of ingredients to write
+   */
+  public static void writeIngredientsToJson(String filePath, HashMap<String, Ingredient> foodList) {
+    try {
+      PersistenceWriter.writeAtomically(filePath,
+          writer -> writeIngredientsToJson(writer, foodList));
+    } catch (IOException e) {
+      System.err.println("Error writing ingredients to JSON file: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Writes a list of ingredients as JSON.
+   *
+   * @param writer   the Writer to write to
+   * @param foodList the map of ingredients to write
+   * @throws IOException if writing fails
+   */
+  public static void writeIngredientsToJson(Writer writer, Map<String, Ingredient> foodList)
+      throws IOException {
+    JsonWriter json = newJsonWriter(writer);
+    json.beginArray();
+    for (Ingredient ingredient : foodList.values()) {
+      json.beginObject();
+      json.name("name").value(ingredient.getIngredientName());
+      json.name("category").value(ingredient.getIngredientCategory());
+      json.name("baseWeight").value(ingredient.getIngredientBaseWeight());
+      json.name("measuringUnit").value(ingredient.getIngredientMeasuringUnit());
+      json.name("cost").value(ingredient.getIngredientCost());
+      json.endObject();
+    }
+    json.endArray();
+    json.flush();
+  }
+
+  /**
+   * Reads ingredients data from a JSON file.
+   *
+   * @param filePath path of the JSON file to read from.
+   * @return A map of Ingredient objects.
+   */
+  public static Map<String, Ingredient> readIngredientsFromJson(String filePath) {
+    Map<String, Ingredient> foodList = new HashMap<>();
+    try (JsonReader reader = openJsonReader(filePath)) {
+      reader.beginArray();
+      while (reader.hasNext()) {
+        Map<String, String> fields = readFlatObject(reader);
+        try {
+          Ingredient ingredient = new Ingredient(
+              requireField(fields, "name"), requireField(fields, "category"),
+              Double.parseDouble(requireField(fields, "baseWeight")),
+              requireField(fields, "measuringUnit"),
+              Double.parseDouble(requireField(fields, "cost")));
+          foodList.put(ingredient.getIngredientName(), ingredient);
+        } catch (IllegalArgumentException e) {
+          System.err.println("Invalid ingredient in JSON file: " + e.getMessage());
+        }
+      }
+      reader.endArray();
+    } catch (IOException e) {
+      System.err.println("Error reading FoodList from JSON: " + e.getMessage());
+    }
+    return foodList;
+  }
+
+  /**
+   * Writes a list of fridge items to a JSON file.
+   *
+   * @param filePath    the path of the JSON file to write to
+   * @param fridgeItems the list of fridge items to write
+   */
+  public static void writeFridgeItemsToJson(String filePath, List<FridgeItem> fridgeItems) {
+    try {
+      PersistenceWriter.writeAtomically(filePath,
+          writer -> writeFridgeItemsToJson(writer, fridgeItems));
+    } catch (IOException e) {
+      System.err.println("Error writing fridge items to JSON: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Writes a list of fridge items as JSON.
+   *
+   * @param writer      the Writer to write to
+   * @param fridgeItems the list of fridge items to write
+   * @throws IOException if writing fails
+   */
+  public static void writeFridgeItemsToJson(Writer writer, List<FridgeItem> fridgeItems)
+      throws IOException {
+    JsonWriter json = newJsonWriter(writer);
+    json.beginArray();
+    for (FridgeItem item : fridgeItems) {
+      json.beginObject();
+      json.name("ingredient").value(item.getIngredient().getIngredientName());
+      json.name("quantity").value(item.getQuantity());
+      json.name("expirationDate").value(item.getExpirationDate());
+      json.endObject();
+    }
+    json.endArray();
+    json.flush();
+  }
+
+  /**
+   * Reads fridge items data from a JSON file.
+   * Every item gets the quantity that was saved, see {@link FridgeItemLoader}.
+   *
+   * @param filePath      path of the JSON file to read from.
+   * @param fridgeManager the FridgeManager to add the items to
+   * @return an array where the first element is the number of items added, and
+   *         the second is the number of items failed
+   */
+  public static int[] readFridgeItemsFromJson(String filePath, FridgeManager fridgeManager) {
+    FridgeItemLoader.LoadResult result = loadFridgeItemsFromJson(filePath, fridgeManager);
+    result.getErrors().forEach(System.err::println);
+    return result.toCounts();
+  }
+
+  /**
+   * Loads fridge items from a JSON file, without printing the rejected items.
+   *
+   * @param filePath      path of the JSON file to read from.
+   * @param fridgeManager the FridgeManager to add the items to
+   * @return the outcome of the load
+   */
+  public static FridgeItemLoader.LoadResult loadFridgeItemsFromJson(String filePath,
+      FridgeManager fridgeManager) {
+    FridgeItemLoader loader = new FridgeItemLoader(fridgeManager);
+    try (JsonReader reader = openJsonReader(filePath)) {
+      reader.beginArray();
+      while (reader.hasNext()) {
+        Map<String, String> fields = readFlatObject(reader);
+        try {
+          String quantity = fields.get("quantity");
+          loader.loadItem(requireField(fields, "ingredient"),
+              quantity == null ? null : Double.valueOf(quantity),
+              Long.parseLong(requireField(fields, "expirationDate")));
+        } catch (IllegalArgumentException e) {
+          loader.reject("Invalid fridge item in JSON file: " + e.getMessage());
+        }
+      }
+      reader.endArray();
+    } catch (IOException e) {
+      System.err.println("Error reading fridge items from JSON: " + e.getMessage());
+    }
+    return loader.finish();
+  }
+
+  /**
+   * Writes a list of recipes to a JSON file.
+   *
+   * @param filePath the path of the JSON file to write to
+   * @param recipes  the list of recipes to write
+   */
+  public static void writeRecipesToJson(String filePath, List<Recipe> recipes) {
+    try {
+      PersistenceWriter.writeAtomically(filePath, writer -> writeRecipesToJson(writer, recipes));
+    } catch (IOException e) {
+      System.err.println("Error writing recipes to JSON: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Writes a list of recipes as JSON, with the ingredients of each recipe as an
+   * array of objects with a name and a quantity.
+   *
+   * @param writer  the Writer to write to
+   * @param recipes the list of recipes to write
+   * @throws IOException if writing fails
+   */
+  public static void writeRecipesToJson(Writer writer, List<Recipe> recipes) throws IOException {
+    JsonWriter json = newJsonWriter(writer);
+    json.beginArray();
+    for (Recipe recipe : recipes) {
+      json.beginObject();
+      json.name("name").value(recipe.getRecipeName());
+      json.name("description").value(recipe.getRecipeDescription());
+      json.name("instructions").value(recipe.getInstructions());
+      json.name("type").value(recipe.getRecipeType());
+      json.name("ingredients").beginArray();
+      for (Map.Entry<String, Double> entry : recipe.getIngredients().entrySet()) {
+        json.beginObject();
+        json.name("name").value(entry.getKey());
+        json.name("quantity").value(entry.getValue());
+        json.endObject();
+      }
+      json.endArray();
+      json.endObject();
+    }
+    json.endArray();
+    json.flush();
+  }
+
+  /**
+   * Reads recipes data from a JSON file and adds them using the RecipeManager.
+   * Only one recipe is held in memory at a time.
+   *
+   * @param filePath      path of the JSON file to read from.
+   * @param recipeManager the RecipeManager to manage the recipes.
+   * @return an array where the first element is the number of items added, and
+   *         the second is the number of items failed.
+   */
+  public static int[] readRecipesFromJson(String filePath, RecipeManager recipeManager) {
+    int itemsAdded = 0;
+    int itemsFailed = 0;
+
+    try (JsonReader reader = openJsonReader(filePath)) {
+      reader.beginArray();
+      while (reader.hasNext()) {
+        Map<String, String> fields = new HashMap<>();
+        Map<String, Double> ingredients = new LinkedHashMap<>();
+        String error = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+          String name = reader.nextName();
+          if (name.equals("ingredients") && reader.peek() == JsonToken.BEGIN_ARRAY) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+              Map<String, String> ingredient = readFlatObject(reader);
+              try {
+                ingredients.put(requireField(ingredient, "name"),
+                    Double.parseDouble(requireField(ingredient, "quantity")));
+              } catch (IllegalArgumentException e) {
+                error = "Invalid ingredient: " + e.getMessage();
+              }
+            }
+            reader.endArray();
+          } else {
+            fields.put(name, readScalar(reader));
+          }
+        }
+        reader.endObject();
+
+        String recipeName = fields.get("name");
+        String result;
+        try {
+          if (error != null) {
+            throw new IllegalArgumentException(error);
+          }
+          result = recipeManager.createNewRecipeWithIngredients(
+              requireField(fields, "name"), requireField(fields, "description"),
+              requireField(fields, "instructions"), requireField(fields, "type"),
+              ingredients);
+        } catch (IllegalArgumentException e) {
+          result = e.getMessage();
+        }
+
+        if (result.equals("Successfully created the recipe.")) {
+          itemsAdded++;
+        } else {
+          System.err.println("Error adding recipe '" + recipeName + "': " + result);
+          itemsFailed++;
+        }
+      }
+      reader.endArray();
+    } catch (IOException e) {
+      System.err.println("Error reading recipes from JSON: " + e.getMessage());
+    }
+
+    return new int[] { itemsAdded, itemsFailed };
+  }
+
+  /**
+   * Writes a map of cookbooks to a JSON file.
+   *
+   * @param filePath  the path of the JSON file to write to
+   * @param cookBooks the map of cookbooks to write
+   */
+  public static void writeCookBooksToJson(String filePath, Map<String, CookBook> cookBooks) {
+    try {
+      PersistenceWriter.writeAtomically(filePath,
+          writer -> writeCookBooksToJson(writer, cookBooks));
+    } catch (IOException e) {
+      System.err.println("Error writing cookbooks to JSON: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Writes a map of cookbooks as JSON, with the recipes of each cookbook as an
+   * array of recipe names.
+   *
+   * @param writer    the Writer to write to
+   * @param cookBooks the map of cookbooks to write
+   * @throws IOException if writing fails
+   */
+  public static void writeCookBooksToJson(Writer writer, Map<String, CookBook> cookBooks)
+      throws IOException {
+    JsonWriter json = newJsonWriter(writer);
+    json.beginArray();
+    for (CookBook cookBook : cookBooks.values()) {
+      json.beginObject();
+      json.name("name").value(cookBook.getCookBookName());
+      json.name("description").value(cookBook.getCookBookDescription());
+      json.name("type").value(cookBook.getCookBookType());
+      json.name("recipes").beginArray();
+      for (String recipeName : cookBook.getRecipesInCookBook().keySet()) {
+        json.value(recipeName);
+      }
+      json.endArray();
+      json.endObject();
+    }
+    json.endArray();
+    json.flush();
+  }
+
+  /**
+   * Reads cookbook data from a JSON file and updates the CookBookManager.
+   *
+   * @param filePath        the path of the JSON file to read from
+   * @param cookBookManager the CookBookManager instance to manage cookbooks
+   * @return an array of ints where index 0 is the count of successfully added
+   *         cookbooks,
+   *         index 1 is the count of failed cookbooks,
+   *         index 2 is the count of successfully added recipes,
+   *         and index 3 is the count of failed recipes
+   */
+  public static int[] readCookBooksFromJson(String filePath, CookBookManager cookBookManager) {
+    int cookBooksAdded = 0;
+    int cookBooksFailed = 0;
+    int recipesAdded = 0;
+    int recipesFailed = 0;
+
+    try (JsonReader reader = openJsonReader(filePath)) {
+      reader.beginArray();
+      while (reader.hasNext()) {
+        Map<String, String> fields = new HashMap<>();
+        List<String> recipeNames = new ArrayList<>();
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+          String name = reader.nextName();
+          if (name.equals("recipes") && reader.peek() == JsonToken.BEGIN_ARRAY) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+              String recipeName = readScalar(reader);
+              if (recipeName != null) {
+                recipeNames.add(recipeName);
+              }
+            }
+            reader.endArray();
+          } else {
+            fields.put(name, readScalar(reader));
+          }
+        }
+        reader.endObject();
+
+        String cookBookName = fields.get("name");
+        if (cookBookName == null) {
+          System.out.println("Failed to create cookbook: the cookbook has no name.");
+          cookBooksFailed++;
+          continue;
+        }
+        String creationResult = cookBookManager.createCookBook(cookBookName,
+            fields.getOrDefault("description", "Description"),
+            fields.getOrDefault("type", "Type"));
+        if (creationResult.contains("CookBook created successfully!")) {
+          cookBooksAdded++;
+          for (String recipeName : recipeNames) {
+            String result = cookBookManager.addRecipeToCookBook(cookBookName, recipeName);
+            if (result.contains("Recipe added to CookBook!")) {
+              recipesAdded++;
+            } else {
+              System.out.println("Failed to add recipe to cookbook: "
+                  + recipeName + " -> " + result);
+              recipesFailed++;
+            }
+          }
+        } else {
+          System.out.println("Failed to create cookbook: "
+              + cookBookName + " -> " + creationResult);
+          cookBooksFailed++;
+        }
+      }
+      reader.endArray();
+    } catch (IOException e) {
+      System.err.println("Error reading cookbooks from JSON: " + e.getMessage());
+    }
+    return new int[] { cookBooksAdded, cookBooksFailed, recipesAdded, recipesFailed };
+  }
+
+  private static JsonWriter newJsonWriter(Writer writer) {
+    JsonWriter json = new JsonWriter(writer);
+    json.setIndent(INDENT);
+    return json;
+  }
+
+  private static JsonReader openJsonReader(String filePath) throws IOException {
+    return new JsonReader(CompressionUtility.openReader(filePath));
+  }
+
+  /**
+   * Reads an object whose values are all plain values. Nested values are read
+   * past and stored as null.
+   */
+  private static Map<String, String> readFlatObject(JsonReader reader) throws IOException {
+    Map<String, String> fields = new HashMap<>();
+    reader.beginObject();
+    while (reader.hasNext()) {
+      fields.put(reader.nextName(), readScalar(reader));
+    }
+    reader.endObject();
+    return fields;
+  }
+
+  /**
+   * Reads a plain value as text, so a value of the wrong type can be reported
+   * for its record instead of stopping the whole file. Numbers keep the text
+   * they were written with.
+   *
+   * @return the value as text, or null for null, objects and arrays
+   */
+  private static String readScalar(JsonReader reader) throws IOException {
+    switch (reader.peek()) {
+      case STRING, NUMBER -> {
+        return reader.nextString();
+      }
+      case BOOLEAN -> {
+        return String.valueOf(reader.nextBoolean());
+      }
+      case NULL -> {
+        reader.nextNull();
+        return null;
+      }
+      default -> {
+        reader.skipValue();
+        return null;
+      }
+    }
+  }
+
+  private static String requireField(Map<String, String> fields, String name) {
+    String value = fields.get(name);
+    if (value == null) {
+      throw new IllegalArgumentException("missing field '" + name + "'");
+    }
+    return value;
+  }
+}
@@ -0,0 +1,252 @@
+package utilities;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import models.FoodList;
+import models.Ingredient;
+import services.FridgeManager;
+
+/**
+ * Imports fridge items from a large CSV file on several cores.
+ * The file is memory-mapped and split into chunks at line breaks. Each chunk is
+ * parsed and validated on its own thread, and the rows are then turned into
+ * FridgeItems in file order and added to the fridge in batches by a
+ * {@link FridgeItemLoader}.
+ *
+ * <p>The rows must not contain line breaks inside quoted fields, since the
+ * chunks are split at every line break. The fridge item files written by
+ * {@link CsvUtility#writeFridgeItemsToCsv} never do. Compressed files can not be
+ * split, and are imported as a stream instead.
+ *
+ * @author Dennis Moe
+ */
+public class MappedFridgeItemImporter {
+
+  /**
+   * Files smaller than this are not split further, since the threads would
+   * cost more than they save.
+   */
+  static final long MIN_CHUNK_BYTES = 1L << 20;
+
+  /**
+   * A single mapping can not be larger than this.
+   */
+  private static final long MAX_CHUNK_BYTES = Integer.MAX_VALUE;
+
+  private static final int BOUNDARY_SCAN_BYTES = 8192;
+
+  /**
+   * The parsed rows of one chunk, kept as columns.
+   */
+  private static final class ParsedChunk {
+    private Ingredient[] ingredients = new Ingredient[1024];
+    private double[] quantities = new double[1024];
+    private long[] expirationDates = new long[1024];
+    private int size;
+    private final List<String> errors = new ArrayList<>();
+
+    private void add(FridgeItemLoader.ParsedRow row) {
+      if (size == ingredients.length) {
+        ingredients = Arrays.copyOf(ingredients, size * 2);
+        quantities = Arrays.copyOf(quantities, size * 2);
+        expirationDates = Arrays.copyOf(expirationDates, size * 2);
+      }
+      ingredients[size] = row.ingredient;
+      quantities[size] = row.quantity;
+      expirationDates[size] = row.expirationDate;
+      size++;
+    }
+  }
+
+  /**
+   * Reads a ByteBuffer as an InputStream, without copying the mapping.
+   */
+  private static final class ByteBufferInputStream extends InputStream {
+    private final ByteBuffer buffer;
+
+    private ByteBufferInputStream(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    @Override
+    public int read() {
+      return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) {
+      if (!buffer.hasRemaining()) {
+        return -1;
+      }
+      int count = Math.min(length, buffer.remaining());
+      buffer.get(bytes, offset, count);
+      return count;
+    }
+  }
+
+  private MappedFridgeItemImporter() {
+  }
+
+  /**
+   * Imports fridge items from a CSV file, using one thread per available core.
+   *
+   * @param filePath      path of the CSV file to read from
+   * @param fridgeManager the FridgeManager to add the items to
+   * @return the outcome of the import
+   */
+  public static FridgeItemLoader.LoadResult importFridgeItems(String filePath,
+      FridgeManager fridgeManager) {
+    return importFridgeItems(filePath, fridgeManager,
+        Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Imports fridge items from a CSV file.
+   * The result is the same as {@link FridgeItemLoader#loadFromCsv}, and the
+   * items get their IDs in file order. The rows that are rejected are not
+   * printed, but are kept in the result in file order.
+   *
+   * @param filePath      path of the CSV file to read from
+   * @param fridgeManager the FridgeManager to add the items to
+   * @param parallelism   the number of threads to parse with
+   * @return the outcome of the import
+   */
+  public static FridgeItemLoader.LoadResult importFridgeItems(String filePath,
+      FridgeManager fridgeManager, int parallelism) {
+    return importFridgeItems(filePath, fridgeManager, parallelism, MIN_CHUNK_BYTES);
+  }
+
+  static FridgeItemLoader.LoadResult importFridgeItems(String filePath,
+      FridgeManager fridgeManager, int parallelism, long minChunkBytes) {
+    if (isCompressed(filePath)) {
+      return FridgeItemLoader.loadFromCsv(filePath, fridgeManager);
+    }
+
+    FridgeItemLoader loader = new FridgeItemLoader(fridgeManager);
+
+    ExecutorService executor = null;
+    try (FileChannel channel = FileChannel.open(Path.of(filePath), StandardOpenOption.READ)) {
+      long[] boundaries = findChunkBoundaries(channel, Math.max(1, parallelism), minChunkBytes);
+      FoodList foodList = fridgeManager.getFoodList();
+
+      executor = Executors.newFixedThreadPool(Math.min(Math.max(1, parallelism),
+          boundaries.length - 1));
+      List<Future<ParsedChunk>> futures = new ArrayList<>();
+      for (int i = 0; i < boundaries.length - 1; i++) {
+        ByteBuffer mapping = channel.map(FileChannel.MapMode.READ_ONLY, boundaries[i],
+            boundaries[i + 1] - boundaries[i]);
+        boolean skipHeader = i == 0;
+        futures.add(executor.submit(() -> parseChunk(mapping, skipHeader, foodList)));
+      }
+
+      for (Future<ParsedChunk> future : futures) {
+        ParsedChunk chunk = future.get();
+        chunk.errors.forEach(loader::reject);
+
+        for (int i = 0; i < chunk.size; i++) {
+          loader.add(chunk.ingredients[i], chunk.quantities[i], chunk.expirationDates[i]);
+        }
+      }
+    } catch (IOException e) {
+      System.err.println("Error reading fridge items from CSV: " + e.getMessage());
+    } catch (ExecutionException e) {
+      System.err.println("Error reading fridge items from CSV: " + e.getCause().getMessage());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      System.err.println("Fridge item import was interrupted.");
+    } finally {
+      if (executor != null) {
+        executor.shutdownNow();
+      }
+    }
+    return loader.finish();
+  }
+
+  /**
+   * Compressed files can not be split into chunks, so they are read as a stream.
+   */
+  private static boolean isCompressed(String filePath) {
+    try {
+      return CompressionUtility.isGzipFile(filePath);
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Splits the file into chunks of about the same size, each starting right
+   * after a line break.
+   *
+   * @return the start of every chunk followed by the end of the file
+   */
+  private static long[] findChunkBoundaries(FileChannel channel, int parallelism,
+      long minChunkBytes) throws IOException {
+    long fileSize = channel.size();
+    long chunkCount = Math.max(1, Math.min(parallelism, fileSize / minChunkBytes));
+    chunkCount = Math.max(chunkCount, (fileSize + MAX_CHUNK_BYTES - 1) / MAX_CHUNK_BYTES);
+
+    List<Long> boundaries = new ArrayList<>();
+    boundaries.add(0L);
+    ByteBuffer scan = ByteBuffer.allocate(BOUNDARY_SCAN_BYTES);
+    for (long i = 1; i < chunkCount; i++) {
+      long boundary = nextLineStart(channel, fileSize * i / chunkCount, scan);
+      if (boundary > boundaries.get(boundaries.size() - 1) && boundary < fileSize) {
+        boundaries.add(boundary);
+      }
+    }
+    boundaries.add(fileSize);
+    return boundaries.stream().mapToLong(Long::longValue).toArray();
+  }
+
+  private static long nextLineStart(FileChannel channel, long position, ByteBuffer scan)
+      throws IOException {
+    long offset = position;
+    while (true) {
+      scan.clear();
+      int read = channel.read(scan, offset);
+      if (read <= 0) {
+        return channel.size();
+      }
+      for (int i = 0; i < read; i++) {
+        if (scan.get(i) == '\n') {
+          return offset + i + 1;
+        }
+      }
+      offset += read;
+    }
+  }
+
+  private static ParsedChunk parseChunk(ByteBuffer mapping, boolean skipHeader,
+      FoodList foodList) throws IOException {
+    ParsedChunk chunk = new ParsedChunk();
+    CsvTokenizer tokenizer = new CsvTokenizer(new InputStreamReader(
+        new ByteBufferInputStream(mapping), StandardCharsets.UTF_8));
+    if (skipHeader && !tokenizer.nextRow()) {
+      return chunk;
+    }
+
+    FridgeItemLoader.ParsedRow parsedRow = new FridgeItemLoader.ParsedRow();
+    tokenizer.forEachRow(row -> {
+      String error = FridgeItemLoader.parseRow(row, foodList, parsedRow);
+      if (error == null) {
+        chunk.add(parsedRow);
+      } else {
+        chunk.errors.add(error);
+      }
+    });
+    return chunk;
+  }
+}
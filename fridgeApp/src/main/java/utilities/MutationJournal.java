@@ -0,0 +1,761 @@
+package utilities;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+import models.CookBook;
+import models.FoodList;
+import models.Fridge;
+import models.FridgeItem;
+import models.Ingredient;
+import models.Recipe;
+import models.RecipeList;
+import services.CookBookManager;
+import services.FridgeManager;
+import services.RecipeManager;
+
+/**
+ * An append-only journal of every change to the food list, fridge, recipes and
+ * cookbooks, so that saving costs as much as the change and not the whole data.
+ *
+ * <p>The journal lives in its own directory as numbered checkpoints and
+ * segments. A checkpoint is a snapshot (see {@link SnapshotUtility}) holding
+ * everything before the segment with the same number, and each segment holds
+ * the changes made after it, in order. On startup the newest checkpoint is
+ * loaded and the segments after it are replayed.
+ *
+ * <p>Changes are recorded on the calling thread and written by a background
+ * thread. Everything recorded while a write is in progress is written and
+ * synced to disk together in the next write, so the interactive loop never
+ * waits for the disk. When a segment grows past a threshold, a new segment is
+ * started and the old ones are compacted into a new checkpoint in the
+ * background, without touching the data in use.
+ *
+ * <p>The journal can be backed up while it records, see
+ * {@link #backupFiles}. The backup waits for everything recorded so far, and
+ * no compaction runs while it is taken, so no file is removed while it is
+ * copied.
+ *
+ * @author Dennis Moe
+ */
+public class MutationJournal implements Closeable, BackupStore.Source {
+
+  /**
+   * The size a segment can grow to before it is compacted into a checkpoint.
+   */
+  public static final long DEFAULT_COMPACTION_THRESHOLD_BYTES = 4L << 20;
+
+  private static final byte INGREDIENT_PUT = 1;
+  private static final byte INGREDIENT_REMOVED = 2;
+  private static final byte FRIDGE_ITEM_ADDED = 3;
+  private static final byte FRIDGE_ITEM_QUANTITY = 4;
+  private static final byte FRIDGE_ITEM_REMOVED = 5;
+  private static final byte RECIPE_PUT = 6;
+  private static final byte RECIPE_REMOVED = 7;
+  private static final byte COOKBOOK_PUT = 8;
+  private static final byte COOKBOOK_REMOVED = 9;
+
+  private static final String CHECKPOINT_PREFIX = "checkpoint-";
+  private static final String CHECKPOINT_SUFFIX = ".bin";
+  private static final String SEGMENT_PREFIX = "journal-";
+  private static final String SEGMENT_SUFFIX = ".log";
+
+  /**
+   * Every record starts with its length and a CRC32 of its contents.
+   */
+  private static final int RECORD_HEADER_BYTES = 8;
+
+  private final Path directory;
+  private final long compactionThresholdBytes;
+  private final ExecutorService compactor;
+
+  private final Object lock = new Object();
+  private final Object compactionLock = new Object();
+  private ByteArrayOutputStream pending = new ByteArrayOutputStream();
+  private List<CompletableFuture<Void>> pendingFutures = new ArrayList<>();
+  private CompletableFuture<Void> lastFuture = CompletableFuture.completedFuture(null);
+  private boolean closing;
+
+  private FileChannel segment;
+  private long segmentSequence;
+  private long segmentSize;
+  private Thread writer;
+
+  /**
+   * Writes the body of a record.
+   */
+  @FunctionalInterface
+  private interface RecordBody {
+    void write(DataOutputStream out) throws IOException;
+  }
+
+  /**
+   * Constructs a new MutationJournal with the default compaction threshold.
+   *
+   * @param directory the directory to keep the journal in, created if missing
+   * @throws IOException if the directory can not be created
+   */
+  public MutationJournal(String directory) throws IOException {
+    this(directory, DEFAULT_COMPACTION_THRESHOLD_BYTES);
+  }
+
+  /**
+   * Constructs a new MutationJournal.
+   *
+   * @param directory                the directory to keep the journal in,
+   *                                 created if missing
+   * @param compactionThresholdBytes the size a segment can grow to before it is
+   *                                 compacted into a checkpoint
+   * @throws IOException if the directory can not be created
+   */
+  public MutationJournal(String directory, long compactionThresholdBytes) throws IOException {
+    this.directory = Files.createDirectories(Path.of(directory));
+    this.compactionThresholdBytes = compactionThresholdBytes;
+    this.compactor = Executors.newSingleThreadExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "journal-compactor");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Loads the newest checkpoint and replays the changes made after it.
+   * Must be called before {@link #attach}, while nothing is recorded.
+   *
+   * @param foodList        the FoodList to load into
+   * @param fridgeManager   the FridgeManager to load into
+   * @param recipeManager   the RecipeManager to load into
+   * @param cookBookManager the CookBookManager to load into
+   * @return true if a checkpoint was found, false if the journal is empty
+   * @throws IOException if a segment can not be read
+   */
+  public boolean recover(FoodList foodList, FridgeManager fridgeManager,
+      RecipeManager recipeManager, CookBookManager cookBookManager) throws IOException {
+    long checkpoint = loadNewestCheckpoint(foodList, fridgeManager, recipeManager,
+        cookBookManager);
+    if (checkpoint < 0) {
+      return false;
+    }
+    replaySegments(checkpoint, Long.MAX_VALUE, foodList, fridgeManager, recipeManager,
+        cookBookManager);
+    return true;
+  }
+
+  /**
+   * Writes a checkpoint of the given data and removes everything older.
+   * Used to start a journal from data imported another way, and must be called
+   * before {@link #attach}.
+   *
+   * @param foodList    the ingredients to write
+   * @param fridgeItems the fridge items to write
+   * @param recipes     the recipes to write
+   * @param cookBooks   the cookbooks to write
+   * @throws IOException if the checkpoint can not be written
+   */
+  public void checkpoint(FoodList foodList, List<FridgeItem> fridgeItems,
+      Collection<Recipe> recipes, Map<String, CookBook> cookBooks) throws IOException {
+    long sequence = nextSegmentSequence();
+    writeCheckpoint(sequence, foodList, fridgeItems, recipes, cookBooks);
+    deleteOlderThan(sequence);
+  }
+
+  /**
+   * Starts recording every change made through the given FoodList and managers.
+   *
+   * @param foodList        the FoodList to record changes to
+   * @param fridgeManager   the FridgeManager to record changes from
+   * @param recipeManager   the RecipeManager to record changes from
+   * @param cookBookManager the CookBookManager to record changes from
+   * @throws IOException if a new segment can not be created
+   */
+  public void attach(FoodList foodList, FridgeManager fridgeManager,
+      RecipeManager recipeManager, CookBookManager cookBookManager) throws IOException {
+    synchronized (lock) {
+      if (writer != null || closing) {
+        throw new IllegalStateException("The journal is already attached or closed.");
+      }
+      openSegment(nextSegmentSequence());
+      writer = new Thread(this::writeLoop, "journal-writer");
+      writer.setDaemon(true);
+      writer.start();
+    }
+
+    foodList.addIngredientChangeListener(ingredientName -> {
+      Ingredient ingredient = foodList.getIngredientFromFoodList(ingredientName);
+      if (ingredient == null) {
+        recordIngredientRemoved(ingredientName);
+      } else {
+        recordIngredient(ingredient);
+      }
+    });
+    fridgeManager.setJournal(this);
+    recipeManager.setJournal(this);
+    cookBookManager.setJournal(this);
+  }
+
+  /**
+   * Records that an ingredient was added to or changed in the FoodList.
+   *
+   * @param ingredient the ingredient as it is now
+   * @return a future that completes when the change is on disk
+   */
+  public CompletableFuture<Void> recordIngredient(Ingredient ingredient) {
+    return append(INGREDIENT_PUT, out -> {
+      writeString(out, ingredient.getIngredientName());
+      writeString(out, ingredient.getIngredientCategory());
+      out.writeDouble(ingredient.getIngredientBaseWeight());
+      writeString(out, ingredient.getIngredientMeasuringUnit());
+      out.writeDouble(ingredient.getIngredientCost());
+    });
+  }
+
+  /**
+   * Records that an ingredient was removed from the FoodList.
+   *
+   * @param ingredientName the name of the ingredient
+   * @return a future that completes when the change is on disk
+   */
+  public CompletableFuture<Void> recordIngredientRemoved(String ingredientName) {
+    return append(INGREDIENT_REMOVED, out -> writeString(out, ingredientName));
+  }
+
+  /**
+   * Records that a FridgeItem was added to the fridge.
+   *
+   * @param fridgeItem the new FridgeItem
+   * @return a future that completes when the change is on disk
+   */
+  public CompletableFuture<Void> recordFridgeItemAdded(FridgeItem fridgeItem) {
+    return append(FRIDGE_ITEM_ADDED, out -> {
+      out.writeInt(fridgeItem.getId());
+      writeString(out, fridgeItem.getIngredient().getIngredientName());
+      out.writeDouble(fridgeItem.getQuantity());
+      out.writeLong(fridgeItem.getExpirationDate());
+    });
+  }
+
+  /**
+   * Records the new quantity of a FridgeItem.
+   *
+   * @param fridgeItem the FridgeItem as it is now
+   * @return a future that completes when the change is on disk
+   */
+  public CompletableFuture<Void> recordFridgeItemQuantity(FridgeItem fridgeItem) {
+    return append(FRIDGE_ITEM_QUANTITY, out -> {
+      out.writeInt(fridgeItem.getId());
+      out.writeDouble(fridgeItem.getQuantity());
+    });
+  }
+
+  /**
+   * Records that a FridgeItem was removed from the fridge.
+   *
+   * @param id the ID of the FridgeItem
+   * @return a future that completes when the change is on disk
+   */
+  public CompletableFuture<Void> recordFridgeItemRemoved(int id) {
+    return append(FRIDGE_ITEM_REMOVED, out -> out.writeInt(id));
+  }
+
+  /**
+   * Records that a recipe was created or its ingredients changed.
+   *
+   * @param recipe the recipe as it is now
+   * @return a future that completes when the change is on disk
+   */
+  public CompletableFuture<Void> recordRecipe(Recipe recipe) {
+    return append(RECIPE_PUT, out -> {
+      writeString(out, recipe.getRecipeName());
+      writeString(out, recipe.getRecipeDescription());
+      writeString(out, recipe.getInstructions());
+      writeString(out, recipe.getRecipeType());
+      out.writeInt(recipe.getIngredients().size());
+      for (Map.Entry<String, Double> entry : recipe.getIngredients().entrySet()) {
+        writeString(out, entry.getKey());
+        out.writeDouble(entry.getValue());
+      }
+    });
+  }
+
+  /**
+   * Records that a recipe was removed.
+   *
+   * @param recipeName the name of the recipe
+   * @return a future that completes when the change is on disk
+   */
+  public CompletableFuture<Void> recordRecipeRemoved(String recipeName) {
+    return append(RECIPE_REMOVED, out -> writeString(out, recipeName));
+  }
+
+  /**
+   * Records that a CookBook was created or its recipes changed.
+   *
+   * @param cookBook the CookBook as it is now
+   * @return a future that completes when the change is on disk
+   */
+  public CompletableFuture<Void> recordCookBook(CookBook cookBook) {
+    return append(COOKBOOK_PUT, out -> {
+      writeString(out, cookBook.getCookBookName());
+      writeString(out, cookBook.getCookBookDescription());
+      writeString(out, cookBook.getCookBookType());
+      out.writeInt(cookBook.getRecipeCount());
+      for (String recipeName : cookBook.getRecipesInCookBook().keySet()) {
+        writeString(out, recipeName);
+      }
+    });
+  }
+
+  /**
+   * Records that a CookBook was deleted.
+   *
+   * @param cookBookName the name of the CookBook
+   * @return a future that completes when the change is on disk
+   */
+  public CompletableFuture<Void> recordCookBookRemoved(String cookBookName) {
+    return append(COOKBOOK_REMOVED, out -> writeString(out, cookBookName));
+  }
+
+  /**
+   * Gets a future that completes when everything recorded so far is on disk.
+   *
+   * @return the future of the last recorded change
+   */
+  public CompletableFuture<Void> flush() {
+    synchronized (lock) {
+      return lastFuture;
+    }
+  }
+
+  /**
+   * Backs up the checkpoints and segments of the journal, once everything
+   * recorded so far is on disk. A change recorded while the files are copied
+   * may be cut off at the end of the last segment, and is then left out on
+   * recovery, as after a crash.
+   *
+   * @param backup takes the backup of the journal files
+   * @return the ID of the backup
+   * @throws IOException if the journal can not be written or backed up
+   */
+  @Override
+  public String backupFiles(BackupStore.FileBackup backup) throws IOException {
+    try {
+      flush().get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while backing up the journal.", e);
+    } catch (ExecutionException e) {
+      throw new IOException("Could not write the journal: " + e.getCause().getMessage(),
+          e.getCause());
+    }
+    synchronized (compactionLock) {
+      return backup.backup(listFiles());
+    }
+  }
+
+  private List<String> listFiles() throws IOException {
+    List<String> files = new ArrayList<>();
+    for (long sequence : listSequences(CHECKPOINT_PREFIX, CHECKPOINT_SUFFIX)) {
+      files.add(directory.resolve(fileName(CHECKPOINT_PREFIX, sequence, CHECKPOINT_SUFFIX))
+          .toString());
+    }
+    for (long sequence : listSequences(SEGMENT_PREFIX, SEGMENT_SUFFIX)) {
+      files.add(directory.resolve(fileName(SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX))
+          .toString());
+    }
+    return files;
+  }
+
+  /**
+   * Writes everything recorded, stops recording, and compacts the journal into
+   * a checkpoint so the next startup only has to load that.
+   *
+   * @throws IOException if the final compaction fails
+   */
+  @Override
+  public void close() throws IOException {
+    Thread writerToJoin;
+    synchronized (lock) {
+      if (closing) {
+        return;
+      }
+      closing = true;
+      writerToJoin = writer;
+      lock.notifyAll();
+    }
+
+    try {
+      if (writerToJoin == null) {
+        return;
+      }
+      writerToJoin.join();
+      segment.close();
+      long upTo = segmentSequence + 1;
+      compactor.submit(() -> {
+        compact(upTo);
+        return null;
+      }).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while closing the journal.", e);
+    } catch (ExecutionException e) {
+      throw new IOException("Could not compact the journal: " + e.getCause().getMessage(),
+          e.getCause());
+    } finally {
+      compactor.shutdown();
+    }
+  }
+
+  private CompletableFuture<Void> append(byte type, RecordBody body) {
+    byte[] record;
+    try {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      DataOutputStream out = new DataOutputStream(bytes);
+      out.writeByte(type);
+      body.write(out);
+      record = bytes.toByteArray();
+    } catch (IOException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+
+    CRC32 crc = new CRC32();
+    crc.update(record);
+
+    synchronized (lock) {
+      if (writer == null || closing) {
+        return CompletableFuture.failedFuture(
+            new IllegalStateException("The journal is not open for recording."));
+      }
+      ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_BYTES);
+      header.putInt(record.length).putInt((int) crc.getValue());
+      pending.writeBytes(header.array());
+      pending.writeBytes(record);
+
+      CompletableFuture<Void> future = new CompletableFuture<>();
+      pendingFutures.add(future);
+      lastFuture = future;
+      lock.notifyAll();
+      return future;
+    }
+  }
+
+  /**
+   * Writes everything recorded since the last write as one batch, with a single
+   * sync to disk per batch.
+   */
+  private void writeLoop() {
+    while (true) {
+      byte[] batch;
+      List<CompletableFuture<Void>> futures;
+      synchronized (lock) {
+        while (pending.size() == 0 && !closing) {
+          try {
+            lock.wait();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+          }
+        }
+        if (pending.size() == 0) {
+          return;
+        }
+        batch = pending.toByteArray();
+        pending = new ByteArrayOutputStream();
+        futures = pendingFutures;
+        pendingFutures = new ArrayList<>();
+      }
+
+      try {
+        ByteBuffer buffer = ByteBuffer.wrap(batch);
+        while (buffer.hasRemaining()) {
+          segment.write(buffer);
+        }
+        segment.force(false);
+        segmentSize += batch.length;
+        futures.forEach(future -> future.complete(null));
+
+        if (segmentSize >= compactionThresholdBytes) {
+          segment.close();
+          openSegment(segmentSequence + 1);
+          long upTo = segmentSequence;
+          compactor.submit(() -> {
+            try {
+              compact(upTo);
+            } catch (IOException e) {
+              System.err.println("Error compacting the journal: " + e.getMessage());
+            }
+          });
+        }
+      } catch (IOException e) {
+        System.err.println("Error writing to the journal: " + e.getMessage());
+        futures.forEach(future -> future.completeExceptionally(e));
+      }
+    }
+  }
+
+  /**
+   * Builds a new checkpoint from the newest checkpoint and the segments before
+   * the given one, in fresh models so the data in use is never touched.
+   */
+  private void compact(long upTo) throws IOException {
+    FoodList foodList = new FoodList();
+    RecipeList recipeList = new RecipeList();
+    FridgeManager fridgeManager = new FridgeManager(new Fridge(), foodList);
+    RecipeManager recipeManager = new RecipeManager(recipeList, fridgeManager);
+    CookBookManager cookBookManager = new CookBookManager(recipeList);
+
+    long checkpoint = loadNewestCheckpoint(foodList, fridgeManager, recipeManager,
+        cookBookManager);
+    replaySegments(Math.max(checkpoint, 0), upTo, foodList, fridgeManager, recipeManager,
+        cookBookManager);
+
+    writeCheckpoint(upTo, foodList, fridgeManager.getAllFridgeItems(),
+        recipeList.getAllRecipes().values(), cookBookManager.getAllCookBooks());
+    synchronized (compactionLock) {
+      deleteOlderThan(upTo);
+    }
+  }
+
+  private void openSegment(long sequence) throws IOException {
+    segmentSequence = sequence;
+    segment = FileChannel.open(directory.resolve(fileName(SEGMENT_PREFIX, sequence,
+        SEGMENT_SUFFIX)), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.APPEND);
+    segmentSize = segment.size();
+  }
+
+  private long nextSegmentSequence() throws IOException {
+    long next = 1;
+    for (long sequence : listSequences(SEGMENT_PREFIX, SEGMENT_SUFFIX)) {
+      next = Math.max(next, sequence + 1);
+    }
+    for (long sequence : listSequences(CHECKPOINT_PREFIX, CHECKPOINT_SUFFIX)) {
+      next = Math.max(next, sequence);
+    }
+    return next;
+  }
+
+  private void writeCheckpoint(long sequence, FoodList foodList, List<FridgeItem> fridgeItems,
+      Collection<Recipe> recipes, Map<String, CookBook> cookBooks) throws IOException {
+    Path target = directory.resolve(fileName(CHECKPOINT_PREFIX, sequence, CHECKPOINT_SUFFIX));
+    Path temp = directory.resolve(target.getFileName() + ".tmp");
+    SnapshotUtility.writeSnapshot(temp.toString(), foodList, fridgeItems, recipes, cookBooks);
+    try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+      channel.force(true);
+    }
+    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE,
+        StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  private void deleteOlderThan(long sequence) throws IOException {
+    for (long older : listSequences(CHECKPOINT_PREFIX, CHECKPOINT_SUFFIX).headSet(sequence)) {
+      Files.deleteIfExists(directory.resolve(fileName(CHECKPOINT_PREFIX, older,
+          CHECKPOINT_SUFFIX)));
+    }
+    for (long older : listSequences(SEGMENT_PREFIX, SEGMENT_SUFFIX).headSet(sequence)) {
+      Files.deleteIfExists(directory.resolve(fileName(SEGMENT_PREFIX, older, SEGMENT_SUFFIX)));
+    }
+  }
+
+  /**
+   * Loads the newest checkpoint that can be read, skipping damaged ones.
+   *
+   * @return the sequence of the loaded checkpoint, or -1 if there is none
+   */
+  private long loadNewestCheckpoint(FoodList foodList, FridgeManager fridgeManager,
+      RecipeManager recipeManager, CookBookManager cookBookManager) throws IOException {
+    for (long sequence : listSequences(CHECKPOINT_PREFIX, CHECKPOINT_SUFFIX)
+        .descendingSet()) {
+      Path checkpoint = directory.resolve(fileName(CHECKPOINT_PREFIX, sequence,
+          CHECKPOINT_SUFFIX));
+      try {
+        SnapshotUtility.readSnapshot(checkpoint.toString(), foodList, fridgeManager,
+            recipeManager, cookBookManager);
+        return sequence;
+      } catch (IOException e) {
+        System.err.println("Skipping damaged checkpoint " + checkpoint + ": " + e.getMessage());
+      }
+    }
+    return -1;
+  }
+
+  private void replaySegments(long from, long to, FoodList foodList,
+      FridgeManager fridgeManager, RecipeManager recipeManager,
+      CookBookManager cookBookManager) throws IOException {
+    Fridge fridge = fridgeManager.getFridge();
+    Map<Integer, FridgeItem> fridgeItemsById = new HashMap<>();
+    for (FridgeItem item : fridge.getAllFridgeItems()) {
+      fridgeItemsById.put(item.getId(), item);
+    }
+
+    for (long sequence : listSequences(SEGMENT_PREFIX, SEGMENT_SUFFIX).subSet(from, to)) {
+      ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(directory.resolve(
+          fileName(SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX))));
+      while (in.remaining() >= RECORD_HEADER_BYTES) {
+        int length = in.getInt();
+        int checksum = in.getInt();
+        if (length <= 0 || length > in.remaining()) {
+          break;
+        }
+        byte[] record = new byte[length];
+        in.get(record);
+        CRC32 crc = new CRC32();
+        crc.update(record);
+        if ((int) crc.getValue() != checksum) {
+          break;
+        }
+        apply(new DataInputStream(new ByteArrayInputStream(record)), foodList, fridge,
+            fridgeItemsById, recipeManager, cookBookManager);
+      }
+    }
+  }
+
+  private void apply(DataInputStream in, FoodList foodList, Fridge fridge,
+      Map<Integer, FridgeItem> fridgeItemsById, RecipeManager recipeManager,
+      CookBookManager cookBookManager) throws IOException {
+    byte type = in.readByte();
+    switch (type) {
+      case INGREDIENT_PUT -> foodList.addIngredient(new Ingredient(readString(in),
+          readString(in), in.readDouble(), readString(in), in.readDouble()));
+      case INGREDIENT_REMOVED -> foodList.removeIngredient(readString(in));
+      case FRIDGE_ITEM_ADDED -> {
+        int id = in.readInt();
+        Ingredient ingredient = foodList.getIngredientFromFoodList(readString(in));
+        FridgeItem item = new FridgeItem(id, ingredient, in.readDouble(), in.readLong());
+        if (ingredient != null) {
+          fridge.addFridgeItem(item);
+          fridgeItemsById.put(id, item);
+        }
+      }
+      case FRIDGE_ITEM_QUANTITY -> {
+        FridgeItem item = fridgeItemsById.get(in.readInt());
+        double quantity = in.readDouble();
+        if (item != null) {
+          fridge.restoreFridgeItemQuantity(item, quantity);
+        }
+      }
+      case FRIDGE_ITEM_REMOVED -> {
+        FridgeItem item = fridgeItemsById.remove(in.readInt());
+        if (item != null) {
+          fridge.restoreFridgeItemQuantity(item, 0);
+        }
+      }
+      case RECIPE_PUT -> applyRecipe(in, recipeManager);
+      case RECIPE_REMOVED -> recipeManager.removeRecipe(readString(in));
+      case COOKBOOK_PUT -> applyCookBook(in, recipeManager, cookBookManager);
+      case COOKBOOK_REMOVED -> cookBookManager.deleteCookBook(readString(in));
+      default -> throw new IOException("Unknown journal record type: " + type);
+    }
+  }
+
+  private void applyRecipe(DataInputStream in, RecipeManager recipeManager) throws IOException {
+    String recipeName = readString(in);
+    String description = readString(in);
+    String instructions = readString(in);
+    String type = readString(in);
+    Map<String, Double> ingredients = new HashMap<>();
+    int count = in.readInt();
+    for (int i = 0; i < count; i++) {
+      ingredients.put(readString(in), in.readDouble());
+    }
+
+    Recipe recipe = recipeManager.getRecipeObject(recipeName);
+    if (recipe == null) {
+      recipe = new Recipe(recipeName, description, instructions, type);
+      recipeManager.addRecipe(recipe);
+    }
+    for (String ingredientName : new ArrayList<>(recipe.getIngredients().keySet())) {
+      if (!ingredients.containsKey(ingredientName)) {
+        recipe.removeIngredient(ingredientName);
+      }
+    }
+    for (Map.Entry<String, Double> entry : ingredients.entrySet()) {
+      if (!entry.getValue().equals(recipe.getIngredients().get(entry.getKey()))) {
+        recipe.addIngredient(entry.getKey(), entry.getValue());
+      }
+    }
+  }
+
+  private void applyCookBook(DataInputStream in, RecipeManager recipeManager,
+      CookBookManager cookBookManager) throws IOException {
+    String cookBookName = readString(in);
+    String description = readString(in);
+    String type = readString(in);
+    Set<String> recipeNames = new HashSet<>();
+    int count = in.readInt();
+    for (int i = 0; i < count; i++) {
+      recipeNames.add(readString(in));
+    }
+
+    if (cookBookManager.getCookBook(cookBookName) == null) {
+      cookBookManager.createCookBook(cookBookName, description, type);
+    }
+    CookBook cookBook = cookBookManager.getCookBook(cookBookName);
+    for (String recipeName : new ArrayList<>(cookBook.getRecipesInCookBook().keySet())) {
+      if (!recipeNames.contains(recipeName)) {
+        cookBook.removeRecipe(recipeName);
+      }
+    }
+    for (String recipeName : recipeNames) {
+      Recipe recipe = recipeManager.getRecipeObject(recipeName);
+      if (recipe != null) {
+        cookBook.addRecipe(recipe);
+      }
+    }
+  }
+
+  private TreeSet<Long> listSequences(String prefix, String suffix) throws IOException {
+    TreeSet<Long> sequences = new TreeSet<>();
+    try (var files = Files.list(directory)) {
+      files.map(file -> file.getFileName().toString())
+          .filter(name -> name.startsWith(prefix) && name.endsWith(suffix))
+          .forEach(name -> {
+            try {
+              sequences.add(Long.parseLong(name.substring(prefix.length(),
+                  name.length() - suffix.length())));
+            } catch (NumberFormatException e) {
+              System.err.println("Ignoring unknown journal file: " + name);
+            }
+          });
+    }
+    return sequences;
+  }
+
+  private static String fileName(String prefix, long sequence, String suffix) {
+    return String.format("%s%010d%s", prefix, sequence, suffix);
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    byte[] bytes = new byte[in.readInt()];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
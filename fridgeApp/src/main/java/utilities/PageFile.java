@@ -0,0 +1,328 @@
+package utilities;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A single file split into pages of {@value #PAGE_SIZE} bytes, read and written
+ * through a buffer pool of bounded size.
+ *
+ * <p>Pages are pinned while they are used and unpinned afterwards. The pool
+ * keeps the most recently used pages in memory, and when it is full the least
+ * recently used page that is not pinned is written back, if it was changed, and
+ * dropped. The file can therefore be much larger than the memory the pool uses.
+ *
+ * <p>Page 0 is the header. Besides the page count it holds {@value #SLOT_COUNT}
+ * slots where the structures stored in the file keep their root pages and
+ * counters. Changes are only guaranteed to be on disk after {@link #flush()}.
+ * A PageFile is not thread safe.
+ *
+ * @author Dennis Moe
+ */
+public class PageFile implements Closeable {
+
+  /**
+   * The size of a page, in bytes.
+   */
+  public static final int PAGE_SIZE = 4096;
+
+  /**
+   * The default number of pages kept in the buffer pool.
+   */
+  public static final int DEFAULT_POOL_PAGES = 1024;
+
+  /**
+   * The number of slots in the header.
+   */
+  public static final int SLOT_COUNT = 32;
+
+  private static final int MIN_POOL_PAGES = 8;
+  private static final int MAGIC = 0x46504731;
+  private static final int SLOTS_OFFSET = 16;
+
+  private final FileChannel channel;
+  private final int poolPages;
+  private final Map<Long, Page> pool;
+  private final long[] slots = new long[SLOT_COUNT];
+  private long pageCount;
+  private boolean headerDirty;
+  private long hits;
+  private long misses;
+
+  /**
+   * A page in the buffer pool.
+   */
+  public static final class Page {
+    private final long pageNumber;
+    private final ByteBuffer buffer = ByteBuffer.allocate(PAGE_SIZE);
+    private boolean dirty;
+    private int pins;
+
+    private Page(long pageNumber) {
+      this.pageNumber = pageNumber;
+    }
+
+    public long getPageNumber() {
+      return pageNumber;
+    }
+
+    /**
+     * Gets the content of the page. Only valid while the page is pinned.
+     *
+     * @return the buffer holding the page
+     */
+    public ByteBuffer getBuffer() {
+      return buffer;
+    }
+
+    /**
+     * Marks the page as changed, so it is written back to the file.
+     */
+    public void markDirty() {
+      dirty = true;
+    }
+  }
+
+  /**
+   * Opens a page file, creating it if it does not exist.
+   *
+   * @param filePath  the path of the file
+   * @param poolPages the number of pages kept in memory, at least 8
+   * @throws IOException if the file can not be opened or is not a page file
+   */
+  public PageFile(String filePath, int poolPages) throws IOException {
+    if (poolPages < MIN_POOL_PAGES) {
+      throw new IllegalArgumentException("The buffer pool must hold at least "
+          + MIN_POOL_PAGES + " pages.");
+    }
+    this.poolPages = poolPages;
+    this.pool = new LinkedHashMap<>(16, 0.75f, true);
+    this.channel = FileChannel.open(Path.of(filePath), StandardOpenOption.CREATE,
+        StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+    try {
+      if (channel.size() == 0) {
+        pageCount = 1;
+        headerDirty = true;
+        flush();
+      } else {
+        readHeader();
+      }
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Pins a page, reading it from the file if it is not in the pool.
+   *
+   * @param pageNumber the number of the page
+   * @return the pinned page
+   * @throws IOException if the page can not be read
+   */
+  public Page pin(long pageNumber) throws IOException {
+    if (pageNumber <= 0 || pageNumber >= pageCount) {
+      throw new IllegalArgumentException("Page " + pageNumber + " is not in the file.");
+    }
+    Page page = pool.get(pageNumber);
+    if (page != null) {
+      hits++;
+    } else {
+      misses++;
+      page = new Page(pageNumber);
+      readPage(page);
+      makeRoom();
+      pool.put(pageNumber, page);
+    }
+    page.pins++;
+    return page;
+  }
+
+  /**
+   * Unpins a page, so it may be dropped from the pool.
+   *
+   * @param page the page to unpin
+   */
+  public void unpin(Page page) {
+    if (page.pins <= 0) {
+      throw new IllegalStateException("Page " + page.pageNumber + " is not pinned.");
+    }
+    page.pins--;
+  }
+
+  /**
+   * Adds a new, empty page to the end of the file.
+   *
+   * @return the new page, pinned and marked as changed
+   * @throws IOException if a page could not be written back to make room
+   */
+  public Page allocate() throws IOException {
+    makeRoom();
+    Page page = new Page(pageCount++);
+    page.dirty = true;
+    page.pins = 1;
+    pool.put(page.pageNumber, page);
+    headerDirty = true;
+    return page;
+  }
+
+  /**
+   * Gets the value of a header slot.
+   *
+   * @param slot the index of the slot
+   * @return the value of the slot, 0 if it was never set
+   */
+  public long getSlot(int slot) {
+    return slots[slot];
+  }
+
+  /**
+   * Sets the value of a header slot.
+   *
+   * @param slot  the index of the slot
+   * @param value the new value of the slot
+   */
+  public void setSlot(int slot, long value) {
+    if (slots[slot] != value) {
+      slots[slot] = value;
+      headerDirty = true;
+    }
+  }
+
+  public long getPageCount() {
+    return pageCount;
+  }
+
+  public int getPoolPages() {
+    return poolPages;
+  }
+
+  /**
+   * Gets the number of times a page was found in the buffer pool.
+   *
+   * @return the number of pool hits
+   */
+  public long getHits() {
+    return hits;
+  }
+
+  /**
+   * Gets the number of times a page had to be read from the file.
+   *
+   * @return the number of pool misses
+   */
+  public long getMisses() {
+    return misses;
+  }
+
+  /**
+   * Writes every changed page and the header to the file, and syncs it to disk.
+   *
+   * @throws IOException if writing fails
+   */
+  public void flush() throws IOException {
+    for (Page page : pool.values()) {
+      if (page.dirty) {
+        writePage(page);
+      }
+    }
+    if (headerDirty) {
+      ByteBuffer header = ByteBuffer.allocate(PAGE_SIZE);
+      header.putInt(0, MAGIC);
+      header.putInt(4, PAGE_SIZE);
+      header.putLong(8, pageCount);
+      for (int i = 0; i < SLOT_COUNT; i++) {
+        header.putLong(SLOTS_OFFSET + i * Long.BYTES, slots[i]);
+      }
+      writeFully(header, 0);
+      headerDirty = false;
+    }
+    channel.force(false);
+  }
+
+  /**
+   * Flushes the file and closes it.
+   *
+   * @throws IOException if writing fails
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      flush();
+    } finally {
+      channel.close();
+    }
+  }
+
+  private void readHeader() throws IOException {
+    ByteBuffer header = ByteBuffer.allocate(PAGE_SIZE);
+    readFully(header, 0);
+    if (header.getInt(0) != MAGIC || header.getInt(4) != PAGE_SIZE) {
+      throw new IOException("Not a page file.");
+    }
+    pageCount = header.getLong(8);
+    for (int i = 0; i < SLOT_COUNT; i++) {
+      slots[i] = header.getLong(SLOTS_OFFSET + i * Long.BYTES);
+    }
+  }
+
+  /**
+   * Drops the least recently used unpinned page if the pool is full.
+   */
+  private void makeRoom() throws IOException {
+    if (pool.size() < poolPages) {
+      return;
+    }
+    Iterator<Page> pages = pool.values().iterator();
+    while (pages.hasNext()) {
+      Page page = pages.next();
+      if (page.pins == 0) {
+        if (page.dirty) {
+          writePage(page);
+        }
+        pages.remove();
+        return;
+      }
+    }
+    throw new IllegalStateException("Every page in the buffer pool is pinned.");
+  }
+
+  private void readPage(Page page) throws IOException {
+    ByteBuffer buffer = page.buffer;
+    buffer.clear();
+    long position = page.pageNumber * PAGE_SIZE;
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, position + buffer.position()) < 0) {
+        break;
+      }
+    }
+    buffer.clear();
+  }
+
+  private void writePage(Page page) throws IOException {
+    writeFully(page.buffer.duplicate().clear(), page.pageNumber * PAGE_SIZE);
+    page.dirty = false;
+  }
+
+  private void readFully(ByteBuffer buffer, long position) throws IOException {
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, position + buffer.position()) < 0) {
+        throw new IOException("The page file ended unexpectedly.");
+      }
+    }
+  }
+
+  private void writeFully(ByteBuffer buffer, long position) throws IOException {
+    while (buffer.hasRemaining()) {
+      channel.write(buffer, position + buffer.position());
+    }
+  }
+}
@@ -0,0 +1,170 @@
+package utilities;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saves files without ever leaving a half-written file behind.
+ *
+ * <p>Every file is written to a temporary file next to it, synced to disk, and
+ * then renamed over the old file in one step, so the old or the new version is
+ * always there in full, even if the application or the machine stops halfway.
+ *
+ * <p>Saves can also be run on a background thread with {@link #save}. The
+ * content is formatted on that thread as well. If a file is saved again before
+ * the previous save of it has started, only the newest content is written.
+ *
+ * @author Dennis Moe
+ */
+public class PersistenceWriter implements Closeable {
+
+  private final ExecutorService executor;
+  private final Map<Path, PendingSave> pendingSaves = new HashMap<>();
+  private boolean closed;
+
+  /**
+   * Writes the content of a file.
+   */
+  @FunctionalInterface
+  public interface ContentWriter {
+    /**
+     * Writes the content to the given Writer.
+     *
+     * @param writer the Writer to write to
+     * @throws IOException if writing fails
+     */
+    void write(Writer writer) throws IOException;
+  }
+
+  /**
+   * A save that has been requested but not started yet.
+   */
+  private static final class PendingSave {
+    private ContentWriter content;
+    private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+    private PendingSave(ContentWriter content) {
+      this.content = content;
+    }
+  }
+
+  /**
+   * Constructs a new PersistenceWriter with its own background thread.
+   */
+  public PersistenceWriter() {
+    this.executor = Executors.newSingleThreadExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "persistence-writer");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Saves a file on the background thread.
+   * The content is written on the background thread too, so it must only read
+   * data that is not changed after this call, such as a copy of the data.
+   *
+   * @param filePath the path of the file to save
+   * @param content  writes the content of the file, on the background thread
+   * @return a future that completes when the file is on disk, or completes
+   *         exceptionally if the save failed
+   */
+  public CompletableFuture<Void> save(String filePath, ContentWriter content) {
+    Path path = Path.of(filePath).toAbsolutePath();
+    synchronized (pendingSaves) {
+      if (closed) {
+        return CompletableFuture.failedFuture(
+            new IllegalStateException("The persistence writer is closed."));
+      }
+      PendingSave pendingSave = pendingSaves.get(path);
+      if (pendingSave != null) {
+        pendingSave.content = content;
+        return pendingSave.future;
+      }
+      pendingSave = new PendingSave(content);
+      pendingSaves.put(path, pendingSave);
+      executor.execute(() -> writePending(path));
+      return pendingSave.future;
+    }
+  }
+
+  /**
+   * Writes every save that has been requested and stops the background thread.
+   */
+  @Override
+  public void close() {
+    synchronized (pendingSaves) {
+      closed = true;
+    }
+    executor.shutdown();
+    try {
+      while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+        System.err.println("Still waiting for files to be saved...");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Writes a file through a temporary file, so the file is either fully
+   * replaced or left as it was. Files ending with
+   * {@value CompressionUtility#GZIP_EXTENSION} are written gzip compressed.
+   *
+   * @param filePath the path of the file to write
+   * @param content  writes the content of the file
+   * @throws IOException if the file could not be written; the old file is then
+   *                     left untouched
+   */
+  public static void writeAtomically(String filePath, ContentWriter content)
+      throws IOException {
+    Path target = Path.of(filePath).toAbsolutePath();
+    Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(),
+        ".tmp");
+    try {
+      try (Writer writer = CompressionUtility.openWriter(Files.newOutputStream(temp),
+          CompressionUtility.isGzipPath(filePath))) {
+        content.write(writer);
+      }
+      try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+        channel.force(true);
+      }
+
+      try {
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE,
+            StandardCopyOption.REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } catch (IOException | RuntimeException e) {
+      Files.deleteIfExists(temp);
+      throw e;
+    }
+  }
+
+  private void writePending(Path path) {
+    PendingSave pendingSave;
+    synchronized (pendingSaves) {
+      pendingSave = pendingSaves.remove(path);
+    }
+    try {
+      writeAtomically(path.toString(), pendingSave.content);
+      pendingSave.future.complete(null);
+    } catch (IOException | RuntimeException e) {
+      pendingSave.future.completeExceptionally(e);
+    }
+  }
+}
@@ -0,0 +1,85 @@
+package utilities;
+
+/**
+ * Utility class for fixed-point quantities.
+ * A quantity is kept as a long number of micro-units of its measuring unit, so
+ * 0.25 kg is 250 000. Adding and subtracting quantities is then exact, and a
+ * quantity that is used up is exactly zero.
+ *
+ * <p>A double with at most six decimals, such as the quantities read from the
+ * data files, converts to micro-units and back without any change.
+ *
+ * @author Dennis Moe
+ */
+public class Quantity {
+
+  public static final long MICROS_PER_UNIT = 1_000_000L;
+
+  private static final double MICROS_PER_UNIT_DOUBLE = 1_000_000.0;
+
+  /**
+   * Converts a quantity to micro-units, rounding to the nearest micro-unit.
+   *
+   * @param quantity the quantity in units
+   * @return the quantity in micro-units
+   */
+  public static long toMicros(double quantity) {
+    return Math.round(quantity * MICROS_PER_UNIT_DOUBLE);
+  }
+
+  /**
+   * Converts a quantity in micro-units to units.
+   *
+   * @param micros the quantity in micro-units
+   * @return the quantity in units
+   */
+  public static double toDouble(long micros) {
+    return micros / MICROS_PER_UNIT_DOUBLE;
+  }
+
+  /**
+   * Converts a quantity in micro-units from one measuring unit to another,
+   * rounding to the nearest micro-unit of the new unit.
+   *
+   * @param micros            the quantity in micro-units of the first unit
+   * @param fromMeasuringUnit the unit to convert from
+   * @param toMeasuringUnit   the unit to convert to
+   * @return the converted quantity, or -1 if the conversion is not possible
+   */
+  public static long convert(long micros, String fromMeasuringUnit, String toMeasuringUnit) {
+    double factor = UnitUtility.getConversionFactor(fromMeasuringUnit, toMeasuringUnit);
+    if (Double.isNaN(factor)) {
+      return -1;
+    }
+    return factor == 1.0 ? micros : Math.round(micros * factor);
+  }
+
+  /**
+   * Formats a quantity in micro-units as a decimal number, with all the
+   * decimals it has but at least the given number, e.g. "0.125" or "2.0".
+   *
+   * @param micros            the quantity in micro-units
+   * @param minFractionDigits the smallest number of decimals to write, 1 to 6
+   * @return the quantity as a decimal number
+   */
+  public static String format(long micros, int minFractionDigits) {
+    StringBuilder sb = new StringBuilder(24);
+    if (micros < 0) {
+      sb.append('-');
+    }
+    long whole = Math.abs(micros / MICROS_PER_UNIT);
+    long fraction = Math.abs(micros % MICROS_PER_UNIT);
+    sb.append(whole).append('.');
+
+    int fractionDigits = 6;
+    while (fractionDigits > minFractionDigits && fraction % 10 == 0) {
+      fraction /= 10;
+      fractionDigits--;
+    }
+    String digits = Long.toString(fraction);
+    for (int i = digits.length(); i < fractionDigits; i++) {
+      sb.append('0');
+    }
+    return sb.append(digits).toString();
+  }
+}
@@ -0,0 +1,344 @@
+package utilities;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import models.Recipe;
+
+/**
+ * Loads the description and instructions of recipes from their CSV file when
+ * they are needed, instead of keeping them in memory.
+ *
+ * <p>While the file is scanned, the byte position of every recipe row is
+ * remembered. The description and instructions are only hashed, straight from
+ * the bytes of the file, and the other fields are split into a tokenizer that is
+ * reused for every row. Asking for the text of a recipe reads and parses only
+ * its row.
+ * The text of the most recently used recipes is kept in a cache of bounded
+ * size, so showing the same recipe again does not read the file.
+ *
+ * <p>The file is kept open as long as the index is, so the rows can still be
+ * read after the file has been replaced by a newer version on disk. A file that
+ * is changed in place must be indexed again, since the positions no longer
+ * match its rows. Only plain files can be indexed, compressed files have no
+ * usable byte positions.
+ *
+ * @author Dennis Moe
+ */
+public class RecipeTextIndex implements Recipe.TextSource, Closeable {
+
+  /**
+   * The default number of recipes whose text is cached.
+   */
+  public static final int DEFAULT_CACHE_SIZE = 256;
+
+  private static final int DESCRIPTION_FIELD = 1;
+  private static final int INSTRUCTIONS_FIELD = 2;
+  private static final String[] NO_TEXT = { "", "" };
+
+  private final FileChannel channel;
+  private final Map<String, RowPosition> positions = new HashMap<>();
+  private final Map<String, String[]> cache;
+
+  /**
+   * Where the row of a recipe is in the file.
+   */
+  private static final class RowPosition {
+    private final long offset;
+    private final int length;
+    private final int textHash;
+
+    private RowPosition(long offset, int length, int textHash) {
+      this.offset = offset;
+      this.length = length;
+      this.textHash = textHash;
+    }
+  }
+
+  /**
+   * Splits the bytes of a row into fields, the way {@link CsvTokenizer} does,
+   * while the file is scanned. The fields are decoded from UTF-8 into the
+   * tokenizer, except the description and instructions, which are only hashed.
+   */
+  private static final class RowScanner {
+    private final CsvTokenizer tokenizer = new CsvTokenizer(Reader.nullReader(), 1);
+    private boolean inQuotes;
+    private boolean quoteClosed;
+    private int field;
+    private int codePoint;
+    private int pendingBytes;
+    private int hash;
+    private int trimmedHash;
+    private boolean textStarted;
+    private int descriptionHash;
+    private int instructionsHash;
+
+    private RowScanner() {
+      tokenizer.startRow();
+    }
+
+    private void add(byte b) {
+      if (b == '"') {
+        if (inQuotes) {
+          inQuotes = false;
+          quoteClosed = true;
+        } else {
+          inQuotes = true;
+          if (quoteClosed) {
+            addChar('"');
+            quoteClosed = false;
+          }
+        }
+        return;
+      }
+      quoteClosed = false;
+      if (b == ',' && !inQuotes) {
+        endField();
+      } else if (b >= 0) {
+        pendingBytes = 0;
+        addChar((char) b);
+      } else if ((b & 0xC0) != 0x80) {
+        pendingBytes = (b & 0xE0) == 0xC0 ? 1 : (b & 0xF0) == 0xE0 ? 2 : 3;
+        codePoint = b & (0x3F >> pendingBytes);
+      } else if (pendingBytes > 0) {
+        codePoint = codePoint << 6 | (b & 0x3F);
+        if (--pendingBytes == 0) {
+          if (Character.isBmpCodePoint(codePoint)) {
+            addChar((char) codePoint);
+          } else {
+            addChar(Character.highSurrogate(codePoint));
+            addChar(Character.lowSurrogate(codePoint));
+          }
+        }
+      }
+    }
+
+    /**
+     * Adds a char to the current field. The text fields are hashed as
+     * {@link String#hashCode} would hash them after {@link String#trim}.
+     */
+    private void addChar(char c) {
+      if (field != DESCRIPTION_FIELD && field != INSTRUCTIONS_FIELD) {
+        tokenizer.appendToField(c);
+      } else if (c > ' ' || textStarted) {
+        hash = 31 * hash + c;
+        if (c > ' ') {
+          textStarted = true;
+          trimmedHash = hash;
+        }
+      }
+    }
+
+    private void endField() {
+      if (field == DESCRIPTION_FIELD) {
+        descriptionHash = trimmedHash;
+      } else if (field == INSTRUCTIONS_FIELD) {
+        instructionsHash = trimmedHash;
+      }
+      hash = 0;
+      trimmedHash = 0;
+      textStarted = false;
+      tokenizer.endRowField();
+      field++;
+    }
+
+    /**
+     * Gets the hash of the text of the row, see {@link #textHash(String, String)}.
+     */
+    private int textHash() {
+      return field > INSTRUCTIONS_FIELD ? 31 * descriptionHash + instructionsHash : 0;
+    }
+
+    private void reset() {
+      field = 0;
+      quoteClosed = false;
+      pendingBytes = 0;
+      tokenizer.startRow();
+    }
+  }
+
+  /**
+   * Opens a recipe CSV file for indexing.
+   *
+   * @param filePath  the path of the recipe CSV file
+   * @param cacheSize the number of recipes whose text is cached
+   * @throws IOException if the file can not be opened
+   */
+  public RecipeTextIndex(String filePath, int cacheSize) throws IOException {
+    if (cacheSize <= 0) {
+      throw new IllegalArgumentException("Cache size must be greater than zero.");
+    }
+    this.channel = FileChannel.open(Path.of(filePath), StandardOpenOption.READ);
+    this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, String[]> eldest) {
+        return size() > cacheSize;
+      }
+    };
+  }
+
+  /**
+   * Reads every row after the header, remembers where it is in the file under
+   * the recipe name in its first field, and passes it to the handler. If a name
+   * is used more than once, the first row with it is kept. The handler gets the
+   * description and instructions fields empty; they are read when asked for.
+   *
+   * @param handler the handler to receive the rows
+   * @throws IOException if the file can not be read
+   */
+  public void scan(CsvTokenizer.RowHandler handler) throws IOException {
+    InputStream in = Channels.newInputStream(channel.position(0));
+    byte[] buffer = new byte[CompressionUtility.getBufferSize()];
+    RowScanner row = new RowScanner();
+    long offset = 0;
+    long rowStart = 0;
+    boolean header = true;
+
+    int read;
+    while ((read = in.read(buffer)) != -1) {
+      for (int i = 0; i < read; i++) {
+        byte b = buffer[i];
+        offset++;
+        if ((b == '\n' || b == '\r') && !row.inQuotes) {
+          header = handleRow(row, rowStart, (int) (offset - 1 - rowStart), header, handler);
+          rowStart = offset;
+        } else {
+          row.add(b);
+        }
+      }
+    }
+    handleRow(row, rowStart, (int) (offset - rowStart), header, handler);
+  }
+
+  /**
+   * Passes the scanned row on, unless it is blank or the header.
+   *
+   * @return false once the header has been passed
+   */
+  private boolean handleRow(RowScanner row, long rowStart, int length, boolean header,
+      CsvTokenizer.RowHandler handler) {
+    if (length == 0) {
+      return header;
+    }
+    row.endField();
+    if (!header) {
+      synchronized (this) {
+        positions.putIfAbsent(row.tokenizer.getString(0).trim(),
+            new RowPosition(rowStart, length, row.textHash()));
+      }
+      handler.handleRow(row.tokenizer);
+    }
+    row.reset();
+    return false;
+  }
+
+  @Override
+  public String getDescription(String recipeName) {
+    return getText(recipeName)[0];
+  }
+
+  @Override
+  public String getInstructions(String recipeName) {
+    return getText(recipeName)[1];
+  }
+
+  /**
+   * Gets the hash of the description and instructions of a recipe as they were
+   * when the file was scanned, without reading them.
+   *
+   * @param recipeName the name of the recipe
+   * @return the hash of the text, see {@link #textHash(String, String)}, or 0
+   *         if the recipe is not in the index
+   */
+  public synchronized int getTextHash(String recipeName) {
+    RowPosition position = positions.get(recipeName);
+    return position == null ? 0 : position.textHash;
+  }
+
+  /**
+   * Hashes the description and instructions of a recipe, so the text of two
+   * recipes can be compared without keeping it.
+   *
+   * @param description  the description of the recipe
+   * @param instructions the instructions of the recipe
+   * @return the hash of the text
+   */
+  public static int textHash(String description, String instructions) {
+    return 31 * Objects.hashCode(description) + Objects.hashCode(instructions);
+  }
+
+  /**
+   * Gets the number of recipes whose text is currently cached.
+   *
+   * @return the number of cached recipes
+   */
+  public synchronized int getCachedCount() {
+    return cache.size();
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  private synchronized String[] getText(String recipeName) {
+    String[] text = cache.get(recipeName);
+    if (text == null) {
+      text = readText(recipeName);
+      if (text == null) {
+        return NO_TEXT;
+      }
+      cache.put(recipeName, text);
+    }
+    return text;
+  }
+
+  private String[] readText(String recipeName) {
+    RowPosition position = positions.get(recipeName);
+    if (position == null) {
+      return NO_TEXT;
+    }
+    try {
+      ByteBuffer buffer = ByteBuffer.allocate(position.length);
+      while (buffer.hasRemaining()) {
+        if (channel.read(buffer, position.offset + buffer.position()) < 0) {
+          throw new IOException("The recipe file ended before the recipe.");
+        }
+      }
+      CsvTokenizer tokenizer = parseRow(new String(buffer.array(), StandardCharsets.UTF_8));
+      if (tokenizer == null || tokenizer.getFieldCount() <= INSTRUCTIONS_FIELD) {
+        throw new IOException("The recipe row is no longer valid.");
+      }
+      return new String[] {
+          tokenizer.getString(DESCRIPTION_FIELD).trim(),
+          tokenizer.getString(INSTRUCTIONS_FIELD).trim()
+      };
+    } catch (IOException e) {
+      System.err.println("Error reading the text of recipe '" + recipeName + "': "
+          + e.getMessage());
+      return null;
+    }
+  }
+
+  private static CsvTokenizer parseRow(String row) {
+    CsvTokenizer tokenizer = new CsvTokenizer(new StringReader(row), row.length());
+    try {
+      return tokenizer.nextRow() ? tokenizer : null;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
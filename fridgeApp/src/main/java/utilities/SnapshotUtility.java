@@ -0,0 +1,418 @@
+package utilities;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import models.CookBook;
+import models.FoodList;
+import models.Fridge;
+import models.FridgeItem;
+import models.Ingredient;
+import models.Recipe;
+import models.RecipeList;
+import services.CookBookManager;
+import services.FridgeManager;
+import services.RecipeManager;
+
+/**
+ * Utility class for reading and writing all data sets as one binary snapshot.
+ * A snapshot starts with a magic number and a format version, followed by a
+ * dictionary of every String used, and then one section per data set where
+ * every field is stored as a column. Strings are stored once in the
+ * dictionary and referenced by index, numbers are stored as primitives.
+ * Fridge items keep their IDs, so saved changes can refer to them.
+ *
+ * <p>Unlike the CSV files, a snapshot is loaded straight into the models
+ * without going through the checks in the managers, since it can only hold
+ * data that was valid when it was written. CSV is kept as the format to read
+ * and edit by hand, and the two can be converted both ways.
+ *
+ * @author Dennis Moe
+ */
+public class SnapshotUtility {
+
+  /**
+   * "FRDG" in ASCII.
+   */
+  private static final int MAGIC = 0x46524447;
+  private static final int VERSION = 2;
+
+  /**
+   * Version 1 did not store the IDs of the fridge items.
+   */
+  private static final int VERSION_WITHOUT_IDS = 1;
+
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  /**
+   * Assigns each distinct String an index, in the order they are first seen.
+   */
+  private static final class StringDictionary {
+    private final Map<String, Integer> indexes = new LinkedHashMap<>();
+
+    private int indexOf(String value) {
+      return indexes.computeIfAbsent(value, k -> indexes.size());
+    }
+  }
+
+  /**
+   * Writes all data sets to a snapshot file.
+   *
+   * @param filePath    the path of the snapshot file to write to
+   * @param foodList    the ingredients to write
+   * @param fridgeItems the fridge items to write
+   * @param recipes     the recipes to write
+   * @param cookBooks   the cookbooks to write
+   * @throws IOException if the file can not be written
+   */
+  public static void writeSnapshot(String filePath, FoodList foodList,
+      List<FridgeItem> fridgeItems, Collection<Recipe> recipes,
+      Map<String, CookBook> cookBooks) throws IOException {
+    Collection<Ingredient> ingredients = foodList.getFoodList().values();
+    StringDictionary dictionary = new StringDictionary();
+
+    int[] ingredientNames = new int[ingredients.size()];
+    int[] ingredientCategories = new int[ingredients.size()];
+    int[] ingredientUnits = new int[ingredients.size()];
+    int i = 0;
+    for (Ingredient ingredient : ingredients) {
+      ingredientNames[i] = dictionary.indexOf(ingredient.getIngredientName());
+      ingredientCategories[i] = dictionary.indexOf(ingredient.getIngredientCategory());
+      ingredientUnits[i] = dictionary.indexOf(ingredient.getIngredientMeasuringUnit());
+      i++;
+    }
+
+    int[] itemNames = new int[fridgeItems.size()];
+    for (i = 0; i < itemNames.length; i++) {
+      itemNames[i] = dictionary.indexOf(fridgeItems.get(i).getIngredient().getIngredientName());
+    }
+
+    int[][] recipeStrings = new int[4][recipes.size()];
+    int[] recipeIngredientCounts = new int[recipes.size()];
+    List<Integer> recipeIngredientNames = new ArrayList<>();
+    List<Double> recipeIngredientQuantities = new ArrayList<>();
+    i = 0;
+    for (Recipe recipe : recipes) {
+      recipeStrings[0][i] = dictionary.indexOf(recipe.getRecipeName());
+      recipeStrings[1][i] = dictionary.indexOf(recipe.getRecipeDescription());
+      recipeStrings[2][i] = dictionary.indexOf(recipe.getInstructions());
+      recipeStrings[3][i] = dictionary.indexOf(recipe.getRecipeType());
+      recipeIngredientCounts[i] = recipe.getIngredients().size();
+      for (Map.Entry<String, Double> entry : recipe.getIngredients().entrySet()) {
+        recipeIngredientNames.add(dictionary.indexOf(entry.getKey()));
+        recipeIngredientQuantities.add(entry.getValue());
+      }
+      i++;
+    }
+
+    int[][] cookBookStrings = new int[3][cookBooks.size()];
+    int[] cookBookRecipeCounts = new int[cookBooks.size()];
+    List<Integer> cookBookRecipeNames = new ArrayList<>();
+    i = 0;
+    for (CookBook cookBook : cookBooks.values()) {
+      cookBookStrings[0][i] = dictionary.indexOf(cookBook.getCookBookName());
+      cookBookStrings[1][i] = dictionary.indexOf(cookBook.getCookBookDescription());
+      cookBookStrings[2][i] = dictionary.indexOf(cookBook.getCookBookType());
+      cookBookRecipeCounts[i] = cookBook.getRecipeCount();
+      for (String recipeName : cookBook.getRecipesInCookBook().keySet()) {
+        cookBookRecipeNames.add(dictionary.indexOf(recipeName));
+      }
+      i++;
+    }
+
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+        new FileOutputStream(filePath), BUFFER_SIZE))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+
+      out.writeInt(dictionary.indexes.size());
+      for (String value : dictionary.indexes.keySet()) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+      }
+
+      out.writeInt(ingredients.size());
+      writeInts(out, ingredientNames);
+      writeInts(out, ingredientCategories);
+      for (Ingredient ingredient : ingredients) {
+        out.writeDouble(ingredient.getIngredientBaseWeight());
+      }
+      writeInts(out, ingredientUnits);
+      for (Ingredient ingredient : ingredients) {
+        out.writeDouble(ingredient.getIngredientCost());
+      }
+
+      out.writeInt(fridgeItems.size());
+      for (FridgeItem item : fridgeItems) {
+        out.writeInt(item.getId());
+      }
+      writeInts(out, itemNames);
+      for (FridgeItem item : fridgeItems) {
+        out.writeDouble(item.getQuantity());
+      }
+      for (FridgeItem item : fridgeItems) {
+        out.writeLong(item.getExpirationDate());
+      }
+
+      out.writeInt(recipes.size());
+      for (int[] column : recipeStrings) {
+        writeInts(out, column);
+      }
+      writeInts(out, recipeIngredientCounts);
+      for (int name : recipeIngredientNames) {
+        out.writeInt(name);
+      }
+      for (double quantity : recipeIngredientQuantities) {
+        out.writeDouble(quantity);
+      }
+
+      out.writeInt(cookBooks.size());
+      for (int[] column : cookBookStrings) {
+        writeInts(out, column);
+      }
+      writeInts(out, cookBookRecipeCounts);
+      for (int name : cookBookRecipeNames) {
+        out.writeInt(name);
+      }
+    }
+  }
+
+  /**
+   * Reads a snapshot file and adds its contents to the given lists and managers.
+   * The whole file is read and checked before anything is added, so a damaged
+   * snapshot leaves the data untouched.
+   *
+   * @param filePath        the path of the snapshot file to read from
+   * @param foodList        the FoodList to add the ingredients to
+   * @param fridgeManager   the FridgeManager to add the fridge items to
+   * @param recipeManager   the RecipeManager to add the recipes to
+   * @param cookBookManager the CookBookManager to add the cookbooks to
+   * @return an array with the number of ingredients, fridge items, recipes and
+   *         cookbooks loaded
+   * @throws IOException if the file can not be read or is not a valid snapshot
+   */
+  public static int[] readSnapshot(String filePath, FoodList foodList,
+      FridgeManager fridgeManager, RecipeManager recipeManager,
+      CookBookManager cookBookManager) throws IOException {
+    ByteBuffer in;
+    try (FileChannel channel = FileChannel.open(Path.of(filePath), StandardOpenOption.READ)) {
+      if (channel.size() > Integer.MAX_VALUE) {
+        throw new IOException("Snapshot is too large to read: " + filePath);
+      }
+      in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+
+    List<Ingredient> ingredients = new ArrayList<>();
+    List<Recipe> recipes = new ArrayList<>();
+    List<CookBook> cookBooks = new ArrayList<>();
+    List<String[]> cookBookRecipes = new ArrayList<>();
+    int[] itemIds;
+    String[] itemNames;
+    double[] itemQuantities;
+    long[] itemDates;
+
+    try {
+      if (in.getInt() != MAGIC) {
+        throw new IOException("Not a snapshot file: " + filePath);
+      }
+      int version = in.getInt();
+      if (version != VERSION && version != VERSION_WITHOUT_IDS) {
+        throw new IOException("Unsupported snapshot version " + version + ": " + filePath);
+      }
+
+      String[] dictionary = new String[in.getInt()];
+      for (int i = 0; i < dictionary.length; i++) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        dictionary[i] = new String(bytes, StandardCharsets.UTF_8);
+      }
+
+      int ingredientCount = in.getInt();
+      String[] names = readStrings(in, dictionary, ingredientCount);
+      String[] categories = readStrings(in, dictionary, ingredientCount);
+      double[] baseWeights = readDoubles(in, ingredientCount);
+      String[] units = readStrings(in, dictionary, ingredientCount);
+      double[] costs = readDoubles(in, ingredientCount);
+      for (int i = 0; i < ingredientCount; i++) {
+        ingredients.add(new Ingredient(names[i], categories[i], baseWeights[i], units[i],
+            costs[i]));
+      }
+
+      int itemCount = in.getInt();
+      itemIds = version == VERSION_WITHOUT_IDS ? null : readInts(in, itemCount);
+      itemNames = readStrings(in, dictionary, itemCount);
+      itemQuantities = readDoubles(in, itemCount);
+      itemDates = new long[itemCount];
+      for (int i = 0; i < itemCount; i++) {
+        itemDates[i] = in.getLong();
+      }
+
+      int recipeCount = in.getInt();
+      String[] recipeNames = readStrings(in, dictionary, recipeCount);
+      String[] descriptions = readStrings(in, dictionary, recipeCount);
+      String[] instructions = readStrings(in, dictionary, recipeCount);
+      String[] types = readStrings(in, dictionary, recipeCount);
+      int[] ingredientCounts = readInts(in, recipeCount);
+      int totalIngredients = 0;
+      for (int count : ingredientCounts) {
+        totalIngredients += count;
+      }
+      String[] ingredientNames = readStrings(in, dictionary, totalIngredients);
+      double[] quantities = readDoubles(in, totalIngredients);
+      int next = 0;
+      for (int i = 0; i < recipeCount; i++) {
+        Recipe recipe = new Recipe(recipeNames[i], descriptions[i], instructions[i], types[i]);
+        for (int j = 0; j < ingredientCounts[i]; j++, next++) {
+          recipe.addIngredient(ingredientNames[next], quantities[next]);
+        }
+        recipes.add(recipe);
+      }
+
+      int cookBookCount = in.getInt();
+      String[] cookBookNames = readStrings(in, dictionary, cookBookCount);
+      String[] cookBookDescriptions = readStrings(in, dictionary, cookBookCount);
+      String[] cookBookTypes = readStrings(in, dictionary, cookBookCount);
+      int[] recipeCounts = readInts(in, cookBookCount);
+      for (int i = 0; i < cookBookCount; i++) {
+        cookBooks.add(new CookBook(cookBookNames[i], cookBookDescriptions[i], cookBookTypes[i]));
+        cookBookRecipes.add(readStrings(in, dictionary, recipeCounts[i]));
+      }
+    } catch (BufferUnderflowException | IndexOutOfBoundsException
+        | NegativeArraySizeException e) {
+      throw new IOException("Snapshot file is damaged: " + filePath, e);
+    }
+
+    Map<String, Ingredient> ingredientsByName = new HashMap<>();
+    for (Ingredient ingredient : ingredients) {
+      foodList.addIngredient(ingredient);
+      ingredientsByName.put(ingredient.getIngredientName(), ingredient);
+    }
+
+    List<FridgeItem> fridgeItems = new ArrayList<>(itemNames.length);
+    for (int i = 0; i < itemNames.length; i++) {
+      Ingredient ingredient = ingredientsByName.get(itemNames[i]);
+      if (ingredient != null) {
+        fridgeItems.add(itemIds == null
+            ? new FridgeItem(ingredient, itemQuantities[i], itemDates[i])
+            : new FridgeItem(itemIds[i], ingredient, itemQuantities[i], itemDates[i]));
+      }
+    }
+    fridgeManager.addFridgeItems(fridgeItems);
+
+    recipes.forEach(recipeManager::addRecipe);
+
+    for (int i = 0; i < cookBooks.size(); i++) {
+      CookBook cookBook = cookBooks.get(i);
+      cookBookManager.createCookBook(cookBook.getCookBookName(),
+          cookBook.getCookBookDescription(), cookBook.getCookBookType());
+      CookBook created = cookBookManager.getCookBook(cookBook.getCookBookName());
+      for (String recipeName : cookBookRecipes.get(i)) {
+        Recipe recipe = recipeManager.getRecipeObjectByName(recipeName);
+        if (recipe != null) {
+          created.addRecipe(recipe);
+        }
+      }
+    }
+
+    return new int[] { ingredients.size(), fridgeItems.size(), recipes.size(), cookBooks.size() };
+  }
+
+  /**
+   * Converts the four CSV files to a snapshot.
+   *
+   * @param foodListCsv    the path of the food list CSV file
+   * @param fridgeItemsCsv the path of the fridge items CSV file
+   * @param recipesCsv     the path of the recipes CSV file
+   * @param cookBooksCsv   the path of the cookbooks CSV file
+   * @param snapshotPath   the path of the snapshot file to write
+   * @throws IOException if the snapshot can not be written
+   */
+  public static void convertCsvToSnapshot(String foodListCsv, String fridgeItemsCsv,
+      String recipesCsv, String cookBooksCsv, String snapshotPath) throws IOException {
+    FoodList foodList = new FoodList();
+    Fridge fridge = new Fridge();
+    RecipeList recipeList = new RecipeList();
+    FridgeManager fridgeManager = new FridgeManager(fridge, foodList);
+    RecipeManager recipeManager = new RecipeManager(recipeList, fridgeManager);
+    CookBookManager cookBookManager = new CookBookManager(recipeList);
+
+    CsvUtility.readIngredientsFromCsv(foodListCsv).values().forEach(foodList::addIngredient);
+    CsvUtility.readFridgeItemsFromCsv(fridgeItemsCsv, fridgeManager);
+    CsvUtility.readRecipesFromCsv(recipesCsv, recipeManager);
+    CsvUtility.readCookBooksFromCsv(cookBooksCsv, cookBookManager);
+
+    writeSnapshot(snapshotPath, foodList, fridge.getAllFridgeItems(),
+        recipeList.getAllRecipes().values(), cookBookManager.getAllCookBooks());
+  }
+
+  /**
+   * Converts a snapshot to the four CSV files.
+   *
+   * @param snapshotPath   the path of the snapshot file to read
+   * @param foodListCsv    the path of the food list CSV file to write
+   * @param fridgeItemsCsv the path of the fridge items CSV file to write
+   * @param recipesCsv     the path of the recipes CSV file to write
+   * @param cookBooksCsv   the path of the cookbooks CSV file to write
+   * @throws IOException if the snapshot can not be read
+   */
+  public static void convertSnapshotToCsv(String snapshotPath, String foodListCsv,
+      String fridgeItemsCsv, String recipesCsv, String cookBooksCsv) throws IOException {
+    FoodList foodList = new FoodList();
+    Fridge fridge = new Fridge();
+    RecipeList recipeList = new RecipeList();
+    FridgeManager fridgeManager = new FridgeManager(fridge, foodList);
+    RecipeManager recipeManager = new RecipeManager(recipeList, fridgeManager);
+    CookBookManager cookBookManager = new CookBookManager(recipeList);
+
+    readSnapshot(snapshotPath, foodList, fridgeManager, recipeManager, cookBookManager);
+
+    CsvUtility.writeIngredientsToCsv(foodListCsv, foodList.getFoodList());
+    CsvUtility.writeFridgeItemsToCsv(fridgeItemsCsv, fridge.getAllFridgeItems());
+    CsvUtility.writeRecipesToCsv(recipesCsv,
+        recipeList.getAllRecipes().values().stream().toList());
+    CsvUtility.writeCookBooksToCsv(cookBooksCsv, cookBookManager.getAllCookBooks());
+  }
+
+  private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+    for (int value : values) {
+      out.writeInt(value);
+    }
+  }
+
+  private static int[] readInts(ByteBuffer in, int count) {
+    int[] values = new int[count];
+    in.asIntBuffer().get(values);
+    in.position(in.position() + count * Integer.BYTES);
+    return values;
+  }
+
+  private static double[] readDoubles(ByteBuffer in, int count) {
+    double[] values = new double[count];
+    in.asDoubleBuffer().get(values);
+    in.position(in.position() + count * Double.BYTES);
+    return values;
+  }
+
+  private static String[] readStrings(ByteBuffer in, String[] dictionary, int count) {
+    int[] indexes = readInts(in, count);
+    String[] values = new String[count];
+    for (int i = 0; i < count; i++) {
+      values[i] = dictionary[indexes[i]];
+    }
+    return values;
+  }
+}
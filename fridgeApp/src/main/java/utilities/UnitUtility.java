@@ -1,11 +1,21 @@
 package utilities;
 
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Utility class for unit conversion.
  * Checks type of unit and converts between them.
  * Will convert between same type of units: i.e. from "kg" to "g", or "L" to
  * "mL", but not from grams to liters.
- * Does this for grams, kilograms, liters, centiliters and milliliters.
+ *
+ * <p>Every unit is registered with a dimension and its size in the base unit of
+ * that dimension: grams for weight, milliliters for volume and pieces for
+ * counts. The factor between every pair of units is worked out when a unit is
+ * registered, so a conversion is a map lookup for each unit, an array lookup
+ * and a multiplication. More units can be added with
+ * {@link #registerUnit(String, Dimension, double)}.
  *
  * @author Dennis Moe
  */
@@ -22,8 +32,111 @@ public class UnitUtility {
   public static final double LITER_TO_MILLILITER = 1000;
   public static final double CENTILITER_TO_MILLILITER = 10;
 
-  private static final String[] WEIGHT_UNITS = { "g", "kg" };
-  private static final String[] VOLUME_UNITS = { "mL", "cL", "L" };
+  /**
+   * The kinds of quantity a unit can measure. Units can only be converted to
+   * units of the same dimension.
+   */
+  public enum Dimension {
+    WEIGHT, VOLUME, COUNT
+  }
+
+  /**
+   * The registered units, replaced as a whole when a unit is added so readers
+   * never see a half-built table.
+   */
+  private static volatile UnitTable table = new UnitTable();
+
+  static {
+    registerUnit("g", Dimension.WEIGHT, 1);
+    registerUnit("kg", Dimension.WEIGHT, 1000);
+    registerUnit("oz", Dimension.WEIGHT, 28.349523125);
+    registerUnit("lb", Dimension.WEIGHT, 453.59237);
+
+    registerUnit("mL", Dimension.VOLUME, 1);
+    registerUnit("cL", Dimension.VOLUME, 10);
+    registerUnit("dL", Dimension.VOLUME, 100);
+    registerUnit("L", Dimension.VOLUME, 1000);
+    registerUnit("tsp", Dimension.VOLUME, 5);
+    registerUnit("tbsp", Dimension.VOLUME, 15);
+
+    registerUnit("pieces", Dimension.COUNT, 1);
+    registerUnit("amount", Dimension.COUNT, 1);
+  }
+
+  /**
+   * The unit symbols with their index, and the factor between every pair of
+   * units by index. Pairs of different dimensions have the factor NaN.
+   */
+  private static final class UnitTable {
+    private final Map<String, Integer> indexBySymbol;
+    private final Dimension[] dimensions;
+    private final double[] factorsToBase;
+    private final double[][] factors;
+
+    private UnitTable() {
+      this(new HashMap<>(), new Dimension[0], new double[0]);
+    }
+
+    private UnitTable(Map<String, Integer> indexBySymbol, Dimension[] dimensions,
+        double[] factorsToBase) {
+      this.indexBySymbol = indexBySymbol;
+      this.dimensions = dimensions;
+      this.factorsToBase = factorsToBase;
+      this.factors = new double[dimensions.length][dimensions.length];
+      for (int from = 0; from < dimensions.length; from++) {
+        for (int to = 0; to < dimensions.length; to++) {
+          factors[from][to] = dimensions[from] == dimensions[to]
+              ? factorsToBase[from] / factorsToBase[to]
+              : Double.NaN;
+        }
+      }
+    }
+
+    private UnitTable with(String symbol, Dimension dimension, double factorToBase) {
+      Map<String, Integer> symbols = new HashMap<>(indexBySymbol);
+      Integer existing = symbols.get(symbol);
+      int index = existing != null ? existing : dimensions.length;
+      int size = Math.max(dimensions.length, index + 1);
+      Dimension[] newDimensions = Arrays.copyOf(dimensions, size);
+      double[] newFactors = Arrays.copyOf(factorsToBase, size);
+      symbols.put(symbol, index);
+      newDimensions[index] = dimension;
+      newFactors[index] = factorToBase;
+      return new UnitTable(symbols, newDimensions, newFactors);
+    }
+  }
+
+  /**
+   * Registers a measuring unit, or changes a unit that is already registered.
+   *
+   * @param symbol       the symbol of the unit, e.g. "dL", case-sensitive
+   * @param dimension    what the unit measures
+   * @param factorToBase the size of the unit in grams, milliliters or pieces
+   * @throws IllegalArgumentException if the symbol is blank or the factor is
+   *                                  not a positive number
+   */
+  public static synchronized void registerUnit(String symbol, Dimension dimension,
+      double factorToBase) {
+    if (symbol == null || symbol.isBlank()) {
+      throw new IllegalArgumentException("The unit symbol cannot be blank.");
+    }
+    if (!(factorToBase > 0) || Double.isInfinite(factorToBase)) {
+      throw new IllegalArgumentException("The unit factor must be a positive number.");
+    }
+    table = table.with(symbol, dimension, factorToBase);
+  }
+
+  /**
+   * Gets the dimension of a measuring unit.
+   *
+   * @param measuringUnit the unit symbol
+   * @return the dimension of the unit, or null if the unit is not registered
+   */
+  public static Dimension getDimension(String measuringUnit) {
+    UnitTable current = table;
+    Integer index = current.indexBySymbol.get(measuringUnit);
+    return index == null ? null : current.dimensions[index];
+  }
 
   /**
    * Converts a quantity from one measuring unit to another.
@@ -35,27 +148,35 @@ public class UnitUtility {
    */
   public static double convertUnit(double quantity,
       String fromMeasuringUnit, String toMeasuringUnit) {
-    if (fromMeasuringUnit.equals(toMeasuringUnit)) {
+    UnitTable current = table;
+    Integer from = current.indexBySymbol.get(fromMeasuringUnit);
+    Integer to = current.indexBySymbol.get(toMeasuringUnit);
+    if (from == null || to == null) {
+      return fromMeasuringUnit.equals(toMeasuringUnit) ? quantity : -1;
+    }
+    if (from.intValue() == to.intValue()) {
       return quantity;
-    } else if (fromMeasuringUnit.equals("g") && toMeasuringUnit.equals("kg")) {
-      return quantity * GRAMS_TO_KG;
-    } else if (fromMeasuringUnit.equals("kg") && toMeasuringUnit.equals("g")) {
-      return quantity * KG_TO_GRAMS;
-    } else if (fromMeasuringUnit.equals("mL") && toMeasuringUnit.equals("L")) {
-      return quantity * MILLILITERS_TO_LITERS;
-    } else if (fromMeasuringUnit.equals("cL") && toMeasuringUnit.equals("L")) {
-      return quantity * CENTILITERS_TO_LITERS;
-    } else if (fromMeasuringUnit.equals("mL") && toMeasuringUnit.equals("cL")) {
-      return quantity * MILLILITER_TO_CENTILITER;
-    } else if (fromMeasuringUnit.equals("L") && toMeasuringUnit.equals("cL")) {
-      return quantity * LITER_TO_CENTILITER;
-    } else if (fromMeasuringUnit.equals("L") && toMeasuringUnit.equals("mL")) {
-      return quantity * LITER_TO_MILLILITER;
-    } else if (fromMeasuringUnit.equals("cL") && toMeasuringUnit.equals("mL")) {
-      return quantity * CENTILITER_TO_MILLILITER;
-    } else {
-      return -1;
     }
+    double factor = current.factors[from][to];
+    return Double.isNaN(factor) ? -1 : quantity * factor;
+  }
+
+  /**
+   * Gets the number to multiply a quantity by to convert it from one measuring
+   * unit to another.
+   *
+   * @param fromMeasuringUnit the unit to convert from
+   * @param toMeasuringUnit   the unit to convert to
+   * @return the conversion factor, or NaN if the conversion is not possible
+   */
+  public static double getConversionFactor(String fromMeasuringUnit, String toMeasuringUnit) {
+    UnitTable current = table;
+    Integer from = current.indexBySymbol.get(fromMeasuringUnit);
+    Integer to = current.indexBySymbol.get(toMeasuringUnit);
+    if (from == null || to == null) {
+      return fromMeasuringUnit.equals(toMeasuringUnit) ? 1.0 : Double.NaN;
+    }
+    return from.intValue() == to.intValue() ? 1.0 : current.factors[from][to];
   }
 
   /**
@@ -68,28 +189,10 @@ public class UnitUtility {
   public static boolean isValidCompatability(String fromMeasuringUnit, String toMeasuringUnit) {
     if (fromMeasuringUnit.equals(toMeasuringUnit)) {
       return true;
-    } else if (isWeightUnit(fromMeasuringUnit) && isWeightUnit(toMeasuringUnit)) {
-      return true;
-    } else {
-      return isVolumeUnit(fromMeasuringUnit) && isVolumeUnit(toMeasuringUnit);
-    }
-  }
-
-  private static boolean isWeightUnit(String unit) {
-    for (String weightUnit : WEIGHT_UNITS) {
-      if (weightUnit.equals(unit)) {
-        return true;
-      }
-    }
-    return false;
-  }
-
-  private static boolean isVolumeUnit(String unit) {
-    for (String volumeUnit : VOLUME_UNITS) {
-      if (volumeUnit.equals(unit)) {
-        return true;
-      }
     }
-    return false;
+    UnitTable current = table;
+    Integer from = current.indexBySymbol.get(fromMeasuringUnit);
+    Integer to = current.indexBySymbol.get(toMeasuringUnit);
+    return from != null && to != null && current.dimensions[from] == current.dimensions[to];
   }
 }
@@ -0,0 +1,177 @@
+package models;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.util.Map;
+import services.FridgeManager;
+import services.RecipeManager;
+import utilities.BPlusTree;
+import utilities.PageFile;
+import utilities.Quantity;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DiskFridgeTest {
+
+    private Path file;
+    private FoodList foodList;
+    private DiskFridge fridge;
+    private FridgeManager fridgeManager;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = Files.createTempFile("fridge", ".pages");
+        Files.delete(file);
+        foodList = new FoodList();
+        foodList.createAndAddIngredient("Milk", "Dairy", 1.0, "Liter", 20.0);
+        foodList.createAndAddIngredient("Butter", "Dairy", 0.25, "Kilogram", 30.0);
+        fridge = new DiskFridge(file.toString(), foodList, 8);
+        fridgeManager = new FridgeManager(fridge, foodList);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        fridge.close();
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    void worksThroughFridgeManager() {
+        fridgeManager.addToFridge("Milk", 1012030);
+        fridgeManager.addToFridge("Milk", 2012030);
+        fridgeManager.addToFridge("Butter", 1012030);
+        assertEquals(2.0, fridge.getTotalQuantityOfIngredient("Milk"), 1e-9);
+
+        List<FridgeItem> milk = fridgeManager.getAllInstancesOfIngredient("Milk");
+        assertEquals(2, milk.size());
+        fridgeManager.updateFridgeItemQuantityById(milk.get(0).getId(), -0.4);
+        assertEquals(0.6, fridge.getFridgeItemById(milk.get(0).getId()).getQuantity(), 1e-9,
+            "Quantity changes should be stored.");
+        assertEquals(1.6, fridge.getTotalQuantityOfIngredient("Milk"), 1e-9);
+
+        fridgeManager.setFridgeItemQuantityById(milk.get(1).getId(), 0);
+        assertNull(fridge.getFridgeItemById(milk.get(1).getId()), "An emptied item should be removed.");
+        assertEquals(2, fridge.size());
+
+        long version = fridge.getVersion();
+        fridgeManager.removeFromFridgeById(milk.get(0).getId());
+        assertTrue(fridge.getVersion() > version);
+        assertEquals(0.0, fridge.getTotalQuantityOfIngredient("Milk"));
+        assertTrue(fridge.getAllIngredientInstancesByName("Milk").isEmpty());
+    }
+
+    @Test
+    void findsExpiredItemsThroughIndex() {
+        fridgeManager.addToFridge("Milk", 31122000);
+        fridgeManager.addToFridge("Butter", 1012001);
+        fridgeManager.addToFridge("Milk", 1012099);
+
+        List<FridgeItem> expiring = fridge.getFridgeItemsExpiringBefore(2012001);
+        assertEquals(2, expiring.size());
+        assertEquals(31122000, expiring.get(0).getExpirationDate(), "Items should come in date order.");
+        assertEquals(1012001, expiring.get(1).getExpirationDate());
+        assertEquals(2, fridgeManager.getAllExpiredItems().size());
+    }
+
+    @Test
+    void keepsItemsWhenReopened() throws IOException {
+        for (int i = 0; i < 3_000; i++) {
+            fridgeManager.addToFridge(i % 2 == 0 ? "Milk" : "Butter", 1012030);
+        }
+        assertTrue(fridge.getPageFile().getPageCount() > fridge.getPageFile().getPoolPages(),
+            "The fridge should be larger than the buffer pool.");
+        int someId = fridge.getAllIngredientInstancesByName("Butter").get(10).getId();
+        fridge.close();
+
+        fridge = new DiskFridge(file.toString(), foodList, 8);
+        assertEquals(3_000, fridge.size());
+        assertEquals(1_500.0, fridge.getTotalQuantityOfIngredient("Milk"), 1e-9);
+        assertEquals(375.0, fridge.getTotalQuantityOfIngredient("Butter"), 1e-9);
+        assertEquals("Butter", fridge.getFridgeItemById(someId).getIngredient().getIngredientName());
+        assertEquals(3_000, fridge.getAllFridgeItems().size());
+    }
+
+    @Test
+    void recipesAreCookedFromStoredItems() {
+        fridgeManager.addToFridge("Milk", 1012030);
+        fridgeManager.addToFridge("Milk", 2012030);
+        fridgeManager.addToFridge("Butter", 1012030);
+        RecipeList recipeList = new RecipeList();
+        RecipeManager recipeManager = new RecipeManager(recipeList, fridgeManager);
+        Recipe porridge = new Recipe("Porridge", "Warm", "Boil.", "Breakfast");
+        porridge.addIngredient("Milk", 0.4);
+        porridge.addIngredient("Butter", 0.05);
+        recipeList.addRecipe(porridge);
+
+        assertEquals("Recipe ingredients removed from fridge, prioritizing items with earliest expiration.",
+            recipeManager.removeMultipleQuantitiesByRecipe("Porridge"));
+        List<FridgeItem> milk = fridge.getAllIngredientInstancesByName("Milk");
+        assertEquals(0.6, milk.get(0).getQuantity(), 1e-9, "The lot expiring first should be used.");
+        assertEquals(1.0, milk.get(1).getQuantity(), 1e-9);
+        assertEquals(0.2, fridge.getTotalQuantityOfIngredient("Butter"), 1e-9);
+
+        assertEquals("Ingredients for 1 recipes removed from fridge, prioritizing items with earliest expiration.",
+            recipeManager.removeQuantitiesByRecipes(Map.of("Porridge", 2.0)));
+        assertEquals(0.8, fridge.getTotalQuantityOfIngredient("Milk"), 1e-9);
+        assertEquals(0.1, fridge.getTotalQuantityOfIngredient("Butter"), 1e-9);
+    }
+
+    @Test
+    void staleWithdrawalPlanIsRejected() {
+        fridgeManager.addToFridge("Milk", 1012030);
+        WithdrawalPlan plan = fridgeManager.planWithdrawal(Map.of("Milk", 0.8));
+        int id = fridge.getAllIngredientInstancesByName("Milk").get(0).getId();
+        fridgeManager.setFridgeItemQuantityById(id, 0.5);
+
+        assertFalse(fridgeManager.commitWithdrawal(plan), "The lot was reduced after planning.");
+        assertEquals(0.5, fridge.getTotalQuantityOfIngredient("Milk"), 1e-9, "Nothing should be removed.");
+    }
+
+    @Test
+    void quantitiesAreStoredExactly() throws IOException {
+        fridgeManager.addToFridge("Milk", 1012030);
+        int id = fridge.getAllIngredientInstancesByName("Milk").get(0).getId();
+        for (int i = 0; i < 10; i++) {
+            fridgeManager.updateFridgeItemQuantityById(id, -0.09);
+        }
+        fridge.close();
+
+        fridge = new DiskFridge(file.toString(), foodList, 8);
+        assertEquals(100_000L, fridge.getFridgeItemById(id).getQuantityMicros(),
+            "Ten withdrawals of 0.09 from 1.0 should leave exactly 0.1.");
+        assertEquals(0.1, fridge.getTotalQuantityOfIngredient("Milk"));
+    }
+
+    @Test
+    void upgradesQuantitiesStoredAsDoubles() throws IOException {
+        fridgeManager.addToFridge("Milk", 1012030);
+        fridgeManager.addToFridge("Butter", 1012030);
+        fridge.close();
+
+        try (PageFile pageFile = new PageFile(file.toString(), 8)) {
+            BPlusTree items = new BPlusTree(pageFile, 0, 24);
+            byte[] record = new byte[24];
+            List<Long> ids = new ArrayList<>();
+            items.scan(Long.MIN_VALUE, Long.MAX_VALUE, (id, value) -> ids.add(id));
+            for (long id : ids) {
+                items.get(id, record);
+                ByteBuffer buffer = ByteBuffer.wrap(record);
+                buffer.putDouble(0, Quantity.toDouble(buffer.getLong(0)));
+                items.put(id, record);
+            }
+            pageFile.setSlot(8, 0);
+        }
+
+        fridge = new DiskFridge(file.toString(), foodList, 8);
+        assertEquals(1.0, fridge.getTotalQuantityOfIngredient("Milk"));
+        assertEquals(0.25, fridge.getTotalQuantityOfIngredient("Butter"));
+        assertEquals(250_000L, fridge.getAllIngredientInstancesByName("Butter").get(0).getQuantityMicros());
+    }
+}
@@ -93,4 +93,18 @@ class FoodListTest {
         String notFoundInfo = FoodList.getIngredientInfo("Bread", fridgeItem, foodList);
         assertEquals("There is not ingredient with that name.", notFoundInfo, "Should return error message for non-existent ingredient.");
     }
-}
\ No newline at end of file
+
+    @Test
+    void versionChangesOnlyWithContent() {
+        long initial = foodList.getVersion();
+        foodList.addIngredient(ingredient1);
+        long added = foodList.getVersion();
+        assertTrue(added > initial, "Adding an ingredient should change the version.");
+
+        foodList.addIngredient(new Ingredient("Milk", "Dairy", 1.0, "Liter", 2.5));
+        assertEquals(added, foodList.getVersion(), "Replacing with equal values is not a change.");
+
+        foodList.removeIngredient("Milk");
+        assertTrue(foodList.getVersion() > added, "Removing an ingredient should change the version.");
+    }
+}
@@ -16,6 +16,12 @@ class FridgeItemTest {
         fridgeItem = new FridgeItem(ingredient, 1.0, 1699999999999L);
     }
 
+    @Test
+    void constructorKeepsQuantity() {
+        FridgeItem partlyUsed = new FridgeItem(ingredient, 0.4, 25062025);
+        assertEquals(0.4, partlyUsed.getQuantity(), "Quantity should be the one given, not the base weight.");
+    }
+
     @Test
     void setQuantity() {
         fridgeItem.setQuantity(2.0);
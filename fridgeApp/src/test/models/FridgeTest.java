@@ -31,6 +31,17 @@ class FridgeTest {
         assertTrue(fridge.getAllIngredientInstancesByName("Milk").contains(fridgeItem1), "Fridge should contain the added item.");
     }
 
+    @Test
+    void addFridgeItems() {
+        FridgeItem fridgeItem3 = new FridgeItem(fridgeItem1.getIngredient(), 1.0, 26062025);
+        fridge.addFridgeItems(List.of(fridgeItem1, fridgeItem2, fridgeItem3));
+
+        assertEquals(3, fridge.getAllFridgeItems().size(), "Fridge should contain all three items.");
+        assertEquals(List.of(fridgeItem1, fridgeItem3), fridge.getAllIngredientInstancesByName("Milk"), "Items should keep their order.");
+        assertEquals(2.0, fridge.getTotalQuantityOfIngredient("Milk"), "Total quantity of Milk should be 2.0.");
+        assertEquals(12.0, fridge.getTotalQuantityOfIngredient("Eggs"), "Total quantity of Eggs should be 12.0.");
+    }
+
     @Test
     void removeFridgeItemById() {
         fridge.addFridgeItem(fridgeItem1);
@@ -68,6 +79,31 @@ class FridgeTest {
         assertFalse(fridge.updateFridgeItemQuantityById(9999, 1.0), "Should fail to update non-existent item.");
     }
 
+    @Test
+    void withdrawFromFridgeItem() {
+        fridge.addFridgeItem(fridgeItem2);
+
+        assertTrue(fridge.withdrawFromFridgeItem(fridgeItem2, 5), "Withdrawing from an item in the fridge should succeed.");
+        assertEquals(7.0, fridge.getTotalQuantityOfIngredient("Eggs"), "Total quantity of Eggs should be 7.0.");
+
+        assertTrue(fridge.withdrawFromFridgeItem(fridgeItem2, 7), "Withdrawing the rest should succeed.");
+        assertTrue(fridge.getAllIngredientInstancesByName("Eggs").isEmpty(), "An empty item should be removed.");
+        assertFalse(fridge.withdrawFromFridgeItem(fridgeItem1, 1), "Should fail for an item not in the fridge.");
+    }
+
+    @Test
+    void totalsAreKeptInMicroUnits() {
+        FridgeItem tenth = new FridgeItem(fridgeItem1.getIngredient(), 0.1, 25062025);
+        FridgeItem fifth = new FridgeItem(fridgeItem1.getIngredient(), 0.2, 25062025);
+        fridge.addFridgeItems(List.of(tenth, fifth));
+        assertEquals(300_000, fridge.getTotalQuantityMicros("Milk"), "0.1 + 0.2 should be exact.");
+
+        assertTrue(fridge.withdrawMicrosFromFridgeItem(fifth, 50_000));
+        assertEquals(150_000, fifth.getQuantityMicros());
+        assertEquals(250_000, fridge.getTotalQuantityMicros("Milk"));
+        assertEquals(0, fridge.getTotalQuantityMicros("Eggs"));
+    }
+
     @Test
     void getAllIngredientInstancesByName() {
         fridge.addFridgeItem(fridgeItem1);
@@ -97,4 +133,20 @@ class FridgeTest {
         assertTrue(allItems.contains(fridgeItem1), "Fridge should contain Milk.");
         assertTrue(allItems.contains(fridgeItem2), "Fridge should contain Eggs.");
     }
+
+    @Test
+    void versionIncreasesOnEveryChange() {
+        long initial = fridge.getVersion();
+        fridge.addFridgeItem(fridgeItem1);
+        long added = fridge.getVersion();
+        assertTrue(added > initial, "Adding an item should change the version.");
+
+        fridgeItem1.setQuantity(0.5);
+        long changed = fridge.getVersion();
+        assertTrue(changed > added, "Changing a quantity directly on the item should change the version.");
+        assertEquals(changed, fridge.getVersion(), "Reading the version should not change it.");
+
+        fridge.removeFridgeItemById(fridgeItem1.getId());
+        assertTrue(fridge.getVersion() > changed, "Removing a changed item should never lower the version.");
+    }
 }
@@ -46,4 +46,20 @@ class RecipeListTest {
         assertTrue(recipes.containsKey("pancakes"), "Recipe list should contain 'Pancakes'.");
         assertTrue(recipes.containsKey("waffles"), "Recipe list should contain 'Waffles'.");
     }
+
+    @Test
+    void versionIncreasesOnEveryChange() {
+        long initial = recipeList.getVersion();
+        pancakeRecipe.addIngredient("Milk", 0.5);
+        pancakeRecipe.addIngredient("Eggs", 2);
+        long edited = recipeList.getVersion();
+        assertTrue(edited > initial, "Changing a recipe should change the version.");
+
+        recipeList.removeRecipe("Pancakes");
+        long removed = recipeList.getVersion();
+        assertTrue(removed > edited, "Removing a changed recipe should never lower the version.");
+
+        recipeList.removeRecipe("Pancakes");
+        assertEquals(removed, recipeList.getVersion(), "Removing a missing recipe is not a change.");
+    }
 }
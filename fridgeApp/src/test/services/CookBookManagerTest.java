@@ -124,4 +124,22 @@ class CookBookManagerTest {
         assertTrue(cookBookManager.getAllCookBooks().containsKey("Breakfast Ideas"), "Should contain 'Breakfast Ideas'.");
         assertTrue(cookBookManager.getAllCookBooks().containsKey("Vegan Recipes"), "Should contain 'Vegan Recipes'.");
     }
+
+    @Test
+    void versionIncreasesOnEveryChange() {
+        long initial = cookBookManager.getVersion();
+        cookBookManager.createCookBook("Italian Cuisine", "Recipes from Italy", "Cuisine");
+        long created = cookBookManager.getVersion();
+        assertTrue(created > initial, "Creating a CookBook should change the version.");
+
+        cookBookManager.addRecipeToCookBook("Italian Cuisine", "Pasta");
+        long recipeAdded = cookBookManager.getVersion();
+        assertTrue(recipeAdded > created, "Adding a recipe should change the version.");
+
+        cookBookManager.addRecipeToCookBook("Italian Cuisine", "Pasta");
+        assertEquals(recipeAdded, cookBookManager.getVersion(), "Adding the same recipe again is not a change.");
+
+        cookBookManager.deleteCookBook("Italian Cuisine");
+        assertTrue(cookBookManager.getVersion() > recipeAdded, "Deleting a CookBook should never lower the version.");
+    }
 }
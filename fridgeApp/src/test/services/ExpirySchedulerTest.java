@@ -0,0 +1,166 @@
+package services;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import models.FoodList;
+import models.Fridge;
+import models.FridgeItem;
+import models.Ingredient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import utilities.DayClock;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpirySchedulerTest {
+
+    /**
+     * A clock that only moves when the test moves it.
+     */
+    private static final class ManualClock extends Clock {
+        private Instant now;
+
+        private ManualClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+
+    private ManualClock clock;
+    private FridgeManager fridgeManager;
+    private ExpiryScheduler scheduler;
+    private final List<String> expired = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        FoodList foodList = new FoodList();
+        foodList.createAndAddIngredient("Milk", "Dairy", 1.0, "Liter", 20.0);
+        foodList.createAndAddIngredient("Eggs", "Protein", 12, "Pieces", 35.0);
+        foodList.createAndAddIngredient("Butter", "Dairy", 0.5, "Kilogram", 40.0);
+        fridgeManager = new FridgeManager(new Fridge(), foodList);
+        clock = new ManualClock(LocalDate.of(2024, 12, 10).atStartOfDay().toInstant(ZoneOffset.UTC));
+        fridgeManager.setDayClock(new DayClock(clock));
+
+        fridgeManager.addToFridge("Milk", 9122024);
+        fridgeManager.addToFridge("Eggs", 11122024);
+        fridgeManager.addToFridge("Butter", 14122024);
+        scheduler = new ExpiryScheduler(fridgeManager);
+        scheduler.addExpiryListener(item -> expired.add(item.getIngredient().getIngredientName()));
+        fridgeManager.setExpiryScheduler(scheduler);
+    }
+
+    @Test
+    void movesOnlyTheItemsOfPassedDays() {
+        assertEquals(1, scheduler.advanceToToday());
+        assertEquals(List.of("Milk"), expired);
+        assertEquals(0, scheduler.advanceToToday(), "Nothing more expires on the same day.");
+
+        clock.advance(Duration.ofDays(1));
+        assertEquals(0, scheduler.advanceToToday(), "Eggs expiring today have not expired yet.");
+
+        clock.advance(Duration.ofDays(1));
+        assertEquals(1, scheduler.advanceToToday());
+        assertEquals(List.of("Milk", "Eggs"), expired);
+        assertEquals("Total value of expired items: 55.0", fridgeManager.getExpiredItemsValue());
+    }
+
+    @Test
+    void catchesUpAfterSeveralDays() {
+        scheduler.advanceToToday();
+        clock.advance(Duration.ofDays(10));
+
+        List<FridgeItem> expiredItems = fridgeManager.getAllExpiredItems();
+
+        assertEquals(3, expiredItems.size());
+        assertEquals(List.of("Milk", "Eggs", "Butter"), expired, "Every item should expire once, in date order.");
+        assertEquals(95.0, scheduler.getExpiredValue(), 1e-9);
+    }
+
+    @Test
+    void followsAddedAndRemovedItems() {
+        scheduler.advanceToToday();
+        fridgeManager.addToFridge("Butter", 1122024);
+        assertEquals(List.of("Milk", "Butter"), expired, "An item added after its expiration date expires at once.");
+
+        FridgeItem milk = scheduler.getExpiredItems().get(0);
+        fridgeManager.removeFromFridgeById(milk.getId());
+
+        assertEquals(1, fridgeManager.getAllExpiredItems().size());
+        assertEquals(40.0, scheduler.getExpiredValue(), 1e-9, "A removed item should not count.");
+    }
+
+    @Test
+    void expiredValueFollowsCostChanges() {
+        FoodList foodList = fridgeManager.getFoodList();
+        clock.advance(Duration.ofDays(2));
+        assertEquals(55.0, scheduler.getExpiredValue(), 1e-9, "Milk and Eggs have expired.");
+
+        foodList.updateIngredient(new Ingredient("Milk", "Dairy", 1.0, "Liter", 25.0));
+        assertEquals(60.0, scheduler.getExpiredValue(), 1e-9, "The new cost of Milk should count.");
+
+        fridgeManager.removeFromFridgeById(fridgeManager.getAllInstancesOfIngredient("Milk").get(0).getId());
+        assertEquals(35.0, scheduler.getExpiredValue(), 1e-9, "The cost Milk has now should be taken off.");
+
+        fridgeManager.removeFromFridgeById(fridgeManager.getAllInstancesOfIngredient("Eggs").get(0).getId());
+        assertEquals(0.0, scheduler.getExpiredValue(), 1e-9);
+    }
+
+    @Test
+    void removedItemsNeverExpire() {
+        scheduler.advanceToToday();
+        FridgeItem eggs = fridgeManager.getAllInstancesOfIngredient("Eggs").get(0);
+        fridgeManager.removeFromFridgeById(eggs.getId());
+
+        clock.advance(Duration.ofDays(10));
+
+        assertEquals(1, scheduler.advanceToToday());
+        assertEquals(List.of("Milk", "Butter"), expired);
+        assertEquals(60.0, scheduler.getExpiredValue(), 1e-9);
+    }
+
+    @Test
+    void midnightMoveRunsOnOwner() throws InterruptedException {
+        clock.advance(Duration.ofDays(2).minusMillis(100));
+        BlockingQueue<Runnable> owner = new LinkedBlockingQueue<>();
+        try {
+            scheduler.start(owner::add);
+            assertEquals(List.of("Milk"), expired);
+            clock.advance(Duration.ofSeconds(1));
+
+            Runnable move = owner.poll(5, TimeUnit.SECONDS);
+            assertNotNull(move, "The move should be handed over after midnight.");
+            assertEquals(List.of("Milk"), expired, "Nothing should move before the owner runs it.");
+            move.run();
+            assertEquals(List.of("Milk", "Eggs"), expired);
+        } finally {
+            scheduler.close();
+        }
+    }
+}
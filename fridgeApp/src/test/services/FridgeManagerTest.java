@@ -3,7 +3,11 @@ package services;
 import models.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import utilities.DayClock;
 
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -18,6 +22,9 @@ class FridgeManagerTest {
         fridge = new Fridge();
         FoodList foodList = new FoodList();
         fridgeManager = new FridgeManager(fridge, foodList);
+        // The expiry tests assume today's date is 11/12/2024
+        fridgeManager.setDayClock(new DayClock(Clock.fixed(
+            LocalDate.of(2024, 12, 11).atStartOfDay().toInstant(ZoneOffset.UTC), ZoneOffset.UTC)));
 
         Ingredient milk = new Ingredient("Milk", "Dairy", 1.0, "Liter", 2.5);
         Ingredient eggs = new Ingredient("Eggs", "Protein", 12, "Pieces", 3.0);
@@ -153,4 +160,17 @@ class FridgeManagerTest {
         String value = fridgeManager.getTotalValueOfFridge();
         assertEquals("Total value of items in fridge: 5.5", value, "Total value of items should be correct.");
     }
+
+    @Test
+    void removeIngredientAfterUnitConversions() {
+        fridgeManager.getFoodList().addIngredient(new Ingredient("Juice", "Drinks", 300, "mL", 25.0));
+        fridgeManager.addToFridge("Juice", 1012025);
+        fridgeManager.addToFridge("Juice", 2012025);
+        fridgeManager.addToFridge("Juice", 3012025);
+
+        String result = fridgeManager.removeIngredient("Juice", 0.9, "L");
+
+        assertEquals("Ingredient removed successfully.", result, "Three 300 mL items should cover 0.9 L.");
+        assertEquals(0.0, fridgeManager.getTotalQuantityOfIngredient("Juice", "mL"), "Nothing should be left.");
+    }
 }
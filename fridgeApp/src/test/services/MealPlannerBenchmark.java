@@ -0,0 +1,74 @@
+package services;
+
+import models.*;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+
+/**
+ * Benchmark harness for the MealPlanner on synthetic fridges and recipe catalogs.
+ * Run the main method with optional arguments: recipes, ingredients, lots, days, budgetMillis.
+ */
+public class MealPlannerBenchmark {
+
+    public static void main(String[] args) {
+        int recipes = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        int ingredients = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        int lots = args.length > 2 ? Integer.parseInt(args[2]) : 5000;
+        int days = args.length > 3 ? Integer.parseInt(args[3]) : 14;
+        long budgetMillis = args.length > 4 ? Long.parseLong(args[4]) : 200;
+
+        Random random = new Random(42);
+        FoodList foodList = new FoodList();
+        Fridge fridge = new Fridge();
+        RecipeList recipeList = new RecipeList();
+        FridgeManager fridgeManager = new FridgeManager(fridge, foodList);
+        RecipeManager recipeManager = new RecipeManager(recipeList, fridgeManager);
+
+        for (int i = 0; i < ingredients; i++) {
+            foodList.addIngredient(new Ingredient("Ingredient " + i, "Category " + (i % 20),
+                    100 + random.nextInt(900), "g", 10 + random.nextInt(190)));
+        }
+
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("ddMMyyyy");
+        for (int i = 0; i < lots; i++) {
+            Ingredient ingredient = foodList.getIngredientFromFoodList("Ingredient " + random.nextInt(ingredients));
+            long expirationDate = Long.parseLong(LocalDate.now().plusDays(random.nextInt(40) - 5).format(formatter));
+            fridge.addFridgeItem(new FridgeItem(ingredient, ingredient.getIngredientBaseWeight(), expirationDate));
+        }
+
+        for (int i = 0; i < recipes; i++) {
+            Recipe recipe = new Recipe("Recipe " + i, "Synthetic recipe", "Cook.", "Dinner");
+            int ingredientCount = 3 + random.nextInt(6);
+            for (int j = 0; j < ingredientCount; j++) {
+                recipe.addIngredient("Ingredient " + random.nextInt(ingredients), 50 + random.nextInt(400));
+            }
+            recipeList.addRecipe(recipe);
+        }
+
+        MealPlanner planner = new MealPlanner(recipeManager);
+        for (int warmup = 0; warmup < 5; warmup++) {
+            planner.planMeals(days, budgetMillis);
+        }
+
+        int runs = 20;
+        long worst = 0;
+        long total = 0;
+        MealPlan plan = null;
+        for (int run = 0; run < runs; run++) {
+            long start = System.nanoTime();
+            plan = planner.planMeals(days, budgetMillis);
+            long elapsed = System.nanoTime() - start;
+            total += elapsed;
+            worst = Math.max(worst, elapsed);
+        }
+
+        System.out.printf("recipes=%d ingredients=%d lots=%d days=%d budget=%dms%n",
+                recipes, ingredients, lots, days, budgetMillis);
+        System.out.printf("mean=%.2fms worst=%.2fms withinBudget=%b%n",
+                total / (runs * 1e6), worst / 1e6, plan.isCompletedWithinBudget());
+        System.out.printf("expiring value used=%.2f NOK, to buy=%.2f NOK%n",
+                plan.getTotalExpiringValueUsed(), plan.getTotalPurchaseCost());
+    }
+}
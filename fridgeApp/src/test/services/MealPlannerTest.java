@@ -0,0 +1,95 @@
+package services;
+
+import models.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import utilities.DayClock;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MealPlannerTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 12, 11);
+
+    private RecipeList recipeList;
+    private FridgeManager fridgeManager;
+    private MealPlanner mealPlanner;
+
+    @BeforeEach
+    void setUp() {
+        recipeList = new RecipeList();
+        FoodList foodList = new FoodList();
+        fridgeManager = new FridgeManager(new Fridge(), foodList);
+        fridgeManager.setDayClock(new DayClock(Clock.fixed(
+            TODAY.atStartOfDay().toInstant(ZoneOffset.UTC), ZoneOffset.UTC)));
+        RecipeManager recipeManager = new RecipeManager(recipeList, fridgeManager);
+        mealPlanner = new MealPlanner(recipeManager);
+
+        foodList.addIngredient(new Ingredient("Milk", "Dairy", 1.0, "L", 20.0));
+        foodList.addIngredient(new Ingredient("Rice", "Grain", 1.0, "kg", 30.0));
+        foodList.addIngredient(new Ingredient("Beef", "Meat", 400.0, "g", 80.0));
+    }
+
+    private static long daysFromToday(int days) {
+        return Long.parseLong(TODAY.plusDays(days).format(DateTimeFormatter.ofPattern("ddMMyyyy")));
+    }
+
+    private Recipe addRecipe(String name, String ingredientName, double quantity) {
+        Recipe recipe = new Recipe(name, "Description", "Cook.", "Dinner");
+        recipe.addIngredient(ingredientName, quantity);
+        recipeList.addRecipe(recipe);
+        return recipe;
+    }
+
+    @Test
+    void planMealsPrefersExpiringStock() {
+        fridgeManager.addToFridge("Milk", daysFromToday(1));
+        fridgeManager.addToFridge("Rice", daysFromToday(300));
+        addRecipe("Rice Pudding", "Rice", 0.5);
+        addRecipe("Milk Soup", "Milk", 1.0);
+
+        MealPlan plan = mealPlanner.planMeals(1, 1000);
+        assertEquals(1, plan.getMeals().size(), "One meal should be planned for one day.");
+        assertEquals("Milk Soup", plan.getMeals().get(0).getRecipe().getRecipeName(),
+                "The recipe using the milk that expires tomorrow should be chosen.");
+        assertEquals(20.0, plan.getTotalExpiringValueUsed(), 0.01);
+        assertEquals(0.0, plan.getTotalPurchaseCost(), 0.01);
+        assertTrue(plan.isCompletedWithinBudget());
+    }
+
+    @Test
+    void planMealsSharesStockBetweenDays() {
+        fridgeManager.addToFridge("Milk", daysFromToday(2));
+        addRecipe("Milk Soup", "Milk", 1.0);
+        addRecipe("Hot Chocolate", "Milk", 1.0);
+
+        MealPlan plan = mealPlanner.planMeals(2, 1000);
+        List<MealPlan.PlannedMeal> meals = plan.getMeals();
+        assertEquals(2, meals.size(), "Both days should be planned.");
+        assertNotEquals(meals.get(0).getRecipe(), meals.get(1).getRecipe(), "A recipe should only be used once.");
+        assertEquals(0.0, meals.get(0).getPurchaseCost(), 0.01, "The first meal uses the only milk.");
+        assertEquals(20.0, meals.get(1).getPurchaseCost(), 0.01, "The second meal must buy milk.");
+    }
+
+    @Test
+    void planMealsIgnoresExpiredStock() {
+        fridgeManager.addToFridge("Beef", daysFromToday(-1));
+        addRecipe("Burger", "Beef", 400.0);
+
+        MealPlan plan = mealPlanner.planMeals(1, 1000);
+        assertEquals(80.0, plan.getTotalPurchaseCost(), 0.01, "Expired beef cannot be used.");
+    }
+
+    @Test
+    void planMealsWithNoRecipes() {
+        MealPlan plan = mealPlanner.planMeals(3, 1000);
+        assertTrue(plan.getMeals().isEmpty());
+        assertEquals("No meals could be planned.", plan.getFormattedPlan());
+    }
+}
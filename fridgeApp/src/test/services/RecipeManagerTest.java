@@ -5,7 +5,9 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import utilities.Quantity;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -119,6 +121,58 @@ class RecipeManagerTest {
         assertEquals(6.6, cost, 0.01);
     }
 
+    @Test
+    void costIsRecalculatedWhenIngredientPriceChanges() {
+        Recipe recipe = new Recipe("Cake", "Chocolate cake", "Bake.", "Dessert");
+        recipe.addIngredient("Flour", 0.5);
+        recipeList.addRecipe(recipe);
+        assertEquals(5.0, recipeManager.costOfQuantitiesInRecipe("Cake"), 0.01);
+        assertEquals(10.0, recipeManager.calculateRecipeCost(recipe), 0.01);
+
+        foodList.addIngredient(new Ingredient("Flour", "Baking", 1.0, "Kg", 20.0));
+        assertEquals(10.0, recipeManager.costOfQuantitiesInRecipe("Cake"), 0.01, "Cost should follow the new price.");
+        assertEquals(20.0, recipeManager.calculateRecipeCost(recipe), 0.01, "Cost should follow the new price.");
+
+        foodList.removeIngredient("Flour");
+        assertEquals(0.0, recipeManager.costOfQuantitiesInRecipe("Cake"), 0.01, "Removed ingredients should not add cost.");
+    }
+
+    @Test
+    void costIsRecalculatedWhenRecipeIngredientsChange() {
+        Recipe recipe = new Recipe("Cake", "Chocolate cake", "Bake.", "Dessert");
+        recipe.addIngredient("Flour", 0.5);
+        recipeList.addRecipe(recipe);
+        assertEquals(5.0, recipeManager.costOfQuantitiesInRecipe("Cake"), 0.01);
+
+        recipeManager.addIngredientToRecipe("Cake", "Sugar", 0.5);
+        assertEquals(9.0, recipeManager.costOfQuantitiesInRecipe("Cake"), 0.01, "Added ingredients should add cost.");
+
+        recipeManager.updateRecipeIngredient("Cake", "Flour", 1.0);
+        assertEquals(14.0, recipeManager.costOfQuantitiesInRecipe("Cake"), 0.01, "Updated quantities should change cost.");
+
+        recipeManager.removeIngredientFromRecipe("Cake", "Sugar");
+        assertEquals(10.0, recipeManager.costOfQuantitiesInRecipe("Cake"), 0.01, "Removed ingredients should remove cost.");
+    }
+
+    @Test
+    void getRecipeCostsInCookBook() {
+        Recipe cake = new Recipe("Cake", "Chocolate cake", "Bake.", "Dessert");
+        cake.addIngredient("Flour", 0.5);
+        Recipe milkshake = new Recipe("Milkshake", "Cold milkshake", "Blend.", "Dessert");
+        milkshake.addIngredient("Milk", 0.5);
+        milkshake.addIngredient("Sugar", 0.25);
+
+        CookBook cookBook = new CookBook("Desserts", "Sweet recipes", "Dessert");
+        cookBook.addRecipe(cake);
+        cookBook.addRecipe(milkshake);
+
+        Map<String, Double> costs = recipeManager.getRecipeCostsInCookBook(cookBook);
+        assertEquals(2, costs.size(), "Every recipe in the cookbook should be listed.");
+        assertEquals(5.0, costs.get("Cake"), 0.01);
+        assertEquals(3.25, costs.get("Milkshake"), 0.01);
+        assertTrue(recipeManager.listRecipeCostsInCookBook(cookBook).toString().contains("Milkshake"));
+    }
+
     @Test
     void updateRecipeIngredient() {
         Recipe recipe = new Recipe("Cookies", "Tasty cookies", "Bake.", "Dessert");
@@ -200,8 +254,9 @@ class RecipeManagerTest {
 
     @Test
     void removeMultipleQuantitiesByRecipe() {
-        fridgeManager.addToFridge("Flour", 20250101);
-        fridgeManager.addToFridge("Sugar", 20250101);
+        // 01/01/2199 so the items have not expired
+        fridgeManager.addToFridge("Flour", 1012199);
+        fridgeManager.addToFridge("Sugar", 1012199);
 
         Recipe recipe = new Recipe("Cake", "Chocolate cake", "Bake.", "Dessert");
         recipe.addIngredient("Flour", 0.5);
@@ -210,6 +265,138 @@ class RecipeManagerTest {
 
         String result = recipeManager.removeMultipleQuantitiesByRecipe("Cake");
         assertEquals("Recipe ingredients removed from fridge, prioritizing items with earliest expiration.", result);
+        assertEquals(0.5, fridge.getTotalQuantityOfIngredient("Flour"), 0.001);
+        assertEquals(0.8, fridge.getTotalQuantityOfIngredient("Sugar"), 0.001);
+    }
+
+    @Test
+    void removeMultipleQuantitiesByRecipeUsesEarliestExpirationFirst() {
+        fridgeManager.addToFridge("Flour", 1012199); // 01/01/2199
+        fridgeManager.addToFridge("Flour", 1012198); // 01/01/2198
+
+        Recipe recipe = new Recipe("Bread", "Plain bread", "Bake.", "Dinner");
+        recipe.addIngredient("Flour", 1.5);
+        recipeList.addRecipe(recipe);
+
+        recipeManager.removeMultipleQuantitiesByRecipe("Bread");
+        List<FridgeItem> flour = fridge.getAllIngredientInstancesByName("Flour");
+        assertEquals(1, flour.size(), "The lot expiring first should be used up and removed.");
+        assertEquals(1012199, flour.get(0).getExpirationDate());
+        assertEquals(0.5, flour.get(0).getQuantity(), 0.001);
+    }
+
+    @Test
+    void removeMultipleQuantitiesByRecipeChangesNothingWhenShort() {
+        fridgeManager.addToFridge("Flour", 1012199); // 01/01/2199
+        fridgeManager.addToFridge("Sugar", 1012199); // 01/01/2199
+        fridgeManager.addToFridge("Sugar", 1012024); // 01/01/2024, expired
+
+        Recipe recipe = new Recipe("Cake", "Chocolate cake", "Bake.", "Dessert");
+        recipe.addIngredient("Flour", 0.5);
+        recipe.addIngredient("Sugar", 1.5);
+        recipeList.addRecipe(recipe);
+
+        String result = recipeManager.removeMultipleQuantitiesByRecipe("Cake");
+        assertEquals("Insufficient Sugar in the fridge. Needed: 1.5, Available: 1.0", result,
+                "Expired sugar should not count as available.");
+        assertEquals(1.0, fridge.getTotalQuantityOfIngredient("Flour"), 0.001, "Nothing should be removed.");
+        assertEquals(2.0, fridge.getTotalQuantityOfIngredient("Sugar"), 0.001, "Nothing should be removed.");
+    }
+
+    @Test
+    void removeQuantitiesByRecipes() {
+        fridgeManager.addToFridge("Flour", 1012199); // 01/01/2199
+        fridgeManager.addToFridge("Flour", 1012199);
+        fridgeManager.addToFridge("Sugar", 1012199);
+
+        Recipe cake = new Recipe("Cake", "Chocolate cake", "Bake.", "Dessert");
+        cake.addIngredient("Flour", 0.5);
+        cake.addIngredient("Sugar", 0.2);
+        Recipe bread = new Recipe("Bread", "Plain bread", "Bake.", "Dinner");
+        bread.addIngredient("Flour", 0.25);
+        recipeList.addRecipe(cake);
+        recipeList.addRecipe(bread);
+
+        Map<String, Double> batch = new HashMap<>();
+        batch.put("Cake", 2.0);
+        batch.put("Bread", 3.0);
+
+        WithdrawalPlan plan = recipeManager.planBatchCooking(batch);
+        assertTrue(plan.isFulfilled());
+        assertEquals(1.75, Quantity.toDouble(plan.getDemandMicros().get("Flour")), 0.001, "Flour demand should be summed over all recipes.");
+        assertEquals(0.4, Quantity.toDouble(plan.getDemandMicros().get("Sugar")), 0.001);
+
+        String result = recipeManager.removeQuantitiesByRecipes(batch);
+        assertEquals("Ingredients for 2 recipes removed from fridge, prioritizing items with earliest expiration.", result);
+        assertEquals(0.25, fridge.getTotalQuantityOfIngredient("Flour"), 0.001);
+        assertEquals(0.6, fridge.getTotalQuantityOfIngredient("Sugar"), 0.001);
+    }
+
+    @Test
+    void removeQuantitiesByRecipesReportsEveryShortfall() {
+        fridgeManager.addToFridge("Flour", 1012199); // 01/01/2199
+        fridgeManager.addToFridge("Sugar", 1012199);
+
+        Recipe cake = new Recipe("Cake", "Chocolate cake", "Bake.", "Dessert");
+        cake.addIngredient("Flour", 0.5);
+        cake.addIngredient("Sugar", 0.5);
+        cake.addIngredient("Milk", 0.5);
+        recipeList.addRecipe(cake);
+
+        Map<String, Double> batch = new HashMap<>();
+        batch.put("Cake", 3.0);
+
+        WithdrawalPlan plan = recipeManager.planBatchCooking(batch);
+        assertEquals(3, plan.getShortfallMicros().size(), "Every short ingredient should be reported.");
+        assertEquals(0.5, Quantity.toDouble(plan.getShortfallMicros().get("Flour")), 0.001);
+        assertEquals(1.5, Quantity.toDouble(plan.getShortfallMicros().get("Milk")), 0.001);
+
+        String result = recipeManager.removeQuantitiesByRecipes(batch);
+        assertTrue(result.contains("Insufficient Flour") && result.contains("Insufficient Milk"));
+        assertEquals(1.0, fridge.getTotalQuantityOfIngredient("Flour"), 0.001, "Nothing should be removed.");
+        assertEquals(1.0, fridge.getTotalQuantityOfIngredient("Sugar"), 0.001, "Nothing should be removed.");
+        assertEquals("Recipe not found: Pie", recipeManager.removeQuantitiesByRecipes(Map.of("Pie", 1.0)));
+    }
+
+    @Test
+    void generateShoppingList() {
+        fridgeManager.addToFridge("Flour", 1012199); // 01/01/2199
+        fridgeManager.addToFridge("Sugar", 1012024); // 01/01/2024, expired
+
+        Recipe cake = new Recipe("Cake", "Chocolate cake", "Bake.", "Dessert");
+        cake.addIngredient("Flour", 0.5);
+        cake.addIngredient("Sugar", 0.5);
+        Recipe bread = new Recipe("Bread", "Plain bread", "Bake.", "Dinner");
+        bread.addIngredient("Flour", 0.25);
+        Recipe pancakes = new Recipe("Pancakes", "Thin pancakes", "Fry.", "Breakfast");
+        pancakes.addIngredient("Flour", 0.5);
+        pancakes.addIngredient("Milk", 2.5);
+
+        ShoppingList shoppingList = recipeManager.generateShoppingList(List.of(cake, bread, pancakes));
+        Map<String, ShoppingList.Entry> entries = new HashMap<>();
+        shoppingList.getEntries().forEach(entry -> entries.put(entry.getIngredientName(), entry));
+
+        assertEquals(3, entries.size(), "Flour, sugar and milk are all short.");
+        assertEquals(1.25, entries.get("Flour").getRequiredQuantity(), 0.001, "Flour should be summed over all recipes.");
+        assertEquals(0.25, entries.get("Flour").getMissingQuantity(), 0.001);
+        assertEquals(1, entries.get("Flour").getPacksToBuy());
+        assertEquals(0.0, entries.get("Sugar").getQuantityInStock(), 0.001, "Expired sugar is not stock.");
+        assertEquals(3, entries.get("Milk").getPacksToBuy(), "2.5 liters should round up to 3 packs.");
+        assertEquals(10.0 + 8.0 + 7.5, shoppingList.getTotalCost(), 0.001);
+    }
+
+    @Test
+    void generateShoppingListForCookBookWithEverythingInStock() {
+        fridgeManager.addToFridge("Flour", 1012199); // 01/01/2199
+
+        Recipe bread = new Recipe("Bread", "Plain bread", "Bake.", "Dinner");
+        bread.addIngredient("Flour", 0.25);
+        CookBook cookBook = new CookBook("Baking", "Breads", "Baking");
+        cookBook.addRecipe(bread);
+
+        ShoppingList shoppingList = recipeManager.generateShoppingList(cookBook);
+        assertTrue(shoppingList.getEntries().isEmpty());
+        assertEquals("Nothing to buy, everything is in the fridge.", shoppingList.getFormattedShoppingList());
     }
 
     @Test
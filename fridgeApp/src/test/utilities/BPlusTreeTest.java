@@ -0,0 +1,124 @@
+package utilities;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BPlusTreeTest {
+
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = Files.createTempFile("tree", ".pages");
+        Files.delete(file);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    private static byte[] value(long n) {
+        return ByteBuffer.allocate(16).putLong(n).putLong(-n).array();
+    }
+
+    @Test
+    void matchesSortedMapWithSmallBufferPool() throws IOException {
+        TreeMap<Long, Long> expected = new TreeMap<>();
+        Random random = new Random(42);
+        try (PageFile pages = new PageFile(file.toString(), 8)) {
+            BPlusTree tree = new BPlusTree(pages, 0, 16);
+            for (int i = 0; i < 50_000; i++) {
+                long key = random.nextInt(30_000) - 10_000;
+                if (random.nextInt(4) == 0) {
+                    assertEquals(expected.remove(key) != null, tree.remove(key));
+                } else {
+                    assertEquals(!expected.containsKey(key), tree.put(key, value(i)));
+                    expected.put(key, (long) i);
+                }
+            }
+            assertEquals(expected.size(), tree.size());
+            assertTrue(pages.getPageCount() > pages.getPoolPages(),
+                "The tree should be larger than the buffer pool.");
+
+            byte[] read = new byte[16];
+            for (Map.Entry<Long, Long> entry : expected.entrySet()) {
+                assertTrue(tree.get(entry.getKey(), read));
+                assertEquals(entry.getValue(), ByteBuffer.wrap(read).getLong());
+            }
+            assertFalse(tree.get(-20_000, read));
+        }
+    }
+
+    @Test
+    void scansRangesInKeyOrder() throws IOException {
+        try (PageFile pages = new PageFile(file.toString(), 16)) {
+            BPlusTree tree = new BPlusTree(pages, 4, 0);
+            for (long key = 10_000; key > 0; key--) {
+                tree.put(key * 2, new byte[0]);
+            }
+            List<Long> keys = new ArrayList<>();
+            tree.scan(101, 121, (key, value) -> keys.add(key));
+            assertEquals(List.of(102L, 104L, 106L, 108L, 110L, 112L, 114L, 116L, 118L, 120L), keys);
+
+            List<Long> firstTwo = new ArrayList<>();
+            tree.scan(Long.MIN_VALUE, Long.MAX_VALUE, (key, value) -> firstTwo.add(key) && firstTwo.size() < 2);
+            assertEquals(List.of(2L, 4L), firstTwo, "The scan should stop when the visitor says so.");
+        }
+    }
+
+    @Test
+    void keepsDataWhenReopened() throws IOException {
+        try (PageFile pages = new PageFile(file.toString(), 8)) {
+            BPlusTree tree = new BPlusTree(pages, 0, 16);
+            for (long key = 0; key < 5_000; key++) {
+                tree.put(key, value(key));
+            }
+            pages.setSlot(10, 1234);
+        }
+
+        try (PageFile pages = new PageFile(file.toString(), 8)) {
+            BPlusTree tree = new BPlusTree(pages, 0, 16);
+            assertEquals(5_000, tree.size());
+            assertEquals(1234, pages.getSlot(10));
+            byte[] read = new byte[16];
+            assertTrue(tree.get(4_321, read));
+            assertEquals(-4_321, ByteBuffer.wrap(read).getLong(8));
+        }
+    }
+
+    @Test
+    void cachesHotPages() throws IOException {
+        try (PageFile pages = new PageFile(file.toString(), 8)) {
+            BPlusTree tree = new BPlusTree(pages, 0, 16);
+            for (long key = 0; key < 20_000; key++) {
+                tree.put(key, value(key));
+            }
+            long misses = pages.getMisses();
+            byte[] read = new byte[16];
+            for (int i = 0; i < 1_000; i++) {
+                tree.get(7, read);
+            }
+            assertTrue(pages.getMisses() - misses <= 3, "Repeated lookups should be served from the pool.");
+        }
+    }
+
+    @Test
+    void rejectsTooSmallPoolAndOtherFiles() throws IOException {
+        assertThrows(IllegalArgumentException.class, () -> new PageFile(file.toString(), 2));
+        Files.write(file, new byte[PageFile.PAGE_SIZE]);
+        assertThrows(IOException.class, () -> new PageFile(file.toString(), 8));
+    }
+}
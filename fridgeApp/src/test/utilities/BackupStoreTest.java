@@ -0,0 +1,163 @@
+package utilities;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BackupStoreTest {
+
+    private Path directory;
+    private Path data;
+    private Path backups;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("backup");
+        data = Files.createDirectory(directory.resolve("data"));
+        backups = directory.resolve("backup");
+        Files.writeString(data.resolve("foodlist.csv"), "Milk,Dairy,1.00,Liter,20.00\n");
+        Files.writeString(data.resolve("recipes.csv"), "\"Porridge\",\"Warm\",\"Boil\"\n".repeat(1000));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private List<String> dataFiles() {
+        return List.of(data.resolve("foodlist.csv").toString(),
+            data.resolve("recipes.csv").toString(), data.resolve("missing.csv").toString());
+    }
+
+    private BackupStore storeAt(String time) {
+        return new BackupStore(backups.toString(),
+            Clock.fixed(LocalDateTime.parse(time).toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+    }
+
+    private long countObjects() throws IOException {
+        try (Stream<Path> files = Files.walk(backups.resolve("objects"))) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+
+    @Test
+    void unchangedFilesAreNeitherReadNorStoredAgain() throws IOException {
+        BackupStore store = storeAt("2024-12-12T10:00:00");
+        store.backup(dataFiles());
+        long firstRead = store.getBytesRead();
+
+        store.backup(dataFiles());
+        assertEquals(firstRead, store.getBytesRead(), "Unchanged files should not be read.");
+
+        Files.writeString(data.resolve("foodlist.csv"), "Milk,Dairy,1.00,Liter,125.00\n");
+        long storedBefore = store.getBytesStored();
+        store.backup(dataFiles());
+        assertEquals(storedBefore + Files.size(data.resolve("foodlist.csv")), store.getBytesStored(),
+            "Only the changed file should be stored.");
+        assertEquals(3, store.listSnapshots().size());
+        assertEquals(3, countObjects());
+    }
+
+    @Test
+    void restoresAnEarlierBackup() throws IOException {
+        BackupStore store = storeAt("2024-12-12T10:00:00");
+        String first = store.backup(dataFiles());
+        String original = Files.readString(data.resolve("foodlist.csv"));
+        Files.writeString(data.resolve("foodlist.csv"), "changed\n");
+        store.backup(dataFiles());
+
+        assertEquals(1, store.restore(first, data.toString()),
+            "Only the file that differs should be written.");
+        assertEquals(original, Files.readString(data.resolve("foodlist.csv")));
+
+        Path empty = Files.createDirectory(directory.resolve("empty"));
+        assertEquals(2, store.restore("latest", empty.toString()));
+        assertEquals("changed\n", Files.readString(empty.resolve("foodlist.csv")));
+        assertThrows(IOException.class, () -> store.restore("20000101-000000000", empty.toString()));
+    }
+
+    @Test
+    void sameNamedFilesInDifferentDirectoriesAreKeptApart() throws IOException {
+        Path older = Files.createDirectory(data.resolve("backup"));
+        Files.writeString(older.resolve("recipes.csv"), "older recipes\n");
+        BackupStore store = storeAt("2024-12-12T10:00:00");
+        String snapshot = store.backup(List.of(data.resolve("recipes.csv").toString(),
+            older.resolve("recipes.csv").toString()));
+
+        Path empty = Files.createDirectory(directory.resolve("empty"));
+        assertEquals(2, store.restore(snapshot, empty.toString()));
+        assertEquals(Files.readString(data.resolve("recipes.csv")),
+            Files.readString(empty.resolve("recipes.csv")));
+        assertEquals("older recipes\n", Files.readString(empty.resolve("backup").resolve("recipes.csv")));
+    }
+
+    @Test
+    void sourcesKeepTheirFilesWhileBackedUp() throws IOException {
+        Path journal = Files.createDirectory(data.resolve("journal"));
+        Files.writeString(journal.resolve("journal-1.log"), "first\n");
+        List<String> held = new ArrayList<>();
+        BackupStore.Source source = backup -> {
+            held.add("held");
+            String snapshot = backup.backup(List.of(journal.resolve("journal-1.log").toString()));
+            held.add("released");
+            return snapshot;
+        };
+        BackupStore store = storeAt("2024-12-12T10:00:00");
+        String snapshot = store.backup(data.toString(),
+            List.of(data.resolve("foodlist.csv").toString()), List.of(source));
+        assertEquals(List.of("held", "released"), held);
+        assertThrows(IOException.class, () -> store.backup(journal.toString(),
+            List.of(data.resolve("foodlist.csv").toString()), List.of()),
+            "A file outside the root directory can not be backed up.");
+
+        Files.writeString(journal.resolve("journal-2.log"), "after the backup\n");
+        assertEquals(0, store.restore(snapshot, data.toString()));
+        assertEquals(List.of(journal.resolve("journal-1.log")), listFiles(journal),
+            "Files added to a backed up directory should be removed.");
+        assertTrue(Files.exists(data.resolve("recipes.csv")),
+            "Files in the target directory itself should be kept.");
+    }
+
+    private static List<Path> listFiles(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.toList();
+        }
+    }
+
+    @Test
+    void pruneKeepsNewestBackupOfEachPeriod() throws IOException {
+        storeAt("2024-12-01T08:00:00").backup(dataFiles());
+        Files.writeString(data.resolve("foodlist.csv"), "only in old backups\n");
+        storeAt("2024-12-02T08:00:00").backup(dataFiles());
+        Files.writeString(data.resolve("foodlist.csv"), "newest\n");
+        storeAt("2024-12-09T08:00:00").backup(dataFiles());
+        storeAt("2024-12-09T09:10:00").backup(dataFiles());
+        BackupStore store = storeAt("2024-12-09T09:30:00");
+        String newest = store.backup(dataFiles());
+
+        int removed = store.prune(1, 1, 1);
+
+        assertEquals(4, removed);
+        assertEquals(List.of(newest), store.listSnapshots());
+        assertEquals(2, countObjects(), "Content no backup uses should be deleted.");
+        Path restored = Files.createDirectory(directory.resolve("restored"));
+        assertEquals(2, store.restore("latest", restored.toString()));
+        assertEquals("newest\n", Files.readString(restored.resolve("foodlist.csv")));
+    }
+}
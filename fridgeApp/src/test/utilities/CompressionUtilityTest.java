@@ -0,0 +1,108 @@
+package utilities;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import models.FoodList;
+import models.Fridge;
+import models.Ingredient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import services.FridgeManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompressionUtilityTest {
+
+    private final List<Path> tempFiles = new ArrayList<>();
+    private HashMap<String, Ingredient> ingredients;
+
+    @BeforeEach
+    void setUp() {
+        ingredients = new HashMap<>();
+        for (int i = 0; i < 500; i++) {
+            ingredients.put("Ingredient " + i, new Ingredient("Ingredient " + i, "Dairy", 1.0, "Liter", 2.5));
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        CompressionUtility.setBufferSize(CompressionUtility.DEFAULT_BUFFER_SIZE);
+        for (Path file : tempFiles) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private Path tempFile(String suffix) throws IOException {
+        Path file = Files.createTempFile("compression", suffix);
+        tempFiles.add(file);
+        return file;
+    }
+
+    private static boolean startsWithGzipMagic(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return in.read() == 0x1f && in.read() == 0x8b;
+        }
+    }
+
+    @Test
+    void writesGzipByExtensionAndReadsItBack() throws IOException {
+        Path plain = tempFile(".csv");
+        Path compressed = tempFile(".csv.gz");
+
+        CsvUtility.writeIngredientsToCsv(plain.toString(), ingredients);
+        CsvUtility.writeIngredientsToCsv(compressed.toString(), ingredients);
+
+        assertFalse(startsWithGzipMagic(plain), "Plain files should not be compressed.");
+        assertTrue(startsWithGzipMagic(compressed), "Files ending with .gz should be compressed.");
+        assertTrue(Files.size(compressed) * 5 < Files.size(plain), "Repetitive CSV should compress well.");
+
+        Map<String, Ingredient> read = CsvUtility.readIngredientsFromCsv(compressed.toString());
+        assertEquals(500, read.size(), "All ingredients should be read back.");
+        assertEquals("Liter", read.get("Ingredient 42").getIngredientMeasuringUnit());
+    }
+
+    @Test
+    void detectsGzipByMagicBytes() throws IOException {
+        Path compressed = tempFile(".csv.gz");
+        CsvUtility.writeIngredientsToCsv(compressed.toString(), ingredients);
+        Path renamed = tempFile(".csv");
+        Files.copy(compressed, renamed, StandardCopyOption.REPLACE_EXISTING);
+
+        assertTrue(CompressionUtility.isGzipFile(renamed.toString()));
+        assertEquals(500, CsvUtility.readIngredientsFromCsv(renamed.toString()).size(),
+            "A compressed file should be read even without the .gz name.");
+    }
+
+    @Test
+    void readsCompressedFridgeItemsWithSmallBuffers() throws IOException {
+        CompressionUtility.setBufferSize(16);
+        Path compressed = tempFile(".csv.gz");
+        StringBuilder csv = new StringBuilder("IngredientName,Quantity,ExpirationDate\n");
+        for (int i = 0; i < 1000; i++) {
+            csv.append("Milk,0.50,01012030\n");
+        }
+        PersistenceWriter.writeAtomically(compressed.toString(), writer -> writer.write(csv.toString()));
+
+        FoodList foodList = new FoodList();
+        foodList.createAndAddIngredient("Milk", "Dairy", 1.0, "Liter", 20.0);
+        FridgeManager fridgeManager = new FridgeManager(new Fridge(), foodList);
+        int[] counts = MappedFridgeItemImporter.importFridgeItems(compressed.toString(), fridgeManager).toCounts();
+
+        assertArrayEquals(new int[] {1000, 0}, counts, "The mapped import should fall back to streaming.");
+        assertEquals(500.0, fridgeManager.getFridge().getTotalQuantityOfIngredient("Milk"), 1e-9);
+    }
+
+    @Test
+    void rejectsInvalidBufferSize() {
+        assertThrows(IllegalArgumentException.class, () -> CompressionUtility.setBufferSize(0));
+        assertEquals(CompressionUtility.DEFAULT_BUFFER_SIZE, CompressionUtility.getBufferSize());
+    }
+}
@@ -0,0 +1,14 @@
+package utilities;
+
+import java.nio.file.Path;
+
+class CsvDataStoreTest extends DataStoreContractTest {
+
+    @Override
+    protected DataStore createStore(Path directory) {
+        return new CsvDataStore(directory.resolve("foodlist.csv").toString(),
+            directory.resolve("fridgeitems.csv").toString(),
+            directory.resolve("recipes.csv").toString(),
+            directory.resolve("cookbooks.csv").toString());
+    }
+}
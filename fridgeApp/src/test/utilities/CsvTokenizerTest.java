@@ -0,0 +1,93 @@
+package utilities;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvTokenizerTest {
+
+    private List<String[]> tokenize(String csv, int bufferSize) throws IOException {
+        List<String[]> rows = new ArrayList<>();
+        try (CsvTokenizer tokenizer = new CsvTokenizer(new StringReader(csv), bufferSize)) {
+            tokenizer.forEachRow(row -> {
+                String[] fields = new String[row.getFieldCount()];
+                for (int i = 0; i < fields.length; i++) {
+                    fields[i] = row.getString(i);
+                }
+                rows.add(fields);
+            });
+        }
+        return rows;
+    }
+
+    @Test
+    void splitsPlainRows() throws IOException {
+        List<String[]> rows = tokenize("a,b,c\n1,,3\n", CsvTokenizer.DEFAULT_BUFFER_SIZE);
+
+        assertEquals(2, rows.size(), "A trailing line break should not create a row.");
+        assertArrayEquals(new String[] {"a", "b", "c"}, rows.get(0));
+        assertArrayEquals(new String[] {"1", "", "3"}, rows.get(1), "Empty fields should be kept.");
+    }
+
+    @Test
+    void handlesQuotedFields() throws IOException {
+        String csv = "\"Salt, coarse\",\"He said \"\"hi\"\"\",\"two\r\nlines\"\r\nlast,\"\"";
+
+        for (int bufferSize : new int[] {1, 2, 3, 7, CsvTokenizer.DEFAULT_BUFFER_SIZE}) {
+            List<String[]> rows = tokenize(csv, bufferSize);
+
+            assertEquals(2, rows.size(), "Buffer size " + bufferSize);
+            assertArrayEquals(new String[] {"Salt, coarse", "He said \"hi\"", "two\r\nlines"},
+                rows.get(0), "Buffer size " + bufferSize);
+            assertArrayEquals(new String[] {"last", ""}, rows.get(1), "Buffer size " + bufferSize);
+        }
+    }
+
+    @Test
+    void skipsBlankLinesAndByteOrderMark() throws IOException {
+        List<String[]> rows = tokenize("\uFEFFname\n\n\r\nvalue", 4);
+
+        assertEquals(2, rows.size());
+        assertArrayEquals(new String[] {"name"}, rows.get(0), "The byte order mark should be dropped.");
+        assertArrayEquals(new String[] {"value"}, rows.get(1));
+    }
+
+    @Test
+    void parsesNumbers() throws IOException {
+        String csv = "1.5, -0.25 ,42,1e3,0.1,12345678901234567890.5\n01012025, -7,+3\n";
+        try (CsvTokenizer tokenizer = new CsvTokenizer(new StringReader(csv))) {
+            assertTrue(tokenizer.nextRow());
+            assertEquals(1.5, tokenizer.getDouble(0));
+            assertEquals(-0.25, tokenizer.getDouble(1), "Surrounding whitespace should be ignored.");
+            assertEquals(42.0, tokenizer.getDouble(2));
+            assertEquals(1000.0, tokenizer.getDouble(3), "Exponents should fall back to the JDK parser.");
+            assertEquals(Double.parseDouble("0.1"), tokenizer.getDouble(4));
+            assertEquals(Double.parseDouble("12345678901234567890.5"), tokenizer.getDouble(5));
+
+            assertTrue(tokenizer.nextRow());
+            assertEquals(1012025L, tokenizer.getLong(0));
+            assertEquals(-7L, tokenizer.getLong(1));
+            assertEquals(3L, tokenizer.getLong(2));
+            assertEquals(2, tokenizer.getRowNumber());
+
+            assertFalse(tokenizer.nextRow());
+        }
+    }
+
+    @Test
+    void rejectsInvalidNumbers() throws IOException {
+        try (CsvTokenizer tokenizer = new CsvTokenizer(new StringReader("abc,12x,,1.2.3"))) {
+            assertTrue(tokenizer.nextRow());
+            assertThrows(NumberFormatException.class, () -> tokenizer.getDouble(0));
+            assertThrows(NumberFormatException.class, () -> tokenizer.getLong(1));
+            assertThrows(NumberFormatException.class, () -> tokenizer.getLong(2));
+            assertTrue(tokenizer.isBlank(2));
+            assertThrows(NumberFormatException.class, () -> tokenizer.getDouble(3));
+            assertThrows(IndexOutOfBoundsException.class, () -> tokenizer.getString(4));
+        }
+    }
+}
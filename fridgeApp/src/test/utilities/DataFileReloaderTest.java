@@ -0,0 +1,176 @@
+package utilities;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import models.FoodList;
+import models.Fridge;
+import models.FridgeItem;
+import models.Ingredient;
+import models.Recipe;
+import models.RecipeList;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import services.CookBookManager;
+import services.FridgeManager;
+import services.RecipeManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DataFileReloaderTest {
+
+    private static final String INGREDIENTS_HEADER =
+        "IngredientName,Category,BaseWeight,MeasuringUnit,Cost\n";
+    private static final String RECIPES_HEADER =
+        "RecipeName,Description,Instructions,Type,Ingredients\n";
+
+    private final List<Path> tempFiles = new ArrayList<>();
+    private FoodList foodList;
+    private FridgeManager fridgeManager;
+    private RecipeList recipeList;
+    private RecipeManager recipeManager;
+
+    @BeforeEach
+    void setUp() {
+        foodList = new FoodList();
+        foodList.createAndAddIngredient("Milk", "Dairy", 1.0, "Liter", 20.0);
+        foodList.createAndAddIngredient("Oats", "Grain", 0.5, "Kilogram", 15.0);
+        foodList.createAndAddIngredient("Salt", "Spice", 0.5, "Kilogram", 10.0);
+        fridgeManager = new FridgeManager(new Fridge(), foodList);
+        recipeList = new RecipeList();
+        recipeManager = new RecipeManager(recipeList, fridgeManager);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        for (Path file : tempFiles) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private Path tempFile(String content) throws IOException {
+        Path file = Files.createTempFile("reload", ".csv");
+        tempFiles.add(file);
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    @Test
+    void appliesOnlyChangedIngredients() throws IOException {
+        Ingredient milk = foodList.getIngredientFromFoodList("Milk");
+        fridgeManager.addToFridge("Milk", 1012030);
+        Path file = tempFile(INGREDIENTS_HEADER
+            + "Milk,Dairy,1.00,Liter,20.00\n"
+            + "Oats,Grain,0.50,Kilogram,17.50\n"
+            + "Butter,Dairy,0.25,Kilogram,40.00\n");
+
+        int[] counts = DataFileReloader.reloadFoodList(file.toString(), foodList);
+
+        assertArrayEquals(new int[] {1, 1, 1}, counts);
+        assertSame(milk, foodList.getIngredientFromFoodList("Milk"),
+            "An unchanged ingredient should be left as it is.");
+        assertEquals(17.5, foodList.getIngredientFromFoodList("Oats").getIngredientCost(), 1e-9);
+        assertNotNull(foodList.getIngredientFromFoodList("Butter"));
+        assertNull(foodList.getIngredientFromFoodList("Salt"));
+        assertEquals(1, fridgeManager.getAllInstancesOfIngredient("Milk").size(),
+            "The fridge should not be touched.");
+    }
+
+    @Test
+    void changedIngredientIsUpdatedForFridgeItems() throws IOException {
+        Ingredient milk = foodList.getIngredientFromFoodList("Milk");
+        fridgeManager.addToFridge("Milk", 1012030);
+        FridgeItem item = fridgeManager.getAllInstancesOfIngredient("Milk").get(0);
+        Path file = tempFile(INGREDIENTS_HEADER
+            + "Milk,Dairy,1.50,Liter,25.00\n"
+            + "Oats,Grain,0.50,Kilogram,15.00\n"
+            + "Salt,Spice,0.50,Kilogram,10.00\n");
+
+        assertArrayEquals(new int[] {0, 1, 0}, DataFileReloader.reloadFoodList(file.toString(), foodList));
+        assertSame(milk, foodList.getIngredientFromFoodList("Milk"));
+        assertSame(milk, item.getIngredient());
+        assertEquals(25.0, item.getIngredient().getIngredientCost(), 1e-9,
+            "The fridge item should see the new cost.");
+        assertEquals(1.5, item.getIngredient().getIngredientBaseWeight(), 1e-9);
+    }
+
+    @Test
+    void updatesRecipesInPlace() throws IOException {
+        recipeManager.createNewRecipeWithIngredients("Porridge", "Warm", "Boil", "Breakfast",
+            Map.of("Oats", 0.1, "Milk", 0.3));
+        recipeManager.createNewRecipeWithIngredients("Brine", "Salty", "Mix", "Base",
+            Map.of("Salt", 0.1));
+        CookBookManager cookBookManager = new CookBookManager(recipeList);
+        cookBookManager.createCookBook("Mornings", "Description", "Type");
+        cookBookManager.addRecipeToCookBook("Mornings", "Porridge");
+        Recipe porridge = recipeList.getRecipe("Porridge");
+        Path file = tempFile(RECIPES_HEADER
+            + "\"Porridge\",\"Warm, with salt\",\"Boil\",\"Breakfast\",\"{Oats=0.1, Salt=0.01}\"\n"
+            + "\"Milk glass\",\"Cold\",\"Pour\",\"Drink\",\"{Milk=0.2}\"\n");
+
+        int[] counts = DataFileReloader.reloadRecipes(file.toString(), recipeManager);
+
+        assertArrayEquals(new int[] {1, 1, 1}, counts);
+        assertSame(porridge, recipeList.getRecipe("Porridge"));
+        assertSame(porridge, cookBookManager.getCookBook("Mornings").getRecipeFromCookBook("Porridge"),
+            "The cookbook should see the changed recipe.");
+        assertEquals("Warm, with salt", porridge.getRecipeDescription());
+        assertEquals(Map.of("Oats", 0.1, "Salt", 0.01), porridge.getIngredients());
+        assertNotNull(recipeList.getRecipe("Milk glass"));
+        assertNull(recipeList.getRecipe("Brine"));
+    }
+
+    @Test
+    void unchangedRecipesAreNotTouched() throws IOException {
+        recipeManager.createNewRecipeWithIngredients("Porridge", "Warm", "Boil", "Breakfast",
+            Map.of("Oats", 0.1));
+        long version = recipeList.getVersion();
+        Path file = tempFile(RECIPES_HEADER
+            + "\"Porridge\",\"Warm\",\"Boil\",\"Breakfast\",\"{Oats=0.1}\"\n");
+
+        assertArrayEquals(new int[] {0, 0, 0},
+            DataFileReloader.reloadRecipes(file.toString(), recipeManager));
+        assertEquals(version, recipeList.getVersion());
+    }
+
+    @Test
+    void indexedRecipesSurviveFileChangedInPlace() throws IOException {
+        Path file = tempFile(RECIPES_HEADER
+            + "\"Porridge\",\"Warm\",\"Boil\",\"Breakfast\",\"{Oats=0.1}\"\n"
+            + "\"Brine\",\"Salty\",\"Mix\",\"Base\",\"{Salt=0.1}\"\n");
+        CsvUtility.readRecipesFromCsv(file.toString(), recipeManager);
+        Recipe porridge = recipeList.getRecipe("Porridge");
+        Recipe brine = recipeList.getRecipe("Brine");
+        long version = brine.getVersion();
+
+        Files.writeString(file, RECIPES_HEADER
+            + "\"Milk glass\",\"Cold\",\"Pour\",\"Drink\",\"{Milk=0.2}\"\n"
+            + "\"Porridge\",\"Warm and thick\",\"Boil\",\"Breakfast\",\"{Oats=0.1}\"\n"
+            + "\"Brine\",\"Salty\",\"Mix\",\"Base\",\"{Salt=0.1}\"\n", StandardCharsets.UTF_8);
+
+        assertArrayEquals(new int[] {1, 1, 0},
+            DataFileReloader.reloadRecipes(file.toString(), recipeManager));
+        assertEquals("Warm and thick", porridge.getRecipeDescription());
+        assertEquals(version, brine.getVersion(), "An unchanged recipe should not be touched.");
+        RecipeTextIndex index = (RecipeTextIndex) brine.getTextSource();
+        assertEquals(1, index.getCachedCount(), "Only the changed recipe should be read.");
+        assertEquals("Salty", brine.getRecipeDescription(),
+            "The text should be read from where the row is now.");
+        assertEquals("Mix", brine.getInstructions());
+        assertEquals("Pour", recipeList.getRecipe("Milk glass").getInstructions());
+    }
+
+    @Test
+    void ignoresFilesWithoutRows() throws IOException {
+        Path file = tempFile(INGREDIENTS_HEADER);
+
+        assertNull(DataFileReloader.reloadFoodList(file.toString(), foodList));
+        assertEquals(3, foodList.getFoodList().size(),
+            "A file that is being written should not remove everything.");
+    }
+}
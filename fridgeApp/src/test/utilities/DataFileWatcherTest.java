@@ -0,0 +1,60 @@
+package utilities;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DataFileWatcherTest {
+
+    private Path directory;
+    private DataFileWatcher watcher;
+    private final LinkedBlockingQueue<String> handled = new LinkedBlockingQueue<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("watch");
+        Files.writeString(directory.resolve("foodlist.csv"), "a\n");
+        Files.writeString(directory.resolve("recipes.csv"), "a\n");
+        watcher = new DataFileWatcher(directory.toString(), DataFileWatcher.DEFAULT_SETTLE_MILLIS);
+        watcher.onChange(directory.resolve("foodlist.csv").toString(), () -> handled.add("foodlist"));
+        watcher.onChange(directory.resolve("recipes.csv").toString(), () -> handled.add("recipes"));
+        watcher.start();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        watcher.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    @Test
+    void handlesOnlyTheChangedFile() throws Exception {
+        Files.writeString(directory.resolve("recipes.csv"), "a\nb\n");
+
+        assertEquals("recipes", handled.poll(5, TimeUnit.SECONDS));
+        assertNull(handled.poll(200, TimeUnit.MILLISECONDS),
+            "The other file and repeated events should not be handled.");
+    }
+
+    @Test
+    void skipsFilesMarkedAsUnchanged() throws Exception {
+        Files.writeString(directory.resolve("foodlist.csv"), "a\nb\n");
+        watcher.markUnchanged(directory.resolve("foodlist.csv").toString());
+        Files.writeString(directory.resolve("other.csv"), "x\n");
+
+        assertNull(handled.poll(300, TimeUnit.MILLISECONDS));
+    }
+}
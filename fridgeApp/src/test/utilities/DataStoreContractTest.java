@@ -0,0 +1,187 @@
+package utilities;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import models.FoodList;
+import models.Fridge;
+import models.FridgeItem;
+import models.Ingredient;
+import models.Recipe;
+import models.RecipeList;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import services.CookBookManager;
+import services.FridgeManager;
+import services.RecipeManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The tests every DataStore must pass. Each implementation has a subclass that
+ * creates its store.
+ */
+abstract class DataStoreContractTest {
+
+    private Path directory;
+    private DataStore store;
+    private FoodList foodList;
+    private FridgeManager fridgeManager;
+    private RecipeList recipeList;
+    private RecipeManager recipeManager;
+
+    protected abstract DataStore createStore(Path directory) throws IOException;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("datastore");
+        store = createStore(directory);
+        foodList = new FoodList();
+        foodList.createAndAddIngredient("Milk", "Dairy", 1.0, "Liter", 20.0);
+        foodList.createAndAddIngredient("Salt", "Spice", 0.5, "Kilogram", 15.0);
+        fridgeManager = new FridgeManager(new Fridge(), foodList);
+        recipeList = new RecipeList();
+        recipeManager = new RecipeManager(recipeList, fridgeManager);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        store.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    @Test
+    void ingredientsAndFridgeItemsRoundTrip() throws IOException {
+        fridgeManager.addToFridge("Milk", 1012030);
+        fridgeManager.updateFridgeItemQuantityById(
+            fridgeManager.getAllInstancesOfIngredient("Milk").get(0).getId(), -0.25);
+        fridgeManager.addToFridge("Salt", 15062029);
+
+        store.ingredients().saveAll(foodList.getFoodList());
+        store.fridgeItems().saveAll(fridgeManager.getAllFridgeItems());
+
+        Map<String, Ingredient> read = store.ingredients().loadAll();
+        assertEquals(2, read.size());
+        assertEquals("Kilogram", read.get("Salt").getIngredientMeasuringUnit());
+        assertEquals(15.0, read.get("Salt").getIngredientCost(), 1e-9);
+
+        FridgeManager other = new FridgeManager(new Fridge(), foodList);
+        assertArrayEquals(new int[] {2, 0}, store.fridgeItems().loadAll(other));
+        assertEquals(0.75, other.getAllInstancesOfIngredient("Milk").get(0).getQuantity(), 1e-9,
+            "The saved quantity should be kept.");
+    }
+
+    @Test
+    void namesWithCommasAndQuotesRoundTrip() throws IOException {
+        String name = "Salt, \"fine\"";
+        foodList.createAndAddIngredient(name, "Spice, dry", 0.5, "Kilogram", 12.0);
+        fridgeManager.addToFridge(name, 1012030);
+
+        store.ingredients().saveAll(foodList.getFoodList());
+        store.fridgeItems().saveAll(fridgeManager.getAllFridgeItems());
+
+        Map<String, Ingredient> read = store.ingredients().loadAll();
+        assertEquals(3, read.size());
+        assertEquals("Spice, dry", read.get(name).getIngredientCategory());
+        assertEquals(12.0, read.get(name).getIngredientCost(), 1e-9);
+
+        FridgeManager other = new FridgeManager(new Fridge(), foodList);
+        assertArrayEquals(new int[] {1, 0}, store.fridgeItems().loadAll(other));
+        assertEquals(1, other.getAllInstancesOfIngredient(name).size());
+    }
+
+    @Test
+    void findsFridgeItemsByExpiryAndIngredient() throws IOException {
+        fridgeManager.addToFridge("Milk", 31122029);
+        fridgeManager.addToFridge("Milk", 1012030);
+        fridgeManager.addToFridge("Salt", 15012030);
+        store.fridgeItems().saveAll(fridgeManager.getAllFridgeItems());
+
+        List<FridgeItem> expiring = store.fridgeItems().findExpiringBefore(2012030, foodList);
+        assertEquals(2, expiring.size(),
+            "Dates should be compared by year first, not as ddMMyyyy numbers.");
+        assertTrue(expiring.stream()
+            .allMatch(item -> item.getIngredient().getIngredientName().equals("Milk")));
+
+        List<FridgeItem> salt = store.fridgeItems().findByIngredient("Salt", foodList);
+        assertEquals(1, salt.size());
+        assertEquals(15012030, salt.get(0).getExpirationDate());
+        assertSame(foodList.getIngredientFromFoodList("Salt"), salt.get(0).getIngredient());
+        assertTrue(store.fridgeItems().findByIngredient("Cheese", foodList).isEmpty());
+    }
+
+    @Test
+    void recipesAndCookBooksRoundTrip() throws IOException {
+        recipeManager.createNewRecipeWithIngredients("Porridge", "Says \"yum\", twice",
+            "Boil, then stir", "Breakfast", Map.of("Milk", 0.5));
+        recipeManager.createNewRecipeWithIngredients("Milkshake", "Cold", "Shake", "Drink",
+            Map.of("Milk", 0.3));
+        recipeManager.createNewRecipeWithIngredients("Brine", "Salty", "Mix", "Base",
+            Map.of("Salt", 0.1));
+        CookBookManager cookBookManager = new CookBookManager(recipeList);
+        cookBookManager.createCookBook("Mornings", "Description", "Type");
+        cookBookManager.addRecipeToCookBook("Mornings", "Porridge");
+
+        store.recipes().saveAll(recipeList.getAllRecipes().values());
+        store.cookBooks().saveAll(cookBookManager.getAllCookBooks());
+
+        RecipeList otherList = new RecipeList();
+        RecipeManager other = new RecipeManager(otherList, fridgeManager);
+        assertArrayEquals(new int[] {3, 0}, store.recipes().loadAll(other));
+        Recipe recipe = otherList.getRecipe("Porridge");
+        assertEquals("Says \"yum\", twice", recipe.getRecipeDescription());
+        assertEquals("Boil, then stir", recipe.getInstructions());
+        assertEquals(Map.of("Milk", 0.5), recipe.getIngredients());
+
+        CookBookManager otherCookBooks = new CookBookManager(otherList);
+        assertArrayEquals(new int[] {1, 0, 1, 0}, store.cookBooks().loadAll(otherCookBooks));
+        assertTrue(otherCookBooks.getCookBook("Mornings").containsRecipe("Porridge"));
+
+        assertEquals(List.of("Milkshake", "Porridge"), store.recipes().findRecipeNamesUsing("Milk"));
+        assertTrue(store.recipes().findRecipeNamesUsing("Cheese").isEmpty());
+    }
+
+    @Test
+    void saveAllReplacesPreviousContents() throws IOException {
+        fridgeManager.addToFridge("Milk", 1012030);
+        fridgeManager.addToFridge("Milk", 2012030);
+        store.fridgeItems().saveAll(fridgeManager.getAllFridgeItems());
+
+        FridgeManager fewer = new FridgeManager(new Fridge(), foodList);
+        fewer.addToFridge("Salt", 1012030);
+        store.fridgeItems().saveAll(fewer.getAllFridgeItems());
+
+        assertTrue(store.fridgeItems().findByIngredient("Milk", foodList).isEmpty());
+        assertArrayEquals(new int[] {1, 0},
+            store.fridgeItems().loadAll(new FridgeManager(new Fridge(), foodList)));
+    }
+
+    @Test
+    void backsUpTheFilesItKeepsItsDataIn() throws IOException {
+        store.ingredients().saveAll(foodList.getFoodList());
+        Path data = Files.createDirectory(directory.resolve("data"));
+        BackupStore backupStore = new BackupStore(directory.resolve("backup").toString());
+        String backup = backupStore.backup(directory.toString(), List.of(), List.of(store));
+
+        assertTrue(backupStore.restore(backup, data.toString()) > 0);
+        try (DataStore restored = createStore(data)) {
+            assertEquals(2, restored.ingredients().loadAll().size());
+        }
+    }
+
+    @Test
+    void emptyStoreFindsNothing() throws IOException {
+        assertTrue(store.fridgeItems().findExpiringBefore(1012100, foodList).isEmpty());
+        assertTrue(store.fridgeItems().findByIngredient("Milk", foodList).isEmpty());
+        assertTrue(store.recipes().findRecipeNamesUsing("Milk").isEmpty());
+    }
+}
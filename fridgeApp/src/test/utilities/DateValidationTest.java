@@ -94,4 +94,28 @@ class DateValidationTest {
         assertEquals(1, DateValidation.compareDates(2012024L, 1012024L), "02/01/2024 is after 01/01/2024.");
         assertEquals(1, DateValidation.compareDates(1012025L, 31122024L), "01/01/2025 is after 31/12/2024.");
     }
+
+    @Test
+    void toSortableDate() {
+        assertEquals(20240625, DateValidation.toSortableDate(25062024L), "25/06/2024 should be 20240625.");
+        assertEquals(20240101, DateValidation.toSortableDate(1012024L), "A day without a leading zero should work.");
+        assertEquals(25062024L, DateValidation.fromSortableDate(20240625), "The date should convert back.");
+        assertEquals(1012024L, DateValidation.fromSortableDate(20240101), "The date should convert back.");
+        assertEquals(Integer.MAX_VALUE, DateValidation.toSortableDate(1699999999999L), "A timestamp is not a date.");
+    }
+
+    @Test
+    void toEpochDay() {
+        for (java.time.LocalDate date = java.time.LocalDate.of(1969, 1, 1);
+                date.getYear() <= 2200; date = date.plusDays(17)) {
+            int sortableDate = date.getYear() * 10_000 + date.getMonthValue() * 100 + date.getDayOfMonth();
+            assertEquals(date.toEpochDay(), DateValidation.toEpochDay(sortableDate), date + " should match LocalDate.");
+        }
+    }
+
+    @Test
+    void getTodayAsSortableDate() {
+        assertEquals(DateValidation.toSortableDate(DateValidation.getTodayAsLong()),
+            DateValidation.getTodayAsSortableDate(), "Both forms of today's date should be the same day.");
+    }
 }
@@ -0,0 +1,70 @@
+package utilities;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DayClockTest {
+
+    /**
+     * A clock that only moves when the test moves it.
+     */
+    private static final class ManualClock extends Clock {
+        private Instant now;
+
+        private ManualClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+
+    @Test
+    void changesDayAtMidnight() {
+        ManualClock clock = new ManualClock(LocalDateTime.parse("2024-12-31T23:59:00").toInstant(ZoneOffset.UTC));
+        DayClock dayClock = new DayClock(clock);
+
+        assertEquals(20241231, dayClock.today());
+        assertEquals(31122024L, dayClock.todayAsLong());
+        assertEquals(LocalDateTime.parse("2024-12-31T00:00:00").toLocalDate().toEpochDay(), dayClock.todayAsEpochDay());
+
+        clock.advance(Duration.ofSeconds(59));
+        assertEquals(20241231, dayClock.today(), "It should still be the same day.");
+
+        clock.advance(Duration.ofSeconds(1));
+        assertEquals(20250101, dayClock.today(), "The day should change at midnight.");
+        assertEquals(1012025L, dayClock.todayAsLong());
+
+        clock.advance(Duration.ofDays(-3));
+        assertEquals(20241229, dayClock.today(), "Setting the clock back should change the day too.");
+    }
+
+    @Test
+    void systemClockMatchesToday() {
+        assertEquals(DateValidation.getTodayAsLong(), DayClock.system().todayAsLong());
+        assertEquals(java.time.LocalDate.now().toEpochDay(), DayClock.system().todayAsEpochDay());
+    }
+}
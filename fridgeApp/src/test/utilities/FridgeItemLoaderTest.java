@@ -0,0 +1,109 @@
+package utilities;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import models.FoodList;
+import models.Fridge;
+import models.FridgeItem;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import services.FridgeManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FridgeItemLoaderTest {
+
+    private FridgeManager fridgeManager;
+    private Path csvFile;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        FoodList foodList = new FoodList();
+        foodList.createAndAddIngredient("Milk", "Dairy", 1.0, "Liter", 20.0);
+        foodList.createAndAddIngredient("Butter", "Dairy", 0.25, "Kilogram", 30.0);
+        fridgeManager = new FridgeManager(new Fridge(), foodList);
+        csvFile = Files.createTempFile("fridgeitems", ".csv");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(csvFile);
+    }
+
+    @Test
+    void restoresSavedQuantities() throws IOException {
+        Files.writeString(csvFile, "IngredientName,Quantity,ExpirationDate\n"
+            + "Milk,0.35,01012030\n"
+            + "Butter,0.10,02012030\n"
+            + "Milk,,03012030\n", StandardCharsets.UTF_8);
+
+        FridgeItemLoader.LoadResult result = FridgeItemLoader.loadFromCsv(csvFile.toString(), fridgeManager);
+
+        assertEquals(3, result.getItemsAdded());
+        assertEquals(0, result.getItemsFailed());
+        List<FridgeItem> milk = fridgeManager.getAllInstancesOfIngredient("Milk");
+        assertEquals(0.35, milk.get(0).getQuantity(), "The saved quantity should be kept.");
+        assertEquals(1.0, milk.get(1).getQuantity(), "A blank quantity should fall back to the base weight.");
+        assertEquals(0.10, fridgeManager.getAllInstancesOfIngredient("Butter").get(0).getQuantity());
+        assertEquals(1.35, fridgeManager.getFridge().getTotalQuantityOfIngredient("Milk"), 1e-9,
+            "The fridge total should use the saved quantities.");
+    }
+
+    @Test
+    void savedFridgeRoundTrips() throws IOException {
+        FridgeManager original = new FridgeManager(new Fridge(), fridgeManager.getFoodList());
+        original.addToFridge("Milk", 1012030);
+        original.addToFridge("Butter", 2012030);
+        FridgeItem milk = original.getAllInstancesOfIngredient("Milk").get(0);
+        original.updateFridgeItemQuantityById(milk.getId(), -0.6);
+
+        CsvUtility.writeFridgeItemsToCsv(csvFile.toString(), original.getAllFridgeItems());
+        int[] counts = CsvUtility.readFridgeItemsFromCsv(csvFile.toString(), fridgeManager);
+
+        assertArrayEquals(new int[] {2, 0}, counts);
+        assertEquals(0.4, fridgeManager.getAllInstancesOfIngredient("Milk").get(0).getQuantity(), 1e-9,
+            "A partly used item should be reloaded with what was left.");
+    }
+
+    @Test
+    void rejectsInvalidRowsWithReasons() throws IOException {
+        String csv = "Milk,1.00,01012030\n"
+            + "Cheese,1.00,01012030\n"
+            + "Milk,-1,01012030\n"
+            + "Milk,lots,01012030\n"
+            + "Milk,1.00,123\n"
+            + "Milk,1.00\n";
+        FridgeItemLoader loader = new FridgeItemLoader(fridgeManager, 2);
+        try (CsvTokenizer tokenizer = new CsvTokenizer(new StringReader(csv))) {
+            tokenizer.forEachRow(loader::loadRow);
+        }
+        FridgeItemLoader.LoadResult result = loader.finish();
+
+        assertArrayEquals(new int[] {1, 5}, result.toCounts());
+        assertEquals("Error adding ingredient to fridge: Ingredient not found in FoodList.",
+            result.getErrors().get(0));
+        assertTrue(result.getErrors().get(1).startsWith("Invalid quantity"), "Negative quantities should be rejected.");
+        assertTrue(result.getErrors().get(2).startsWith("Invalid quantity"));
+        assertTrue(result.getErrors().get(3).contains("too short"));
+        assertTrue(result.getErrors().get(4).startsWith("Invalid line"));
+    }
+
+    @Test
+    void addsItemsInBatches() {
+        FridgeItemLoader loader = new FridgeItemLoader(fridgeManager, 2);
+        for (int i = 0; i < 5; i++) {
+            loader.add(fridgeManager.getFoodList().getIngredientFromFoodList("Milk"), 0.5, 1012030);
+        }
+        assertEquals(4, fridgeManager.getAllFridgeItems().size(), "Full batches should be added right away.");
+
+        FridgeItemLoader.LoadResult result = loader.finish();
+        assertEquals(5, result.getItemsAdded());
+        assertEquals(5, fridgeManager.getAllFridgeItems().size(), "The last batch should be added on finish.");
+        assertEquals(2.5, fridgeManager.getFridge().getTotalQuantityOfIngredient("Milk"), 1e-9);
+    }
+}
@@ -0,0 +1,107 @@
+package utilities;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImportPlanTest {
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    void runsIndependentPhasesConcurrently() {
+        List<String> finished = new CopyOnWriteArrayList<>();
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        Runnable waitForOther = () -> {
+            bothStarted.countDown();
+            try {
+                assertTrue(bothStarted.await(5, TimeUnit.SECONDS),
+                    "Both phases should be running at the same time.");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        ImportPlan.Report report = new ImportPlan()
+            .addPhase("Food List", () -> finished.add("Food List"))
+            .addPhase("Fridge Items", () -> {
+                waitForOther.run();
+                sleep(100);
+                finished.add("Fridge Items");
+            }, "Food List")
+            .addPhase("Recipes", () -> {
+                waitForOther.run();
+                sleep(100);
+                finished.add("Recipes");
+            }, "Food List")
+            .addPhase("CookBooks", () -> finished.add("CookBooks"), "Recipes")
+            .run(executor);
+
+        assertEquals("Food List", finished.get(0), "The food list should be loaded first.");
+        assertTrue(finished.indexOf("CookBooks") > finished.indexOf("Recipes"),
+            "Cookbooks should wait for the recipes.");
+        assertEquals(4, report.getTimings().size());
+        report.getTimings().forEach(timing -> assertNull(timing.getFailure()));
+        assertTrue(report.getSumOfPhasesMillis() >= 200, "Both slow phases should be counted.");
+        assertTrue(report.getTotalMillis() < report.getSumOfPhasesMillis(),
+            "Running in parallel should be faster than the sum of the phases.");
+        assertTrue(report.getLongestChainMillis() >= 100
+            && report.getLongestChainMillis() < report.getSumOfPhasesMillis());
+    }
+
+    @Test
+    void skipsPhasesDependingOnFailedPhase() {
+        List<String> finished = new CopyOnWriteArrayList<>();
+
+        ImportPlan.Report report = new ImportPlan()
+            .addPhase("Food List", () -> finished.add("Food List"))
+            .addPhase("Recipes", () -> {
+                throw new IllegalStateException("Broken file");
+            }, "Food List")
+            .addPhase("Fridge Items", () -> finished.add("Fridge Items"), "Food List")
+            .addPhase("CookBooks", () -> finished.add("CookBooks"), "Recipes")
+            .run(executor);
+
+        assertEquals(List.of("Food List", "Fridge Items"), finished,
+            "Only the phases not depending on the failed one should run.");
+        assertEquals("failed: Broken file", report.getTimings().get(1).getFailure());
+        assertNull(report.getTimings().get(2).getFailure(), "Unrelated phases should still run.");
+        assertNotNull(report.getTimings().get(3).getFailure(), "Cookbooks should be skipped.");
+        assertTrue(report.getFormattedReport().contains("CookBooks: skipped"));
+    }
+
+    @Test
+    void rejectsUnknownOrDuplicatePhases() {
+        ImportPlan plan = new ImportPlan().addPhase("Food List", () -> { });
+
+        assertThrows(IllegalArgumentException.class,
+            () -> plan.addPhase("Recipes", () -> { }, "Ingredients"));
+        assertThrows(IllegalArgumentException.class, () -> plan.addPhase("Food List", () -> { }));
+    }
+}
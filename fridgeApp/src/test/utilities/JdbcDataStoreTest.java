@@ -0,0 +1,74 @@
+package utilities;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import models.FoodList;
+import models.Fridge;
+import models.FridgeItem;
+import org.junit.jupiter.api.Test;
+import services.FridgeManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JdbcDataStoreTest extends DataStoreContractTest {
+
+    @Override
+    protected DataStore createStore(Path directory) throws IOException {
+        return new JdbcDataStore(directory.resolve("fridgeapp").toString());
+    }
+
+    @Test
+    void savesOnlyTheRowsThatChanged() throws IOException, SQLException {
+        Path directory = Files.createTempDirectory("jdbc");
+        String databasePath = directory.resolve("fridgeapp").toString();
+        FoodList foodList = new FoodList();
+        foodList.createAndAddIngredient("Milk", "Dairy", 1.0, "Liter", 20.0);
+        FridgeManager fridgeManager = new FridgeManager(new Fridge(), foodList);
+        fridgeManager.addToFridge("Milk", 1012030);
+        fridgeManager.addToFridge("Milk", 2012030);
+        List<FridgeItem> items = fridgeManager.getAllFridgeItems();
+
+        try (JdbcDataStore store = new JdbcDataStore(databasePath);
+            Connection other = DriverManager.getConnection(
+                "jdbc:h2:file:" + Path.of(databasePath).toAbsolutePath(), "sa", "")) {
+            store.fridgeItems().saveAll(items);
+            try (Statement statement = other.createStatement()) {
+                statement.executeUpdate("UPDATE fridge_item SET quantity = 5 WHERE item_id = "
+                    + items.get(0).getId());
+            }
+
+            fridgeManager.updateFridgeItemQuantityById(items.get(1).getId(), -0.5);
+            store.fridgeItems().saveAll(fridgeManager.getAllFridgeItems());
+
+            try (Statement statement = other.createStatement();
+                ResultSet rows = statement.executeQuery(
+                    "SELECT quantity FROM fridge_item ORDER BY item_id")) {
+                assertTrue(rows.next());
+                assertEquals(5.0, rows.getDouble(1), 1e-9, "An unchanged row should not be written.");
+                assertTrue(rows.next());
+                assertEquals(0.5, rows.getDouble(1), 1e-9);
+            }
+
+            FridgeManager loaded = new FridgeManager(new Fridge(), foodList);
+            store.fridgeItems().loadAll(loaded);
+            assertEquals(items.stream().map(FridgeItem::getId).toList(),
+                loaded.getAllFridgeItems().stream().map(FridgeItem::getId).toList(),
+                "Loaded items should keep their IDs.");
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+}
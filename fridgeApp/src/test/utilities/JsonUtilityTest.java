@@ -0,0 +1,155 @@
+package utilities;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import models.FoodList;
+import models.Fridge;
+import models.Ingredient;
+import models.Recipe;
+import models.RecipeList;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import services.CookBookManager;
+import services.FridgeManager;
+import services.RecipeManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonUtilityTest {
+
+    private final List<Path> tempFiles = new ArrayList<>();
+    private FoodList foodList;
+    private FridgeManager fridgeManager;
+    private RecipeList recipeList;
+    private RecipeManager recipeManager;
+
+    @BeforeEach
+    void setUp() {
+        foodList = new FoodList();
+        foodList.createAndAddIngredient("Milk", "Dairy", 1.0, "Liter", 20.0);
+        foodList.createAndAddIngredient("Salt, coarse", "Spice", 0.5, "Kilogram", 15.0);
+        fridgeManager = new FridgeManager(new Fridge(), foodList);
+        recipeList = new RecipeList();
+        recipeManager = new RecipeManager(recipeList, fridgeManager);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        for (Path file : tempFiles) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private Path tempFile(String suffix) throws IOException {
+        Path file = Files.createTempFile("json", suffix);
+        tempFiles.add(file);
+        return file;
+    }
+
+    @Test
+    void ingredientsAndFridgeItemsRoundTrip() throws IOException {
+        Path ingredients = tempFile(".json");
+        Path items = tempFile(".json");
+        fridgeManager.addToFridge("Milk", 1012030);
+        fridgeManager.updateFridgeItemQuantityById(
+            fridgeManager.getAllInstancesOfIngredient("Milk").get(0).getId(), -0.25);
+
+        JsonUtility.writeIngredientsToJson(ingredients.toString(), foodList.getFoodList());
+        JsonUtility.writeFridgeItemsToJson(items.toString(), fridgeManager.getAllFridgeItems());
+
+        Map<String, Ingredient> read = JsonUtility.readIngredientsFromJson(ingredients.toString());
+        assertEquals(2, read.size());
+        assertEquals("Spice", read.get("Salt, coarse").getIngredientCategory(),
+            "Names with commas should survive the round trip.");
+
+        FridgeManager other = new FridgeManager(new Fridge(), foodList);
+        assertArrayEquals(new int[] {1, 0}, JsonUtility.readFridgeItemsFromJson(items.toString(), other));
+        assertEquals(0.75, other.getAllInstancesOfIngredient("Milk").get(0).getQuantity(), 1e-9,
+            "The saved quantity should be kept.");
+    }
+
+    @Test
+    void recipesStoreIngredientsAsObjects() throws IOException {
+        Path recipes = tempFile(".json");
+        Map<String, Double> ingredients = new LinkedHashMap<>();
+        ingredients.put("Milk", 0.5);
+        ingredients.put("Salt, coarse", 0.01);
+        recipeManager.createNewRecipeWithIngredients("Porridge {thick}", "Says \"yum\", twice",
+            "Boil, then stir=done", "Breakfast", ingredients);
+
+        JsonUtility.writeRecipesToJson(recipes.toString(),
+            new ArrayList<>(recipeList.getAllRecipes().values()));
+        String json = Files.readString(recipes, StandardCharsets.UTF_8);
+        assertTrue(json.contains("\"name\": \"Salt, coarse\""), "Ingredients should be JSON objects.");
+        assertTrue(json.contains("\"quantity\": 0.01"));
+
+        RecipeList otherList = new RecipeList();
+        RecipeManager other = new RecipeManager(otherList, fridgeManager);
+        assertArrayEquals(new int[] {1, 0}, JsonUtility.readRecipesFromJson(recipes.toString(), other));
+        Recipe recipe = otherList.getRecipe("Porridge {thick}");
+        assertEquals("Says \"yum\", twice", recipe.getRecipeDescription());
+        assertEquals("Boil, then stir=done", recipe.getInstructions());
+        assertEquals(ingredients, recipe.getIngredients(), "Names with commas should not be split.");
+    }
+
+    @Test
+    void cookBooksKeepDescriptionTypeAndRecipes() throws IOException {
+        Path cookBooks = tempFile(".json.gz");
+        recipeManager.createNewRecipeWithIngredients("Milkshake", "Cold", "Shake", "Drink",
+            Map.of("Milk", 0.3));
+        CookBookManager cookBookManager = new CookBookManager(recipeList);
+        cookBookManager.createCookBook("Summer", "Warm days", "Seasonal");
+        cookBookManager.addRecipeToCookBook("Summer", "Milkshake");
+
+        JsonUtility.writeCookBooksToJson(cookBooks.toString(), cookBookManager.getAllCookBooks());
+        assertTrue(CompressionUtility.isGzipFile(cookBooks.toString()));
+
+        CookBookManager other = new CookBookManager(recipeList);
+        assertArrayEquals(new int[] {1, 0, 1, 0},
+            JsonUtility.readCookBooksFromJson(cookBooks.toString(), other));
+        assertEquals("Seasonal", other.getCookBook("Summer").getCookBookType());
+        assertTrue(other.getCookBook("Summer").containsRecipe("Milkshake"));
+    }
+
+    @Test
+    void countsInvalidRecordsAndSkipsUnknownFields() throws IOException {
+        Path items = tempFile(".json");
+        Files.writeString(items, "[\n"
+            + "  {\"ingredient\": \"Milk\", \"quantity\": 0.5, \"expirationDate\": 1012030, \"note\": {\"a\": 1}},\n"
+            + "  {\"ingredient\": \"Milk\", \"expirationDate\": 1012030},\n"
+            + "  {\"ingredient\": \"Cheese\", \"quantity\": 1, \"expirationDate\": 1012030},\n"
+            + "  {\"ingredient\": \"Milk\", \"quantity\": \"lots\", \"expirationDate\": 1012030},\n"
+            + "  {\"ingredient\": \"Milk\", \"quantity\": 1}\n"
+            + "]", StandardCharsets.UTF_8);
+
+        assertArrayEquals(new int[] {2, 3}, JsonUtility.readFridgeItemsFromJson(items.toString(), fridgeManager));
+        assertEquals(1.5, fridgeManager.getFridge().getTotalQuantityOfIngredient("Milk"), 1e-9,
+            "A missing quantity should fall back to the base weight.");
+    }
+
+    @Test
+    void keepsRecordsReadBeforeBrokenPart() throws IOException {
+        Path recipes = tempFile(".json");
+        Files.writeString(recipes, "[{\"name\": \"Milk glass\", \"description\": \"\", "
+            + "\"instructions\": \"Pour\", \"type\": \"Drink\", "
+            + "\"ingredients\": [{\"name\": \"Milk\", \"quantity\": 0.2}]},\n"
+            + "{\"name\": \"Broken\", \"ingr", StandardCharsets.UTF_8);
+
+        assertArrayEquals(new int[] {1, 0}, JsonUtility.readRecipesFromJson(recipes.toString(), recipeManager));
+        assertNotNull(recipeList.getRecipe("Milk glass"));
+    }
+
+    @Test
+    void recognisesJsonPaths() {
+        assertTrue(JsonUtility.isJsonPath("data/recipes.json"));
+        assertTrue(JsonUtility.isJsonPath("data/recipes.json.gz"));
+        assertFalse(JsonUtility.isJsonPath("data/recipes.csv.gz"));
+    }
+}
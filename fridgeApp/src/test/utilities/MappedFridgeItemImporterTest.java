@@ -0,0 +1,83 @@
+package utilities;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.IntSummaryStatistics;
+import java.util.List;
+import models.FoodList;
+import models.Fridge;
+import models.FridgeItem;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import services.FridgeManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedFridgeItemImporterTest {
+
+    private Path csvFile;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        StringBuilder csv = new StringBuilder("IngredientName,Quantity,ExpirationDate\r\n");
+        for (int i = 0; i < 5000; i++) {
+            switch (i % 5) {
+                case 0 -> csv.append("Milk,1.00,").append(1012030 + i % 3).append("\r\n");
+                case 1 -> csv.append("\"Salt, coarse\",0.50,25062030\n");
+                case 2 -> csv.append("Butter,0.25,").append(10072031).append("\n");
+                case 3 -> csv.append(i % 10 == 3 ? "Unknown,1.00,01012030\n" : "Milk,1.00,123\n");
+                default -> csv.append(i % 2 == 0 ? "Butter,0.25,tomorrow\n" : "Butter,0.25\n");
+            }
+        }
+        csvFile = Files.createTempFile("fridgeitems", ".csv");
+        Files.writeString(csvFile, csv, StandardCharsets.UTF_8);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(csvFile);
+    }
+
+    private FridgeManager newFridgeManager() {
+        FoodList foodList = new FoodList();
+        foodList.createAndAddIngredient("Milk", "Dairy", 1.0, "Liter", 20.0);
+        foodList.createAndAddIngredient("Salt, coarse", "Spice", 0.5, "Kilogram", 15.0);
+        foodList.createAndAddIngredient("Butter", "Dairy", 0.25, "Kilogram", 30.0);
+        return new FridgeManager(new Fridge(), foodList);
+    }
+
+    @Test
+    void importMatchesSequentialImport() {
+        FridgeManager sequential = newFridgeManager();
+        FridgeItemLoader.LoadResult expected = FridgeItemLoader.loadFromCsv(csvFile.toString(), sequential);
+
+        FridgeManager mapped = newFridgeManager();
+        FridgeItemLoader.LoadResult actual = MappedFridgeItemImporter.importFridgeItems(csvFile.toString(), mapped, 4, 1024);
+
+        assertArrayEquals(new int[] {3000, 2000}, expected.toCounts(), "Three in five rows are valid.");
+        assertArrayEquals(expected.toCounts(), actual.toCounts(), "Both imports should add and reject the same rows.");
+        assertEquals(expected.getErrors(), actual.getErrors(), "Both imports should report the same errors in file order.");
+
+        for (String name : List.of("Milk", "Salt, coarse", "Butter")) {
+            List<FridgeItem> expectedItems = sequential.getAllInstancesOfIngredient(name);
+            List<FridgeItem> actualItems = mapped.getAllInstancesOfIngredient(name);
+            assertEquals(expectedItems.size(), actualItems.size(), name);
+            for (int i = 0; i < expectedItems.size(); i++) {
+                assertEquals(expectedItems.get(i).getExpirationDate(), actualItems.get(i).getExpirationDate(), name + " should keep file order.");
+            }
+            assertEquals(sequential.getUsableQuantityOfIngredient(name), mapped.getUsableQuantityOfIngredient(name), 0.001, name);
+        }
+
+        IntSummaryStatistics ids = mapped.getAllFridgeItems().stream().mapToInt(FridgeItem::getId).summaryStatistics();
+        assertEquals(2999, ids.getMax() - ids.getMin(), "Every imported item should get its own ID in one run.");
+    }
+
+    @Test
+    void missingFileImportsNothing() {
+        FridgeItemLoader.LoadResult result = MappedFridgeItemImporter.importFridgeItems(csvFile + ".missing", newFridgeManager());
+        assertArrayEquals(new int[] {0, 0}, result.toCounts());
+    }
+}
@@ -0,0 +1,210 @@
+package utilities;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import models.FoodList;
+import models.Fridge;
+import models.FridgeItem;
+import models.Recipe;
+import models.RecipeList;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import services.CookBookManager;
+import services.FridgeManager;
+import services.RecipeManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MutationJournalTest {
+
+    private Path directory;
+
+    private FoodList foodList;
+    private Fridge fridge;
+    private RecipeList recipeList;
+    private FridgeManager fridgeManager;
+    private RecipeManager recipeManager;
+    private CookBookManager cookBookManager;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("journal");
+        newModels();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private void newModels() {
+        foodList = new FoodList();
+        fridge = new Fridge();
+        recipeList = new RecipeList();
+        fridgeManager = new FridgeManager(fridge, foodList);
+        recipeManager = new RecipeManager(recipeList, fridgeManager);
+        cookBookManager = new CookBookManager(recipeList);
+    }
+
+    private MutationJournal openJournal(long compactionThresholdBytes) throws IOException {
+        MutationJournal journal = new MutationJournal(directory.toString(),
+            compactionThresholdBytes);
+        if (!journal.recover(foodList, fridgeManager, recipeManager, cookBookManager)) {
+            journal.checkpoint(foodList, fridge.getAllFridgeItems(),
+                recipeList.getAllRecipes().values(), cookBookManager.getAllCookBooks());
+        }
+        journal.attach(foodList, fridgeManager, recipeManager, cookBookManager);
+        return journal;
+    }
+
+    private void makeChanges() {
+        foodList.createAndAddIngredient("Milk", "Dairy", 1000, "ml", 25);
+        foodList.createAndAddIngredient("Egg", "Dairy", 1, "pcs", 4);
+        foodList.createAndAddIngredient("Flour", "Baking", 1000, "g", 20);
+        foodList.removeIngredient("Flour");
+
+        fridgeManager.addToFridge("Milk", 1012030);
+        fridgeManager.addToFridge("Milk", 2012030);
+        fridgeManager.addToFridge("Egg", 1012030);
+        int firstMilk = fridgeManager.getAllInstancesOfIngredient("Milk").get(0).getId();
+        int egg = fridgeManager.getAllInstancesOfIngredient("Egg").get(0).getId();
+        fridgeManager.updateFridgeItemQuantityById(firstMilk, -400);
+        fridgeManager.removeFromFridgeById(egg);
+
+        recipeManager.createNewRecipeWithIngredients("Pancakes", "Thin", "Mix and fry", "Dinner",
+            Map.of("Milk", 500.0, "Egg", 3.0));
+        recipeManager.updateRecipeIngredient("Pancakes", "Egg", 2);
+        recipeManager.addRecipe(new Recipe("Omelette", "Quick", "Whisk", "Breakfast"));
+        recipeManager.addIngredientToRecipe("Omelette", "Egg", 3);
+        recipeManager.createNewRecipeWithIngredients("Porridge", "Warm", "Boil", "Breakfast",
+            Map.of("Milk", 300.0));
+        recipeManager.removeRecipe("Porridge");
+
+        cookBookManager.createCookBook("Home", "Everyday food", "Mixed");
+        cookBookManager.addRecipeToCookBook("Home", "Pancakes");
+        cookBookManager.addRecipeToCookBook("Home", "Omelette");
+        cookBookManager.removeRecipeFromCookBook("Home", "Omelette");
+        cookBookManager.createCookBook("Old", "Unused", "Mixed");
+        cookBookManager.deleteCookBook("Old");
+    }
+
+    private void assertChangesRecovered(String message) {
+        assertEquals(2, foodList.getFoodList().size(), message);
+        assertNull(foodList.getIngredientFromFoodList("Flour"), message);
+
+        List<FridgeItem> milk = fridgeManager.getAllInstancesOfIngredient("Milk");
+        assertEquals(2, milk.size(), message);
+        assertEquals(600, milk.get(0).getQuantity(), 1e-9, message);
+        assertEquals(1000, milk.get(1).getQuantity(), 1e-9, message);
+        assertEquals(1600, fridge.getTotalQuantityOfIngredient("Milk"), 1e-9, message);
+        assertTrue(fridgeManager.getAllInstancesOfIngredient("Egg").isEmpty(), message);
+
+        assertEquals(Map.of("Milk", 500.0, "Egg", 2.0),
+            recipeList.getRecipe("Pancakes").getIngredients(), message);
+        assertEquals(Map.of("Egg", 3.0), recipeList.getRecipe("Omelette").getIngredients(),
+            message);
+        assertNull(recipeList.getRecipe("Porridge"), message);
+
+        assertEquals(1, cookBookManager.getAllCookBooks().size(), message);
+        assertSame(recipeList.getRecipe("Pancakes"),
+            cookBookManager.getCookBook("Home").getRecipeFromCookBook("Pancakes"), message);
+        assertEquals(1, cookBookManager.getCookBook("Home").getRecipeCount(), message);
+    }
+
+    @Test
+    void backupHoldsTheChangesRecordedBeforeIt() throws Exception {
+        MutationJournal journal = openJournal(MutationJournal.DEFAULT_COMPACTION_THRESHOLD_BYTES);
+        makeChanges();
+        BackupStore backupStore = new BackupStore(directory.resolve("backup").toString());
+        String backup = backupStore.backup(directory.toString(), List.of(), List.of(journal));
+        foodList.createAndAddIngredient("Butter", "Dairy", 500, "g", 40);
+        journal.close();
+
+        Path restored = directory.resolve("restored");
+        backupStore.restore(backup, restored.toString());
+        newModels();
+        MutationJournal recovered = new MutationJournal(restored.toString());
+        assertTrue(recovered.recover(foodList, fridgeManager, recipeManager, cookBookManager));
+        assertChangesRecovered("A change made after the backup should not be restored.");
+        recovered.close();
+    }
+
+    @Test
+    void replaysChangesAfterRestart() throws Exception {
+        MutationJournal journal = openJournal(MutationJournal.DEFAULT_COMPACTION_THRESHOLD_BYTES);
+        makeChanges();
+        journal.flush().get();
+
+        // Recover without closing, as after a crash.
+        newModels();
+        MutationJournal recovered = new MutationJournal(directory.toString());
+        assertTrue(recovered.recover(foodList, fridgeManager, recipeManager, cookBookManager),
+            "The journal should have a checkpoint.");
+        assertChangesRecovered("After replaying the segment.");
+
+        journal.close();
+        recovered.close();
+    }
+
+    @Test
+    void compactsIntoCheckpoint() throws Exception {
+        MutationJournal journal = openJournal(256);
+        makeChanges();
+        journal.close();
+
+        try (Stream<Path> files = Files.list(directory)) {
+            List<String> names = files.map(file -> file.getFileName().toString()).toList();
+            assertEquals(1, names.size(), "Only one checkpoint should be left: " + names);
+            assertTrue(names.get(0).startsWith("checkpoint-"), names.toString());
+        }
+
+        newModels();
+        MutationJournal reopened = openJournal(256);
+        assertChangesRecovered("After compaction.");
+
+        fridgeManager.addToFridge("Egg", 5012030);
+        reopened.close();
+
+        newModels();
+        openJournal(256).close();
+        assertEquals(1, fridgeManager.getAllInstancesOfIngredient("Egg").size(),
+            "Changes after reopening should be kept.");
+    }
+
+    @Test
+    void ignoresTornTail() throws Exception {
+        MutationJournal journal = openJournal(MutationJournal.DEFAULT_COMPACTION_THRESHOLD_BYTES);
+        foodList.createAndAddIngredient("Milk", "Dairy", 1000, "ml", 25);
+        fridgeManager.addToFridge("Milk", 1012030);
+        fridgeManager.addToFridge("Milk", 2012030);
+        journal.flush().get();
+
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.filter(file -> file.getFileName().toString().endsWith(".log"))
+                .findFirst().orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        newModels();
+        new MutationJournal(directory.toString()).recover(foodList, fridgeManager,
+            recipeManager, cookBookManager);
+        assertNotNull(foodList.getIngredientFromFoodList("Milk"));
+        assertEquals(1, fridgeManager.getAllInstancesOfIngredient("Milk").size(),
+            "The half-written last record should be dropped.");
+    }
+}
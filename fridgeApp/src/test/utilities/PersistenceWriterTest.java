@@ -0,0 +1,116 @@
+package utilities;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistenceWriterTest {
+
+    private Path directory;
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("persistence");
+        file = directory.resolve("data.csv");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    private long fileCount() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    @Test
+    void writeAtomicallyReplacesFile() throws IOException {
+        Files.writeString(file, "old");
+
+        PersistenceWriter.writeAtomically(file.toString(), writer -> writer.write("new"));
+
+        assertEquals("new", Files.readString(file), "The file should be replaced.");
+        assertEquals(1, fileCount(), "No temporary file should be left behind.");
+    }
+
+    @Test
+    void failedWriteKeepsOldFile() throws IOException {
+        Files.writeString(file, "old");
+
+        assertThrows(IOException.class, () -> PersistenceWriter.writeAtomically(file.toString(),
+            writer -> {
+                writer.write("half of the new");
+                throw new IOException("Disk full");
+            }));
+
+        assertEquals("old", Files.readString(file), "The old file should be untouched.");
+        assertEquals(1, fileCount(), "No temporary file should be left behind.");
+    }
+
+    @Test
+    void saveWritesNewestContent() throws Exception {
+        PersistenceWriter persistenceWriter = new PersistenceWriter();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            String content = "version " + i;
+            futures.add(persistenceWriter.save(file.toString(), writer -> writer.write(content)));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get();
+        persistenceWriter.close();
+
+        assertEquals("version 49", Files.readString(file, StandardCharsets.UTF_8),
+            "The last save should win.");
+        assertEquals(1, fileCount(), "No temporary file should be left behind.");
+    }
+
+    @Test
+    void saveFormatsContentOnTheBackgroundThread() throws Exception {
+        PersistenceWriter persistenceWriter = new PersistenceWriter();
+        Thread caller = Thread.currentThread();
+        List<Thread> writers = new ArrayList<>();
+
+        persistenceWriter.save(file.toString(), writer -> {
+            writers.add(Thread.currentThread());
+            writer.write("data");
+        }).get();
+        persistenceWriter.close();
+
+        assertEquals(1, writers.size());
+        assertNotSame(caller, writers.get(0), "The content should not be written by the caller.");
+        assertEquals("data", Files.readString(file, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void saveReportsFailure() {
+        PersistenceWriter persistenceWriter = new PersistenceWriter();
+        String missing = directory.resolve("missing").resolve("data.csv").toString();
+
+        CompletableFuture<Void> future = persistenceWriter.save(missing,
+            writer -> writer.write("data"));
+        ExecutionException e = assertThrows(ExecutionException.class, future::get);
+        assertInstanceOf(IOException.class, e.getCause(), "The cause should be the IOException.");
+
+        persistenceWriter.close();
+        assertTrue(persistenceWriter.save(file.toString(), writer -> writer.write("late"))
+            .isCompletedExceptionally(), "Saving after close should fail.");
+    }
+}
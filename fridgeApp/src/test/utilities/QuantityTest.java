@@ -0,0 +1,40 @@
+package utilities;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuantityTest {
+
+    @Test
+    void convertsDecimalsExactly() {
+        assertEquals(250_000L, Quantity.toMicros(0.25), "0.25 should be 250000 micro-units.");
+        assertEquals(100_000L, Quantity.toMicros(0.1), "0.1 should be 100000 micro-units.");
+        assertEquals(0.3, Quantity.toDouble(Quantity.toMicros(0.1) + Quantity.toMicros(0.2)),
+            "0.1 + 0.2 should be exactly 0.3.");
+
+        long micros = Quantity.toMicros(1.0);
+        for (int i = 0; i < 10; i++) {
+            micros -= Quantity.toMicros(0.1);
+        }
+        assertEquals(0L, micros, "Taking 0.1 ten times from 1.0 should leave exactly nothing.");
+    }
+
+    @Test
+    void convertsBetweenUnits() {
+        assertEquals(900_000L, Quantity.convert(Quantity.toMicros(900), "mL", "L"), "900 mL should be 0.9 L.");
+        assertEquals(Quantity.toMicros(2500), Quantity.convert(Quantity.toMicros(2.5), "kg", "g"));
+        assertEquals(1_000_000L, Quantity.convert(1_000_000L, "amount", "amount"));
+        assertEquals(-1L, Quantity.convert(1_000_000L, "g", "L"), "Grams should not convert to liters.");
+    }
+
+    @Test
+    void format() {
+        assertEquals("0.5", Quantity.format(500_000L, 1));
+        assertEquals("2.0", Quantity.format(2_000_000L, 1));
+        assertEquals("1.00", Quantity.format(1_000_000L, 2));
+        assertEquals("0.125", Quantity.format(125_000L, 2));
+        assertEquals("0.000001", Quantity.format(1L, 1));
+        assertEquals("-1.50", Quantity.format(-1_500_000L, 2));
+    }
+}
@@ -0,0 +1,124 @@
+package utilities;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import models.FoodList;
+import models.Fridge;
+import models.Recipe;
+import models.RecipeList;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import services.FridgeManager;
+import services.RecipeManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecipeTextIndexTest {
+
+    private Path csvFile;
+    private RecipeList recipeList;
+    private RecipeManager recipeManager;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        FoodList foodList = new FoodList();
+        foodList.createAndAddIngredient("Milk", "Dairy", 1.0, "Liter", 20.0);
+        foodList.createAndAddIngredient("Oats", "Grain", 1.0, "Kilogram", 30.0);
+        recipeList = new RecipeList();
+        recipeManager = new RecipeManager(recipeList, new FridgeManager(new Fridge(), foodList));
+        csvFile = Files.createTempFile("recipes", ".csv");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(csvFile);
+    }
+
+    @Test
+    void loadsTextFromFileWhenAskedFor() throws IOException {
+        Files.writeString(csvFile, "RecipeName,Description,Instructions,Type,Ingredients\r\n"
+            + "\"Grøt\",\"Varm, god\",\"Kok opp.\nRør godt, og server.\",\"Frokost\",\"{Milk=0.5, Oats=0.1}\"\r\n"
+            + "\"Milk glass\",\"Says \"\"cold\"\"\",\"Pour\",\"Drink\",\"{Milk=0.2}\"\r\n",
+            StandardCharsets.UTF_8);
+
+        assertArrayEquals(new int[] {2, 0}, CsvUtility.readRecipesFromCsv(csvFile.toString(), recipeManager));
+
+        Recipe porridge = recipeList.getRecipe("Grøt");
+        assertEquals("Frokost", porridge.getRecipeType());
+        assertEquals(Map.of("Milk", 0.5, "Oats", 0.1), porridge.getIngredients());
+        assertEquals("Varm, god", porridge.getRecipeDescription());
+        assertEquals("Kok opp.\nRør godt, og server.", porridge.getInstructions(),
+            "Multi-line and non-ASCII text should be read from the right place.");
+        assertEquals("Says \"cold\"", recipeList.getRecipe("Milk glass").getRecipeDescription());
+    }
+
+    @Test
+    void cacheIsBounded() throws IOException {
+        List<Recipe> recipes = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Recipe recipe = new Recipe("Recipe " + i, "Description " + i, "Instructions " + i, "Type");
+            recipe.addIngredient("Milk", 0.1);
+            recipes.add(recipe);
+        }
+        CsvUtility.writeRecipesToCsv(csvFile.toString(), recipes);
+
+        RecipeTextIndex index = new RecipeTextIndex(csvFile.toString(), 3);
+        List<String> names = new ArrayList<>();
+        index.scan(row -> names.add(row.getString(0)));
+        assertEquals(10, names.size());
+        assertEquals(0, index.getCachedCount(), "Nothing should be cached before it is used.");
+
+        for (String name : names) {
+            assertEquals(name.replace("Recipe", "Instructions"), index.getInstructions(name));
+        }
+        assertEquals(3, index.getCachedCount(), "The cache should not grow past its size.");
+        assertEquals("Description 9", index.getDescription("Recipe 9"));
+        assertEquals("", index.getDescription("Unknown"));
+        index.close();
+    }
+
+    @Test
+    void textIsHashedWithoutBeingTokenized() throws IOException {
+        String description = "Søt og \"god\", med 🍓";
+        String instructions = "Bland.\r\nServer kald.";
+        Files.writeString(csvFile, "RecipeName,Description,Instructions,Type,Ingredients\n"
+            + "\"Smoothie\",\"  Søt og \"\"god\"\", med 🍓 \",\"" + instructions + "\t\","
+            + "\"Drink\",\"{Milk=0.2}\"\n", StandardCharsets.UTF_8);
+
+        RecipeTextIndex index = new RecipeTextIndex(csvFile.toString(), 1);
+        List<String> rows = new ArrayList<>();
+        index.scan(row -> rows.add(row.rowToString()));
+
+        assertEquals(List.of("Smoothie,,,Drink,{Milk=0.2}"), rows,
+            "Only the name, type and ingredients should be passed on.");
+        assertEquals(RecipeTextIndex.textHash(description, instructions),
+            index.getTextHash("Smoothie"), "The hash should match the hash of the trimmed text.");
+        assertEquals(description, index.getDescription("Smoothie"));
+        assertEquals(instructions, index.getInstructions("Smoothie"));
+        index.close();
+    }
+
+    @Test
+    void textSurvivesFileBeingSaved() throws IOException {
+        Files.writeString(csvFile, "RecipeName,Description,Instructions,Type,Ingredients\n"
+            + "\"Milk glass\",\"Cold\",\"Pour\",\"Drink\",\"{Milk=0.2}\"\n", StandardCharsets.UTF_8);
+        CsvUtility.readRecipesFromCsv(csvFile.toString(), recipeManager, 1);
+
+        Recipe extra = new Recipe("A longer recipe name first", "Other", "Other", "Other");
+        List<Recipe> saved = new ArrayList<>();
+        saved.add(extra);
+        saved.addAll(recipeList.getAllRecipes().values());
+        CsvUtility.writeRecipesToCsv(csvFile.toString(), saved);
+
+        Recipe recipe = recipeList.getRecipe("Milk glass");
+        assertEquals("Cold", recipe.getRecipeDescription(),
+            "The text should be read from the file that was loaded.");
+        assertEquals("Pour", recipe.getInstructions());
+    }
+}
@@ -0,0 +1,157 @@
+package utilities;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import models.CookBook;
+import models.FoodList;
+import models.Fridge;
+import models.FridgeItem;
+import models.Recipe;
+import models.RecipeList;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import services.CookBookManager;
+import services.FridgeManager;
+import services.RecipeManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotUtilityTest {
+
+    private final List<Path> tempFiles = new ArrayList<>();
+
+    private FoodList foodList;
+    private Fridge fridge;
+    private RecipeList recipeList;
+    private FridgeManager fridgeManager;
+    private RecipeManager recipeManager;
+    private CookBookManager cookBookManager;
+
+    @BeforeEach
+    void setUp() {
+        foodList = new FoodList();
+        fridge = new Fridge();
+        recipeList = new RecipeList();
+        fridgeManager = new FridgeManager(fridge, foodList);
+        recipeManager = new RecipeManager(recipeList, fridgeManager);
+        cookBookManager = new CookBookManager(recipeList);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        for (Path file : tempFiles) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private Path tempFile(String suffix) throws IOException {
+        Path file = Files.createTempFile("snapshot", suffix);
+        tempFiles.add(file);
+        return file;
+    }
+
+    @Test
+    void writeAndReadSnapshot() throws IOException {
+        foodList.createAndAddIngredient("Milk", "Dairy", 1.0, "Liter", 20.0);
+        foodList.createAndAddIngredient("Crème fraîche", "Dairy", 0.3, "Liter", 25.0);
+        fridgeManager.addToFridge("Milk", 1012030);
+        fridgeManager.addToFridge("Crème fraîche", 25062030);
+        fridgeManager.getAllInstancesOfIngredient("Milk").get(0).deductQuantity(0.35);
+
+        Recipe soup = new Recipe("Soup", "Creamy, \"thick\" soup", "Boil.\nServe hot.", "Dinner");
+        soup.addIngredient("Milk", 0.5);
+        soup.addIngredient("Crème fraîche", 0.1);
+        recipeManager.addRecipe(soup);
+        cookBookManager.createCookBook("Soups", "Warm soups", "Dinner");
+        cookBookManager.addRecipeToCookBook("Soups", "Soup");
+
+        Path snapshot = tempFile(".bin");
+        SnapshotUtility.writeSnapshot(snapshot.toString(), foodList, fridge.getAllFridgeItems(),
+            recipeList.getAllRecipes().values(), cookBookManager.getAllCookBooks());
+
+        FoodList loadedFoodList = new FoodList();
+        Fridge loadedFridge = new Fridge();
+        RecipeList loadedRecipes = new RecipeList();
+        FridgeManager loadedFridgeManager = new FridgeManager(loadedFridge, loadedFoodList);
+        RecipeManager loadedRecipeManager = new RecipeManager(loadedRecipes, loadedFridgeManager);
+        CookBookManager loadedCookBooks = new CookBookManager(loadedRecipes);
+
+        int[] counts = SnapshotUtility.readSnapshot(snapshot.toString(), loadedFoodList,
+            loadedFridgeManager, loadedRecipeManager, loadedCookBooks);
+
+        assertArrayEquals(new int[] {2, 2, 1, 1}, counts);
+        assertEquals(0.3, loadedFoodList.getIngredientFromFoodList("Crème fraîche").getIngredientBaseWeight());
+        assertEquals(0.65, loadedFridge.getTotalQuantityOfIngredient("Milk"), 0.0001, "The used part of the milk should not come back.");
+        assertEquals(25062030L, loadedFridge.getAllIngredientInstancesByName("Crème fraîche").get(0).getExpirationDate());
+
+        Recipe loadedSoup = loadedRecipes.getRecipe("Soup");
+        assertEquals(soup.getRecipeDescription(), loadedSoup.getRecipeDescription());
+        assertEquals(soup.getInstructions(), loadedSoup.getInstructions());
+        assertEquals(soup.getIngredients(), loadedSoup.getIngredients());
+
+        CookBook loadedCookBook = loadedCookBooks.getCookBook("Soups");
+        assertEquals("Warm soups", loadedCookBook.getCookBookDescription());
+        assertSame(loadedSoup, loadedCookBook.getRecipeFromCookBook("Soup"), "The cookbook should hold the loaded recipe.");
+    }
+
+    @Test
+    void readSnapshotRejectsOtherFiles() throws IOException {
+        Path notSnapshot = tempFile(".bin");
+        Files.writeString(notSnapshot, "IngredientName,Quantity,ExpirationDate\n");
+        assertThrows(IOException.class, () -> SnapshotUtility.readSnapshot(notSnapshot.toString(),
+            foodList, fridgeManager, recipeManager, cookBookManager));
+
+        foodList.createAndAddIngredient("Milk", "Dairy", 1.0, "Liter", 20.0);
+        Path snapshot = tempFile(".bin");
+        SnapshotUtility.writeSnapshot(snapshot.toString(), foodList, List.of(), List.of(), cookBookManager.getAllCookBooks());
+        byte[] bytes = Files.readAllBytes(snapshot);
+        Files.write(snapshot, Arrays.copyOf(bytes, bytes.length - 6));
+
+        FoodList emptyFoodList = new FoodList();
+        assertThrows(IOException.class, () -> SnapshotUtility.readSnapshot(snapshot.toString(),
+            emptyFoodList, fridgeManager, recipeManager, cookBookManager));
+        assertTrue(emptyFoodList.getFoodList().isEmpty(), "Nothing should be loaded from a damaged snapshot.");
+    }
+
+    @Test
+    void convertCsvToSnapshotAndBack() throws IOException {
+        foodList.createAndAddIngredient("Milk", "Dairy", 1.0, "Liter", 20.0);
+        foodList.createAndAddIngredient("Flour", "Baking", 1.0, "Kilogram", 15.0);
+        fridgeManager.addToFridge("Milk", 1012030);
+        fridgeManager.addToFridge("Flour", 25062030);
+        fridgeManager.addToFridge("Flour", 26062030);
+        recipeManager.createNewRecipeWithIngredients("Pancakes", "Thin, with jam", "Mix and fry.",
+            "Breakfast", Map.of("Milk", 0.5, "Flour", 0.25));
+        cookBookManager.createCookBook("Breakfast Ideas", "Description", "Type");
+        cookBookManager.addRecipeToCookBook("Breakfast Ideas", "Pancakes");
+
+        Path[] original = {tempFile(".csv"), tempFile(".csv"), tempFile(".csv"), tempFile(".csv")};
+        CsvUtility.writeIngredientsToCsv(original[0].toString(), foodList.getFoodList());
+        CsvUtility.writeFridgeItemsToCsv(original[1].toString(), fridge.getAllFridgeItems());
+        CsvUtility.writeRecipesToCsv(original[2].toString(), new ArrayList<>(recipeList.getAllRecipes().values()));
+        CsvUtility.writeCookBooksToCsv(original[3].toString(), cookBookManager.getAllCookBooks());
+
+        Path snapshot = tempFile(".bin");
+        SnapshotUtility.convertCsvToSnapshot(original[0].toString(), original[1].toString(),
+            original[2].toString(), original[3].toString(), snapshot.toString());
+
+        Path[] converted = {tempFile(".csv"), tempFile(".csv"), tempFile(".csv"), tempFile(".csv")};
+        SnapshotUtility.convertSnapshotToCsv(snapshot.toString(), converted[0].toString(),
+            converted[1].toString(), converted[2].toString(), converted[3].toString());
+
+        for (int i = 0; i < original.length; i++) {
+            List<String> expected = new ArrayList<>(Files.readAllLines(original[i]));
+            List<String> actual = new ArrayList<>(Files.readAllLines(converted[i]));
+            expected.sort(Comparator.naturalOrder());
+            actual.sort(Comparator.naturalOrder());
+            assertEquals(expected, actual, "CSV file " + i + " should survive the round trip.");
+        }
+    }
+}
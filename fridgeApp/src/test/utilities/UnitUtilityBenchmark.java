@@ -0,0 +1,73 @@
+package utilities;
+
+import java.util.Random;
+
+/**
+ * Benchmark of UnitUtility.convertUnit against the chain of String comparisons
+ * it replaced.
+ * Run the main method with optional arguments: conversions, rounds.
+ */
+public class UnitUtilityBenchmark {
+
+    private static final String[] UNITS = { "g", "kg", "mL", "cL", "L" };
+
+    public static void main(String[] args) {
+        int conversions = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        Random random = new Random(42);
+        String[] from = new String[1024];
+        String[] to = new String[1024];
+        for (int i = 0; i < from.length; i++) {
+            from[i] = UNITS[random.nextInt(UNITS.length)];
+            to[i] = UNITS[random.nextInt(UNITS.length)];
+        }
+
+        for (int round = 1; round <= rounds; round++) {
+            long start = System.nanoTime();
+            double chainSum = 0;
+            for (int i = 0; i < conversions; i++) {
+                chainSum += convertWithChain(i, from[i & 1023], to[i & 1023]);
+            }
+            long chainNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            double tableSum = 0;
+            for (int i = 0; i < conversions; i++) {
+                tableSum += UnitUtility.convertUnit(i, from[i & 1023], to[i & 1023]);
+            }
+            long tableNanos = System.nanoTime() - start;
+
+            System.out.printf("Round %d: chain %.1f ns/op, table %.1f ns/op (sums %.0f, %.0f)%n",
+                    round, (double) chainNanos / conversions, (double) tableNanos / conversions,
+                    chainSum, tableSum);
+        }
+    }
+
+    /**
+     * The conversion as it was before the unit table.
+     */
+    private static double convertWithChain(double quantity, String fromUnit, String toUnit) {
+        if (fromUnit.equals(toUnit)) {
+            return quantity;
+        } else if (fromUnit.equals("g") && toUnit.equals("kg")) {
+            return quantity * UnitUtility.GRAMS_TO_KG;
+        } else if (fromUnit.equals("kg") && toUnit.equals("g")) {
+            return quantity * UnitUtility.KG_TO_GRAMS;
+        } else if (fromUnit.equals("mL") && toUnit.equals("L")) {
+            return quantity * UnitUtility.MILLILITERS_TO_LITERS;
+        } else if (fromUnit.equals("cL") && toUnit.equals("L")) {
+            return quantity * UnitUtility.CENTILITERS_TO_LITERS;
+        } else if (fromUnit.equals("mL") && toUnit.equals("cL")) {
+            return quantity * UnitUtility.MILLILITER_TO_CENTILITER;
+        } else if (fromUnit.equals("L") && toUnit.equals("cL")) {
+            return quantity * UnitUtility.LITER_TO_CENTILITER;
+        } else if (fromUnit.equals("L") && toUnit.equals("mL")) {
+            return quantity * UnitUtility.LITER_TO_MILLILITER;
+        } else if (fromUnit.equals("cL") && toUnit.equals("mL")) {
+            return quantity * UnitUtility.CENTILITER_TO_MILLILITER;
+        } else {
+            return -1;
+        }
+    }
+}
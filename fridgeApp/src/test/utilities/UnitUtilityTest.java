@@ -43,7 +43,7 @@ class UnitUtilityTest {
         assertEquals(-1.0, UnitUtility.convertUnit(1.0, "L", "g"), "Converting liters to grams should return -1.");
 
         // Invalid unit conversions with unknown units
-        assertEquals(-1.0, UnitUtility.convertUnit(100.0, "oz", "g"), "Converting unknown unit 'oz' to grams should return -1.");
+        assertEquals(-1.0, UnitUtility.convertUnit(100.0, "stone", "g"), "Converting unknown unit 'stone' to grams should return -1.");
         assertEquals(-1.0, UnitUtility.convertUnit(1.0, "kg", "pound"), "Converting kilograms to unknown unit 'pound' should return -1.");
         assertEquals(-1.0, UnitUtility.convertUnit(50.0, "cL", "ml"), "Converting centiliters to unknown unit 'ml' (case-sensitive) should return -1.");
     }
@@ -76,10 +76,36 @@ class UnitUtilityTest {
         assertFalse(UnitUtility.isValidCompatability("L", "kg"), "Liters should not be compatible with kilograms.");
 
         // Invalid compatibilities with unknown units
-        assertFalse(UnitUtility.isValidCompatability("oz", "g"), "Unknown unit 'oz' should not be compatible with grams.");
+        assertFalse(UnitUtility.isValidCompatability("stone", "g"), "Unknown unit 'stone' should not be compatible with grams.");
         assertFalse(UnitUtility.isValidCompatability("kg", "pound"), "Kilograms should not be compatible with unknown unit 'pound'.");
         assertFalse(UnitUtility.isValidCompatability("cL", "ml"), "Centiliters should not be compatible with unknown unit 'ml' (case-sensitive).");
         assertFalse(UnitUtility.isValidCompatability("g", "unknown"), "Grams should not be compatible with unknown unit 'unknown'.");
         assertFalse(UnitUtility.isValidCompatability("unknown1", "unknown2"), "Unknown units should not be compatible with each other.");
     }
+
+    @Test
+    void convertsAddedUnits() {
+        assertEquals(2834.9523125, UnitUtility.convertUnit(100.0, "oz", "g"), 0.0001, "100 ounces should convert to 2834.95 grams.");
+        assertEquals(16.0, UnitUtility.convertUnit(1.0, "lb", "oz"), 0.0001, "A pound should be 16 ounces.");
+        assertEquals(0.25, UnitUtility.convertUnit(2.5, "dL", "L"), 0.0001, "2.5 deciliters should convert to 0.25 liters.");
+        assertEquals(3.0, UnitUtility.convertUnit(1.0, "tbsp", "tsp"), 0.0001, "A tablespoon should be three teaspoons.");
+        assertEquals(6.0, UnitUtility.convertUnit(6.0, "pieces", "amount"), "Pieces and amount should both count items.");
+
+        assertTrue(UnitUtility.isValidCompatability("oz", "g"), "Ounces should be compatible with grams.");
+        assertFalse(UnitUtility.isValidCompatability("tsp", "g"), "Teaspoons should not be compatible with grams.");
+        assertEquals(-1.0, UnitUtility.convertUnit(2.0, "pieces", "kg"), "Pieces should not convert to kilograms.");
+        assertEquals(UnitUtility.Dimension.VOLUME, UnitUtility.getDimension("dL"));
+        assertNull(UnitUtility.getDimension("ml"), "Unit symbols are case-sensitive.");
+    }
+
+    @Test
+    void registerUnit() {
+        UnitUtility.registerUnit("cup", UnitUtility.Dimension.VOLUME, 250);
+
+        assertEquals(2.5, UnitUtility.convertUnit(1.0, "cup", "dL"), 0.0001, "A cup should be 2.5 deciliters.");
+        assertTrue(UnitUtility.isValidCompatability("L", "cup"), "A registered unit should be compatible with its dimension.");
+        assertEquals(1000.0, UnitUtility.convertUnit(1.0, "L", "mL"), "Registering a unit should not change the others.");
+        assertThrows(IllegalArgumentException.class, () -> UnitUtility.registerUnit("", UnitUtility.Dimension.WEIGHT, 1));
+        assertThrows(IllegalArgumentException.class, () -> UnitUtility.registerUnit("bad", UnitUtility.Dimension.WEIGHT, 0));
+    }
 }